@@ -0,0 +1,485 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Objects;
+import java.nio.DoubleBuffer;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A sequence of points stored in a single array, with the coordinates of each point stored consecutively:
+ * (<var>x</var><sub>0</sub>, <var>y</var><sub>0</sub>, <var>x</var><sub>1</sub>, <var>y</var><sub>1</sub>, …).
+ * This is much more compact than one {@link SimpleDirectPosition} per point, since it avoids the object
+ * header and array header of each point. The coordinates can be stored in a {@code double[]} array,
+ * a {@code float[]} array (for saving memory at the cost of precision) or a {@link DoubleBuffer}
+ * (which may be off-heap).
+ *
+ * <p>Points are accessed either directly by {@link #getOrdinate(int, int)}, or through {@link View}
+ * objects which implement {@link DirectPosition} without copying coordinates. A single view can be
+ * moved over all points of the sequence, so iterating over a million points does not create a million
+ * objects. Views write through: changes in a view are changes in the sequence.</p>
+ *
+ * <p>All points can be transformed in-place by {@link #transform(MathTransform)}, which delegates
+ * to a single call to the {@code MathTransform.transform(…)} method working on arrays.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public abstract class PackedCoordinateSequence {
+    /**
+     * Number of points transformed in each chunk when the coordinates are stored in a buffer
+     * not backed by an accessible array.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The coordinate reference system of all points, or {@code null} if unspecified.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * The number of dimensions of each point.
+     */
+    private final int dimension;
+
+    /**
+     * The number of points.
+     */
+    private final int size;
+
+    /**
+     * Creates a new sequence of the given number of points.
+     *
+     * @param  crs        the coordinate reference system of all points, or {@code null}.
+     * @param  dimension  the number of dimensions of each point.
+     * @param  length     the number of coordinate values in the array.
+     * @throws MismatchedDimensionException if the CRS does not have the given number of dimensions.
+     * @throws IllegalArgumentException if the array length is not a multiple of the number of dimensions.
+     */
+    PackedCoordinateSequence(final CoordinateReferenceSystem crs, final int dimension, final int length) {
+        if (dimension <= 0 || length % dimension != 0) {
+            throw new IllegalArgumentException("Array length " + length
+                    + " is not a multiple of the number of dimensions (" + dimension + ").");
+        }
+        if (crs != null && crs.getCoordinateSystem().getDimension() != dimension) {
+            throw new MismatchedDimensionException();
+        }
+        this.crs       = crs;
+        this.dimension = dimension;
+        this.size      = length / dimension;
+    }
+
+    /**
+     * Creates a sequence backed by the given array of double-precision coordinates.
+     *
+     * @param  crs        the coordinate reference system of all points, or {@code null}.
+     * @param  dimension  the number of dimensions of each point.
+     * @param  ordinates  the coordinates of all points. This array is <strong>not</strong> cloned.
+     * @return a sequence backed by the given array.
+     * @throws MismatchedDimensionException if the CRS does not have the given number of dimensions.
+     * @throws IllegalArgumentException if the array length is not a multiple of the number of dimensions.
+     */
+    public static PackedCoordinateSequence wrap(final CoordinateReferenceSystem crs, final int dimension, final double[] ordinates) {
+        return new Doubles(crs, dimension, ordinates);
+    }
+
+    /**
+     * Creates a sequence backed by the given array of single-precision coordinates.
+     * Coordinates are converted to {@code double} when read and to {@code float} when written.
+     *
+     * @param  crs        the coordinate reference system of all points, or {@code null}.
+     * @param  dimension  the number of dimensions of each point.
+     * @param  ordinates  the coordinates of all points. This array is <strong>not</strong> cloned.
+     * @return a sequence backed by the given array.
+     * @throws MismatchedDimensionException if the CRS does not have the given number of dimensions.
+     * @throws IllegalArgumentException if the array length is not a multiple of the number of dimensions.
+     */
+    public static PackedCoordinateSequence wrap(final CoordinateReferenceSystem crs, final int dimension, final float[] ordinates) {
+        return new Floats(crs, dimension, ordinates);
+    }
+
+    /**
+     * Creates a sequence backed by the remaining elements of the given buffer, which may be a direct
+     * (off-heap) buffer. The sequence starts at the current buffer position. Changes in the position
+     * or limit of the given buffer after this method call do not affect the sequence.
+     *
+     * @param  crs        the coordinate reference system of all points, or {@code null}.
+     * @param  dimension  the number of dimensions of each point.
+     * @param  ordinates  the coordinates of all points, from the buffer position to its limit.
+     * @return a sequence backed by the given buffer.
+     * @throws MismatchedDimensionException if the CRS does not have the given number of dimensions.
+     * @throws IllegalArgumentException if the number of remaining elements is not a multiple of the number of dimensions.
+     */
+    public static PackedCoordinateSequence wrap(final CoordinateReferenceSystem crs, final int dimension, final DoubleBuffer ordinates) {
+        return new Buffer(crs, dimension, ordinates.slice());
+    }
+
+    /**
+     * Returns the coordinate reference system of all points in this sequence.
+     *
+     * @return the coordinate reference system, or {@code null} if unspecified.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the number of dimensions of each point.
+     *
+     * @return the number of dimensions of each point.
+     */
+    public final int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of points in this sequence.
+     *
+     * @return the number of points.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index in the backing array of the given coordinate of the given point.
+     *
+     * @throws IndexOutOfBoundsException if the point index or the dimension is out of bounds.
+     */
+    final int offset(final int index, final int dim) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No point at index " + index + '.');
+        }
+        if (dim < 0 || dim >= dimension) {
+            throw new IndexOutOfBoundsException("No dimension " + dim + '.');
+        }
+        return index * dimension + dim;
+    }
+
+    /**
+     * Returns the coordinate value of the given point along the given dimension.
+     *
+     * @param  index  index of the point, from 0 inclusive to {@link #size()} exclusive.
+     * @param  dim    the dimension, from 0 inclusive to {@link #getDimension()} exclusive.
+     * @return the coordinate value.
+     * @throws IndexOutOfBoundsException if the point index or the dimension is out of bounds.
+     */
+    public abstract double getOrdinate(int index, int dim);
+
+    /**
+     * Sets the coordinate value of the given point along the given dimension.
+     *
+     * @param  index  index of the point, from 0 inclusive to {@link #size()} exclusive.
+     * @param  dim    the dimension, from 0 inclusive to {@link #getDimension()} exclusive.
+     * @param  value  the new coordinate value.
+     * @throws IndexOutOfBoundsException if the point index or the dimension is out of bounds.
+     */
+    public abstract void setOrdinate(int index, int dim, double value);
+
+    /**
+     * Transforms all points of this sequence in-place. The transform shall have the same number of
+     * source and target dimensions than this sequence. The points are transformed by a single call
+     * to a {@code MathTransform.transform(…)} method working on arrays, except for buffers not backed
+     * by an accessible array (for example off-heap buffers), which are transformed by chunks.
+     *
+     * <p>The CRS of this sequence is not updated by this method.</p>
+     *
+     * @param  transform  the transform to apply on all points.
+     * @throws MismatchedDimensionException if the transform does not have the expected number of dimensions.
+     * @throws TransformException if a point can not be transformed.
+     */
+    public void transform(final MathTransform transform) throws TransformException {
+        if (transform.getSourceDimensions() != dimension || transform.getTargetDimensions() != dimension) {
+            throw new MismatchedDimensionException("Expected a transform with " + dimension
+                    + " source and target dimensions.");
+        }
+        transformInPlace(transform);
+    }
+
+    /**
+     * Transforms all points in-place, after the number of dimensions has been verified.
+     */
+    abstract void transformInPlace(MathTransform transform) throws TransformException;
+
+    /**
+     * Returns a view of the point at the given index.
+     * This is a shortcut for <code>{@linkplain #newView()}.{@linkplain View#moveTo moveTo}(index)</code>.
+     *
+     * @param  index  index of the point, from 0 inclusive to {@link #size()} exclusive.
+     * @return a view of the point at the given index.
+     * @throws IndexOutOfBoundsException if the point index is out of bounds.
+     */
+    public View getPosition(final int index) {
+        return newView().moveTo(index);
+    }
+
+    /**
+     * Creates a new view initially positioned on the first point.
+     * The view can be moved to any point of this sequence.
+     *
+     * @return a new view on this sequence.
+     */
+    public View newView() {
+        return new View();
+    }
+
+    /**
+     * A flyweight {@link DirectPosition} giving access to one point of the enclosing sequence at a time.
+     * A view contains no coordinate; all methods read or write the enclosing sequence directly.
+     * Views are not thread-safe, but many views can be created on the same sequence.
+     *
+     * @author  agent
+     * @version 4.0
+     * @since   4.0
+     */
+    public final class View implements DirectPosition {
+        /**
+         * Index of the point in the enclosing sequence.
+         */
+        private int index;
+
+        /**
+         * Creates a new view on the first point.
+         */
+        View() {
+        }
+
+        /**
+         * Returns the index of the point viewed by this object.
+         *
+         * @return index of the current point in the sequence.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Moves this view to the point at the given index.
+         *
+         * @param  index  index of the point, from 0 inclusive to {@link #size()} exclusive.
+         * @return {@code this}, for method calls chaining.
+         * @throws IndexOutOfBoundsException if the point index is out of bounds.
+         */
+        public View moveTo(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("No point at index " + index + '.');
+            }
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Returns the coordinate reference system of the enclosing sequence.
+         *
+         * @return the coordinate reference system, or {@code null}.
+         */
+        @Override
+        public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+            return crs;
+        }
+
+        /**
+         * Returns the number of dimensions of the enclosing sequence.
+         *
+         * @return the number of dimensions.
+         */
+        @Override
+        public int getDimension() {
+            return dimension;
+        }
+
+        /**
+         * Returns a copy of the coordinates of the current point.
+         *
+         * @return a new array containing the coordinates of the current point.
+         */
+        @Override
+        public double[] getCoordinate() {
+            final double[] coordinates = new double[dimension];
+            for (int i=0; i<dimension; i++) {
+                coordinates[i] = PackedCoordinateSequence.this.getOrdinate(index, i);
+            }
+            return coordinates;
+        }
+
+        /**
+         * Returns the coordinate of the current point along the given dimension.
+         *
+         * @param  dim  the dimension in the range 0 to {@linkplain #getDimension dimension}-1.
+         * @return the coordinate value.
+         * @throws IndexOutOfBoundsException if the given dimension is out of bounds.
+         */
+        @Override
+        public double getOrdinate(final int dim) throws IndexOutOfBoundsException {
+            return PackedCoordinateSequence.this.getOrdinate(index, dim);
+        }
+
+        /**
+         * Sets the coordinate of the current point along the given dimension.
+         *
+         * @param  dim    the dimension in the range 0 to {@linkplain #getDimension dimension}-1.
+         * @param  value  the new coordinate value.
+         * @throws IndexOutOfBoundsException if the given dimension is out of bounds.
+         */
+        @Override
+        public void setOrdinate(final int dim, final double value) throws IndexOutOfBoundsException {
+            PackedCoordinateSequence.this.setOrdinate(index, dim, value);
+        }
+
+        /**
+         * Unconditionally returns {@code this}, since this object is already a direct position.
+         */
+        @Override
+        public DirectPosition getDirectPosition() {
+            return this;
+        }
+
+        /**
+         * Returns {@code true} if the specified object is also a {@code DirectPosition}
+         * with equal coordinates and equal CRS, as documented in {@link DirectPosition#equals(Object)}.
+         */
+        @Override
+        public boolean equals(final Object object) {
+            if (object instanceof DirectPosition) {
+                final DirectPosition other = (DirectPosition) object;
+                if (other.getDimension() == dimension && Objects.equals(crs, other.getCoordinateReferenceSystem())) {
+                    for (int i=0; i<dimension; i++) {
+                        if (Double.doubleToLongBits(getOrdinate(i)) != Double.doubleToLongBits(other.getOrdinate(i))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns a hash code value compliant with the contract documented in {@link DirectPosition#hashCode()}.
+         * This is the same value than {@code Arrays.hashCode(getCoordinate()) + Objects.hashCode(crs)},
+         * computed without copying the coordinates.
+         */
+        @Override
+        public int hashCode() {
+            int code = 1;
+            for (int i=0; i<dimension; i++) {
+                code = 31 * code + Double.hashCode(getOrdinate(i));
+            }
+            return code + Objects.hashCode(crs);
+        }
+
+        /**
+         * Returns a string representation of the current point in <cite>Well-Known Text</cite> (WKT) format.
+         */
+        @Override
+        public String toString() {
+            final StringBuilder buffer = new StringBuilder("POINT");
+            char separator = '(';
+            for (int i=0; i<dimension; i++) {
+                buffer.append(separator).append(getOrdinate(i));
+                separator = ' ';
+            }
+            return buffer.append(')').toString();
+        }
+    }
+
+    /**
+     * A sequence backed by a {@code double[]} array.
+     */
+    private static final class Doubles extends PackedCoordinateSequence {
+        /** The coordinates of all points. */
+        private final double[] ordinates;
+
+        /** Creates a new sequence backed by the given array. */
+        Doubles(final CoordinateReferenceSystem crs, final int dimension, final double[] ordinates) {
+            super(crs, dimension, ordinates.length);
+            this.ordinates = ordinates;
+        }
+
+        @Override public double getOrdinate(int index, int dim) {return ordinates[offset(index, dim)];}
+        @Override public void setOrdinate(int index, int dim, double value) {ordinates[offset(index, dim)] = value;}
+
+        /** Transforms all points in a single call. */
+        @Override
+        void transformInPlace(final MathTransform transform) throws TransformException {
+            transform.transform(ordinates, 0, ordinates, 0, size());
+        }
+    }
+
+    /**
+     * A sequence backed by a {@code float[]} array.
+     */
+    private static final class Floats extends PackedCoordinateSequence {
+        /** The coordinates of all points. */
+        private final float[] ordinates;
+
+        /** Creates a new sequence backed by the given array. */
+        Floats(final CoordinateReferenceSystem crs, final int dimension, final float[] ordinates) {
+            super(crs, dimension, ordinates.length);
+            this.ordinates = ordinates;
+        }
+
+        @Override public double getOrdinate(int index, int dim) {return ordinates[offset(index, dim)];}
+        @Override public void setOrdinate(int index, int dim, double value) {ordinates[offset(index, dim)] = (float) value;}
+
+        /** Transforms all points in a single call. */
+        @Override
+        void transformInPlace(final MathTransform transform) throws TransformException {
+            transform.transform(ordinates, 0, ordinates, 0, size());
+        }
+    }
+
+    /**
+     * A sequence backed by a {@link DoubleBuffer}, which may be off-heap.
+     */
+    private static final class Buffer extends PackedCoordinateSequence {
+        /** The coordinates of all points, from index 0 to the buffer capacity. */
+        private final DoubleBuffer ordinates;
+
+        /** Creates a new sequence backed by the given buffer, which shall be a slice. */
+        Buffer(final CoordinateReferenceSystem crs, final int dimension, final DoubleBuffer ordinates) {
+            super(crs, dimension, ordinates.capacity());
+            this.ordinates = ordinates;
+        }
+
+        @Override public double getOrdinate(int index, int dim) {return ordinates.get(offset(index, dim));}
+        @Override public void setOrdinate(int index, int dim, double value) {ordinates.put(offset(index, dim), value);}
+
+        /**
+         * Transforms all points in a single call if the buffer is backed by an accessible array,
+         * or by chunks copied in a temporary array otherwise.
+         */
+        @Override
+        void transformInPlace(final MathTransform transform) throws TransformException {
+            final int size = size();
+            if (ordinates.hasArray()) {
+                final int offset = ordinates.arrayOffset();
+                transform.transform(ordinates.array(), offset, ordinates.array(), offset, size);
+                return;
+            }
+            final int dimension = getDimension();
+            final DoubleBuffer view = ordinates.duplicate();
+            final double[] chunk = new double[Math.min(size, CHUNK_SIZE) * dimension];
+            for (int start=0; start<size; start += CHUNK_SIZE) {
+                final int length = Math.min(size - start, CHUNK_SIZE) * dimension;
+                view.position(start * dimension);
+                view.get(chunk, 0, length);
+                transform.transform(chunk, 0, chunk, 0, length / dimension);
+                view.position(start * dimension);
+                view.put(chunk, 0, length);
+            }
+        }
+    }
+}
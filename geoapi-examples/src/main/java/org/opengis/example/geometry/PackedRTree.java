@@ -0,0 +1,700 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+import java.io.Serializable;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+
+/**
+ * An immutable two-dimensional spatial index of bounding boxes, bulk-loaded with the
+ * <cite>Sort-Tile-Recursive</cite> (STR) algorithm. The index does not create node objects:
+ * the boxes of all tree levels are stored in a single {@code double[]} array, with the
+ * children of node <var>k</var> at index <var>k</var>×{@value #NODE_CAPACITY} to
+ * (<var>k</var>+1)×{@value #NODE_CAPACITY} − 1 in the level below.
+ *
+ * <p>Boxes are identified by their index in the list or array given at construction time.
+ * Queries return those indices. The supported queries are:</p>
+ *
+ * <ul>
+ *   <li>{@link #intersecting intersecting(…)}: boxes intersecting a query box,</li>
+ *   <li>{@link #containedIn containedIn(…)}: boxes fully contained in a query box,</li>
+ *   <li>{@link #nearest(double, double, int) nearest(…)}: the <var>k</var> boxes nearest to a point.</li>
+ * </ul>
+ *
+ * <h2>Anti-meridian</h2>
+ * A box having a minimal <var>x</var> value greater than its maximal <var>x</var> value is considered
+ * as crossing the anti-meridian. Such boxes, and such query boxes, are split in two parts at ±180°.
+ * Consequently this convention is valid only when <var>x</var> values are longitudes in degrees.
+ * Distances computed by {@code nearest(…)} are Cartesian distances in units of the coordinates,
+ * without wraparound.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class PackedRTree implements Serializable {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -5071936268103874625L;
+
+    /**
+     * Maximal number of children in each node.
+     */
+    public static final int NODE_CAPACITY = 16;
+
+    /**
+     * Minimal number of boxes for computing node boxes in parallel, if parallel loading is enabled.
+     */
+    private static final int PARALLEL_THRESHOLD = 10000;
+
+    /**
+     * The minimal and maximal longitude values, used for splitting boxes crossing the anti-meridian.
+     */
+    private static final double MIN_LONGITUDE = -180, MAX_LONGITUDE = +180;
+
+    /**
+     * The (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>, <var>x</var><sub>max</sub>,
+     * <var>y</var><sub>max</sub>) values of all boxes of all levels. The boxes of the leaf level
+     * (the indexed boxes) are first, followed by the boxes of the nodes of each level up to the root.
+     */
+    private final double[] bounds;
+
+    /**
+     * Index (in units of boxes, not array elements) of the first box of each level.
+     * Level 0 contains the indexed boxes, and the last level contains only the root.
+     */
+    private final int[] levelStart;
+
+    /**
+     * Number of boxes in each level.
+     */
+    private final int[] levelSize;
+
+    /**
+     * For each box of level 0, the index of the box given at construction time.
+     */
+    private final int[] items;
+
+    /**
+     * Index of the boxes which were split in two entries because they cross the anti-meridian,
+     * or {@code null} if none.
+     */
+    private final BitSet splitItems;
+
+    /**
+     * Number of boxes given at construction time.
+     */
+    private final int size;
+
+    /**
+     * Creates an index for the given boxes. The array contains the (<var>x</var><sub>min</sub>,
+     * <var>y</var><sub>min</sub>, <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) values
+     * of each box, in that order. The box at index <var>i</var> in query results is the box at
+     * offset 4<var>i</var> in this array.
+     *
+     * @param  boxes     the boxes to index. This array is not retained.
+     * @param  parallel  whether to use many threads for building the index.
+     * @throws IllegalArgumentException if the array length is not a multiple of 4.
+     */
+    public PackedRTree(final double[] boxes, final boolean parallel) {
+        if ((boxes.length & 3) != 0) {
+            throw new IllegalArgumentException("Array length shall be a multiple of 4.");
+        }
+        size = boxes.length >>> 2;
+        /*
+         * Count and split the boxes crossing the anti-meridian.
+         */
+        BitSet split = null;
+        for (int i=0; i<size; i++) {
+            if (boxes[i*4] > boxes[i*4 + 2]) {
+                if (split == null) split = new BitSet(size);
+                split.set(i);
+            }
+        }
+        splitItems = split;
+        final int numEntries = size + (split != null ? split.cardinality() : 0);
+        final double[] entries   = new double[numEntries * 4];
+        final int[]    entryItem = new int[numEntries];
+        int n = 0;
+        for (int i=0; i<size; i++) {
+            final int s = i*4;
+            final double xmin = boxes[s], ymin = boxes[s+1], xmax = boxes[s+2], ymax = boxes[s+3];
+            if (xmin > xmax) {
+                n = setEntry(entries, entryItem, n, i, xmin, ymin, MAX_LONGITUDE, ymax);
+                n = setEntry(entries, entryItem, n, i, MIN_LONGITUDE, ymin, xmax, ymax);
+            } else {
+                n = setEntry(entries, entryItem, n, i, xmin, ymin, xmax, ymax);
+            }
+        }
+        /*
+         * Compute the number of levels and the position of each level in the bounds array.
+         */
+        int numLevels = 1;
+        for (int c = numEntries; c > 1; c = ceilDiv(c, NODE_CAPACITY)) {
+            numLevels++;
+        }
+        levelStart = new int[numLevels];
+        levelSize  = new int[numLevels];
+        int total = 0;
+        int c = numEntries;
+        for (int level=0; level<numLevels; level++) {
+            levelStart[level] = total;
+            levelSize [level] = c;
+            total += c;
+            c = ceilDiv(c, NODE_CAPACITY);
+        }
+        bounds = new double[total * 4];
+        items  = new int[numEntries];
+        /*
+         * STR packing of the leaf level: sort all entries by the x center, divide them in vertical slices,
+         * then sort each slice by the y center. Consecutive groups of NODE_CAPACITY entries become leaves.
+         */
+        final long[] keys = new long[numEntries];
+        for (int i=0; i<numEntries; i++) {
+            keys[i] = sortKey((entries[i*4] + entries[i*4 + 2]) / 2, i);
+        }
+        if (parallel) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+        final int numLeaves = ceilDiv(numEntries, NODE_CAPACITY);
+        final int sliceSize = NODE_CAPACITY * Math.max(1, (int) Math.ceil(Math.sqrt(numLeaves)));
+        range(ceilDiv(numEntries, sliceSize), parallel && numEntries >= PARALLEL_THRESHOLD).forEach((slice) -> {
+            final int lower = slice * sliceSize;
+            final int upper = Math.min(lower + sliceSize, numEntries);
+            for (int i=lower; i<upper; i++) {
+                final int e = (int) keys[i];
+                keys[i] = sortKey((entries[e*4 + 1] + entries[e*4 + 3]) / 2, e);
+            }
+            Arrays.sort(keys, lower, upper);
+            for (int i=lower; i<upper; i++) {
+                final int e = (int) keys[i];
+                System.arraycopy(entries, e*4, bounds, i*4, 4);
+                items[i] = entryItem[e];
+            }
+        });
+        /*
+         * Compute the boxes of the nodes of upper levels. Since STR ordering keeps neighbor
+         * leaves close to each other, upper levels group consecutive nodes.
+         */
+        for (int level=1; level<numLevels; level++) {
+            final int childStart = levelStart[level - 1];
+            final int childCount = levelSize [level - 1];
+            final int nodeStart  = levelStart[level];
+            range(levelSize[level], parallel && childCount >= PARALLEL_THRESHOLD).forEach((node) -> {
+                double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+                double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+                final int upper = childStart + Math.min((node + 1) * NODE_CAPACITY, childCount);
+                for (int i = childStart + node * NODE_CAPACITY; i < upper; i++) {
+                    final int s = i*4;
+                    if (bounds[s  ] < xmin) xmin = bounds[s  ];         // Comparisons ignore NaN values.
+                    if (bounds[s+1] < ymin) ymin = bounds[s+1];
+                    if (bounds[s+2] > xmax) xmax = bounds[s+2];
+                    if (bounds[s+3] > ymax) ymax = bounds[s+3];
+                }
+                final int s = (nodeStart + node) * 4;
+                bounds[s  ] = xmin;
+                bounds[s+1] = ymin;
+                bounds[s+2] = xmax;
+                bounds[s+3] = ymax;
+            });
+        }
+    }
+
+    /**
+     * Stores the given box in the given array of entries.
+     *
+     * @param  entries    where to store the box, 4 values per entry.
+     * @param  entryItem  where to store the item index of each entry.
+     * @param  n          index of the entry to write.
+     * @param  item       index of the box in the array given to the constructor.
+     * @param  xmin       minimal <var>x</var> value of the box.
+     * @param  ymin       minimal <var>y</var> value of the box.
+     * @param  xmax       maximal <var>x</var> value of the box.
+     * @param  ymax       maximal <var>y</var> value of the box.
+     * @return index of the next entry.
+     */
+    private static int setEntry(final double[] entries, final int[] entryItem, final int n, final int item,
+            final double xmin, final double ymin, final double xmax, final double ymax)
+    {
+        final int s = n*4;
+        entries[s  ] = xmin;
+        entries[s+1] = ymin;
+        entries[s+2] = xmax;
+        entries[s+3] = ymax;
+        entryItem[n] = item;
+        return n + 1;
+    }
+
+    /**
+     * Returns a key for sorting entries by the given value. The most significant bits contain the value
+     * converted to {@code float} in a form that preserves ordering, and the least significant bits contain
+     * the entry index. The precision loss in the conversion to {@code float} only affects the quality of
+     * the packing, not the correctness of the index.
+     *
+     * @param  value  the value on which to sort.
+     * @param  entry  index of the entry having the given value.
+     * @return the sort key, from which the entry index can be extracted by a cast to {@code int}.
+     */
+    private static long sortKey(final double value, final int entry) {
+        int bits = Float.floatToIntBits((float) value);
+        bits ^= (bits >> 31) & Integer.MAX_VALUE;
+        return ((long) bits << 32) | (entry & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns ⌈<var>a</var> / <var>b</var>⌉ for positive numbers.
+     *
+     * @param  a  the numerator.
+     * @param  b  the denominator.
+     * @return the quotient rounded toward positive infinity.
+     */
+    private static int ceilDiv(final int a, final int b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * Returns a stream of integers from 0 inclusive to {@code count} exclusive, optionally parallel.
+     *
+     * @param  count     number of integers in the stream.
+     * @param  parallel  whether the stream shall be parallel.
+     * @return the stream of integers.
+     */
+    private static IntStream range(final int count, final boolean parallel) {
+        final IntStream range = IntStream.range(0, count);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * Creates an index for the first two dimensions of the given envelopes.
+     *
+     * @param  envelopes  the envelopes to index.
+     * @param  parallel   whether to use many threads for building the index.
+     * @return the index of the given envelopes.
+     * @throws MismatchedDimensionException if an envelope is not two-dimensional.
+     */
+    public static PackedRTree ofEnvelopes(final List<? extends Envelope> envelopes, final boolean parallel) {
+        final double[] boxes = new double[envelopes.size() * 4];
+        for (int i=0; i<envelopes.size(); i++) {
+            final Envelope envelope = envelopes.get(i);
+            if (envelope.getDimension() != 2) {
+                throw new MismatchedDimensionException("Envelope at index " + i + " is not two-dimensional.");
+            }
+            boxes[i*4    ] = envelope.getMinimum(0);
+            boxes[i*4 + 1] = envelope.getMinimum(1);
+            boxes[i*4 + 2] = envelope.getMaximum(0);
+            boxes[i*4 + 3] = envelope.getMaximum(1);
+        }
+        return new PackedRTree(boxes, parallel);
+    }
+
+    /**
+     * Creates an index for the given geographic bounding boxes. Boxes having a west bound
+     * greater than the east bound are considered as crossing the anti-meridian.
+     *
+     * @param  boxes     the geographic bounding boxes to index.
+     * @param  parallel  whether to use many threads for building the index.
+     * @return the index of the given boxes.
+     */
+    public static PackedRTree ofBoundingBoxes(final List<? extends GeographicBoundingBox> boxes, final boolean parallel) {
+        final double[] array = new double[boxes.size() * 4];
+        for (int i=0; i<boxes.size(); i++) {
+            final GeographicBoundingBox box = boxes.get(i);
+            array[i*4    ] = box.getWestBoundLongitude();
+            array[i*4 + 1] = box.getSouthBoundLatitude();
+            array[i*4 + 2] = box.getEastBoundLongitude();
+            array[i*4 + 3] = box.getNorthBoundLatitude();
+        }
+        return new PackedRTree(array, parallel);
+    }
+
+    /**
+     * Returns the number of boxes in this index.
+     *
+     * @return number of indexed boxes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A growable array of integers, for collecting query results.
+     */
+    private static final class Results {
+        /** The values, valid from index 0 inclusive to {@link #size} exclusive. */
+        int[] values = new int[16];
+
+        /** Number of valid values. */
+        int size;
+
+        /**
+         * Adds the given value.
+         *
+         * @param  value  the value to add.
+         */
+        void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Returns the values, sorted without duplicated values if {@code unique} is {@code true}.
+         *
+         * @param  unique  whether to sort the values and remove duplicates.
+         * @return the values in a new array.
+         */
+        int[] toArray(final boolean unique) {
+            if (!unique) {
+                return Arrays.copyOf(values, size);
+            }
+            Arrays.sort(values, 0, size);
+            int n = 0;
+            for (int i=0; i<size; i++) {
+                if (n == 0 || values[i] != values[n-1]) {
+                    values[n++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, n);
+        }
+    }
+
+    /**
+     * Adds to the given results the index of all entries (boxes of level 0) intersecting or contained in
+     * the given query box, depending on the {@code contained} flag. The query box shall not cross the
+     * anti-meridian.
+     *
+     * @param  xmin       minimal <var>x</var> value of the query box.
+     * @param  ymin       minimal <var>y</var> value of the query box.
+     * @param  xmax       maximal <var>x</var> value of the query box.
+     * @param  ymax       maximal <var>y</var> value of the query box.
+     * @param  contained  {@code true} for boxes contained in the query box, {@code false} for intersecting boxes.
+     * @param  results    where to add the index of the boxes found.
+     */
+    private void search(final double xmin, final double ymin, final double xmax, final double ymax,
+            final boolean contained, final Results results)
+    {
+        final int top = levelStart.length - 1;
+        if (levelSize[0] == 0 || !intersects(levelStart[top], xmin, ymin, xmax, ymax)) {
+            return;
+        }
+        if (top == 0) {
+            if (!contained || isContained(0, xmin, ymin, xmax, ymax)) {
+                results.add(0);
+            }
+            return;
+        }
+        int[] stack = new int[top * NODE_CAPACITY * 2];                     // Pairs of (level, node).
+        int depth = 0;
+        stack[depth++] = top;
+        stack[depth++] = 0;
+        while (depth != 0) {
+            final int node  = stack[--depth];
+            final int level = stack[--depth] - 1;                            // Level of children.
+            final int start = levelStart[level];
+            final int upper = Math.min((node + 1) * NODE_CAPACITY, levelSize[level]);
+            for (int child = node * NODE_CAPACITY; child < upper; child++) {
+                if (intersects(start + child, xmin, ymin, xmax, ymax)) {
+                    if (level != 0) {
+                        if (depth + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        stack[depth++] = level;
+                        stack[depth++] = child;
+                    } else if (!contained || isContained(child, xmin, ymin, xmax, ymax)) {
+                        results.add(child);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the box at the given index intersects the given query box.
+     * This method returns {@code false} if the box contains NaN values.
+     *
+     * @param  i     index of the box in the {@code bounds} array, in units of boxes.
+     * @param  xmin  minimal <var>x</var> value of the query box.
+     * @param  ymin  minimal <var>y</var> value of the query box.
+     * @param  xmax  maximal <var>x</var> value of the query box.
+     * @param  ymax  maximal <var>y</var> value of the query box.
+     * @return whether the box intersects the query box.
+     */
+    private boolean intersects(int i, final double xmin, final double ymin, final double xmax, final double ymax) {
+        i *= 4;
+        return bounds[i] <= xmax && bounds[i+1] <= ymax && bounds[i+2] >= xmin && bounds[i+3] >= ymin;
+    }
+
+    /**
+     * Returns whether the box at the given index is contained in the given query box.
+     * This method returns {@code false} if the box contains NaN values.
+     *
+     * @param  i     index of the box in the {@code bounds} array, in units of boxes.
+     * @param  xmin  minimal <var>x</var> value of the query box.
+     * @param  ymin  minimal <var>y</var> value of the query box.
+     * @param  xmax  maximal <var>x</var> value of the query box.
+     * @param  ymax  maximal <var>y</var> value of the query box.
+     * @return whether the box is contained in the query box.
+     */
+    private boolean isContained(int i, final double xmin, final double ymin, final double xmax, final double ymax) {
+        i *= 4;
+        return bounds[i] >= xmin && bounds[i+1] >= ymin && bounds[i+2] <= xmax && bounds[i+3] <= ymax;
+    }
+
+    /**
+     * Searches all entries intersecting or contained in the given query box, which may cross the anti-meridian.
+     * Returns the sorted entry indices without duplicated values.
+     *
+     * @param  xmin       minimal <var>x</var> value of the query box.
+     * @param  ymin       minimal <var>y</var> value of the query box.
+     * @param  xmax       maximal <var>x</var> value of the query box, smaller than {@code xmin} if crossing the anti-meridian.
+     * @param  ymax       maximal <var>y</var> value of the query box.
+     * @param  contained  {@code true} for boxes contained in the query box, {@code false} for intersecting boxes.
+     * @return index of the boxes found, in increasing order.
+     */
+    private int[] searchEntries(final double xmin, final double ymin, final double xmax, final double ymax,
+            final boolean contained)
+    {
+        final Results results = new Results();
+        if (xmin > xmax) {
+            search(xmin, ymin, MAX_LONGITUDE, ymax, contained, results);
+            search(MIN_LONGITUDE, ymin, xmax, ymax, contained, results);
+        } else {
+            search(xmin, ymin, xmax, ymax, contained, results);
+        }
+        return results.toArray(true);
+    }
+
+    /**
+     * Returns the index of all boxes intersecting the given query box. If the minimal <var>x</var>
+     * value is greater than the maximal <var>x</var> value, then the query box is considered as
+     * crossing the anti-meridian.
+     *
+     * @param  xmin  minimal <var>x</var> value of the query box.
+     * @param  ymin  minimal <var>y</var> value of the query box.
+     * @param  xmax  maximal <var>x</var> value of the query box.
+     * @param  ymax  maximal <var>y</var> value of the query box.
+     * @return index of boxes intersecting the query box, in increasing order.
+     */
+    public int[] intersecting(final double xmin, final double ymin, final double xmax, final double ymax) {
+        final int[] entries = searchEntries(xmin, ymin, xmax, ymax, false);
+        final Results results = new Results();
+        for (final int entry : entries) {
+            results.add(items[entry]);
+        }
+        return results.toArray(true);
+    }
+
+    /**
+     * Returns the index of all boxes intersecting the first two dimensions of the given envelope.
+     *
+     * @param  envelope  the query envelope.
+     * @return index of boxes intersecting the query envelope, in increasing order.
+     */
+    public int[] intersecting(final Envelope envelope) {
+        return intersecting(envelope.getMinimum(0), envelope.getMinimum(1), envelope.getMaximum(0), envelope.getMaximum(1));
+    }
+
+    /**
+     * Returns the index of all boxes intersecting the given geographic bounding box.
+     *
+     * @param  box  the query box.
+     * @return index of boxes intersecting the query box, in increasing order.
+     */
+    public int[] intersecting(final GeographicBoundingBox box) {
+        return intersecting(box.getWestBoundLongitude(), box.getSouthBoundLatitude(),
+                            box.getEastBoundLongitude(), box.getNorthBoundLatitude());
+    }
+
+    /**
+     * Returns the index of all boxes fully contained in the given query box. If the minimal <var>x</var>
+     * value is greater than the maximal <var>x</var> value, then the query box is considered as crossing
+     * the anti-meridian. A box crossing the anti-meridian is contained only if its two parts are contained.
+     *
+     * @param  xmin  minimal <var>x</var> value of the query box.
+     * @param  ymin  minimal <var>y</var> value of the query box.
+     * @param  xmax  maximal <var>x</var> value of the query box.
+     * @param  ymax  maximal <var>y</var> value of the query box.
+     * @return index of boxes contained in the query box, in increasing order.
+     */
+    public int[] containedIn(final double xmin, final double ymin, final double xmax, final double ymax) {
+        final int[] entries = searchEntries(xmin, ymin, xmax, ymax, true);
+        final Results results = new Results();
+        for (final int entry : entries) {
+            results.add(items[entry]);
+        }
+        if (splitItems == null) {
+            return results.toArray(true);
+        }
+        /*
+         * Boxes crossing the anti-meridian are represented by two entries, which must both be contained.
+         * After sorting, those two entries (if both found) are consecutive.
+         */
+        final int[] candidates = results.toArray(false);
+        Arrays.sort(candidates);
+        results.size = 0;
+        for (int i=0; i<candidates.length; i++) {
+            final int item = candidates[i];
+            if (!splitItems.get(item)) {
+                results.add(item);
+            } else if (i+1 < candidates.length && candidates[i+1] == item) {
+                results.add(item);
+                i++;
+            }
+        }
+        return results.toArray(false);
+    }
+
+    /**
+     * Returns the index of all boxes fully contained in the first two dimensions of the given envelope.
+     *
+     * @param  envelope  the query envelope.
+     * @return index of boxes contained in the query envelope, in increasing order.
+     */
+    public int[] containedIn(final Envelope envelope) {
+        return containedIn(envelope.getMinimum(0), envelope.getMinimum(1), envelope.getMaximum(0), envelope.getMaximum(1));
+    }
+
+    /**
+     * Returns the index of all boxes fully contained in the given geographic bounding box.
+     *
+     * @param  box  the query box.
+     * @return index of boxes contained in the query box, in increasing order.
+     */
+    public int[] containedIn(final GeographicBoundingBox box) {
+        return containedIn(box.getWestBoundLongitude(), box.getSouthBoundLatitude(),
+                           box.getEastBoundLongitude(), box.getNorthBoundLatitude());
+    }
+
+    /**
+     * Returns the square of the distance from the given point to the box at the given index.
+     * The distance is zero if the point is inside the box, and NaN if the box contains NaN values.
+     *
+     * @param  i  index of the box in the {@code bounds} array, in units of boxes.
+     * @param  x  <var>x</var> coordinate of the point.
+     * @param  y  <var>y</var> coordinate of the point.
+     * @return square of the distance from the point to the box.
+     */
+    private double distanceSquared(int i, final double x, final double y) {
+        i *= 4;
+        final double dx = Math.max(Math.max(bounds[i  ] - x, x - bounds[i+2]), 0);
+        final double dy = Math.max(Math.max(bounds[i+1] - y, y - bounds[i+3]), 0);
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Returns the index of the <var>k</var> boxes nearest to the given point, in increasing distance order.
+     * The distance is zero for boxes containing the point. Boxes at equal distance are returned in no
+     * particular order. If the index contains less than <var>k</var> boxes, all boxes are returned.
+     *
+     * @param  x  <var>x</var> coordinate of the point.
+     * @param  y  <var>y</var> coordinate of the point.
+     * @param  k  the maximal number of boxes to return.
+     * @return index of the <var>k</var> nearest boxes, in increasing distance order.
+     */
+    public int[] nearest(final double x, final double y, final int k) {
+        final Results results = new Results();
+        final int top = levelStart.length - 1;
+        if (k <= 0 || levelSize[0] == 0) {
+            return results.toArray(false);
+        }
+        /*
+         * Best-first search: a priority queue of boxes (nodes or entries) ordered by distance to the point.
+         * Each element of the queue is stored as a (distance, level << 32 | index) pair in parallel arrays.
+         */
+        double[] distances = new double[64];
+        long[]   elements  = new long[64];
+        int queueSize = 0;
+        distances[0] = distanceSquared(levelStart[top], x, y);
+        elements [0] = (long) top << 32;
+        if (!Double.isNaN(distances[0])) {
+            queueSize = 1;
+        }
+        while (queueSize != 0 && results.size < k) {
+            final long element = elements[0];
+            /*
+             * Remove the head of the binary heap by moving the last element at the root, then sifting down.
+             */
+            queueSize--;
+            final double last = distances[queueSize];
+            final long lastElement = elements[queueSize];
+            int i = 0;
+            while (true) {
+                int child = i*2 + 1;
+                if (child >= queueSize) break;
+                if (child + 1 < queueSize && distances[child + 1] < distances[child]) child++;
+                if (distances[child] >= last) break;
+                distances[i] = distances[child];
+                elements [i] = elements [child];
+                i = child;
+            }
+            distances[i] = last;
+            elements [i] = lastElement;
+            /*
+             * An entry of level 0 is a result (unless it is the second part of a box crossing the anti-meridian).
+             * A node is expanded by adding its children to the queue.
+             */
+            final int level = (int) (element >>> 32);
+            final int index = (int) element;
+            if (level == 0) {
+                final int item = items[index];
+                if (splitItems == null || !splitItems.get(item) || !contains(results, item)) {
+                    results.add(item);
+                }
+                continue;
+            }
+            final int childLevel = level - 1;
+            final int start = levelStart[childLevel];
+            final int upper = Math.min((index + 1) * NODE_CAPACITY, levelSize[childLevel]);
+            for (int child = index * NODE_CAPACITY; child < upper; child++) {
+                final double distance = distanceSquared(start + child, x, y);
+                if (Double.isNaN(distance)) continue;
+                if (queueSize == distances.length) {
+                    distances = Arrays.copyOf(distances, queueSize * 2);
+                    elements  = Arrays.copyOf(elements,  queueSize * 2);
+                }
+                int j = queueSize++;
+                while (j > 0) {
+                    final int parent = (j - 1) >>> 1;
+                    if (distances[parent] <= distance) break;
+                    distances[j] = distances[parent];
+                    elements [j] = elements [parent];
+                    j = parent;
+                }
+                distances[j] = distance;
+                elements [j] = ((long) childLevel << 32) | child;
+            }
+        }
+        return results.toArray(false);
+    }
+
+    /**
+     * Returns whether the given results contain the given value.
+     *
+     * @param  results  the results to search.
+     * @param  value    the value to search.
+     * @return whether the value has been found.
+     */
+    private static boolean contains(final Results results, final int value) {
+        for (int i=0; i<results.size; i++) {
+            if (results.values[i] == value) return true;
+        }
+        return false;
+    }
+}
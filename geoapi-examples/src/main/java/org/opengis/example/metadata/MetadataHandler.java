@@ -8,6 +8,7 @@
 package org.opengis.example.metadata;
 
 import java.util.Map;
+import java.util.HashMap;
 import java.util.Set;
 import java.util.List;
 import java.util.Collections;
@@ -21,11 +22,36 @@ import org.opengis.annotation.UML;
 /**
  * The handler of all metadata proxy created by {@link MetadataProxyFactory}.
  *
+ * <p>Unlike the Python bridge, this module does not generate a class for each metadata interface
+ * because it targets Java 8, where {@link java.lang.invoke.MethodHandles.Lookup} can not define classes.
+ * The cost of the reflective proxies is reduced instead by resolving the properties of each interface
+ * only once.</p>
+ *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 final class MetadataHandler implements InvocationHandler {
+    /**
+     * The properties of each GeoAPI interface, indexed by getter method. Computed once per interface,
+     * so that {@link #invoke invoke(…)} does not need to search for annotations on each method call.
+     * Methods without {@link UML} annotation or with parameters are not included in the tables.
+     */
+    private static final ClassValue<Map<Method,Property>> PROPERTIES = new ClassValue<Map<Method,Property>>() {
+        @Override protected Map<Method,Property> computeValue(final Class<?> type) {
+            final Map<Method,Property> properties = new HashMap<>();
+            for (final Method method : type.getMethods()) {
+                if (method.getParameterCount() == 0) {
+                    final UML uml = method.getAnnotation(UML.class);
+                    if (uml != null) {
+                        properties.put(method, new Property(uml.identifier(), method.getReturnType()));
+                    }
+                }
+            }
+            return properties;
+        }
+    };
+
     /**
      * The GeoAPI interface implemented by this handler.
      */
@@ -64,46 +90,66 @@ final class MetadataHandler implements InvocationHandler {
     public Object invoke(final Object proxy, final Method method, final Object[] args)
             throws UnsupportedOperationException
     {
+        final Property property = PROPERTIES.get(type).get(method);
+        if (property != null) {
+            final Object value = attributes.get(property.identifier);
+            return (value != null) ? value : property.defaultValue;
+        }
         if (args != null) {
             if (args.length == 1 && method.getName().equals("equals")) {
                 return equals(args[0]);
             }
             throw new UnsupportedOperationException(String.valueOf(method));
         }
-        final UML uml = method.getAnnotation(UML.class);
-        if (uml != null) {
-            Object value = attributes.get(uml.identifier());
-            if (value == null) {
-                final Class<?> rt = method.getReturnType();
-                if (rt.isPrimitive()) {
-                    // We can not return null value for primitive types, so default to NaN or 0.
-                    // Note: we ignore the name clash between "byte" and "boolean" because the
-                    // current GeoAPI interfaces for ISO 19115 don't have byte return values.
-                    switch (rt.getName().charAt(0)) {
-                        case 'b': value = Boolean.FALSE; break;
-                        case 'd': value = Double .NaN;   break;
-                        case 'f': value = Float  .NaN;   break;
-                        case 'l': value =         0L;    break;
-                        case 'i': value =         0;     break;
-                        case 's': value = (short) 0;     break;
-                        case 'c': value = (char)  0;     break;
-                    }
-                } else {
-                    // While it is technically possible to return null collection,
-                    // the common practice is to return an empty one instead.
-                    if (rt.isAssignableFrom(List.class)) value = Collections.emptyList(); else
-                    if (rt.isAssignableFrom(Set .class)) value = Collections.emptySet();  else
-                    if (rt.isAssignableFrom(Map .class)) value = Collections.emptyMap();
-                }
-            }
-            return value;
-        }
         final String name = method.getName();
         if (name.equals("toString")) return toString();
         if (name.equals("hashCode")) return hashCode();
         throw new UnsupportedOperationException("Unknown method: " + name + "()");
     }
 
+    /**
+     * The UML identifier and the default value of a getter method.
+     */
+    private static final class Property {
+        /**
+         * The UML identifier of the property, used as key in the {@link MetadataHandler#attributes} map.
+         */
+        final String identifier;
+
+        /**
+         * The value to return if the attributes map contains no value for the property:
+         * {@code null} for objects, an empty collection for collections, and 0, NaN or
+         * {@code false} for primitive types.
+         */
+        final Object defaultValue;
+
+        /**
+         * Creates a new property for the given method.
+         */
+        Property(final String identifier, final Class<?> rt) {
+            this.identifier = identifier;
+            Object value = null;
+            if (rt.isPrimitive()) {
+                // We can not return null value for primitive types, so default to NaN or 0.
+                if (rt == Boolean.TYPE)   value = Boolean.FALSE; else
+                if (rt == Double.TYPE)    value = Double .NaN;   else
+                if (rt == Float.TYPE)     value = Float  .NaN;   else
+                if (rt == Long.TYPE)      value =         0L;    else
+                if (rt == Integer.TYPE)   value =         0;     else
+                if (rt == Short.TYPE)     value = (short) 0;     else
+                if (rt == Byte.TYPE)      value = (byte)  0;     else
+                if (rt == Character.TYPE) value = (char)  0;
+            } else {
+                // While it is technically possible to return null collection,
+                // the common practice is to return an empty one instead.
+                if (rt.isAssignableFrom(List.class)) value = Collections.emptyList(); else
+                if (rt.isAssignableFrom(Set .class)) value = Collections.emptySet();  else
+                if (rt.isAssignableFrom(Map .class)) value = Collections.emptyMap();
+            }
+            defaultValue = value;
+        }
+    }
+
     /**
      * Returns a string representation for this metadata handler. This method format the
      * ISO/OGC identifier of the metadata type followed by the string representation of
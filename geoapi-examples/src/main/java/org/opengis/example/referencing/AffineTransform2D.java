@@ -38,7 +38,7 @@ import org.opengis.example.geometry.SimpleDirectPosition;
  * </ul>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class AffineTransform2D extends AffineTransform implements MathTransform2D {
@@ -187,12 +187,8 @@ public class AffineTransform2D extends AffineTransform implements MathTransform2
      */
     @Override
     public Matrix derivative(final Point2D point) {
-        final Matrix m = new SimpleMatrix(2, 2);
-        m.setElement(0, 0, getScaleX());
-        m.setElement(1, 1, getScaleY());
-        m.setElement(0, 1, getShearX());
-        m.setElement(1, 0, getShearY());
-        return m;
+        return new Matrix2(getScaleX(), getShearX(),
+                           getShearY(), getScaleY());
     }
 
     /**
@@ -0,0 +1,326 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.opengis.metadata.citation.Citation;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+
+
+/**
+ * A {@link MathTransform} which applies a chain of transforms. Instances of this class are created by
+ * {@link SimpleTransformFactory#createConcatenatedTransform(MathTransform, MathTransform)}, which removes
+ * identity steps, cancels transforms followed by their inverse and merges consecutive linear transforms
+ * before to create this chain. Consequently a {@code ConcatenatedTransform} contains at least two steps,
+ * none of them being an identity transform.
+ *
+ * <p>Coordinates given in arrays are transformed by blocks of a few hundred points. All steps are applied
+ * on a block, using a temporary buffer small enough for staying in the processor cache, before to process
+ * the next block. This is faster than applying each step on the whole array, which would load all
+ * coordinates from the main memory once per step.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see SimpleTransformFactory#createConcatenatedTransform(MathTransform, MathTransform)
+ */
+public class ConcatenatedTransform extends SimpleTransform {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -1795437470592917562L;
+
+    /**
+     * Maximal number of coordinate values in the buffer used for transforming a block of points.
+     * The buffer size is 16 kilobytes, which is half the size of a typical level 1 data cache.
+     */
+    private static final int BUFFER_SIZE = 2048;
+
+    /**
+     * The transforms to apply, in order. This array contains at least two elements.
+     */
+    private final MathTransform[] steps;
+
+    /**
+     * Number of points to transform in each block. The product of this number by the
+     * largest number of dimensions of intermediate points is not greater than {@link #BUFFER_SIZE}.
+     */
+    private final int blockSize;
+
+    /**
+     * The largest number of dimensions of source, intermediate or target points.
+     */
+    private final int maxDimension;
+
+    /**
+     * The inverse of this transform, computed when first needed.
+     */
+    private transient ConcatenatedTransform inverse;
+
+    /**
+     * Creates a new transform applying the given steps in order.
+     * Callers are responsible for verifying that the number of dimensions of consecutive steps match.
+     *
+     * @param authority  organization responsible for definition of the name, or {@code null}.
+     * @param name       the name of the new transform.
+     * @param steps      the transforms to apply, in order. This array is not cloned.
+     */
+    ConcatenatedTransform(final Citation authority, final String name, final MathTransform[] steps) {
+        super(authority, name, null, null);
+        this.steps = steps;
+        int dimension = steps[0].getSourceDimensions();
+        for (final MathTransform step : steps) {
+            dimension = Math.max(dimension, step.getTargetDimensions());
+        }
+        maxDimension = dimension;
+        blockSize = Math.max(1, BUFFER_SIZE / dimension);
+    }
+
+    /**
+     * Returns the transforms applied by this concatenated transform, in order.
+     *
+     * @return the transforms applied by this concatenated transform (never empty).
+     */
+    public List<MathTransform> getSteps() {
+        return Collections.unmodifiableList(Arrays.asList(steps));
+    }
+
+    /**
+     * Gets the dimension of input points, which is the source dimension of the first step.
+     */
+    @Override
+    public int getSourceDimensions() {
+        return steps[0].getSourceDimensions();
+    }
+
+    /**
+     * Gets the dimension of output points, which is the target dimension of the last step.
+     */
+    @Override
+    public int getTargetDimensions() {
+        return steps[steps.length - 1].getTargetDimensions();
+    }
+
+    /**
+     * Transforms the specified {@code ptSrc} by applying all steps in order.
+     *
+     * @param  ptSrc  the coordinate point to be transformed.
+     * @param  ptDst  the coordinate point that stores the transform result, or {@code null}.
+     * @return the coordinate point after transforming {@code ptSrc}.
+     * @throws TransformException if a step can not transform the point.
+     */
+    @Override
+    public DirectPosition transform(DirectPosition ptSrc, final DirectPosition ptDst) throws TransformException {
+        final int last = steps.length - 1;
+        for (int i=0; i<last; i++) {
+            ptSrc = steps[i].transform(ptSrc, null);
+        }
+        return steps[last].transform(ptSrc, ptDst);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     * The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a step can not transform the points.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     * The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a step can not transform the points.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     * The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a step can not transform the points.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     * The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a step can not transform the points.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks. For each block, the first step
+     * writes its result in a temporary buffer, the intermediate steps transform the buffer in-place
+     * and the last step writes its result in the destination array. The blocks are processed in
+     * reverse order if it is needed for not overwriting source coordinates not yet transformed.
+     *
+     * @param  srcPts  the {@code double[]} or {@code float[]} array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the {@code double[]} or {@code float[]} array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if a step can not transform the points.
+     */
+    private void transform(Object srcPts, int srcOff, final Object dstPts, int dstOff, int numPts) throws TransformException {
+        if (numPts <= 0) {
+            return;
+        }
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        boolean backward = false;
+        if (srcPts == dstPts) {
+            switch (direction(srcOff, srcDim, dstOff, dstDim, numPts)) {
+                case -1: {
+                    backward = true;
+                    break;
+                }
+                case 0: {
+                    final int upper = srcOff + numPts*srcDim;
+                    srcPts = (srcPts instanceof double[]) ? Arrays.copyOfRange((double[]) srcPts, srcOff, upper)
+                                                          : Arrays.copyOfRange((float[])  srcPts, srcOff, upper);
+                    srcOff = 0;
+                    break;
+                }
+            }
+        }
+        final double[] buffer = new double[Math.min(numPts, blockSize) * maxDimension];
+        final MathTransform first = steps[0];
+        final MathTransform last  = steps[steps.length - 1];
+        while (numPts > 0) {
+            final int n = Math.min(numPts, blockSize);
+            final int s, d;
+            if (backward) {
+                s = srcOff + (numPts - n) * srcDim;
+                d = dstOff + (numPts - n) * dstDim;
+            } else {
+                s = srcOff;
+                d = dstOff;
+                srcOff += n * srcDim;
+                dstOff += n * dstDim;
+            }
+            if (srcPts instanceof double[]) {
+                first.transform((double[]) srcPts, s, buffer, 0, n);
+            } else {
+                first.transform((float[]) srcPts, s, buffer, 0, n);
+            }
+            for (int i=1; i < steps.length - 1; i++) {
+                steps[i].transform(buffer, 0, buffer, 0, n);
+            }
+            if (dstPts instanceof double[]) {
+                last.transform(buffer, 0, (double[]) dstPts, d, n);
+            } else {
+                last.transform(buffer, 0, (float[]) dstPts, d, n);
+            }
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point. This is the product of the derivatives
+     * of all steps, each step being evaluated at the point transformed by the previous steps.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point.
+     * @throws TransformException if the derivative can not be evaluated at the specified point.
+     */
+    @Override
+    public Matrix derivative(DirectPosition point) throws TransformException {
+        Matrix derivative = null;
+        for (int i=0; i<steps.length; i++) {
+            final MathTransform step = steps[i];
+            final Matrix d = step.derivative(point);
+            derivative = (derivative == null) ? d : SimpleTransformFactory.multiply(d, derivative);
+            if (point != null && i != steps.length - 1) {
+                point = step.transform(point, null);
+            }
+        }
+        return derivative;
+    }
+
+    /**
+     * Returns the inverse of this transform, which is the concatenation
+     * of the inverse of all steps in reverse order.
+     *
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if a step is not invertible.
+     */
+    @Override
+    public synchronized ConcatenatedTransform inverse() throws NoninvertibleTransformException {
+        if (inverse == null) {
+            final MathTransform[] inverses = new MathTransform[steps.length];
+            for (int i=0; i<steps.length; i++) {
+                inverses[steps.length - 1 - i] = steps[i].inverse();
+            }
+            inverse = new ConcatenatedTransform(authority, "Inverse of " + code, inverses);
+            inverse.inverse = this;
+        }
+        return inverse;
+    }
+
+    /**
+     * Returns {@code false} since identity steps have been removed
+     * at construction time, and the remaining steps do not cancel.
+     */
+    @Override
+    public boolean isIdentity() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (super.equals(object)) {
+            return Arrays.equals(steps, ((ConcatenatedTransform) object).steps);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.concurrent.CompletionException;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * Transforms envelopes through a {@link MathTransform}, which may be non-linear.
+ * Transforming only the corners of an envelope is not sufficient in the non-linear case,
+ * since the extreme values may be reached somewhere along the envelope edges.
+ * This class computes the transformed envelope as below:
+ *
+ * <ol>
+ *   <li>Each edge of the source envelope is sampled at regular intervals, and all samples
+ *       of all edges are transformed in a single call to
+ *       {@link MathTransform#transform(double[], int, double[], int, int)}.</li>
+ *   <li>If the transform {@linkplain MathTransform#derivative provides derivatives}, the derivatives
+ *       at the sample points are used for locating the extreme values of each target coordinate
+ *       between two consecutive samples, and those locations are transformed too.</li>
+ *   <li>Each interval where the transformed mid-point deviates from the straight line between
+ *       the transformed end points is split in two intervals. This densification is repeated
+ *       up to a maximal depth, with a single batch transform for all intervals of the same depth.</li>
+ * </ol>
+ *
+ * The transformed envelope is the bounding box of all transformed points. This class samples only the
+ * boundary of the source envelope; extreme values reached in the interior (for example at a pole)
+ * are not detected. Points that can not be transformed (NaN results) are ignored.
+ *
+ * <p>Instances of this class are immutable and thread-safe if the math transform is thread-safe.
+ * A list of envelopes, for example all tiles of a pyramid level, can be transformed in parallel
+ * with {@link #transform(List, boolean)}.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class EnvelopeTransformer {
+    /**
+     * Number of intervals in which each edge is divided before densification.
+     */
+    private static final int NUM_INTERVALS = 16;
+
+    /**
+     * Maximal number of times that an interval can be split in two smaller intervals.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * Tolerance threshold for deciding whether an interval needs to be split,
+     * relative to the span of the transformed envelope in each dimension.
+     */
+    private static final double FLATNESS = 1E-6;
+
+    /**
+     * The transform to apply on envelopes.
+     */
+    private final MathTransform transform;
+
+    /**
+     * The CRS of transformed envelopes, or {@code null} if unknown.
+     */
+    private final CoordinateReferenceSystem targetCRS;
+
+    /**
+     * Whether the transform supports the computation of derivatives. This flag is set to {@code false}
+     * the first time that {@link MathTransform#derivative derivative(…)} throws an
+     * {@link UnsupportedOperationException}. A {@link TransformException} at some point
+     * (for example at a pole) disables the use of derivatives only for the current envelope.
+     */
+    private volatile boolean hasDerivative;
+
+    /**
+     * Creates a new envelope transformer for the given transform. If the transform is also a
+     * {@link CoordinateOperation} (for example a {@link SimpleTransform}), then its target CRS
+     * will be assigned to the transformed envelopes.
+     *
+     * @param transform  the transform to apply on envelopes.
+     */
+    public EnvelopeTransformer(final MathTransform transform) {
+        this.transform = transform;
+        targetCRS = (transform instanceof CoordinateOperation) ? ((CoordinateOperation) transform).getTargetCRS() : null;
+        hasDerivative = true;
+    }
+
+    /**
+     * Returns the transform applied by this envelope transformer.
+     *
+     * @return the transform applied on envelopes.
+     */
+    public MathTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Transforms all given envelopes, optionally in parallel.
+     *
+     * @param  envelopes  the envelopes to transform.
+     * @param  parallel   whether the envelopes can be transformed by many threads concurrently.
+     *                    This is allowed only if the math transform is thread-safe.
+     * @return the transformed envelopes, in the same order than the given envelopes.
+     * @throws MismatchedDimensionException if an envelope does not have the expected number of dimensions.
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    public SimpleEnvelope[] transform(final List<? extends Envelope> envelopes, final boolean parallel)
+            throws TransformException
+    {
+        final SimpleEnvelope[] results = new SimpleEnvelope[envelopes.size()];
+        IntStream range = IntStream.range(0, results.length);
+        if (parallel) {
+            range = range.parallel();
+        }
+        try {
+            range.forEach((i) -> {
+                try {
+                    results[i] = transform(envelopes.get(i));
+                } catch (TransformException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        } catch (CompletionException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof TransformException) {
+                    throw (TransformException) cause;
+                }
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Transforms the given envelope.
+     *
+     * @param  envelope  the envelope to transform.
+     * @return the transformed envelope.
+     * @throws MismatchedDimensionException if the envelope does not have the expected number of dimensions.
+     * @throws TransformException if the envelope can not be transformed.
+     */
+    public SimpleEnvelope transform(final Envelope envelope) throws TransformException {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        if (envelope.getDimension() != srcDim) {
+            throw new MismatchedDimensionException("Expected an envelope of " + srcDim + " dimensions.");
+        }
+        final double[] minimum = new double[srcDim];
+        final double[] maximum = new double[srcDim];
+        for (int i=0; i<srcDim; i++) {
+            minimum[i] = envelope.getMinimum(i);
+            maximum[i] = envelope.getMaximum(i);
+        }
+        /*
+         * Enumerate the edges. Each edge varies along dimension edgeDims[e], with all other
+         * coordinates fixed to the values of corner at offset e*srcDim in the corners array.
+         */
+        final int numEdges = srcDim << (srcDim - 1);
+        final int[]    edgeDims = new int[numEdges];
+        final double[] corners  = new double[numEdges * srcDim];
+        int e = 0;
+        for (int d=0; d<srcDim; d++) {
+            for (int mask=0; mask < 1 << (srcDim - 1); mask++) {
+                for (int k=0; k<srcDim; k++) {
+                    if (k != d) {
+                        final int bit = (k < d) ? k : k - 1;
+                        corners[e*srcDim + k] = ((mask >>> bit) & 1) != 0 ? maximum[k] : minimum[k];
+                    }
+                }
+                edgeDims[e++] = d;
+            }
+        }
+        /*
+         * Sample all edges at regular intervals and transform all samples in a single call.
+         */
+        final int numSamples = numEdges * (NUM_INTERVALS + 1);
+        final double[] params  = new double[numSamples];
+        final double[] samples = new double[numSamples * srcDim];
+        final double[] results = new double[numSamples * tgtDim];
+        for (int i=0; i<numSamples; i++) {
+            final int edge = i / (NUM_INTERVALS + 1);
+            params[i] = (i % (NUM_INTERVALS + 1)) / (double) NUM_INTERVALS;
+            position(minimum, maximum, edgeDims, corners, edge, params[i], samples, i*srcDim);
+        }
+        transform.transform(samples, 0, results, 0, numSamples);
+        final double[] lower = new double[tgtDim];
+        final double[] upper = new double[tgtDim];
+        Arrays.fill(lower, Double.POSITIVE_INFINITY);
+        Arrays.fill(upper, Double.NEGATIVE_INFINITY);
+        include(results, numSamples, tgtDim, lower, upper);
+        /*
+         * Build the list of intervals between consecutive samples on the same edge.
+         * For each interval, we store the edge, the parameter range and the transformed end points.
+         */
+        int count = numEdges * NUM_INTERVALS;
+        int[]    segEdge = new int[count];
+        double[] segT0   = new double[count];
+        double[] segT1   = new double[count];
+        double[] segP0   = new double[count * tgtDim];
+        double[] segP1   = new double[count * tgtDim];
+        for (int s=0; s<count; s++) {
+            final int edge = s / NUM_INTERVALS;
+            final int i = edge * (NUM_INTERVALS + 1) + s % NUM_INTERVALS;
+            segEdge[s] = edge;
+            segT0[s] = params[i];
+            segT1[s] = params[i+1];
+            System.arraycopy(results, i*tgtDim, segP0, s*tgtDim, tgtDim);
+            System.arraycopy(results, (i+1)*tgtDim, segP1, s*tgtDim, tgtDim);
+        }
+        if (hasDerivative) {
+            includeExtrema(minimum, maximum, edgeDims, corners, params, samples, count, segEdge, lower, upper);
+        }
+        /*
+         * Densification: transform the mid-point of all intervals in a single call,
+         * then split the intervals where the mid-point is too far from the straight line.
+         */
+        final double[] tolerance = new double[tgtDim];
+        for (int j=0; j<tgtDim; j++) {
+            final double span = upper[j] - lower[j];
+            tolerance[j] = (span > 0) ? span * FLATNESS : Double.MIN_VALUE;
+        }
+        for (int depth=0; depth < MAX_DEPTH && count > 0; depth++) {
+            final double[] midSrc = new double[count * srcDim];
+            final double[] midTgt = new double[count * tgtDim];
+            for (int s=0; s<count; s++) {
+                position(minimum, maximum, edgeDims, corners, segEdge[s], (segT0[s] + segT1[s]) / 2, midSrc, s*srcDim);
+            }
+            transform.transform(midSrc, 0, midTgt, 0, count);
+            include(midTgt, count, tgtDim, lower, upper);
+            int split = 0;
+            final boolean[] needSplit = new boolean[count];
+            for (int s=0; s<count; s++) {
+                for (int j=0; j<tgtDim; j++) {
+                    final int k = s*tgtDim + j;
+                    if (Math.abs(midTgt[k] - (segP0[k] + segP1[k]) / 2) > tolerance[j]) {
+                        needSplit[s] = true;
+                        split++;
+                        break;
+                    }
+                }
+            }
+            final int    newCount = split * 2;
+            final int[]    edges  = new int[newCount];
+            final double[] t0     = new double[newCount];
+            final double[] t1     = new double[newCount];
+            final double[] p0     = new double[newCount * tgtDim];
+            final double[] p1     = new double[newCount * tgtDim];
+            int n = 0;
+            for (int s=0; s<count; s++) {
+                if (needSplit[s]) {
+                    final double tm = (segT0[s] + segT1[s]) / 2;
+                    edges[n] = edges[n+1] = segEdge[s];
+                    t0[n] = segT0[s];  t1[n] = tm;
+                    t0[n+1] = tm;      t1[n+1] = segT1[s];
+                    System.arraycopy(segP0,  s*tgtDim, p0,  n   *tgtDim, tgtDim);
+                    System.arraycopy(midTgt, s*tgtDim, p1,  n   *tgtDim, tgtDim);
+                    System.arraycopy(midTgt, s*tgtDim, p0, (n+1)*tgtDim, tgtDim);
+                    System.arraycopy(segP1,  s*tgtDim, p1, (n+1)*tgtDim, tgtDim);
+                    n += 2;
+                }
+            }
+            count   = newCount;
+            segEdge = edges;
+            segT0   = t0;
+            segT1   = t1;
+            segP0   = p0;
+            segP1   = p1;
+        }
+        /*
+         * Dimensions where no point could be transformed are set to NaN.
+         */
+        for (int j=0; j<tgtDim; j++) {
+            if (lower[j] > upper[j]) {
+                lower[j] = upper[j] = Double.NaN;
+            }
+        }
+        return new SimpleEnvelope(new SimpleDirectPosition(targetCRS, lower),
+                                  new SimpleDirectPosition(targetCRS, upper));
+    }
+
+    /**
+     * Computes the source coordinates of the point at parameter <var>t</var> on the given edge.
+     * The parameter varies from 0 at the beginning of the edge to 1 at the end.
+     */
+    private static void position(final double[] minimum, final double[] maximum, final int[] edgeDims,
+            final double[] corners, final int edge, final double t, final double[] target, final int offset)
+    {
+        final int dimension = minimum.length;
+        System.arraycopy(corners, edge * dimension, target, offset, dimension);
+        final int d = edgeDims[edge];
+        target[offset + d] = (t == 1) ? maximum[d] : minimum[d] + t * (maximum[d] - minimum[d]);
+    }
+
+    /**
+     * Expands the given bounds for including all given points. NaN values are ignored.
+     */
+    private static void include(final double[] points, final int numPts, final int dimension,
+            final double[] lower, final double[] upper)
+    {
+        for (int i=0; i<numPts; i++) {
+            for (int j=0; j<dimension; j++) {
+                final double value = points[i*dimension + j];
+                if (value < lower[j]) lower[j] = value;
+                if (value > upper[j]) upper[j] = value;
+            }
+        }
+    }
+
+    /**
+     * Uses the derivatives at sample points for locating the extreme values between consecutive samples.
+     * For each target dimension, a change of sign of the derivative along the edge between two samples
+     * means that an extremum exists between those samples. Its location is estimated by a linear
+     * interpolation of the derivative, and all estimated locations are transformed in a single call.
+     * If the derivative can not be computed at a sample point, this method does nothing and the bounds
+     * are computed by densification only.
+     */
+    private void includeExtrema(final double[] minimum, final double[] maximum, final int[] edgeDims,
+            final double[] corners, final double[] params, final double[] samples, final int numIntervals,
+            final int[] segEdge, final double[] lower, final double[] upper) throws TransformException
+    {
+        final int srcDim = minimum.length;
+        final int tgtDim = lower.length;
+        final int numSamples = params.length;
+        final double[] slopes = new double[numSamples * tgtDim];
+        final SimpleDirectPosition point = new SimpleDirectPosition(srcDim);
+        for (int i=0; i<numSamples; i++) {
+            System.arraycopy(samples, i*srcDim, point.ordinates, 0, srcDim);
+            final Matrix derivative;
+            try {
+                derivative = transform.derivative(point);
+            } catch (UnsupportedOperationException e) {
+                hasDerivative = false;              // The transform never provides derivatives.
+                return;
+            } catch (TransformException e) {
+                return;                             // Only this envelope is affected.
+            }
+            final int d = edgeDims[i / (NUM_INTERVALS + 1)];
+            for (int j=0; j<tgtDim; j++) {
+                slopes[i*tgtDim + j] = derivative.getElement(j, d);
+            }
+        }
+        double[] extrema = new double[srcDim * 4];
+        int count = 0;
+        for (int s=0; s<numIntervals; s++) {
+            final int i = segEdge[s] * (NUM_INTERVALS + 1) + s % NUM_INTERVALS;
+            for (int j=0; j<tgtDim; j++) {
+                final double g0 = slopes[ i   *tgtDim + j];
+                final double g1 = slopes[(i+1)*tgtDim + j];
+                if (g0 * g1 < 0) {
+                    final double t = params[i] + (params[i+1] - params[i]) * (g0 / (g0 - g1));
+                    if (count * srcDim >= extrema.length) {
+                        extrema = Arrays.copyOf(extrema, extrema.length * 2);
+                    }
+                    position(minimum, maximum, edgeDims, corners, segEdge[s], t, extrema, count * srcDim);
+                    count++;
+                }
+            }
+        }
+        if (count != 0) {
+            final double[] results = new double[count * tgtDim];
+            transform.transform(extrema, 0, results, 0, count);
+            include(results, count, tgtDim, lower, upper);
+        }
+    }
+}
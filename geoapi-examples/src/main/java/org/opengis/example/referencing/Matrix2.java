@@ -0,0 +1,228 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.io.Serializable;
+import javax.vecmath.SingularMatrixException;
+import org.opengis.referencing.operation.Matrix;
+
+
+/**
+ * A {@link Matrix} of fixed size 2×2. Elements are stored in plain fields,
+ * so the {@code mul}, {@code invert} and {@link #isIdentity()} operations
+ * are performed without loop and without object allocation.
+ * This is the matrix of the derivative of two-dimensional transforms.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see Matrix3
+ * @see Matrix4
+ * @see SimpleMatrix
+ */
+public final class Matrix2 implements Matrix, Cloneable, Serializable {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = 7116561372481474290L;
+
+    /**
+     * The matrix size, which is {@value}.
+     */
+    public static final int SIZE = 2;
+
+    /** The first matrix element in the first row.   */ public double m00;
+    /** The second matrix element in the first row.  */ public double m01;
+    /** The first matrix element in the second row.  */ public double m10;
+    /** The second matrix element in the second row. */ public double m11;
+
+    /**
+     * Creates an identity matrix.
+     */
+    public Matrix2() {
+        m00 = m11 = 1;
+    }
+
+    /**
+     * Creates a matrix initialized to the given elements, in row-major order.
+     *
+     * @param m00  the first matrix element in the first row.
+     * @param m01  the second matrix element in the first row.
+     * @param m10  the first matrix element in the second row.
+     * @param m11  the second matrix element in the second row.
+     */
+    public Matrix2(final double m00, final double m01,
+                   final double m10, final double m11)
+    {
+        this.m00 = m00;  this.m01 = m01;
+        this.m10 = m10;  this.m11 = m11;
+    }
+
+    /**
+     * Returns the number of rows in this matrix, which is {@value #SIZE}.
+     */
+    @Override
+    public int getNumRow() {
+        return SIZE;
+    }
+
+    /**
+     * Returns the number of columns in this matrix, which is {@value #SIZE}.
+     */
+    @Override
+    public int getNumCol() {
+        return SIZE;
+    }
+
+    /**
+     * Retrieves the value at the specified row and column of this matrix.
+     *
+     * @param  row     the row number to be retrieved (zero indexed).
+     * @param  column  the column number to be retrieved (zero indexed).
+     * @return the value at the indexed element.
+     */
+    @Override
+    public double getElement(final int row, final int column) {
+        if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+            switch (row * SIZE + column) {
+                case 0: return m00;
+                case 1: return m01;
+                case 2: return m10;
+                case 3: return m11;
+            }
+        }
+        throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ").");
+    }
+
+    /**
+     * Modifies the value at the specified row and column of this matrix.
+     *
+     * @param  row     the row number of the value to set (zero indexed).
+     * @param  column  the column number of the value to set (zero indexed).
+     * @param  value   the new matrix element value.
+     */
+    @Override
+    public void setElement(final int row, final int column, final double value) {
+        if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+            switch (row * SIZE + column) {
+                case 0: m00 = value; return;
+                case 1: m01 = value; return;
+                case 2: m10 = value; return;
+                case 3: m11 = value; return;
+            }
+        }
+        throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ").");
+    }
+
+    /**
+     * Returns {@code true} if this matrix is an identity matrix.
+     */
+    @Override
+    public boolean isIdentity() {
+        return m00 == 1 && m01 == 0 &&
+               m10 == 0 && m11 == 1;
+    }
+
+    /**
+     * Sets this matrix to the result of multiplying itself with the given matrix.
+     * In other words, sets this matrix to {@code this} × {@code m}.
+     *
+     * @param m  the other matrix.
+     */
+    public void mul(final Matrix2 m) {
+        mul(this, m);
+    }
+
+    /**
+     * Sets this matrix to the result of multiplying the given matrices.
+     * In other words, sets this matrix to {@code m1} × {@code m2}.
+     * Any argument can be {@code this}.
+     *
+     * @param m1  the first matrix.
+     * @param m2  the second matrix.
+     */
+    public void mul(final Matrix2 m1, final Matrix2 m2) {
+        final double r00 = m1.m00*m2.m00 + m1.m01*m2.m10;
+        final double r01 = m1.m00*m2.m01 + m1.m01*m2.m11;
+        final double r10 = m1.m10*m2.m00 + m1.m11*m2.m10;
+        final double r11 = m1.m10*m2.m01 + m1.m11*m2.m11;
+        m00 = r00;  m01 = r01;
+        m10 = r10;  m11 = r11;
+    }
+
+    /**
+     * Inverts this matrix in place.
+     *
+     * @throws SingularMatrixException if this matrix is not invertible.
+     */
+    public void invert() throws SingularMatrixException {
+        final double det = m00*m11 - m01*m10;
+        if (det == 0) {
+            throw new SingularMatrixException("Matrix is singular.");
+        }
+        final double r00 =  m11 / det;
+        final double r01 = -m01 / det;
+        final double r10 = -m10 / det;
+        final double r11 =  m00 / det;
+        m00 = r00;  m01 = r01;
+        m10 = r10;  m11 = r11;
+    }
+
+    /**
+     * Returns a clone of this matrix.
+     */
+    @Override
+    public Matrix2 clone() {
+        try {
+            return (Matrix2) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);                // Should never happen since we are cloneable.
+        }
+    }
+
+    /**
+     * Compares this matrix with the given object for equality.
+     *
+     * @param  object  the object to compare with this matrix.
+     * @return {@code true} if the given object is a {@code Matrix2} with the same element values.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof Matrix2) {
+            final Matrix2 m = (Matrix2) object;
+            return Double.doubleToLongBits(m00) == Double.doubleToLongBits(m.m00) &&
+                   Double.doubleToLongBits(m01) == Double.doubleToLongBits(m.m01) &&
+                   Double.doubleToLongBits(m10) == Double.doubleToLongBits(m.m10) &&
+                   Double.doubleToLongBits(m11) == Double.doubleToLongBits(m.m11);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this matrix.
+     */
+    @Override
+    public int hashCode() {
+        long code = serialVersionUID;
+        code = 31*code + Double.doubleToLongBits(m00);
+        code = 31*code + Double.doubleToLongBits(m01);
+        code = 31*code + Double.doubleToLongBits(m10);
+        code = 31*code + Double.doubleToLongBits(m11);
+        return Long.hashCode(code);
+    }
+
+    /**
+     * Returns a string representation of this matrix, one row per line.
+     */
+    @Override
+    public String toString() {
+        return m00 + ", " + m01 + System.lineSeparator()
+             + m10 + ", " + m11 + System.lineSeparator();
+    }
+}
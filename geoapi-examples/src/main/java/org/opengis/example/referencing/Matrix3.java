@@ -0,0 +1,275 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.io.Serializable;
+import javax.vecmath.SingularMatrixException;
+import org.opengis.referencing.operation.Matrix;
+
+
+/**
+ * A {@link Matrix} of fixed size 3×3. Elements are stored in plain fields,
+ * so the {@code mul}, {@code invert} and {@link #isIdentity()} operations
+ * are performed without loop and without object allocation.
+ * This is the matrix of two-dimensional affine transforms.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see Matrix2
+ * @see Matrix4
+ * @see SimpleMatrix
+ */
+public final class Matrix3 implements Matrix, Cloneable, Serializable {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -2407393738447412961L;
+
+    /**
+     * The matrix size, which is {@value}.
+     */
+    public static final int SIZE = 3;
+
+    /** The first matrix element in the first row.   */ public double m00;
+    /** The second matrix element in the first row.  */ public double m01;
+    /** The third matrix element in the first row.   */ public double m02;
+    /** The first matrix element in the second row.  */ public double m10;
+    /** The second matrix element in the second row. */ public double m11;
+    /** The third matrix element in the second row.  */ public double m12;
+    /** The first matrix element in the third row.   */ public double m20;
+    /** The second matrix element in the third row.  */ public double m21;
+    /** The third matrix element in the third row.   */ public double m22;
+
+    /**
+     * Creates an identity matrix.
+     */
+    public Matrix3() {
+        m00 = m11 = m22 = 1;
+    }
+
+    /**
+     * Creates a matrix initialized to the given elements, in row-major order.
+     *
+     * @param m00  the first matrix element in the first row.
+     * @param m01  the second matrix element in the first row.
+     * @param m02  the third matrix element in the first row.
+     * @param m10  the first matrix element in the second row.
+     * @param m11  the second matrix element in the second row.
+     * @param m12  the third matrix element in the second row.
+     * @param m20  the first matrix element in the third row.
+     * @param m21  the second matrix element in the third row.
+     * @param m22  the third matrix element in the third row.
+     */
+    public Matrix3(final double m00, final double m01, final double m02,
+                   final double m10, final double m11, final double m12,
+                   final double m20, final double m21, final double m22)
+    {
+        this.m00 = m00;  this.m01 = m01;  this.m02 = m02;
+        this.m10 = m10;  this.m11 = m11;  this.m12 = m12;
+        this.m20 = m20;  this.m21 = m21;  this.m22 = m22;
+    }
+
+    /**
+     * Returns the number of rows in this matrix, which is {@value #SIZE}.
+     */
+    @Override
+    public int getNumRow() {
+        return SIZE;
+    }
+
+    /**
+     * Returns the number of columns in this matrix, which is {@value #SIZE}.
+     */
+    @Override
+    public int getNumCol() {
+        return SIZE;
+    }
+
+    /**
+     * Retrieves the value at the specified row and column of this matrix.
+     *
+     * @param  row     the row number to be retrieved (zero indexed).
+     * @param  column  the column number to be retrieved (zero indexed).
+     * @return the value at the indexed element.
+     */
+    @Override
+    public double getElement(final int row, final int column) {
+        if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+            switch (row * SIZE + column) {
+                case 0: return m00;
+                case 1: return m01;
+                case 2: return m02;
+                case 3: return m10;
+                case 4: return m11;
+                case 5: return m12;
+                case 6: return m20;
+                case 7: return m21;
+                case 8: return m22;
+            }
+        }
+        throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ").");
+    }
+
+    /**
+     * Modifies the value at the specified row and column of this matrix.
+     *
+     * @param  row     the row number of the value to set (zero indexed).
+     * @param  column  the column number of the value to set (zero indexed).
+     * @param  value   the new matrix element value.
+     */
+    @Override
+    public void setElement(final int row, final int column, final double value) {
+        if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+            switch (row * SIZE + column) {
+                case 0: m00 = value; return;
+                case 1: m01 = value; return;
+                case 2: m02 = value; return;
+                case 3: m10 = value; return;
+                case 4: m11 = value; return;
+                case 5: m12 = value; return;
+                case 6: m20 = value; return;
+                case 7: m21 = value; return;
+                case 8: m22 = value; return;
+            }
+        }
+        throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ").");
+    }
+
+    /**
+     * Returns {@code true} if this matrix is an identity matrix.
+     */
+    @Override
+    public boolean isIdentity() {
+        return m00 == 1 && m01 == 0 && m02 == 0 &&
+               m10 == 0 && m11 == 1 && m12 == 0 &&
+               m20 == 0 && m21 == 0 && m22 == 1;
+    }
+
+    /**
+     * Sets this matrix to the result of multiplying itself with the given matrix.
+     * In other words, sets this matrix to {@code this} × {@code m}.
+     *
+     * @param m  the other matrix.
+     */
+    public void mul(final Matrix3 m) {
+        mul(this, m);
+    }
+
+    /**
+     * Sets this matrix to the result of multiplying the given matrices.
+     * In other words, sets this matrix to {@code m1} × {@code m2}.
+     * Any argument can be {@code this}.
+     *
+     * @param m1  the first matrix.
+     * @param m2  the second matrix.
+     */
+    public void mul(final Matrix3 m1, final Matrix3 m2) {
+        final double r00 = m1.m00*m2.m00 + m1.m01*m2.m10 + m1.m02*m2.m20;
+        final double r01 = m1.m00*m2.m01 + m1.m01*m2.m11 + m1.m02*m2.m21;
+        final double r02 = m1.m00*m2.m02 + m1.m01*m2.m12 + m1.m02*m2.m22;
+        final double r10 = m1.m10*m2.m00 + m1.m11*m2.m10 + m1.m12*m2.m20;
+        final double r11 = m1.m10*m2.m01 + m1.m11*m2.m11 + m1.m12*m2.m21;
+        final double r12 = m1.m10*m2.m02 + m1.m11*m2.m12 + m1.m12*m2.m22;
+        final double r20 = m1.m20*m2.m00 + m1.m21*m2.m10 + m1.m22*m2.m20;
+        final double r21 = m1.m20*m2.m01 + m1.m21*m2.m11 + m1.m22*m2.m21;
+        final double r22 = m1.m20*m2.m02 + m1.m21*m2.m12 + m1.m22*m2.m22;
+        m00 = r00;  m01 = r01;  m02 = r02;
+        m10 = r10;  m11 = r11;  m12 = r12;
+        m20 = r20;  m21 = r21;  m22 = r22;
+    }
+
+    /**
+     * Inverts this matrix in place using the cofactors.
+     *
+     * @throws SingularMatrixException if this matrix is not invertible.
+     */
+    public void invert() throws SingularMatrixException {
+        final double c00 = m11*m22 - m12*m21;
+        final double c01 = m12*m20 - m10*m22;
+        final double c02 = m10*m21 - m11*m20;
+        final double det = m00*c00 + m01*c01 + m02*c02;
+        if (det == 0) {
+            throw new SingularMatrixException("Matrix is singular.");
+        }
+        final double r01 = (m02*m21 - m01*m22) / det;
+        final double r02 = (m01*m12 - m02*m11) / det;
+        final double r11 = (m00*m22 - m02*m20) / det;
+        final double r12 = (m02*m10 - m00*m12) / det;
+        final double r21 = (m01*m20 - m00*m21) / det;
+        final double r22 = (m00*m11 - m01*m10) / det;
+        m00 = c00 / det;  m01 = r01;  m02 = r02;
+        m10 = c01 / det;  m11 = r11;  m12 = r12;
+        m20 = c02 / det;  m21 = r21;  m22 = r22;
+    }
+
+    /**
+     * Returns a clone of this matrix.
+     */
+    @Override
+    public Matrix3 clone() {
+        try {
+            return (Matrix3) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);                // Should never happen since we are cloneable.
+        }
+    }
+
+    /**
+     * Compares this matrix with the given object for equality.
+     *
+     * @param  object  the object to compare with this matrix.
+     * @return {@code true} if the given object is a {@code Matrix3} with the same element values.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof Matrix3) {
+            final Matrix3 m = (Matrix3) object;
+            return Double.doubleToLongBits(m00) == Double.doubleToLongBits(m.m00) &&
+                   Double.doubleToLongBits(m01) == Double.doubleToLongBits(m.m01) &&
+                   Double.doubleToLongBits(m02) == Double.doubleToLongBits(m.m02) &&
+                   Double.doubleToLongBits(m10) == Double.doubleToLongBits(m.m10) &&
+                   Double.doubleToLongBits(m11) == Double.doubleToLongBits(m.m11) &&
+                   Double.doubleToLongBits(m12) == Double.doubleToLongBits(m.m12) &&
+                   Double.doubleToLongBits(m20) == Double.doubleToLongBits(m.m20) &&
+                   Double.doubleToLongBits(m21) == Double.doubleToLongBits(m.m21) &&
+                   Double.doubleToLongBits(m22) == Double.doubleToLongBits(m.m22);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this matrix.
+     */
+    @Override
+    public int hashCode() {
+        long code = serialVersionUID;
+        code = 31*code + Double.doubleToLongBits(m00);
+        code = 31*code + Double.doubleToLongBits(m01);
+        code = 31*code + Double.doubleToLongBits(m02);
+        code = 31*code + Double.doubleToLongBits(m10);
+        code = 31*code + Double.doubleToLongBits(m11);
+        code = 31*code + Double.doubleToLongBits(m12);
+        code = 31*code + Double.doubleToLongBits(m20);
+        code = 31*code + Double.doubleToLongBits(m21);
+        code = 31*code + Double.doubleToLongBits(m22);
+        return Long.hashCode(code);
+    }
+
+    /**
+     * Returns a string representation of this matrix, one row per line.
+     */
+    @Override
+    public String toString() {
+        final String lineSeparator = System.lineSeparator();
+        return m00 + ", " + m01 + ", " + m02 + lineSeparator
+             + m10 + ", " + m11 + ", " + m12 + lineSeparator
+             + m20 + ", " + m21 + ", " + m22 + lineSeparator;
+    }
+}
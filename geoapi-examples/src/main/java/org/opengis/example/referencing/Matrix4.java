@@ -0,0 +1,332 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.io.Serializable;
+import javax.vecmath.SingularMatrixException;
+import org.opengis.referencing.operation.Matrix;
+
+
+/**
+ * A {@link Matrix} of fixed size 4×4. Elements are stored in plain fields,
+ * so the {@code mul}, {@code invert} and {@link #isIdentity()} operations
+ * are performed without loop and without object allocation.
+ * This is the matrix of three-dimensional affine transforms.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see Matrix2
+ * @see Matrix3
+ * @see SimpleMatrix
+ */
+public final class Matrix4 implements Matrix, Cloneable, Serializable {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = 5685762518066856310L;
+
+    /**
+     * The matrix size, which is {@value}.
+     */
+    public static final int SIZE = 4;
+
+    /** The first matrix element in the first row.   */ public double m00;
+    /** The second matrix element in the first row.  */ public double m01;
+    /** The third matrix element in the first row.   */ public double m02;
+    /** The fourth matrix element in the first row.  */ public double m03;
+    /** The first matrix element in the second row.  */ public double m10;
+    /** The second matrix element in the second row. */ public double m11;
+    /** The third matrix element in the second row.  */ public double m12;
+    /** The fourth matrix element in the second row. */ public double m13;
+    /** The first matrix element in the third row.   */ public double m20;
+    /** The second matrix element in the third row.  */ public double m21;
+    /** The third matrix element in the third row.   */ public double m22;
+    /** The fourth matrix element in the third row.  */ public double m23;
+    /** The first matrix element in the fourth row.  */ public double m30;
+    /** The second matrix element in the fourth row. */ public double m31;
+    /** The third matrix element in the fourth row.  */ public double m32;
+    /** The fourth matrix element in the fourth row. */ public double m33;
+
+    /**
+     * Creates an identity matrix.
+     */
+    public Matrix4() {
+        m00 = m11 = m22 = m33 = 1;
+    }
+
+    /**
+     * Creates a matrix initialized to the given elements, in row-major order.
+     *
+     * @param m00  the first matrix element in the first row.
+     * @param m01  the second matrix element in the first row.
+     * @param m02  the third matrix element in the first row.
+     * @param m03  the fourth matrix element in the first row.
+     * @param m10  the first matrix element in the second row.
+     * @param m11  the second matrix element in the second row.
+     * @param m12  the third matrix element in the second row.
+     * @param m13  the fourth matrix element in the second row.
+     * @param m20  the first matrix element in the third row.
+     * @param m21  the second matrix element in the third row.
+     * @param m22  the third matrix element in the third row.
+     * @param m23  the fourth matrix element in the third row.
+     * @param m30  the first matrix element in the fourth row.
+     * @param m31  the second matrix element in the fourth row.
+     * @param m32  the third matrix element in the fourth row.
+     * @param m33  the fourth matrix element in the fourth row.
+     */
+    public Matrix4(final double m00, final double m01, final double m02, final double m03,
+                   final double m10, final double m11, final double m12, final double m13,
+                   final double m20, final double m21, final double m22, final double m23,
+                   final double m30, final double m31, final double m32, final double m33)
+    {
+        this.m00 = m00;  this.m01 = m01;  this.m02 = m02;  this.m03 = m03;
+        this.m10 = m10;  this.m11 = m11;  this.m12 = m12;  this.m13 = m13;
+        this.m20 = m20;  this.m21 = m21;  this.m22 = m22;  this.m23 = m23;
+        this.m30 = m30;  this.m31 = m31;  this.m32 = m32;  this.m33 = m33;
+    }
+
+    /**
+     * Returns the number of rows in this matrix, which is {@value #SIZE}.
+     */
+    @Override
+    public int getNumRow() {
+        return SIZE;
+    }
+
+    /**
+     * Returns the number of columns in this matrix, which is {@value #SIZE}.
+     */
+    @Override
+    public int getNumCol() {
+        return SIZE;
+    }
+
+    /**
+     * Retrieves the value at the specified row and column of this matrix.
+     *
+     * @param  row     the row number to be retrieved (zero indexed).
+     * @param  column  the column number to be retrieved (zero indexed).
+     * @return the value at the indexed element.
+     */
+    @Override
+    public double getElement(final int row, final int column) {
+        if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+            switch (row * SIZE + column) {
+                case  0: return m00;
+                case  1: return m01;
+                case  2: return m02;
+                case  3: return m03;
+                case  4: return m10;
+                case  5: return m11;
+                case  6: return m12;
+                case  7: return m13;
+                case  8: return m20;
+                case  9: return m21;
+                case 10: return m22;
+                case 11: return m23;
+                case 12: return m30;
+                case 13: return m31;
+                case 14: return m32;
+                case 15: return m33;
+            }
+        }
+        throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ").");
+    }
+
+    /**
+     * Modifies the value at the specified row and column of this matrix.
+     *
+     * @param  row     the row number of the value to set (zero indexed).
+     * @param  column  the column number of the value to set (zero indexed).
+     * @param  value   the new matrix element value.
+     */
+    @Override
+    public void setElement(final int row, final int column, final double value) {
+        if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+            switch (row * SIZE + column) {
+                case  0: m00 = value; return;
+                case  1: m01 = value; return;
+                case  2: m02 = value; return;
+                case  3: m03 = value; return;
+                case  4: m10 = value; return;
+                case  5: m11 = value; return;
+                case  6: m12 = value; return;
+                case  7: m13 = value; return;
+                case  8: m20 = value; return;
+                case  9: m21 = value; return;
+                case 10: m22 = value; return;
+                case 11: m23 = value; return;
+                case 12: m30 = value; return;
+                case 13: m31 = value; return;
+                case 14: m32 = value; return;
+                case 15: m33 = value; return;
+            }
+        }
+        throw new IndexOutOfBoundsException("No element at (" + row + ", " + column + ").");
+    }
+
+    /**
+     * Returns {@code true} if this matrix is an identity matrix.
+     */
+    @Override
+    public boolean isIdentity() {
+        return m00 == 1 && m01 == 0 && m02 == 0 && m03 == 0 &&
+               m10 == 0 && m11 == 1 && m12 == 0 && m13 == 0 &&
+               m20 == 0 && m21 == 0 && m22 == 1 && m23 == 0 &&
+               m30 == 0 && m31 == 0 && m32 == 0 && m33 == 1;
+    }
+
+    /**
+     * Sets this matrix to the result of multiplying itself with the given matrix.
+     * In other words, sets this matrix to {@code this} × {@code m}.
+     *
+     * @param m  the other matrix.
+     */
+    public void mul(final Matrix4 m) {
+        mul(this, m);
+    }
+
+    /**
+     * Sets this matrix to the result of multiplying the given matrices.
+     * In other words, sets this matrix to {@code m1} × {@code m2}.
+     * Any argument can be {@code this}.
+     *
+     * @param m1  the first matrix.
+     * @param m2  the second matrix.
+     */
+    public void mul(final Matrix4 m1, final Matrix4 m2) {
+        final double r00 = m1.m00*m2.m00 + m1.m01*m2.m10 + m1.m02*m2.m20 + m1.m03*m2.m30;
+        final double r01 = m1.m00*m2.m01 + m1.m01*m2.m11 + m1.m02*m2.m21 + m1.m03*m2.m31;
+        final double r02 = m1.m00*m2.m02 + m1.m01*m2.m12 + m1.m02*m2.m22 + m1.m03*m2.m32;
+        final double r03 = m1.m00*m2.m03 + m1.m01*m2.m13 + m1.m02*m2.m23 + m1.m03*m2.m33;
+        final double r10 = m1.m10*m2.m00 + m1.m11*m2.m10 + m1.m12*m2.m20 + m1.m13*m2.m30;
+        final double r11 = m1.m10*m2.m01 + m1.m11*m2.m11 + m1.m12*m2.m21 + m1.m13*m2.m31;
+        final double r12 = m1.m10*m2.m02 + m1.m11*m2.m12 + m1.m12*m2.m22 + m1.m13*m2.m32;
+        final double r13 = m1.m10*m2.m03 + m1.m11*m2.m13 + m1.m12*m2.m23 + m1.m13*m2.m33;
+        final double r20 = m1.m20*m2.m00 + m1.m21*m2.m10 + m1.m22*m2.m20 + m1.m23*m2.m30;
+        final double r21 = m1.m20*m2.m01 + m1.m21*m2.m11 + m1.m22*m2.m21 + m1.m23*m2.m31;
+        final double r22 = m1.m20*m2.m02 + m1.m21*m2.m12 + m1.m22*m2.m22 + m1.m23*m2.m32;
+        final double r23 = m1.m20*m2.m03 + m1.m21*m2.m13 + m1.m22*m2.m23 + m1.m23*m2.m33;
+        final double r30 = m1.m30*m2.m00 + m1.m31*m2.m10 + m1.m32*m2.m20 + m1.m33*m2.m30;
+        final double r31 = m1.m30*m2.m01 + m1.m31*m2.m11 + m1.m32*m2.m21 + m1.m33*m2.m31;
+        final double r32 = m1.m30*m2.m02 + m1.m31*m2.m12 + m1.m32*m2.m22 + m1.m33*m2.m32;
+        final double r33 = m1.m30*m2.m03 + m1.m31*m2.m13 + m1.m32*m2.m23 + m1.m33*m2.m33;
+        m00 = r00;  m01 = r01;  m02 = r02;  m03 = r03;
+        m10 = r10;  m11 = r11;  m12 = r12;  m13 = r13;
+        m20 = r20;  m21 = r21;  m22 = r22;  m23 = r23;
+        m30 = r30;  m31 = r31;  m32 = r32;  m33 = r33;
+    }
+
+    /**
+     * Inverts this matrix in place. This method uses the Laplace expansion
+     * on the determinants of the 2×2 sub-matrices of the two first rows
+     * ({@code s0} to {@code s5}) and two last rows ({@code c0} to {@code c5}).
+     *
+     * @throws SingularMatrixException if this matrix is not invertible.
+     */
+    public void invert() throws SingularMatrixException {
+        final double s0 = m00*m11 - m10*m01;
+        final double s1 = m00*m12 - m10*m02;
+        final double s2 = m00*m13 - m10*m03;
+        final double s3 = m01*m12 - m11*m02;
+        final double s4 = m01*m13 - m11*m03;
+        final double s5 = m02*m13 - m12*m03;
+        final double c5 = m22*m33 - m32*m23;
+        final double c4 = m21*m33 - m31*m23;
+        final double c3 = m21*m32 - m31*m22;
+        final double c2 = m20*m33 - m30*m23;
+        final double c1 = m20*m32 - m30*m22;
+        final double c0 = m20*m31 - m30*m21;
+        final double det = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+        if (det == 0) {
+            throw new SingularMatrixException("Matrix is singular.");
+        }
+        final double r00 = ( m11*c5 - m12*c4 + m13*c3) / det;
+        final double r01 = (-m01*c5 + m02*c4 - m03*c3) / det;
+        final double r02 = ( m31*s5 - m32*s4 + m33*s3) / det;
+        final double r03 = (-m21*s5 + m22*s4 - m23*s3) / det;
+        final double r10 = (-m10*c5 + m12*c2 - m13*c1) / det;
+        final double r11 = ( m00*c5 - m02*c2 + m03*c1) / det;
+        final double r12 = (-m30*s5 + m32*s2 - m33*s1) / det;
+        final double r13 = ( m20*s5 - m22*s2 + m23*s1) / det;
+        final double r20 = ( m10*c4 - m11*c2 + m13*c0) / det;
+        final double r21 = (-m00*c4 + m01*c2 - m03*c0) / det;
+        final double r22 = ( m30*s4 - m31*s2 + m33*s0) / det;
+        final double r23 = (-m20*s4 + m21*s2 - m23*s0) / det;
+        final double r30 = (-m10*c3 + m11*c1 - m12*c0) / det;
+        final double r31 = ( m00*c3 - m01*c1 + m02*c0) / det;
+        final double r32 = (-m30*s3 + m31*s1 - m32*s0) / det;
+        final double r33 = ( m20*s3 - m21*s1 + m22*s0) / det;
+        m00 = r00;  m01 = r01;  m02 = r02;  m03 = r03;
+        m10 = r10;  m11 = r11;  m12 = r12;  m13 = r13;
+        m20 = r20;  m21 = r21;  m22 = r22;  m23 = r23;
+        m30 = r30;  m31 = r31;  m32 = r32;  m33 = r33;
+    }
+
+    /**
+     * Returns a clone of this matrix.
+     */
+    @Override
+    public Matrix4 clone() {
+        try {
+            return (Matrix4) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);                // Should never happen since we are cloneable.
+        }
+    }
+
+    /**
+     * Compares this matrix with the given object for equality.
+     *
+     * @param  object  the object to compare with this matrix.
+     * @return {@code true} if the given object is a {@code Matrix4} with the same element values.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof Matrix4) {
+            final Matrix4 m = (Matrix4) object;
+            for (int j=0; j<SIZE; j++) {
+                for (int i=0; i<SIZE; i++) {
+                    if (Double.doubleToLongBits(getElement(j,i)) != Double.doubleToLongBits(m.getElement(j,i))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this matrix.
+     */
+    @Override
+    public int hashCode() {
+        long code = serialVersionUID;
+        for (int j=0; j<SIZE; j++) {
+            for (int i=0; i<SIZE; i++) {
+                code = 31*code + Double.doubleToLongBits(getElement(j,i));
+            }
+        }
+        return Long.hashCode(code);
+    }
+
+    /**
+     * Returns a string representation of this matrix, one row per line.
+     */
+    @Override
+    public String toString() {
+        final String lineSeparator = System.lineSeparator();
+        return m00 + ", " + m01 + ", " + m02 + ", " + m03 + lineSeparator
+             + m10 + ", " + m11 + ", " + m12 + ", " + m13 + lineSeparator
+             + m20 + ", " + m21 + ", " + m22 + ", " + m23 + lineSeparator
+             + m30 + ", " + m31 + ", " + m32 + ", " + m33 + lineSeparator;
+    }
+}
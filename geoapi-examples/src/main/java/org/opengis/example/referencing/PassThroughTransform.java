@@ -0,0 +1,490 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.opengis.metadata.citation.Citation;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * A {@link MathTransform} which passes through a subset of coordinates to another transform.
+ * The coordinates before the {@linkplain #getFirstAffectedCoordinate() first affected coordinate}
+ * and the {@linkplain #getNumTrailingCoordinates() trailing coordinates} are copied unchanged.
+ * For example a two-dimensional horizontal transform can be applied on (<var>x</var>, <var>y</var>,
+ * <var>z</var>, <var>t</var>) coordinates with 0 leading coordinate and 2 trailing coordinates.
+ *
+ * <p>Coordinates given in arrays are processed by blocks. For each block, the source points are copied
+ * in a buffer, the coordinates to give to the sub-transform are packed in a contiguous region of that
+ * buffer and transformed in-place, then the target points are assembled in the destination array.
+ * A single buffer of bounded size is kept by each transform and borrowed by the {@code transform} methods.
+ * A new buffer is allocated only if the kept buffer is already in use by another thread.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see SimpleTransformFactory#createPassThroughTransform(int, MathTransform, int)
+ */
+public class PassThroughTransform extends SimpleTransform {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = 3214587628512358451L;
+
+    /**
+     * Maximal number of coordinate values in the buffer used for transforming a block of points.
+     * The buffer size is 16 kilobytes, which is half the size of a typical level 1 data cache.
+     */
+    private static final int BUFFER_SIZE = 2048;
+
+    /**
+     * Index of the first affected coordinate.
+     */
+    private final int firstAffectedCoordinate;
+
+    /**
+     * The sub-transform to apply on the affected coordinates.
+     */
+    private final MathTransform subTransform;
+
+    /**
+     * Number of unaffected coordinates after the affected ones.
+     */
+    private final int numTrailingCoordinates;
+
+    /**
+     * Number of points to transform in each block.
+     */
+    private final int blockSize;
+
+    /**
+     * Holder of the buffer for transforming blocks of points, or {@code null} if not yet created.
+     * The holder is empty while the buffer is borrowed by a thread.
+     * Created when first needed, including after deserialization.
+     */
+    private transient volatile AtomicReference<double[]> spare;
+
+    /**
+     * The inverse of this transform, computed when first needed.
+     */
+    private transient PassThroughTransform inverse;
+
+    /**
+     * Creates a new pass through transform.
+     *
+     * @param authority                organization responsible for definition of the name, or {@code null}.
+     * @param name                     the name of the new transform.
+     * @param firstAffectedCoordinate  index of the first affected coordinate.
+     * @param subTransform             the sub-transform to apply on the affected coordinates.
+     * @param numTrailingCoordinates   number of unaffected coordinates after the affected ones.
+     */
+    public PassThroughTransform(final Citation authority, final String name,
+            final int firstAffectedCoordinate, final MathTransform subTransform, final int numTrailingCoordinates)
+    {
+        super(authority, name, null, null);
+        if (firstAffectedCoordinate < 0 || numTrailingCoordinates < 0) {
+            throw new IllegalArgumentException("Number of leading and trailing coordinates shall not be negative.");
+        }
+        this.firstAffectedCoordinate = firstAffectedCoordinate;
+        this.subTransform            = subTransform;
+        this.numTrailingCoordinates  = numTrailingCoordinates;
+        blockSize = Math.max(1, BUFFER_SIZE / (getSourceDimensions() + subDimension()));
+    }
+
+    /**
+     * Returns the number of coordinate values in the buffer for each point given to the sub-transform.
+     */
+    private int subDimension() {
+        return Math.max(subTransform.getSourceDimensions(), subTransform.getTargetDimensions());
+    }
+
+    /**
+     * Returns the index of the first affected coordinate.
+     *
+     * @return index of the first affected coordinate.
+     */
+    public int getFirstAffectedCoordinate() {
+        return firstAffectedCoordinate;
+    }
+
+    /**
+     * Returns the sub-transform to apply on the affected coordinates.
+     *
+     * @return the sub-transform.
+     */
+    public MathTransform getSubTransform() {
+        return subTransform;
+    }
+
+    /**
+     * Returns the number of unaffected coordinates after the affected ones.
+     *
+     * @return number of trailing coordinates.
+     */
+    public int getNumTrailingCoordinates() {
+        return numTrailingCoordinates;
+    }
+
+    /**
+     * Gets the dimension of input points.
+     */
+    @Override
+    public int getSourceDimensions() {
+        return firstAffectedCoordinate + subTransform.getSourceDimensions() + numTrailingCoordinates;
+    }
+
+    /**
+     * Gets the dimension of output points.
+     */
+    @Override
+    public int getTargetDimensions() {
+        return firstAffectedCoordinate + subTransform.getTargetDimensions() + numTrailingCoordinates;
+    }
+
+    /**
+     * Transforms the specified {@code ptSrc} and stores the result in {@code ptDst}.
+     *
+     * @param  ptSrc  the coordinate point to be transformed.
+     * @param  ptDst  the coordinate point that stores the transform result, or {@code null}.
+     * @return the coordinate point after transforming {@code ptSrc}.
+     * @throws MismatchedDimensionException if {@code ptSrc} or {@code ptDst} does not have the expected dimension.
+     * @throws TransformException if the sub-transform can not transform the point.
+     */
+    @Override
+    public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) throws TransformException {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        if (ptSrc.getDimension() != srcDim) {
+            throw new MismatchedDimensionException("Wrong number of source dimensions.");
+        }
+        if (ptDst == null) {
+            ptDst = new SimpleDirectPosition(dstDim);
+        } else if (ptDst.getDimension() != dstDim) {
+            throw new MismatchedDimensionException("Wrong number of target dimensions.");
+        }
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        final SimpleDirectPosition sub = new SimpleDirectPosition(subSrc);
+        for (int i=0; i<subSrc; i++) {
+            sub.ordinates[i] = ptSrc.getOrdinate(firstAffectedCoordinate + i);
+        }
+        final DirectPosition result = subTransform.transform(sub, sub.getDimension() == subDst ? sub : null);
+        /*
+         * If ptSrc and ptDst are the same object, then the number of source and target dimensions
+         * are equal and the unaffected coordinates are already at their target position.
+         */
+        if (ptDst != ptSrc) {
+            for (int i=0; i<firstAffectedCoordinate; i++) {
+                ptDst.setOrdinate(i, ptSrc.getOrdinate(i));
+            }
+            for (int i=1; i<=numTrailingCoordinates; i++) {
+                ptDst.setOrdinate(dstDim - i, ptSrc.getOrdinate(srcDim - i));
+            }
+        }
+        for (int i=0; i<subDst; i++) {
+            ptDst.setOrdinate(firstAffectedCoordinate + i, result.getOrdinate(i));
+        }
+        return ptDst;
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     * The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if the sub-transform can not transform the points.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     * The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if the sub-transform can not transform the points.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if the sub-transform can not transform the points.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if the sub-transform can not transform the points.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts) throws TransformException {
+        transform((Object) srcPts, srcOff, (Object) dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values by blocks. For each block, the source points
+     * are copied at the beginning of the buffer, then the coordinates to give to the sub-transform are
+     * copied after the source points and transformed in-place. Finally the leading coordinates,
+     * transformed coordinates and trailing coordinates are written in the destination array.
+     * The blocks are processed in reverse order if it is needed for not overwriting source
+     * coordinates not yet transformed.
+     *
+     * <p>This method does not allocate memory, except when the buffer is already in use by another thread
+     * or in the rare case where the source and destination regions overlap in a way that can not be handled
+     * by iteration order.</p>
+     *
+     * @param  srcPts  the {@code double[]} or {@code float[]} array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the {@code double[]} or {@code float[]} array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @throws TransformException if the sub-transform can not transform the points.
+     */
+    private void transform(Object srcPts, int srcOff, final Object dstPts, int dstOff, int numPts) throws TransformException {
+        if (numPts <= 0) {
+            return;
+        }
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        boolean backward = false;
+        if (srcPts == dstPts) {
+            switch (direction(srcOff, srcDim, dstOff, dstDim, numPts)) {
+                case -1: {
+                    backward = true;
+                    break;
+                }
+                case 0: {
+                    final int upper = srcOff + numPts*srcDim;
+                    srcPts = (srcPts instanceof double[]) ? Arrays.copyOfRange((double[]) srcPts, srcOff, upper)
+                                                          : Arrays.copyOfRange((float[])  srcPts, srcOff, upper);
+                    srcOff = 0;
+                    break;
+                }
+            }
+        }
+        /*
+         * Borrow the buffer. If two threads create the holder concurrently, one of them
+         * is lost but this has no consequence other than an additional buffer.
+         */
+        AtomicReference<double[]> holder = spare;
+        if (holder == null) {
+            spare = holder = new AtomicReference<>();
+        }
+        double[] buffer = holder.getAndSet(null);
+        if (buffer == null) {
+            buffer = new double[blockSize * (srcDim + subDimension())];
+        }
+        try {
+            transform(srcPts, srcOff, dstPts, dstOff, numPts, backward, buffer);
+        } finally {
+            holder.set(buffer);
+        }
+    }
+
+    /**
+     * Transforms the points by blocks using the given buffer. This method is the implementation of
+     * {@link #transform(Object, int, Object, int, int)} after the source points have been copied if
+     * needed and the buffer has been borrowed.
+     *
+     * @param  srcPts    the {@code double[]} or {@code float[]} array containing the source point coordinates.
+     * @param  srcOff    the offset to the first point to be transformed in the source array.
+     * @param  dstPts    the {@code double[]} or {@code float[]} array into which the transformed point coordinates are returned.
+     * @param  dstOff    the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts    the number of point objects to be transformed.
+     * @param  backward  whether to process the blocks in reverse order.
+     * @param  buffer    the buffer for {@link #blockSize} points.
+     * @throws TransformException if the sub-transform can not transform the points.
+     */
+    private void transform(final Object srcPts, int srcOff, final Object dstPts, int dstOff, int numPts,
+            final boolean backward, final double[] buffer) throws TransformException
+    {
+        final int srcDim   = getSourceDimensions();
+        final int dstDim   = getTargetDimensions();
+        final int subSrc   = subTransform.getSourceDimensions();
+        final int subDst   = subTransform.getTargetDimensions();
+        final int subOff   = blockSize * srcDim;                  // Start of the sub-transform region in the buffer.
+        final int trailSrc = firstAffectedCoordinate + subSrc;    // Index of the first trailing coordinate in a source point.
+        final int trailDst = firstAffectedCoordinate + subDst;    // Index of the first trailing coordinate in a target point.
+        while (numPts > 0) {
+            final int n = Math.min(numPts, blockSize);
+            int s, d;
+            if (backward) {
+                s = srcOff + (numPts - n) * srcDim;
+                d = dstOff + (numPts - n) * dstDim;
+            } else {
+                s = srcOff;
+                d = dstOff;
+                srcOff += n * srcDim;
+                dstOff += n * dstDim;
+            }
+            /*
+             * Copy the source points of the current block, then pack the coordinates
+             * to give to the sub-transform and transform them in-place.
+             */
+            if (srcPts instanceof double[]) {
+                System.arraycopy((double[]) srcPts, s, buffer, 0, n * srcDim);
+            } else {
+                arraycopy((float[]) srcPts, s, buffer, 0, n * srcDim);
+            }
+            for (int p=0, i=firstAffectedCoordinate, o=subOff; p<n; p++, i += srcDim, o += subSrc) {
+                System.arraycopy(buffer, i, buffer, o, subSrc);
+            }
+            subTransform.transform(buffer, subOff, buffer, subOff, n);
+            /*
+             * Assemble the target points from the leading coordinates, the transformed coordinates
+             * and the trailing coordinates. All values are read from the buffer, so this loop does
+             * not read the source array (which may be the destination array).
+             */
+            s = 0;
+            int o = subOff;
+            if (dstPts instanceof double[]) {
+                final double[] dst = (double[]) dstPts;
+                for (int p=0; p<n; p++) {
+                    System.arraycopy(buffer, s,            dst, d,            firstAffectedCoordinate);
+                    System.arraycopy(buffer, o,            dst, d + firstAffectedCoordinate, subDst);
+                    System.arraycopy(buffer, s + trailSrc, dst, d + trailDst, numTrailingCoordinates);
+                    s += srcDim;
+                    o += subDst;
+                    d += dstDim;
+                }
+            } else {
+                final float[] dst = (float[]) dstPts;
+                for (int p=0; p<n; p++) {
+                    arraycopy(buffer, s,            dst, d,            firstAffectedCoordinate);
+                    arraycopy(buffer, o,            dst, d + firstAffectedCoordinate, subDst);
+                    arraycopy(buffer, s + trailSrc, dst, d + trailDst, numTrailingCoordinates);
+                    s += srcDim;
+                    o += subDst;
+                    d += dstDim;
+                }
+            }
+            numPts -= n;
+        }
+    }
+
+    /**
+     * Gets the derivative of this transform at a point. The derivative is an identity matrix
+     * except for the rows and columns of the affected coordinates, which contain the derivative
+     * of the sub-transform.
+     *
+     * @param  point  the coordinate point where to evaluate the derivative.
+     * @return the derivative at the specified point.
+     * @throws TransformException if the derivative can not be evaluated at the specified point.
+     */
+    @Override
+    public Matrix derivative(final DirectPosition point) throws TransformException {
+        final int subSrc = subTransform.getSourceDimensions();
+        final int subDst = subTransform.getTargetDimensions();
+        DirectPosition sub = null;
+        if (point != null) {
+            final SimpleDirectPosition p = new SimpleDirectPosition(subSrc);
+            for (int i=0; i<subSrc; i++) {
+                p.ordinates[i] = point.getOrdinate(firstAffectedCoordinate + i);
+            }
+            sub = p;
+        }
+        final Matrix subDerivative = subTransform.derivative(sub);
+        final int numRow   = getTargetDimensions();
+        final int numCol   = getSourceDimensions();
+        final int trailSrc = firstAffectedCoordinate + subSrc;
+        final int trailDst = firstAffectedCoordinate + subDst;
+        final Matrix derivative = SimpleTransformFactory.createMatrix(numRow, numCol);
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                final double value;
+                if (j < firstAffectedCoordinate) {
+                    value = (i == j) ? 1 : 0;                                   // Leading coordinates.
+                } else if (j < trailDst) {
+                    value = (i >= firstAffectedCoordinate && i < trailSrc)      // Affected coordinates.
+                            ? subDerivative.getElement(j - firstAffectedCoordinate, i - firstAffectedCoordinate) : 0;
+                } else {
+                    value = (i - trailSrc == j - trailDst) ? 1 : 0;             // Trailing coordinates.
+                }
+                derivative.setElement(j, i, value);
+            }
+        }
+        return derivative;
+    }
+
+    /**
+     * Returns the inverse of this transform, which is a pass through transform of the inverse sub-transform.
+     *
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if the sub-transform is not invertible.
+     */
+    @Override
+    public synchronized PassThroughTransform inverse() throws NoninvertibleTransformException {
+        if (inverse == null) {
+            inverse = new PassThroughTransform(authority, "Inverse of " + code,
+                    firstAffectedCoordinate, subTransform.inverse(), numTrailingCoordinates);
+            inverse.inverse = this;
+        }
+        return inverse;
+    }
+
+    /**
+     * Tests whether this transform does not move any points.
+     * This is the case if the sub-transform is an identity transform.
+     */
+    @Override
+    public boolean isIdentity() {
+        return subTransform.isIdentity();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (super.equals(object)) {
+            final PassThroughTransform other = (PassThroughTransform) object;
+            return firstAffectedCoordinate == other.firstAffectedCoordinate &&
+                   numTrailingCoordinates  == other.numTrailingCoordinates  &&
+                   subTransform.equals(other.subTransform);
+        }
+        return false;
+    }
+}
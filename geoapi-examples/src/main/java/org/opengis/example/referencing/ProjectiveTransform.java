@@ -7,6 +7,7 @@
  */
 package org.opengis.example.referencing;
 
+import java.util.Arrays;
 import java.util.Objects;
 import javax.vecmath.GMatrix;
 
@@ -34,12 +35,13 @@ import org.opengis.example.geometry.SimpleDirectPosition;
  * </ul>
  *
  * <b>Performance note:</b>
- * This implementation is known to be slow. However the intent is to be pedagogic, not to be
- * efficient. Performance enhancements are left to implementers (<i>Tip:</i> override all
- * {@code transform} methods expecting array arguments).
+ * The {@link #transform(DirectPosition, DirectPosition)} method allocates a temporary buffer for each point,
+ * since the intent is to be pedagogic. However the {@code transform} methods expecting array arguments are
+ * overridden with loops working directly on the matrix coefficients, without object allocation for each point.
+ * The two-dimensional and three-dimensional affine cases are handled by specialized loops.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  *
  * @see SimpleTransformFactory#createAffineTransform(Matrix)
@@ -51,9 +53,23 @@ public class ProjectiveTransform extends SimpleTransform {
     private static final long serialVersionUID = -6681647845536764717L;
 
     /**
-     * The matrix used for performing the coordinate conversions.
+     * The matrix used for performing the coordinate conversions. This is usually a {@link Matrix2},
+     * {@link Matrix3}, {@link Matrix4} or {@link SimpleMatrix} instance, but other implementations
+     * are accepted. This matrix shall not be modified after the transform construction.
      */
-    protected final SimpleMatrix matrix;
+    protected final Matrix matrix;
+
+    /**
+     * A copy of the {@linkplain #matrix} elements in row-major order.
+     * Used by the {@code transform} methods working on arrays.
+     */
+    private final double[] elements;
+
+    /**
+     * Whether the last row of the {@linkplain #matrix} contains only zero values except
+     * in the last column, which contains 1. In such case, there is no division to perform.
+     */
+    private final boolean affine;
 
     /**
      * The inverse of this transform, computed when first needed.
@@ -72,7 +88,7 @@ public class ProjectiveTransform extends SimpleTransform {
     public ProjectiveTransform(final Citation authority, final String name,
             final CoordinateReferenceSystem sourceCRS,
             final CoordinateReferenceSystem targetCRS,
-            final SimpleMatrix matrix)
+            final Matrix matrix)
     {
         super(authority, name, sourceCRS, targetCRS);
         Objects.requireNonNull(matrix);
@@ -83,6 +99,20 @@ public class ProjectiveTransform extends SimpleTransform {
         if (targetCRS != null && targetCRS.getCoordinateSystem().getDimension() != matrix.getNumRow() - 1) {
             throw new MismatchedDimensionException("Wrong number of target dimensions.");
         }
+        final int numRow = matrix.getNumRow();
+        final int numCol = matrix.getNumCol();
+        elements = new double[numRow * numCol];
+        boolean isAffine = true;
+        for (int k=0, j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                final double e = matrix.getElement(j, i);
+                elements[k++] = e;
+                if (j == numRow - 1 && e != (i == numCol - 1 ? 1 : 0)) {
+                    isAffine = false;
+                }
+            }
+        }
+        affine = isAffine;
     }
 
     /**
@@ -134,27 +164,290 @@ public class ProjectiveTransform extends SimpleTransform {
             ptDst = new SimpleDirectPosition(dstDim);
         }
         //
-        // Create two matrixes of 1 column, which will
-        // represent the source and target coordinates.
+        // Copy the source coordinates in a buffer, then compute
+        // [target] = [matrix]*[source] as documented in the method
+        // javadoc. The target coordinates are stored after the source
+        // coordinates in the same buffer.
         //
-        final GMatrix source = new GMatrix(srcDim+1, 1);
-        final GMatrix target = new GMatrix(dstDim+1, 1);
-        source.setElement(srcDim, 0, 1);
+        final double[] buffer = new double[srcDim + dstDim];
         for (int j=0; j<srcDim; j++) {
-            source.setElement(j, 0, ptSrc.getOrdinate(j));
+            buffer[j] = ptSrc.getOrdinate(j);
         }
-        //
-        // Compute [target] = [matrix]*[source]
-        // as documented in the method javadoc.
-        //
-        target.mul(matrix, source);
-        final double w = target.getElement(dstDim, 0);          // =1 if the transform is affine.
+        transform(buffer, srcDim, dstDim);
         for (int j=0; j<dstDim; j++) {
-            ptDst.setOrdinate(j, target.getElement(j, 0) / w);
+            ptDst.setOrdinate(j, buffer[srcDim + j]);
         }
         return ptDst;
     }
 
+    /**
+     * Transforms the coordinates of a single point stored in the given buffer. Source coordinates
+     * are read from {@code buffer[0 … srcDim-1]} and target coordinates are written in
+     * {@code buffer[srcDim … srcDim+dstDim-1]}. This is the general case used when
+     * there is no specialized loop for the matrix size.
+     */
+    private void transform(final double[] buffer, final int srcDim, final int dstDim) {
+        final double[] m = elements;
+        final int rowLength = srcDim + 1;
+        double w = 1;
+        if (!affine) {
+            int k = dstDim * rowLength;
+            w = 0;
+            for (int i=0; i<srcDim; i++) {
+                w += m[k++] * buffer[i];
+            }
+            w += m[k];
+        }
+        for (int k=0, j=0; j<dstDim; j++) {
+            double sum = 0;
+            for (int i=0; i<srcDim; i++) {
+                sum += m[k++] * buffer[i];
+            }
+            sum += m[k++];
+            buffer[srcDim + j] = sum / w;
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method computes the same matrix
+     * product than {@link #transform(DirectPosition, DirectPosition)} without allocating objects
+     * for each point. The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts) {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        int srcInc = srcDim;
+        int dstInc = dstDim;
+        if (srcPts == dstPts) {
+            switch (direction(srcOff, srcDim, dstOff, dstDim, numPts)) {
+                case -1: {
+                    srcOff += (numPts - 1) * srcDim;
+                    dstOff += (numPts - 1) * dstDim;
+                    srcInc = -srcInc;
+                    dstInc = -dstInc;
+                    break;
+                }
+                case 0: {
+                    srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts*srcDim);
+                    srcOff = 0;
+                    break;
+                }
+            }
+        }
+        final double[] m = elements;
+        if (affine && srcDim == 2 && dstDim == 2) {
+            final double m00 = m[0], m01 = m[1], m02 = m[2],
+                         m10 = m[3], m11 = m[4], m12 = m[5];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff  ];
+                final double y = srcPts[srcOff+1];
+                dstPts[dstOff  ] = m00*x + m01*y + m02;
+                dstPts[dstOff+1] = m10*x + m11*y + m12;
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        } else if (affine && srcDim == 3 && dstDim == 3) {
+            final double m00 = m[0], m01 = m[1], m02 = m[ 2], m03 = m[ 3],
+                         m10 = m[4], m11 = m[5], m12 = m[ 6], m13 = m[ 7],
+                         m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff  ];
+                final double y = srcPts[srcOff+1];
+                final double z = srcPts[srcOff+2];
+                dstPts[dstOff  ] = m00*x + m01*y + m02*z + m03;
+                dstPts[dstOff+1] = m10*x + m11*y + m12*z + m13;
+                dstPts[dstOff+2] = m20*x + m21*y + m22*z + m23;
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        } else {
+            final double[] buffer = new double[srcDim + dstDim];
+            while (--numPts >= 0) {
+                System.arraycopy(srcPts, srcOff, buffer, 0, srcDim);
+                transform(buffer, srcDim, dstDim);
+                System.arraycopy(buffer, srcDim, dstPts, dstOff, dstDim);
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method computes the same matrix
+     * product than {@link #transform(DirectPosition, DirectPosition)} without allocating objects
+     * for each point. The source and destination regions may overlap.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts) {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        int srcInc = srcDim;
+        int dstInc = dstDim;
+        if (srcPts == dstPts) {
+            switch (direction(srcOff, srcDim, dstOff, dstDim, numPts)) {
+                case -1: {
+                    srcOff += (numPts - 1) * srcDim;
+                    dstOff += (numPts - 1) * dstDim;
+                    srcInc = -srcInc;
+                    dstInc = -dstInc;
+                    break;
+                }
+                case 0: {
+                    srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts*srcDim);
+                    srcOff = 0;
+                    break;
+                }
+            }
+        }
+        final double[] m = elements;
+        if (affine && srcDim == 2 && dstDim == 2) {
+            final double m00 = m[0], m01 = m[1], m02 = m[2],
+                         m10 = m[3], m11 = m[4], m12 = m[5];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff  ];
+                final double y = srcPts[srcOff+1];
+                dstPts[dstOff  ] = (float) (m00*x + m01*y + m02);
+                dstPts[dstOff+1] = (float) (m10*x + m11*y + m12);
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        } else if (affine && srcDim == 3 && dstDim == 3) {
+            final double m00 = m[0], m01 = m[1], m02 = m[ 2], m03 = m[ 3],
+                         m10 = m[4], m11 = m[5], m12 = m[ 6], m13 = m[ 7],
+                         m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff  ];
+                final double y = srcPts[srcOff+1];
+                final double z = srcPts[srcOff+2];
+                dstPts[dstOff  ] = (float) (m00*x + m01*y + m02*z + m03);
+                dstPts[dstOff+1] = (float) (m10*x + m11*y + m12*z + m13);
+                dstPts[dstOff+2] = (float) (m20*x + m21*y + m22*z + m23);
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        } else {
+            final double[] buffer = new double[srcDim + dstDim];
+            while (--numPts >= 0) {
+                arraycopy(srcPts, srcOff, buffer, 0, srcDim);
+                transform(buffer, srcDim, dstDim);
+                arraycopy(buffer, srcDim, dstPts, dstOff, dstDim);
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method computes the same matrix
+     * product than {@link #transform(DirectPosition, DirectPosition)} without allocating objects
+     * for each point.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final float[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts) {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        final double[] m = elements;
+        if (affine && srcDim == 2 && dstDim == 2) {
+            final double m00 = m[0], m01 = m[1], m02 = m[2],
+                         m10 = m[3], m11 = m[4], m12 = m[5];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff++];
+                final double y = srcPts[srcOff++];
+                dstPts[dstOff++] = m00*x + m01*y + m02;
+                dstPts[dstOff++] = m10*x + m11*y + m12;
+            }
+        } else if (affine && srcDim == 3 && dstDim == 3) {
+            final double m00 = m[0], m01 = m[1], m02 = m[ 2], m03 = m[ 3],
+                         m10 = m[4], m11 = m[5], m12 = m[ 6], m13 = m[ 7],
+                         m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff++];
+                final double y = srcPts[srcOff++];
+                final double z = srcPts[srcOff++];
+                dstPts[dstOff++] = m00*x + m01*y + m02*z + m03;
+                dstPts[dstOff++] = m10*x + m11*y + m12*z + m13;
+                dstPts[dstOff++] = m20*x + m21*y + m22*z + m23;
+            }
+        } else {
+            final double[] buffer = new double[srcDim + dstDim];
+            while (--numPts >= 0) {
+                arraycopy(srcPts, srcOff, buffer, 0, srcDim);
+                transform(buffer, srcDim, dstDim);
+                System.arraycopy(buffer, srcDim, dstPts, dstOff, dstDim);
+                srcOff += srcDim;
+                dstOff += dstDim;
+            }
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate point ordinal values. This method computes the same matrix
+     * product than {@link #transform(DirectPosition, DirectPosition)} without allocating objects
+     * for each point.
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     */
+    @Override
+    public void transform(final double[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts) {
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        final double[] m = elements;
+        if (affine && srcDim == 2 && dstDim == 2) {
+            final double m00 = m[0], m01 = m[1], m02 = m[2],
+                         m10 = m[3], m11 = m[4], m12 = m[5];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff++];
+                final double y = srcPts[srcOff++];
+                dstPts[dstOff++] = (float) (m00*x + m01*y + m02);
+                dstPts[dstOff++] = (float) (m10*x + m11*y + m12);
+            }
+        } else if (affine && srcDim == 3 && dstDim == 3) {
+            final double m00 = m[0], m01 = m[1], m02 = m[ 2], m03 = m[ 3],
+                         m10 = m[4], m11 = m[5], m12 = m[ 6], m13 = m[ 7],
+                         m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+            while (--numPts >= 0) {
+                final double x = srcPts[srcOff++];
+                final double y = srcPts[srcOff++];
+                final double z = srcPts[srcOff++];
+                dstPts[dstOff++] = (float) (m00*x + m01*y + m02*z + m03);
+                dstPts[dstOff++] = (float) (m10*x + m11*y + m12*z + m13);
+                dstPts[dstOff++] = (float) (m20*x + m21*y + m22*z + m23);
+            }
+        } else {
+            final double[] buffer = new double[srcDim + dstDim];
+            while (--numPts >= 0) {
+                System.arraycopy(srcPts, srcOff, buffer, 0, srcDim);
+                transform(buffer, srcDim, dstDim);
+                arraycopy(buffer, srcDim, dstPts, dstOff, dstDim);
+                srcOff += srcDim;
+                dstOff += dstDim;
+            }
+        }
+    }
+
     /**
      * Gets the derivative of this transform. In the particular case of linear transforms,
      * the derivative is the same at every points. Consequently the {@code point} argument
@@ -167,22 +460,35 @@ public class ProjectiveTransform extends SimpleTransform {
     public Matrix derivative(final DirectPosition point) {
         final int srcDim = matrix.getNumCol() - 1;
         final int dstDim = matrix.getNumRow() - 1;
-        final SimpleMatrix derivative = new SimpleMatrix(dstDim, srcDim);
-        matrix.copySubMatrix(0, 0, dstDim, srcDim, 0, 0, derivative);
+        final Matrix derivative = SimpleTransformFactory.createMatrix(dstDim, srcDim);
+        for (int j=0; j<dstDim; j++) {
+            for (int i=0; i<srcDim; i++) {
+                derivative.setElement(j, i, matrix.getElement(j, i));
+            }
+        }
         return derivative;
     }
 
     /**
      * Returns the inverse transform of this object. The default implementation
-     * {@linkplain SimpleMatrix#invert() invert} the {@linkplain #matrix} and
-     * build a new {@code ProjectiveTransform} from it.
+     * inverts a copy of the {@linkplain #matrix} and build a new {@code ProjectiveTransform} from it.
+     * The inverse matrix is a {@link Matrix2}, {@link Matrix3}, {@link Matrix4} or {@link SimpleMatrix}
+     * instance, depending on the matrix size.
      */
     @Override
     public synchronized ProjectiveTransform inverse() throws NoninvertibleTransformException {
         if (inverse == null) {
-            final SimpleMatrix invert = matrix.clone();
+            final Matrix invert = SimpleTransformFactory.copy(matrix);
             try {
-                invert.invert();
+                if (invert instanceof Matrix2) {
+                    ((Matrix2) invert).invert();
+                } else if (invert instanceof Matrix3) {
+                    ((Matrix3) invert).invert();
+                } else if (invert instanceof Matrix4) {
+                    ((Matrix4) invert).invert();
+                } else {
+                    ((GMatrix) invert).invert();
+                }
             } catch (RuntimeException e) { // SingularMatrixException & MismatchedSizeException
                 throw new NoninvertibleTransformException("Can not invert \"" + code + '"', e);
             }
@@ -194,7 +500,7 @@ public class ProjectiveTransform extends SimpleTransform {
 
     /**
      * Tests whether this transform does not move any points.
-     * The default implementation delegates to {@link SimpleMatrix#isIdentity()}.
+     * The default implementation delegates to {@link Matrix#isIdentity()}.
      */
     @Override
     public boolean isIdentity() {
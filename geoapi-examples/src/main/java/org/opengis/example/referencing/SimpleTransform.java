@@ -9,6 +9,9 @@ package org.opengis.example.referencing;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.CompletionException;
 
 import org.opengis.metadata.citation.Citation;
 import org.opengis.geometry.DirectPosition;
@@ -30,10 +33,13 @@ import org.opengis.example.geometry.SimpleDirectPosition;
  *
  * <p>Subclasses must implement the {@link #transform(DirectPosition, DirectPosition)} method.
  * All other transform methods are defined in terms of the above-cited method. However the
- * other {@code transform} methods may be overridden for performances reasons.</p>
+ * other {@code transform} methods may be overridden for performances reasons. Subclasses
+ * can also override {@link #transformPoint(double[], int, double[], int)}, in which case
+ * the transform methods working on arrays will use that method without copying coordinates
+ * in temporary {@link DirectPosition} objects.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public abstract class SimpleTransform extends SimpleIdentifiedObject implements CoordinateOperation, MathTransform {
@@ -42,6 +48,35 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
      */
     private static final long serialVersionUID = -234616434441874739L;
 
+    /**
+     * Minimal number of points for transforming arrays in parallel,
+     * if {@linkplain #isParallelizable() parallelization is allowed}.
+     */
+    private static final int PARALLEL_THRESHOLD = 100000;
+
+    /**
+     * Number of points transformed by each task when coordinates are transformed in parallel.
+     */
+    private static final int TASK_SIZE = 16384;
+
+    /**
+     * Whether a class overrides {@link #transformPoint(double[], int, double[], int)}.
+     * This is computed only once per class.
+     */
+    private static final ClassValue<Boolean> HAS_POINT_METHOD = new ClassValue<Boolean>() {
+        @Override protected Boolean computeValue(Class<?> type) {
+            for (; type != SimpleTransform.class; type = type.getSuperclass()) {
+                try {
+                    type.getDeclaredMethod("transformPoint", double[].class, int.class, double[].class, int.class);
+                    return Boolean.TRUE;
+                } catch (NoSuchMethodException e) {
+                    // Not declared in this class, check the parent class.
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
     /**
      * The source CRS, which determine the number of source dimensions.
      *
@@ -147,6 +182,208 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
     public abstract DirectPosition transform(DirectPosition ptSrc, DirectPosition ptDst)
             throws MismatchedDimensionException, TransformException;
 
+    /**
+     * Transforms a single point stored in an array of coordinates. This method is an optional hook:
+     * if a subclass overrides it, then all {@code transform} methods working on arrays of coordinates
+     * will invoke this method for each point instead of copying the coordinates in temporary
+     * {@link DirectPosition} objects before to invoke {@link #transform(DirectPosition, DirectPosition)}.
+     * Implementations of the later method may in turn delegate to this method.
+     *
+     * <p>The source and destination regions may overlap. Implementations shall read
+     * all source coordinates before to write any destination coordinate.</p>
+     *
+     * <p>The default implementation delegates to {@link #transform(DirectPosition, DirectPosition)}.</p>
+     *
+     * @param  srcPts  the array containing the source point coordinates.
+     * @param  srcOff  the offset of the point to be transformed in the source array.
+     * @param  dstPts  the array into which the transformed point coordinates are written.
+     * @param  dstOff  the offset of the transformed point in the destination array.
+     * @throws TransformException if the point can not be transformed.
+     *
+     * @since 4.0
+     */
+    protected void transformPoint(double[] srcPts, int srcOff, double[] dstPts, int dstOff) throws TransformException {
+        final SimpleDirectPosition ptSrc = new SimpleDirectPosition(getSourceDimensions());
+        System.arraycopy(srcPts, srcOff, ptSrc.ordinates, 0, ptSrc.ordinates.length);
+        final DirectPosition ptDst = transform(ptSrc, null);
+        for (int i = getTargetDimensions(); --i >= 0;) {
+            dstPts[dstOff + i] = ptDst.getOrdinate(i);
+        }
+    }
+
+    /**
+     * Returns whether this transform can be applied on different points concurrently. If {@code true}
+     * and if {@link #transformPoint(double[], int, double[], int)} is overridden, then the transform
+     * methods working on arrays of coordinates transform very large arrays in parallel using the
+     * {@linkplain ForkJoinPool#commonPool() common fork-join pool}.
+     *
+     * <p>The default implementation returns {@code false}. Subclasses can return {@code true}
+     * if their {@code transformPoint} method is thread-safe.</p>
+     *
+     * @return whether the {@code transformPoint} method of this transform can be invoked concurrently.
+     *
+     * @since 4.0
+     */
+    protected boolean isParallelizable() {
+        return false;
+    }
+
+    /**
+     * Transforms a list of coordinates by invoking {@link #transformPoint(double[], int, double[], int)}
+     * for each point, provided that the subclass overrides that method.
+     *
+     * @param  srcPts  the {@code double[]} or {@code float[]} array containing the source point coordinates.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the {@code double[]} or {@code float[]} array into which the transformed point coordinates are returned.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of point objects to be transformed.
+     * @return {@code false} if {@code transformPoint} is not overridden, in which case this method did nothing.
+     * @throws TransformException if a point can not be transformed.
+     */
+    private boolean transformPoints(Object srcPts, int srcOff, final Object dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        if (!HAS_POINT_METHOD.get(getClass())) {
+            return false;
+        }
+        final int srcDim = getSourceDimensions();
+        final int dstDim = getTargetDimensions();
+        final boolean parallel = numPts >= PARALLEL_THRESHOLD && isParallelizable();
+        boolean backward = false;
+        if (srcPts == dstPts) {
+            /*
+             * In parallel mode, the points are not transformed in a predictable order.
+             * Overlapping regions are safe only if each point is transformed in-place.
+             */
+            final int direction;
+            if (parallel) {
+                final boolean overlap = dstOff < srcOff + numPts*srcDim && srcOff < dstOff + numPts*dstDim;
+                direction = (overlap && (srcOff != dstOff || srcDim != dstDim)) ? 0 : +1;
+            } else {
+                direction = direction(srcOff, srcDim, dstOff, dstDim, numPts);
+            }
+            switch (direction) {
+                case -1: {
+                    backward = true;
+                    break;
+                }
+                case 0: {
+                    final int upper = srcOff + numPts*srcDim;
+                    srcPts = (srcPts instanceof double[]) ? Arrays.copyOfRange((double[]) srcPts, srcOff, upper)
+                                                          : Arrays.copyOfRange((float[])  srcPts, srcOff, upper);
+                    srcOff = 0;
+                    break;
+                }
+            }
+        }
+        if (parallel) {
+            try {
+                ForkJoinPool.commonPool().invoke(new Task(srcPts, srcOff, dstPts, dstOff, numPts));
+            } catch (CompletionException e) {
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof TransformException) {
+                        throw (TransformException) cause;
+                    }
+                }
+                throw e;
+            }
+        } else {
+            transformPoints(srcPts, srcOff, dstPts, dstOff, numPts, backward);
+        }
+        return true;
+    }
+
+    /**
+     * Transforms a list of coordinates by invoking {@link #transformPoint(double[], int, double[], int)}
+     * for each point. Coordinates in {@code float[]} arrays are converted to {@code double} values in
+     * a temporary buffer.
+     *
+     * @param  srcPts    the {@code double[]} or {@code float[]} array containing the source point coordinates.
+     * @param  srcOff    the offset to the first point to be transformed in the source array.
+     * @param  dstPts    the {@code double[]} or {@code float[]} array into which the transformed point coordinates are returned.
+     * @param  dstOff    the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts    the number of point objects to be transformed.
+     * @param  backward  whether to iterate from the last point to the first one.
+     * @throws TransformException if a point can not be transformed.
+     */
+    private void transformPoints(final Object srcPts, int srcOff, final Object dstPts, int dstOff, int numPts,
+            final boolean backward) throws TransformException
+    {
+        int srcInc = getSourceDimensions();
+        int dstInc = getTargetDimensions();
+        if (backward) {
+            srcOff += (numPts - 1) * srcInc;
+            dstOff += (numPts - 1) * dstInc;
+            srcInc = -srcInc;
+            dstInc = -dstInc;
+        }
+        if (srcPts instanceof double[] && dstPts instanceof double[]) {
+            final double[] src = (double[]) srcPts;
+            final double[] dst = (double[]) dstPts;
+            while (--numPts >= 0) {
+                transformPoint(src, srcOff, dst, dstOff);
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        } else {
+            final int srcDim = getSourceDimensions();
+            final int dstDim = getTargetDimensions();
+            final double[] buffer = new double[Math.max(srcDim, dstDim)];
+            while (--numPts >= 0) {
+                if (srcPts instanceof double[]) {
+                    System.arraycopy((double[]) srcPts, srcOff, buffer, 0, srcDim);
+                } else {
+                    arraycopy((float[]) srcPts, srcOff, buffer, 0, srcDim);
+                }
+                transformPoint(buffer, 0, buffer, 0);
+                if (dstPts instanceof double[]) {
+                    System.arraycopy(buffer, 0, (double[]) dstPts, dstOff, dstDim);
+                } else {
+                    arraycopy(buffer, 0, (float[]) dstPts, dstOff, dstDim);
+                }
+                srcOff += srcInc;
+                dstOff += dstInc;
+            }
+        }
+    }
+
+    /**
+     * A task transforming a range of points, splitting itself in smaller tasks if the range is large.
+     * Source and destination regions shall either not overlap, or overlap exactly with the same dimensions.
+     */
+    @SuppressWarnings("serial")
+    private final class Task extends RecursiveAction {
+        /** The {@code double[]} or {@code float[]} array of source and destination coordinates. */
+        private final Object srcPts, dstPts;
+
+        /** Offsets of the first point to transform, and number of points. */
+        private final int srcOff, dstOff, numPts;
+
+        /** Creates a task for the given range of points. */
+        Task(final Object srcPts, final int srcOff, final Object dstPts, final int dstOff, final int numPts) {
+            this.srcPts = srcPts;
+            this.srcOff = srcOff;
+            this.dstPts = dstPts;
+            this.dstOff = dstOff;
+            this.numPts = numPts;
+        }
+
+        /** Transforms the points, or splits the range in two tasks. */
+        @Override
+        protected void compute() {
+            if (numPts > TASK_SIZE) {
+                final int half = numPts >>> 1;
+                invokeAll(new Task(srcPts, srcOff, dstPts, dstOff, half),
+                          new Task(srcPts, srcOff + half * getSourceDimensions(),
+                                   dstPts, dstOff + half * getTargetDimensions(), numPts - half));
+            } else try {
+                transformPoints(srcPts, srcOff, dstPts, dstOff, numPts, false);
+            } catch (TransformException e) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+
     /**
      * Returns {@code true} if the source array need to be copied before to write in the target array.
      * This method can be invoked if:
@@ -185,6 +422,38 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
         return true;
     }
 
+    /**
+     * Returns the direction in which to iterate over the points when the source and destination arrays
+     * are the same array. The iteration order shall be such that no source coordinate is overwritten
+     * before it has been read. Each point is fully read before any of its coordinates is written.
+     *
+     * @param  srcOff  the offset in the source coordinate array.
+     * @param  srcDim  the dimension of input points.
+     * @param  dstOff  the offset in the destination coordinate array.
+     * @param  dstDim  the dimension of output points.
+     * @param  numPts  the number of points to transform.
+     * @return +1 for iterating forward, -1 for iterating backward,
+     *         or 0 if the source coordinates need to be copied first.
+     */
+    static int direction(final int srcOff, final int srcDim, final int dstOff, final int dstDim, final int numPts) {
+        if (numPts <= 1 || dstOff + numPts*dstDim <= srcOff || srcOff + numPts*srcDim <= dstOff) {
+            return +1;                                                  // No overlapping.
+        }
+        /*
+         * Forward iteration is safe if writing point k does not overwrite the source of point k+1,
+         * and backward iteration is safe if writing point k does not overwrite the source of point k-1.
+         * Those conditions are linear in k, so checking the first and last points is sufficient.
+         */
+        final int last = numPts - 1;
+        if (dstOff + dstDim <= srcOff + srcDim && dstOff + last*dstDim <= srcOff + last*srcDim) {
+            return +1;
+        }
+        if (dstOff + dstDim >= srcOff + srcDim && dstOff + last*dstDim >= srcOff + last*srcDim) {
+            return -1;
+        }
+        return 0;
+    }
+
     /**
      * Transforms a list of coordinate point ordinal values.
      *
@@ -199,6 +468,9 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
     public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
+        if (transformPoints(srcPts, srcOff, dstPts, dstOff, numPts)) {
+            return;
+        }
         final int srcDim = getSourceDimensions();
         final int dstDim = getTargetDimensions();
         final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
@@ -230,6 +502,9 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
     public void transform(float[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
+        if (transformPoints(srcPts, srcOff, dstPts, dstOff, numPts)) {
+            return;
+        }
         final int srcDim = getSourceDimensions();
         final int dstDim = getTargetDimensions();
         final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
@@ -261,6 +536,9 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
     public void transform(final float[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
+        if (transformPoints(srcPts, srcOff, dstPts, dstOff, numPts)) {
+            return;
+        }
         final int srcDim = getSourceDimensions();
         final int dstDim = getTargetDimensions();
         final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
@@ -288,6 +566,9 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
     public void transform(final double[] srcPts, int srcOff, final float[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
+        if (transformPoints(srcPts, srcOff, dstPts, dstOff, numPts)) {
+            return;
+        }
         final int srcDim = getSourceDimensions();
         final int dstDim = getTargetDimensions();
         final SimpleDirectPosition ptSrc = new SimpleDirectPosition(srcDim);
@@ -305,7 +586,7 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
      * Like {@link System#arraycopy(Object, int, Object, int, int)}, but cast {@code float}
      * to {@code double} during the copy operation.
      */
-    private static void arraycopy(float[] srcPts, int srcOff, double[] dstPts, int dstOff, int length) {
+    static void arraycopy(float[] srcPts, int srcOff, double[] dstPts, int dstOff, int length) {
         while (--length >= 0) {
             dstPts[dstOff++] = srcPts[srcOff++];
         }
@@ -315,7 +596,7 @@ public abstract class SimpleTransform extends SimpleIdentifiedObject implements
      * Like {@link System#arraycopy(Object, int, Object, int, int)}, but cast {@code double}
      * to {@code float} during the copy operation.
      */
-    private static void arraycopy(double[] srcPts, int srcOff, float[] dstPts, int dstOff, int length) {
+    static void arraycopy(double[] srcPts, int srcOff, float[] dstPts, int dstOff, int length) {
         while (--length >= 0) {
             dstPts[dstOff++] = (float) srcPts[srcOff++];
         }
@@ -8,11 +8,17 @@
 package org.opengis.example.referencing;
 
 import java.util.Set;
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.text.ParseException;
 
 import org.opengis.util.FactoryException;
 import org.opengis.util.NoSuchIdentifierException;
 import org.opengis.metadata.citation.Citation;
+import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.example.metadata.SimpleCitation;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
@@ -20,6 +26,7 @@ import org.opengis.referencing.cs.CoordinateSystem;
 import org.opengis.referencing.operation.Matrix;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
 import org.opengis.referencing.operation.OperationMethod;
 import org.opengis.referencing.operation.SingleOperation;
 
@@ -33,10 +40,13 @@ import org.opengis.referencing.operation.SingleOperation;
  *   <li>{@link #getAvailableMethods(Class)}, which returns an empty set.</li>
  *   <li>{@link #getLastMethodUsed()}, which returns {@code null}.</li>
  *   <li>{@link #createAffineTransform(Matrix)}</li>
+ *   <li>{@link #createConcatenatedTransform(MathTransform, MathTransform)}</li>
+ *   <li>{@link #createPassThroughTransform(int, MathTransform, int)}</li>
+ *   <li>{@link #createFromWKT(String)}, restricted to affine parameterized transforms.</li>
  * </ul>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class SimpleTransformFactory implements MathTransformFactory {
@@ -46,6 +56,28 @@ public class SimpleTransformFactory implements MathTransformFactory {
      */
     private static final Citation VENDOR = new SimpleCitation("GeoAPI-example");
 
+    /**
+     * Maximal number of entries in the {@link #cache} of transforms parsed from WKT.
+     */
+    private static final int CACHE_SIZE = 100;
+
+    /**
+     * Maximal number of rows or columns of an affine transform parsed from WKT, and maximal number
+     * of leading or trailing coordinates of a pass through transform. This limit protects against
+     * huge allocations requested by WKT received from untrusted clients.
+     */
+    static final int MAX_MATRIX_SIZE = 100;
+
+    /**
+     * The transforms recently parsed by {@link #createFromWKT(String)}, in least recently used order.
+     * All accesses to this map shall be synchronized on the map.
+     */
+    private final Map<String,MathTransform> cache = new LinkedHashMap<String,MathTransform>(CACHE_SIZE, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(final Map.Entry<String,MathTransform> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     /**
      * Creates a new factory.
      */
@@ -127,6 +159,10 @@ public class SimpleTransformFactory implements MathTransformFactory {
      * origin. The {@code [i][N]} element of the matrix will be 0 for <var>i</var> less than
      * {@code M}, and 1 for <var>i</var> equals {@code M}.
      *
+     * <p>The matrix is copied in a {@link Matrix3} or {@link Matrix4} instance if its size is 3×3 or 4×4
+     * (except for the two-dimensional affine case, which is handled by {@link AffineTransform2D}),
+     * or in a {@link SimpleMatrix} instance otherwise.</p>
+     *
      * @param  matrix  the matrix used to define the affine transform.
      * @return the affine transform.
      * @throws FactoryException if the object creation failed.
@@ -144,36 +180,421 @@ public class SimpleTransformFactory implements MathTransformFactory {
         {
             return new AffineTransform2D(matrix);
         }
-        return new ProjectiveTransform(VENDOR, "Projective transform", null, null,
-                (matrix instanceof SimpleMatrix) ? (SimpleMatrix) matrix : new SimpleMatrix(matrix));
+        return new ProjectiveTransform(VENDOR, "Projective transform", null, null, copy(matrix));
+    }
+
+    /**
+     * Creates a matrix of the given size. Elements on the diagonal (<var>j</var> == <var>i</var>)
+     * are set to 1. This method returns a {@link Matrix2}, {@link Matrix3} or {@link Matrix4}
+     * instance if the matrix is square of size 2, 3 or 4 respectively, or a {@link SimpleMatrix}
+     * instance in all other cases.
+     *
+     * @param  numRow  number of rows.
+     * @param  numCol  number of columns.
+     * @return the new matrix.
+     */
+    static Matrix createMatrix(final int numRow, final int numCol) {
+        if (numRow == numCol) {
+            switch (numRow) {
+                case Matrix2.SIZE: return new Matrix2();
+                case Matrix3.SIZE: return new Matrix3();
+                case Matrix4.SIZE: return new Matrix4();
+            }
+        }
+        return new SimpleMatrix(numRow, numCol);
+    }
+
+    /**
+     * Returns a copy of the given matrix, using the implementation class selected by
+     * {@link #createMatrix(int, int)} for the matrix size.
+     *
+     * @param  matrix  the matrix to copy.
+     * @return a copy of the given matrix.
+     */
+    static Matrix copy(final Matrix matrix) {
+        final int numRow = matrix.getNumRow();
+        final int numCol = matrix.getNumCol();
+        final Matrix copy = createMatrix(numRow, numCol);
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                copy.setElement(j, i, matrix.getElement(j, i));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Multiplies the given matrices. The result is {@code m1} × {@code m2}, which is the matrix of
+     * a transform applying the transform of {@code m2} first, then the transform of {@code m1}.
+     *
+     * @param  m1  the first matrix.
+     * @param  m2  the second matrix.
+     * @return the product of the given matrices.
+     * @throws MismatchedDimensionException if the number of columns in {@code m1}
+     *         is not equal to the number of rows in {@code m2}.
+     */
+    static Matrix multiply(final Matrix m1, final Matrix m2) throws MismatchedDimensionException {
+        if (m1 instanceof Matrix3 && m2 instanceof Matrix3) {
+            final Matrix3 product = new Matrix3();
+            product.mul((Matrix3) m1, (Matrix3) m2);
+            return product;
+        }
+        if (m1 instanceof Matrix4 && m2 instanceof Matrix4) {
+            final Matrix4 product = new Matrix4();
+            product.mul((Matrix4) m1, (Matrix4) m2);
+            return product;
+        }
+        if (m1 instanceof Matrix2 && m2 instanceof Matrix2) {
+            final Matrix2 product = new Matrix2();
+            product.mul((Matrix2) m1, (Matrix2) m2);
+            return product;
+        }
+        final int numRow = m1.getNumRow();
+        final int numCol = m2.getNumCol();
+        final int common = m1.getNumCol();
+        if (m2.getNumRow() != common) {
+            throw new MismatchedDimensionException("Can not multiply a matrix of " + common
+                    + " columns by a matrix of " + m2.getNumRow() + " rows.");
+        }
+        final Matrix product = createMatrix(numRow, numCol);
+        for (int j=0; j<numRow; j++) {
+            for (int i=0; i<numCol; i++) {
+                double sum = 0;
+                for (int k=0; k<common; k++) {
+                    sum += m1.getElement(j, k) * m2.getElement(k, i);
+                }
+                product.setElement(j, i, sum);
+            }
+        }
+        return product;
     }
 
     /**
-     * Creates a transform by concatenating two existing transforms. The default implementation
-     * throws an exception in all cases since concatenated transforms are not implemented by this
-     * simple factory.
+     * Creates a transform by concatenating two existing transforms. The chain of transforms
+     * is simplified before to create the concatenated transform:
+     *
+     * <ul>
+     *   <li>Identity transforms are omitted.</li>
+     *   <li>A transform followed by its inverse are both omitted.</li>
+     *   <li>Consecutive {@link ProjectiveTransform} or {@link AffineTransform2D} instances are
+     *       replaced by a single transform computed from the product of their matrices.</li>
+     * </ul>
+     *
+     * If only one transform remains after those simplifications, that transform is returned directly.
+     * Otherwise a {@link ConcatenatedTransform} is returned.
+     *
+     * @param  transform1  the first transform to apply to points.
+     * @param  transform2  the second transform to apply to points.
+     * @return the concatenated transform.
+     * @throws MismatchedDimensionException if the target dimension of the first transform
+     *         is not equal to the source dimension of the second transform.
+     * @throws FactoryException if the object creation failed.
      */
     @Override
-    public MathTransform createConcatenatedTransform(MathTransform transform1, MathTransform transform2) throws FactoryException {
-        throw new FactoryException("Concatenated transforms are not implemented.");
+    public MathTransform createConcatenatedTransform(final MathTransform transform1, final MathTransform transform2)
+            throws FactoryException
+    {
+        if (transform1.getTargetDimensions() != transform2.getSourceDimensions()) {
+            throw new MismatchedDimensionException("Target dimension of the first transform shall be equal"
+                    + " to source dimension of the second transform.");
+        }
+        final List<MathTransform> steps = new ArrayList<>();
+        append(steps, transform1);
+        append(steps, transform2);
+        switch (steps.size()) {
+            case 0: {
+                final int dimension = transform1.getSourceDimensions() + 1;
+                return createAffineTransform(createMatrix(dimension, dimension));
+            }
+            case 1: {
+                return steps.get(0);
+            }
+            default: {
+                return new ConcatenatedTransform(VENDOR, "Concatenated transform",
+                        steps.toArray(new MathTransform[steps.size()]));
+            }
+        }
+    }
+
+    /**
+     * Appends the given transform at the end of the given chain of transforms,
+     * simplifying the chain if possible.
+     *
+     * @param  steps      the chain of transforms where to append the transform.
+     * @param  transform  the transform to append.
+     * @throws FactoryException if the creation of a merged linear transform failed.
+     */
+    private void append(final List<MathTransform> steps, final MathTransform transform) throws FactoryException {
+        if (transform instanceof ConcatenatedTransform) {
+            for (final MathTransform step : ((ConcatenatedTransform) transform).getSteps()) {
+                append(steps, step);
+            }
+            return;
+        }
+        if (transform.isIdentity()) {
+            return;
+        }
+        final int last = steps.size() - 1;
+        if (last >= 0) {
+            final MathTransform previous = steps.get(last);
+            if (isInverse(previous, transform)) {
+                steps.remove(last);
+                return;
+            }
+            final Matrix m1 = linearMatrix(previous);
+            if (m1 != null) {
+                final Matrix m2 = linearMatrix(transform);
+                if (m2 != null) {
+                    steps.remove(last);
+                    final Matrix product = multiply(m2, m1);
+                    if (!product.isIdentity()) {
+                        steps.add(createAffineTransform(product));
+                    }
+                    return;
+                }
+            }
+        }
+        steps.add(transform);
+    }
+
+    /**
+     * Returns the matrix of the given transform if that transform is linear, or {@code null} otherwise.
+     */
+    private static Matrix linearMatrix(final MathTransform transform) {
+        if (transform instanceof ProjectiveTransform) {
+            return ((ProjectiveTransform) transform).matrix;
+        }
+        if (transform instanceof AffineTransform2D) {
+            final AffineTransform2D tr = (AffineTransform2D) transform;
+            return new Matrix3(tr.getScaleX(), tr.getShearX(), tr.getTranslateX(),
+                               tr.getShearY(), tr.getScaleY(), tr.getTranslateY(),
+                               0, 0, 1);
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the second transform is the inverse of the first one.
+     * Transforms that can not be inverted are never the inverse of another transform.
+     */
+    private static boolean isInverse(final MathTransform first, final MathTransform second) {
+        if (first.getSourceDimensions() != second.getTargetDimensions()) {
+            return false;
+        }
+        final MathTransform inverse;
+        try {
+            inverse = first.inverse();
+        } catch (NoninvertibleTransformException | UnsupportedOperationException e) {
+            return false;
+        }
+        return inverse == second || inverse.equals(second);
     }
 
     /**
      * Creates a transform which passes through a subset of ordinates to another transform.
-     * The default implementation throws an exception in all cases since pass through transforms
-     * are not implemented by this simple factory.
+     * This method returns the sub-transform directly if there is no leading and no trailing
+     * coordinates. If the sub-transform is a {@link ProjectiveTransform} or {@link AffineTransform2D},
+     * then this method returns an affine transform with a matrix expanded to the full number of dimensions.
+     * In all other cases, this method returns a {@link PassThroughTransform}.
+     *
+     * @param  firstAffectedCoordinate  index of the first affected coordinate.
+     * @param  subTransform             the sub-transform to apply on the affected coordinates.
+     * @param  numTrailingCoordinates   number of trailing coordinates to pass through.
+     * @return the pass through transform.
+     * @throws FactoryException if the object creation failed.
      */
     @Override
-    public MathTransform createPassThroughTransform(int firstAffectedCoordinate, MathTransform subTransform, int numTrailingCoordinates) throws FactoryException {
-        throw new FactoryException("Pass through transforms are not implemented.");
+    public MathTransform createPassThroughTransform(int firstAffectedCoordinate, MathTransform subTransform,
+            int numTrailingCoordinates) throws FactoryException
+    {
+        if (firstAffectedCoordinate < 0 || numTrailingCoordinates < 0) {
+            throw new IllegalArgumentException("Number of leading and trailing coordinates shall not be negative.");
+        }
+        if (firstAffectedCoordinate == 0 && numTrailingCoordinates == 0) {
+            return subTransform;
+        }
+        if (subTransform instanceof PassThroughTransform) {
+            final PassThroughTransform other = (PassThroughTransform) subTransform;
+            firstAffectedCoordinate += other.getFirstAffectedCoordinate();
+            numTrailingCoordinates  += other.getNumTrailingCoordinates();
+            subTransform = other.getSubTransform();
+        }
+        final Matrix subMatrix = linearMatrix(subTransform);
+        if (subMatrix != null) {
+            /*
+             * Expand the matrix with identity rows and columns for the leading and trailing coordinates.
+             * The last row and last column (translation terms) of the sub-matrix are moved to the last
+             * row and last column of the expanded matrix.
+             */
+            final int subSrc   = subTransform.getSourceDimensions();
+            final int subDst   = subTransform.getTargetDimensions();
+            final int trailSrc = firstAffectedCoordinate + subSrc;
+            final int trailDst = firstAffectedCoordinate + subDst;
+            final int numRow   = trailDst + numTrailingCoordinates + 1;
+            final int numCol   = trailSrc + numTrailingCoordinates + 1;
+            final Matrix matrix = createMatrix(numRow, numCol);
+            for (int j=0; j<numRow; j++) {
+                final int subRow = (j == numRow - 1) ? subDst : (j >= firstAffectedCoordinate && j < trailDst)
+                                 ? j - firstAffectedCoordinate : -1;
+                for (int i=0; i<numCol; i++) {
+                    final double value;
+                    if (subRow >= 0) {
+                        final int subCol = (i == numCol - 1) ? subSrc : (i >= firstAffectedCoordinate && i < trailSrc)
+                                         ? i - firstAffectedCoordinate : -1;
+                        value = (subCol >= 0) ? subMatrix.getElement(subRow, subCol) : 0;
+                    } else {
+                        // Leading or trailing coordinate passed through.
+                        value = (i == (j < firstAffectedCoordinate ? j : j - trailDst + trailSrc)) ? 1 : 0;
+                    }
+                    matrix.setElement(j, i, value);
+                }
+            }
+            return createAffineTransform(matrix);
+        }
+        return new PassThroughTransform(VENDOR, "Pass through transform",
+                firstAffectedCoordinate, subTransform, numTrailingCoordinates);
     }
 
     /**
-     * Creates a transform from a WKT string. The default implementation throws an exception
-     * in all cases since WKT parsing is not implemented by this simple factory.
+     * Creates a transform from a WKT string. This method recognizes the following elements
+     * of the <cite>Well Known Text</cite> format for math transforms:
+     *
+     * <ul>
+     *   <li>{@code PARAM_MT}, restricted to the {@code "Affine"} method with {@code "num_row"},
+     *       {@code "num_col"} and {@code "elt_<row>_<col>"} parameters.</li>
+     *   <li>{@code CONCAT_MT} with an arbitrary number of transforms.</li>
+     *   <li>{@code INVERSE_MT}.</li>
+     *   <li>{@code PASSTHROUGH_MT} with the index of the first affected coordinate, optionally followed
+     *       by the number of trailing coordinates, followed by the sub-transform.</li>
+     * </ul>
+     *
+     * Transforms created by this method are cached, so parsing the same text many times is cheap.
+     *
+     * @param  wkt  the math transform encoded in Well-Known Text format.
+     * @return the math transform (never {@code null}).
+     * @throws NoSuchIdentifierException if a {@code PARAM_MT} element uses an unsupported method.
+     * @throws FactoryException if the Well-Known Text can not be parsed,
+     *         or if the math transform creation failed from some other reason.
      */
     @Override
-    public MathTransform createFromWKT(String wkt) throws FactoryException {
-        throw new FactoryException("WKT parsing is not implemented.");
+    public MathTransform createFromWKT(final String wkt) throws FactoryException {
+        MathTransform transform;
+        synchronized (cache) {
+            transform = cache.get(wkt);
+        }
+        if (transform == null) {
+            try {
+                transform = createFromWKT(WKTParser.parse(wkt));
+            } catch (ParseException e) {
+                throw new FactoryException(e.getMessage(), e);
+            }
+            synchronized (cache) {
+                cache.put(wkt, transform);
+            }
+        }
+        return transform;
+    }
+
+    /**
+     * Creates a transform from an element of a parsed WKT.
+     *
+     * @param  element  the element to interpret as a math transform.
+     * @return the math transform.
+     * @throws ParseException if the element is not a known math transform or has unexpected values.
+     * @throws FactoryException if the math transform creation failed.
+     */
+    private MathTransform createFromWKT(final WKTParser.Element element) throws ParseException, FactoryException {
+        if (element.is("PARAM_MT")) {
+            return createAffineFromWKT(element);
+        }
+        if (element.is("CONCAT_MT")) {
+            MathTransform transform = createFromWKT(element.get(0, WKTParser.Element.class));
+            for (int i=1; i < element.values.size(); i++) {
+                transform = createConcatenatedTransform(transform, createFromWKT(element.get(i, WKTParser.Element.class)));
+            }
+            return transform;
+        }
+        if (element.is("INVERSE_MT")) {
+            final MathTransform transform = createFromWKT(element.get(0, WKTParser.Element.class));
+            try {
+                return transform.inverse();
+            } catch (NoninvertibleTransformException e) {
+                throw new FactoryException(e.getMessage(), e);
+            }
+        }
+        if (element.is("PASSTHROUGH_MT")) {
+            final int first = integer(element, 0, 0);
+            int trailing = 0, index = 1;
+            if (element.values.size() > 2) {
+                trailing = integer(element, index++, 0);
+            }
+            return createPassThroughTransform(first, createFromWKT(element.get(index, WKTParser.Element.class)), trailing);
+        }
+        throw new ParseException("Unknown math transform \"" + element.keyword + "\".", element.offset);
+    }
+
+    /**
+     * Creates an affine transform from a {@code PARAM_MT} element. The matrix size is 3×3 by default,
+     * and matrix elements not specified by a parameter are initialized to the identity matrix values.
+     *
+     * @param  element  the {@code PARAM_MT} element.
+     * @return the affine transform.
+     * @throws ParseException if a parameter is unknown or has an illegal value.
+     * @throws FactoryException if the method is not "Affine" or the transform creation failed.
+     */
+    private MathTransform createAffineFromWKT(final WKTParser.Element element) throws ParseException, FactoryException {
+        final String method = element.get(0, String.class);
+        if (!method.equalsIgnoreCase("Affine")) {
+            throw new NoSuchIdentifierException("Parameterized transforms are not implemented.", method);
+        }
+        final int numParam = element.values.size();
+        int numRow = 3, numCol = 3;
+        for (int i=1; i<numParam; i++) {
+            final WKTParser.Element parameter = element.get(i, WKTParser.Element.class);
+            if (parameter.is("PARAMETER")) {
+                final String name = parameter.get(0, String.class);
+                if (name.equalsIgnoreCase("num_row")) numRow = integer(parameter, 1, 1);
+                if (name.equalsIgnoreCase("num_col")) numCol = integer(parameter, 1, 1);
+            }
+        }
+        final Matrix matrix = createMatrix(numRow, numCol);
+        for (int i=1; i<numParam; i++) {
+            final WKTParser.Element parameter = element.get(i, WKTParser.Element.class);
+            if (!parameter.is("PARAMETER")) {
+                continue;                                       // Ignore ID, AUTHORITY, etc.
+            }
+            final String name = parameter.get(0, String.class);
+            if (name.equalsIgnoreCase("num_row") || name.equalsIgnoreCase("num_col")) {
+                continue;
+            }
+            final int s = name.indexOf('_', 4);
+            if (s >= 0 && name.regionMatches(true, 0, "elt_", 0, 4)) try {
+                final int row = Integer.parseInt(name.substring(4, s));
+                final int col = Integer.parseInt(name.substring(s + 1));
+                if (row >= 0 && row < numRow && col >= 0 && col < numCol) {
+                    matrix.setElement(row, col, parameter.get(1, Double.class));
+                    continue;
+                }
+            } catch (NumberFormatException e) {
+                // Will report the unknown parameter below.
+            }
+            throw new ParseException("Unknown parameter \"" + name + "\" for a " + numRow + '×' + numCol
+                    + " affine transform.", parameter.offset);
+        }
+        return createAffineTransform(matrix);
+    }
+
+    /**
+     * Returns the value at the given index of the given element as an integer
+     * between the given minimum and {@value #MAX_MATRIX_SIZE} inclusive.
+     */
+    private static int integer(final WKTParser.Element element, final int index, final int minimum) throws ParseException {
+        final double value = element.get(index, Double.class);
+        final int n = (int) value;
+        if (n != value || n < minimum || n > MAX_MATRIX_SIZE) {
+            throw new ParseException("Expected an integer between " + minimum + " and " + MAX_MATRIX_SIZE
+                    + " at index " + index + " of the \"" + element.keyword + "\" element.", element.offset);
+        }
+        return n;
     }
 }
@@ -0,0 +1,323 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.text.ParseException;
+
+
+/**
+ * A parser of <cite>Well Known Text</cite> (WKT) version 1 and 2 into a tree of {@link Element}s.
+ * This parser does not create any referencing object; it only decodes the syntax, which is the same
+ * for math transforms and for all kinds of CRS definitions. Interpretation of the elements is done
+ * by the caller, for example {@link SimpleTransformFactory#createFromWKT(String)}.
+ *
+ * <p>The text is read in a single pass by a recursive descent parser working directly on the
+ * {@link CharSequence}. The syntax recognized by this parser is:</p>
+ *
+ * <ul>
+ *   <li>An element is a keyword followed by values between square brackets {@code [ ]} or
+ *       parenthesis {@code ( )}. Values are separated by commas.</li>
+ *   <li>A value is a number, a quoted text, a child element or an unquoted word
+ *       (for example an enumeration like {@code north}, or a date like {@code 2002-04-01}).</li>
+ *   <li>A quoted text is enclosed between straight quotation marks {@code "}, in which case a quotation
+ *       mark in the text is doubled, or between left and right quotation marks {@code “ ”}.</li>
+ * </ul>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+final class WKTParser {
+    /**
+     * A WKT element as a keyword followed by a list of values. Unquoted words which are not followed
+     * by an opening bracket, for example {@code north} in {@code AXIS["latitude", north]}, are also
+     * represented by an {@code Element}, but with a {@code null} list of values.
+     */
+    static final class Element {
+        /**
+         * The keyword of this element, or the unquoted word if {@link #values} is null.
+         */
+        final String keyword;
+
+        /**
+         * Index of the keyword in the parsed text, for error messages.
+         */
+        final int offset;
+
+        /**
+         * The {@link Double}, {@link String} or {@link Element} values,
+         * or {@code null} if this element is an unquoted word.
+         */
+        final List<Object> values;
+
+        /**
+         * Creates a new element.
+         */
+        Element(final String keyword, final int offset, final List<Object> values) {
+            this.keyword = keyword;
+            this.offset  = offset;
+            this.values  = values;
+        }
+
+        /**
+         * Returns {@code true} if this element has the given keyword, ignoring case.
+         *
+         * @param  name  the keyword to compare with the keyword of this element.
+         * @return whether this element has the given keyword.
+         */
+        boolean is(final String name) {
+            return values != null && keyword.equalsIgnoreCase(name);
+        }
+
+        /**
+         * Returns the value at the given index if it is of the given type.
+         *
+         * @param  <T>    compile-time value of {@code type}.
+         * @param  index  index of the value to get.
+         * @param  type   the expected type of the value.
+         * @return the value at the given index.
+         * @throws ParseException if there is no value at the given index, or if the value is not of the expected type.
+         */
+        <T> T get(final int index, final Class<T> type) throws ParseException {
+            if (values != null && index < values.size()) {
+                final Object value = values.get(index);
+                if (type.isInstance(value)) {
+                    return type.cast(value);
+                }
+            }
+            throw new ParseException("Expected a " + type.getSimpleName() + " value at index " + index
+                    + " of the \"" + keyword + "\" element.", offset);
+        }
+
+        /**
+         * Returns a string representation of this element, for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            if (values == null) {
+                return keyword;
+            }
+            final StringBuilder buffer = new StringBuilder(keyword).append('[');
+            String separator = "";
+            for (final Object value : values) {
+                buffer.append(separator);
+                if (value instanceof String) {
+                    buffer.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+                } else {
+                    buffer.append(value);
+                }
+                separator = ", ";
+            }
+            return buffer.append(']').toString();
+        }
+    }
+
+    /**
+     * Maximal nesting depth of elements. Real-world WKT rarely exceeds 10 levels. This limit protects
+     * against deeply nested input received from untrusted clients, which would otherwise cause a
+     * {@link StackOverflowError} in the recursive descent.
+     */
+    static final int MAX_DEPTH = 100;
+
+    /**
+     * The text to parse.
+     */
+    private final CharSequence text;
+
+    /**
+     * Index of the next character to read.
+     */
+    private int position;
+
+    /**
+     * Number of elements currently opened at the parsing position.
+     */
+    private int depth;
+
+    /**
+     * Creates a new parser for the given text.
+     */
+    private WKTParser(final CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses the given Well Known Text. The text shall contain exactly one root element,
+     * optionally surrounded by white spaces.
+     *
+     * @param  text  the Well Known Text to parse.
+     * @return the root element.
+     * @throws ParseException if the text can not be parsed. The error offset is the index
+     *         in the given text where the error has been detected.
+     */
+    static Element parse(final CharSequence text) throws ParseException {
+        final WKTParser parser = new WKTParser(text);
+        parser.skipSpaces();
+        final Element root = parser.parseElement();
+        if (root.values == null) {
+            throw new ParseException("Expected an element but found \"" + root.keyword + "\".", root.offset);
+        }
+        parser.skipSpaces();
+        if (parser.position < text.length()) {
+            throw parser.unexpected();
+        }
+        return root;
+    }
+
+    /**
+     * Skips the white spaces starting at the current position.
+     */
+    private void skipSpaces() {
+        final int length = text.length();
+        while (position < length && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Returns the exception to throw for an unexpected character or an unexpected end of text.
+     */
+    private ParseException unexpected() {
+        if (position >= text.length()) {
+            return new ParseException("Unexpected end of text.", position);
+        }
+        return new ParseException("Unexpected character '" + text.charAt(position) + "' at index " + position + '.', position);
+    }
+
+    /**
+     * Parses an element starting at the current position, which shall be the first letter of the keyword.
+     * If the keyword is not followed by an opening bracket, then it is returned as an unquoted word.
+     */
+    private Element parseElement() throws ParseException {
+        final int start = position;
+        final int length = text.length();
+        while (position < length) {
+            final char c = text.charAt(position);
+            if (!Character.isLetterOrDigit(c) && c != '_') break;
+            position++;
+        }
+        if (position == start) {
+            throw unexpected();
+        }
+        final String keyword = text.subSequence(start, position).toString();
+        skipSpaces();
+        final char closing;
+        if (position < length) {
+            switch (text.charAt(position)) {
+                case '[': closing = ']'; break;
+                case '(': closing = ')'; break;
+                default:  return new Element(keyword, start, null);
+            }
+        } else {
+            return new Element(keyword, start, null);
+        }
+        if (++depth > MAX_DEPTH) {
+            throw new ParseException("Elements are nested more than " + MAX_DEPTH + " levels deep.", position);
+        }
+        position++;
+        skipSpaces();
+        List<Object> values = Collections.emptyList();
+        if (position < length && text.charAt(position) == closing) {
+            position++;
+            depth--;
+            return new Element(keyword, start, values);
+        }
+        values = new ArrayList<>(4);
+        while (true) {
+            values.add(parseValue());
+            skipSpaces();
+            if (position >= length) {
+                throw unexpected();
+            }
+            final char c = text.charAt(position++);
+            if (c == closing) break;
+            if (c != ',') {
+                position--;
+                throw unexpected();
+            }
+            skipSpaces();
+        }
+        depth--;
+        return new Element(keyword, start, values);
+    }
+
+    /**
+     * Parses a value starting at the current position.
+     */
+    private Object parseValue() throws ParseException {
+        if (position >= text.length()) {
+            throw unexpected();
+        }
+        final char c = text.charAt(position);
+        switch (c) {
+            case '"': return parseQuotedText('"');
+            case '“': return parseQuotedText('”');
+        }
+        if (Character.isLetter(c)) {
+            return parseElement();
+        }
+        if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.') {
+            return parseNumber();
+        }
+        throw unexpected();
+    }
+
+    /**
+     * Parses a quoted text starting at the current position, which shall be the opening quotation mark.
+     * If the closing quotation mark is the straight quotation mark, then a doubled quotation mark is
+     * interpreted as a quotation mark in the text.
+     */
+    private String parseQuotedText(final char closing) throws ParseException {
+        final int start = ++position;
+        final int length = text.length();
+        StringBuilder buffer = null;
+        int from = start;
+        while (position < length) {
+            if (text.charAt(position++) == closing) {
+                if (closing == '"' && position < length && text.charAt(position) == '"') {
+                    if (buffer == null) {
+                        buffer = new StringBuilder(position - start + 16);
+                    }
+                    buffer.append(text, from, position);        // Include one quotation mark.
+                    from = ++position;                          // Skip the second one.
+                    continue;
+                }
+                final int end = position - 1;
+                if (buffer == null) {
+                    return text.subSequence(start, end).toString();
+                }
+                return buffer.append(text, from, end).toString();
+            }
+        }
+        throw new ParseException("Missing closing quotation mark for the text starting at index " + (start - 1) + '.', start - 1);
+    }
+
+    /**
+     * Parses a number starting at the current position. If the characters until the next separator
+     * do not form a number (for example a date like {@code 2002-04-01}), then the characters are
+     * returned as an unquoted word.
+     */
+    private Object parseNumber() {
+        final int start = position;
+        final int length = text.length();
+        while (position < length) {
+            final char c = text.charAt(position);
+            if (c == ',' || c == ']' || c == ')' || Character.isWhitespace(c)) break;
+            position++;
+        }
+        final String token = text.subSequence(start, position).toString();
+        try {
+            return Double.valueOf(token);
+        } catch (NumberFormatException e) {
+            return new Element(token, start, null);
+        }
+    }
+}
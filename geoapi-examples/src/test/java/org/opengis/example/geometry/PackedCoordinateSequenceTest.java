@@ -0,0 +1,127 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import org.junit.Test;
+
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.example.referencing.Matrix3;
+import org.opengis.example.referencing.SimpleTransformFactory;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link PackedCoordinateSequence} with all kinds of storage.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class PackedCoordinateSequenceTest {
+    /**
+     * Number of points in the sequences to test. This is more than the chunk size used for off-heap buffers.
+     */
+    private static final int NUM_POINTS = 2500;
+
+    /**
+     * Returns the coordinates of the test points.
+     */
+    private static double[] coordinates() {
+        final double[] coordinates = new double[NUM_POINTS * 2];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = i * 0.25;
+        }
+        return coordinates;
+    }
+
+    /**
+     * Verifies the views, then transforms the sequence in-place and verifies the result.
+     */
+    private static void verify(final PackedCoordinateSequence sequence) throws FactoryException, TransformException {
+        assertEquals(2, sequence.getDimension());
+        assertEquals(NUM_POINTS, sequence.size());
+        final PackedCoordinateSequence.View view = sequence.newView();
+        for (int i=0; i<NUM_POINTS; i++) {
+            view.moveTo(i);
+            assertEquals(i * 0.5,        view.getOrdinate(0), 0);
+            assertEquals(i * 0.5 + 0.25, view.getOrdinate(1), 0);
+        }
+        final SimpleDirectPosition expected = new SimpleDirectPosition(null, 3.5, 3.75);
+        assertEquals(expected, sequence.getPosition(7));
+        assertEquals(expected.hashCode(), sequence.getPosition(7).hashCode());
+        assertEquals("POINT(3.5 3.75)", sequence.getPosition(7).toString());
+        try {
+            view.getOrdinate(2);
+            fail("Expected IndexOutOfBoundsException.");
+        } catch (IndexOutOfBoundsException e) {
+            // This is the expected exception.
+        }
+        /*
+         * Writes through the view, then transforms in-place with (x, y) → (2x + 1, y − 3).
+         */
+        sequence.getPosition(3).setOrdinate(1, 100);
+        assertEquals(100, sequence.getOrdinate(3, 1), 0);
+        final MathTransform tr = new SimpleTransformFactory().createAffineTransform(new Matrix3(2, 0, 1, 0, 1, -3, 0, 0, 1));
+        sequence.transform(tr);
+        for (int i=0; i<NUM_POINTS; i++) {
+            assertEquals(2 * (i * 0.5) + 1, sequence.getOrdinate(i, 0), 0);
+            assertEquals((i == 3 ? 100 : i * 0.5 + 0.25) - 3, sequence.getOrdinate(i, 1), 0);
+        }
+    }
+
+    /**
+     * Tests a sequence backed by a {@code double[]} array.
+     *
+     * @throws FactoryException if the test transform can not be created.
+     * @throws TransformException if the sequence can not be transformed.
+     */
+    @Test
+    public void testDoubles() throws FactoryException, TransformException {
+        verify(PackedCoordinateSequence.wrap(null, 2, coordinates()));
+    }
+
+    /**
+     * Tests a sequence backed by a {@code float[]} array.
+     *
+     * @throws FactoryException if the test transform can not be created.
+     * @throws TransformException if the sequence can not be transformed.
+     */
+    @Test
+    public void testFloats() throws FactoryException, TransformException {
+        final double[] coordinates = coordinates();
+        final float[] floats = new float[coordinates.length];
+        for (int i=0; i<floats.length; i++) {
+            floats[i] = (float) coordinates[i];
+        }
+        verify(PackedCoordinateSequence.wrap(null, 2, floats));
+    }
+
+    /**
+     * Tests sequences backed by heap and off-heap buffers.
+     *
+     * @throws FactoryException if the test transform can not be created.
+     * @throws TransformException if the sequence can not be transformed.
+     */
+    @Test
+    public void testBuffers() throws FactoryException, TransformException {
+        final DoubleBuffer heap = DoubleBuffer.allocate(NUM_POINTS * 2 + 4);
+        heap.position(4);
+        heap.slice().put(coordinates());
+        verify(PackedCoordinateSequence.wrap(null, 2, heap));
+        assertEquals("Values before the sequence shall be unchanged.", 0, heap.get(3), 0);
+
+        final DoubleBuffer direct = ByteBuffer.allocateDirect(NUM_POINTS * 2 * Double.BYTES).asDoubleBuffer();
+        direct.put(coordinates()).flip();
+        verify(PackedCoordinateSequence.wrap(null, 2, direct));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Random;
+
+
+/**
+ * Measures the performance of {@link PackedRTree} construction and queries for increasing numbers
+ * of boxes, up to 10<sup>7</sup> by default, and compares query time with a linear scan.
+ * This class is not a JUnit test; run it from the command line with enough heap memory,
+ * for example {@code -Xmx4g}. The maximal number of boxes can be given in argument.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final class PackedRTreeBenchmark {
+    /**
+     * Number of queries to execute for each index size.
+     */
+    private static final int NUM_QUERIES = 1000;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private PackedRTreeBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param  args  optionally the maximal number of boxes.
+     */
+    public static void main(final String[] args) {
+        final int max = (args.length != 0) ? Integer.parseInt(args[0]) : 10000000;
+        final Random random = new Random(1047736981245L);
+        for (int count = 10000; count <= max; count *= 10) {
+            final double[] boxes = new double[count * 4];
+            for (int i=0; i<count; i++) {
+                final double x = random.nextDouble() * 359 - 180;
+                final double y = random.nextDouble() * 179 - 90;
+                boxes[i*4    ] = x;
+                boxes[i*4 + 1] = y;
+                boxes[i*4 + 2] = x + random.nextDouble();
+                boxes[i*4 + 3] = y + random.nextDouble();
+            }
+            long start = System.nanoTime();
+            new PackedRTree(boxes, false);
+            final long sequential = System.nanoTime() - start;
+            start = System.nanoTime();
+            final PackedRTree tree = new PackedRTree(boxes, true);
+            final long parallel = System.nanoTime() - start;
+            /*
+             * Small query boxes of 2°×2°, compared with a linear scan on a subset of the queries.
+             */
+            final double[] queries = new double[NUM_QUERIES * 2];
+            for (int i=0; i<queries.length; i++) {
+                queries[i] = random.nextDouble() * 170 - 85;
+            }
+            int found = 0;
+            start = System.nanoTime();
+            for (int i=0; i<NUM_QUERIES; i++) {
+                final double x = queries[i*2], y = queries[i*2 + 1];
+                found += tree.intersecting(x, y, x + 2, y + 2).length;
+            }
+            final long query = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i=0; i<NUM_QUERIES; i++) {
+                found += tree.nearest(queries[i*2], queries[i*2 + 1], 10).length;
+            }
+            final long nearest = System.nanoTime() - start;
+            final int numScans = Math.max(1, NUM_QUERIES / 100);
+            start = System.nanoTime();
+            for (int i=0; i<numScans; i++) {
+                final double xmin = queries[i*2], ymin = queries[i*2 + 1], xmax = xmin + 2, ymax = ymin + 2;
+                for (int j=0; j<count; j++) {
+                    if (boxes[j*4] <= xmax && boxes[j*4 + 1] <= ymax && boxes[j*4 + 2] >= xmin && boxes[j*4 + 3] >= ymin) {
+                        found++;
+                    }
+                }
+            }
+            final long scan = (System.nanoTime() - start) / numScans;
+            System.out.printf("%,11d boxes: build %7.1f ms (parallel %7.1f ms), intersect %7.2f us, "
+                    + "10-nearest %7.2f us, linear scan %9.1f us (checksum %d)%n", count,
+                    sequential / 1E6, parallel / 1E6, query / 1E3 / NUM_QUERIES, nearest / 1E3 / NUM_QUERIES,
+                    scan / 1E3, found);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.geometry;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import org.opengis.example.metadata.SimpleGeographicBoundingBox;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link PackedRTree} by comparing query results with linear scans.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class PackedRTreeTest {
+    /**
+     * Creates random boxes in the [-180 … 180] × [-90 … 90] domain.
+     * About 2% of the boxes cross the anti-meridian.
+     */
+    private static double[] createBoxes(final Random random, final int count) {
+        final double[] boxes = new double[count * 4];
+        for (int i=0; i<count; i++) {
+            final double x = random.nextDouble() * 360 - 180;
+            final double y = random.nextDouble() * 170 - 85;
+            final double w = random.nextDouble() * 8;
+            final double h = random.nextDouble() * 5;
+            double xmax = x + w;
+            if (xmax > 180) xmax -= 360;                    // Crossing the anti-meridian.
+            boxes[i*4    ] = x;
+            boxes[i*4 + 1] = y;
+            boxes[i*4 + 2] = xmax;
+            boxes[i*4 + 3] = y + h;
+        }
+        return boxes;
+    }
+
+    /**
+     * Returns the longitude ranges of a box, as one range or two ranges if the box crosses the anti-meridian.
+     */
+    private static double[] ranges(final double xmin, final double xmax) {
+        return (xmin > xmax) ? new double[] {xmin, 180, -180, xmax} : new double[] {xmin, xmax};
+    }
+
+    /**
+     * Linear scan for boxes intersecting or contained in the given query box.
+     */
+    private static int[] scan(final double[] boxes, final double xmin, final double ymin,
+            final double xmax, final double ymax, final boolean contained)
+    {
+        final double[] query = ranges(xmin, xmax);
+        int[] found = new int[0];
+        for (int i=0; i < boxes.length / 4; i++) {
+            final double bymin = boxes[i*4 + 1];
+            final double bymax = boxes[i*4 + 3];
+            final double[] box = ranges(boxes[i*4], boxes[i*4 + 2]);
+            boolean all = true, any = false;
+            for (int b=0; b<box.length; b += 2) {
+                boolean inside = false;
+                for (int q=0; q<query.length; q += 2) {
+                    if (contained) {
+                        inside |= box[b] >= query[q] && box[b+1] <= query[q+1] && bymin >= ymin && bymax <= ymax;
+                    } else {
+                        inside |= box[b] <= query[q+1] && box[b+1] >= query[q] && bymin <= ymax && bymax >= ymin;
+                    }
+                }
+                all &= inside;
+                any |= inside;
+            }
+            if (contained ? all : any) {
+                found = Arrays.copyOf(found, found.length + 1);
+                found[found.length - 1] = i;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tests intersection and containment queries, including query boxes crossing the anti-meridian.
+     */
+    @Test
+    public void testQueries() {
+        final Random random = new Random(7520318846193L);
+        final double[] boxes = createBoxes(random, 5000);
+        final PackedRTree tree = new PackedRTree(boxes, false);
+        assertEquals(5000, tree.size());
+        for (int i=0; i<50; i++) {
+            final double x = random.nextDouble() * 360 - 180;
+            final double y = random.nextDouble() * 160 - 80;
+            double xmax = x + random.nextDouble() * 40;
+            if (xmax > 180) xmax -= 360;
+            final double ymax = y + random.nextDouble() * 20;
+            assertArrayEquals(scan(boxes, x, y, xmax, ymax, false), tree.intersecting(x, y, xmax, ymax));
+            assertArrayEquals(scan(boxes, x, y, xmax, ymax, true),  tree.containedIn (x, y, xmax, ymax));
+        }
+        final int[] world = tree.containedIn(SimpleGeographicBoundingBox.WORLD);
+        assertEquals(5000, world.length);
+    }
+
+    /**
+     * Tests the <var>k</var>-nearest neighbors query.
+     */
+    @Test
+    public void testNearest() {
+        final Random random = new Random(-2208467193502L);
+        final double[] boxes = new double[2000 * 4];
+        for (int i=0; i<2000; i++) {
+            final double x = random.nextDouble() * 100;
+            final double y = random.nextDouble() * 100;
+            boxes[i*4    ] = x;
+            boxes[i*4 + 1] = y;
+            boxes[i*4 + 2] = x + random.nextDouble();
+            boxes[i*4 + 3] = y + random.nextDouble();
+        }
+        final PackedRTree tree = new PackedRTree(boxes, false);
+        for (int t=0; t<20; t++) {
+            final double x = random.nextDouble() * 100;
+            final double y = random.nextDouble() * 100;
+            final double[] distances = new double[2000];
+            for (int i=0; i<2000; i++) {
+                final double dx = Math.max(Math.max(boxes[i*4    ] - x, x - boxes[i*4 + 2]), 0);
+                final double dy = Math.max(Math.max(boxes[i*4 + 1] - y, y - boxes[i*4 + 3]), 0);
+                distances[i] = dx*dx + dy*dy;
+            }
+            final int[] nearest = tree.nearest(x, y, 10);
+            assertEquals(10, nearest.length);
+            final double[] sorted = distances.clone();
+            Arrays.sort(sorted);
+            for (int i=0; i<nearest.length; i++) {
+                assertEquals(sorted[i], distances[nearest[i]], 0);
+            }
+        }
+        assertEquals(2000, tree.nearest(0, 0, 5000).length);
+    }
+
+    /**
+     * Verifies that parallel bulk loading gives the same results than sequential loading.
+     */
+    @Test
+    public void testParallel() {
+        final Random random = new Random(3394712650918L);
+        final double[] boxes = createBoxes(random, 50000);
+        final PackedRTree sequential = new PackedRTree(boxes, false);
+        final PackedRTree parallel   = new PackedRTree(boxes, true);
+        for (int i=0; i<20; i++) {
+            final double x = random.nextDouble() * 340 - 180;
+            final double y = random.nextDouble() * 160 - 80;
+            assertArrayEquals(sequential.intersecting(x, y, x + 10, y + 5), parallel.intersecting(x, y, x + 10, y + 5));
+        }
+        assertEquals(0, new PackedRTree(new double[0], false).intersecting(-180, -90, 180, 90).length);
+    }
+}
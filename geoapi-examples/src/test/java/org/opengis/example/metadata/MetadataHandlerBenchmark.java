@@ -0,0 +1,144 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.metadata;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.stream.Stream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.opengis.annotation.UML;
+import org.opengis.metadata.Metadata;
+import org.opengis.metadata.citation.Party;
+import org.opengis.metadata.citation.Address;
+import org.opengis.metadata.citation.Contact;
+import org.opengis.metadata.citation.Responsibility;
+
+
+/**
+ * Measures the cost of walking deep metadata trees created by {@link MetadataProxyFactory}, in the way
+ * a serializer would do: by invoking all getter methods of all metadata objects and visiting the children.
+ * The tree is a {@link Metadata} with contacts, parties, contact information and addresses, each level
+ * having the branching factor given in argument (10 by default).
+ * This class is not a JUnit test; run it from the command line.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final class MetadataHandlerBenchmark {
+    /**
+     * Number of walks over the tree for each measurement.
+     */
+    private static final int NUM_WALKS = 20;
+
+    /**
+     * The getter methods of each metadata interface, computed when first needed.
+     */
+    private final Map<Class<?>, Method[]> getters = new HashMap<>();
+
+    /**
+     * Number of getter methods invoked during the walks.
+     */
+    private long count;
+
+    /**
+     * Creates a new benchmark.
+     */
+    private MetadataHandlerBenchmark() {
+    }
+
+    /**
+     * Creates the metadata tree with the given branching factor.
+     */
+    private static Metadata createTree(final MetadataProxyFactory factory, final int width) {
+        final List<Responsibility> contacts = new ArrayList<>(width);
+        for (int i=0; i<width; i++) {
+            final List<Party> parties = new ArrayList<>(width);
+            for (int j=0; j<width; j++) {
+                final List<Contact> contactInfo = new ArrayList<>(width);
+                for (int k=0; k<width; k++) {
+                    final List<Address> addresses = new ArrayList<>(width);
+                    for (int m=0; m<width; m++) {
+                        addresses.add(factory.create(Address.class, Collections.singletonMap("postalCode", "P" + m)));
+                    }
+                    contactInfo.add(factory.create(Contact.class, Collections.singletonMap("address", addresses)));
+                }
+                final Map<String,Object> attributes = new HashMap<>();
+                attributes.put("name", new SimpleCitation("Party " + j));
+                attributes.put("contactInfo", contactInfo);
+                parties.add(factory.create(Party.class, attributes));
+            }
+            contacts.add(factory.create(Responsibility.class, Collections.singletonMap("party", parties)));
+        }
+        return factory.create(Metadata.class, Collections.singletonMap("contact", contacts));
+    }
+
+    /**
+     * Invokes all getter methods of the given object, then visits the children.
+     */
+    private void walk(final Object node) throws ReflectiveOperationException {
+        if (node instanceof Iterable<?>) {
+            for (final Object child : (Iterable<?>) node) {
+                walk(child);
+            }
+        } else if (node != null && Proxy.isProxyClass(node.getClass())) {
+            for (final Method getter : getters.computeIfAbsent(node.getClass().getInterfaces()[0], (type) -> {
+                final List<Method> methods = new ArrayList<>();
+                for (final Method method : type.getMethods()) {
+                    if (method.getParameterCount() == 0 && method.isAnnotationPresent(UML.class)) {
+                        methods.add(method);
+                    }
+                }
+                return methods.toArray(new Method[methods.size()]);
+            })) {
+                count++;
+                walk(getter.invoke(node));
+            }
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param  args  optionally the branching factor of the tree.
+     * @throws ReflectiveOperationException if a getter method can not be invoked.
+     */
+    public static void main(final String[] args) throws ReflectiveOperationException {
+        final int width = (args.length != 0) ? Integer.parseInt(args[0]) : 10;
+        final Metadata tree = createTree(new MetadataProxyFactory(), width);
+        final MetadataHandlerBenchmark benchmark = new MetadataHandlerBenchmark();
+        for (int run=0; run<5; run++) {
+            benchmark.count = 0;
+            long start = System.nanoTime();
+            for (int i=0; i<NUM_WALKS; i++) {
+                benchmark.walk(tree);
+            }
+            final long walk = System.nanoTime() - start;
+            /*
+             * For comparison, the cost of searching the annotation of each invoked getter,
+             * as would be done by a handler without dispatch tables.
+             */
+            final Method[] methods = benchmark.getters.values().stream().flatMap(Stream::of).toArray(Method[]::new);
+            int found = 0;
+            start = System.nanoTime();
+            for (long i=0; i<benchmark.count; i++) {
+                if (methods[(int) (i % methods.length)].getAnnotation(UML.class) != null) {
+                    found++;
+                }
+            }
+            final long lookup = System.nanoTime() - start;
+            System.out.printf("%,d getter calls in %7.1f ms (%5.1f ns per call); annotation lookups alone: %5.1f ns per call (checksum %d)%n",
+                    benchmark.count, walk / 1E6, walk / (double) benchmark.count, lookup / (double) benchmark.count, found);
+        }
+    }
+}
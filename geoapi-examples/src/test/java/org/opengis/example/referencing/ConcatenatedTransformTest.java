@@ -0,0 +1,178 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import org.junit.Test;
+
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link SimpleTransformFactory#createConcatenatedTransform(MathTransform, MathTransform)}
+ * and the {@link ConcatenatedTransform} created by that method.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class ConcatenatedTransformTest {
+    /**
+     * The factory to use for creating the transforms.
+     */
+    private final SimpleTransformFactory factory = new SimpleTransformFactory();
+
+    /**
+     * Creates an affine transform with random coefficients for the given number of dimensions.
+     */
+    private MathTransform createAffine(final Random random, final int dimension) throws FactoryException {
+        final Matrix matrix = SimpleTransformFactory.createMatrix(dimension + 1, dimension + 1);
+        for (int j=0; j<dimension; j++) {
+            for (int i=0; i<=dimension; i++) {
+                matrix.setElement(j, i, random.nextDouble() * 4 - 2);
+            }
+        }
+        return factory.createAffineTransform(matrix);
+    }
+
+    /**
+     * Tests that consecutive linear transforms are merged in a single transform.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testMatrixFusion() throws FactoryException, TransformException {
+        final Random random = new Random(2914871069563201L);
+        for (int dimension = 2; dimension <= 3; dimension++) {
+            final MathTransform t1 = createAffine(random, dimension);
+            final MathTransform t2 = createAffine(random, dimension);
+            final MathTransform c = factory.createConcatenatedTransform(t1, t2);
+            assertEquals(dimension == 2 ? AffineTransform2D.class : ProjectiveTransform.class, c.getClass());
+            final double[] source   = new double[dimension * 10];
+            final double[] expected = new double[source.length];
+            final double[] actual   = new double[source.length];
+            for (int i=0; i<source.length; i++) {
+                source[i] = random.nextDouble() * 100;
+            }
+            t1.transform(source,   0, expected, 0, 10);
+            t2.transform(expected, 0, expected, 0, 10);
+            c .transform(source,   0, actual,   0, 10);
+            assertArrayEquals(expected, actual, 1E-10);
+        }
+    }
+
+    /**
+     * Tests that identity transforms and transforms followed by their inverse are removed.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a transform can not be inverted.
+     */
+    @Test
+    public void testSimplifications() throws FactoryException, TransformException {
+        final Random random = new Random(-573619845210476L);
+        final MathTransform linear   = createAffine(random, 3);
+        final MathTransform cube     = new TestTransforms.Cube(3, false);
+        final MathTransform identity = factory.createAffineTransform(new Matrix4());
+        assertSame(cube, factory.createConcatenatedTransform(identity, cube));
+        assertSame(cube, factory.createConcatenatedTransform(cube, identity));
+        assertTrue(factory.createConcatenatedTransform(cube, cube.inverse()).isIdentity());
+
+        MathTransform c = factory.createConcatenatedTransform(linear, cube);
+        assertEquals(ConcatenatedTransform.class, c.getClass());
+        c = factory.createConcatenatedTransform(c, cube.inverse());
+        assertSame(linear, c);
+        c = factory.createConcatenatedTransform(c, linear.inverse());
+        assertTrue(c.isIdentity());
+    }
+
+    /**
+     * Tests the transformation of more points than the block size, in all combinations
+     * of array types and with overlapping source and destination regions.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testBlocks() throws FactoryException, TransformException {
+        final Random random = new Random(8205531765408963L);
+        final MathTransform t1 = createAffine(random, 3);
+        final MathTransform t2 = new TestTransforms.Cube(3, false);
+        final MathTransform t3 = createAffine(random, 3);
+        final MathTransform c = factory.createConcatenatedTransform(factory.createConcatenatedTransform(t1, t2), t3);
+        assertEquals(3, ((ConcatenatedTransform) c).getSteps().size());
+        final int numPts = 2000;
+        final double[] source = new double[numPts * 3];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble() * 2 - 1;
+        }
+        final double[] expected = new double[source.length];
+        t1.transform(source,   0, expected, 0, numPts);
+        t2.transform(expected, 0, expected, 0, numPts);
+        t3.transform(expected, 0, expected, 0, numPts);
+        final double[] actual = new double[source.length];
+        c.transform(source, 0, actual, 0, numPts);
+        assertArrayEquals(expected, actual, 1E-9);
+        /*
+         * Float arrays, in all combinations.
+         */
+        final float[] sourceAsFloats = new float[source.length];
+        for (int i=0; i<source.length; i++) {
+            sourceAsFloats[i] = (float) source[i];
+        }
+        final float[] floats = new float[source.length];
+        c.transform(source, 0, floats, 0, numPts);
+        for (int i=0; i<source.length; i++) {
+            assertEquals(expected[i], floats[i], Math.ulp((float) expected[i]));
+        }
+        c.transform(sourceAsFloats, 0, actual, 0, numPts);
+        c.transform(sourceAsFloats, 0, floats, 0, numPts);
+        for (int i=0; i<source.length; i++) {
+            assertEquals(actual[i], floats[i], Math.ulp((float) actual[i]));
+        }
+        /*
+         * Overlapping arrays: the destination region starts before or after the source region.
+         */
+        for (final int shift : new int[] {-7, 5}) {
+            final double[] array = new double[source.length + 20];
+            System.arraycopy(source, 0, array, 10, source.length);
+            c.transform(array, 10, array, 10 + shift, numPts);
+            for (int i=0; i<expected.length; i++) {
+                assertEquals(expected[i], array[10 + shift + i], 1E-9);
+            }
+        }
+    }
+
+    /**
+     * Tests the derivative and the inverse of a concatenated transform.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a point or a derivative can not be computed.
+     */
+    @Test
+    public void testDerivativeAndInverse() throws FactoryException, TransformException {
+        final MathTransform scale = factory.createAffineTransform(new Matrix3(2, 0, 0, 0, 3, 0, 0, 0, 1));
+        final MathTransform c = factory.createConcatenatedTransform(new TestTransforms.Cube(2, false), scale);
+        final DirectPosition point = new SimpleDirectPosition(null, 4, 5);
+        final Matrix derivative = c.derivative(point);
+        assertEquals(2 * 3 * 16, derivative.getElement(0, 0), 1E-12);     // d(2x³)/dx = 6x²
+        assertEquals(3 * 3 * 25, derivative.getElement(1, 1), 1E-12);     // d(3y³)/dy = 9y²
+        assertEquals(0, derivative.getElement(0, 1), 0);
+        final DirectPosition result = c.inverse().transform(c.transform(point, null), null);
+        assertEquals(4, result.getOrdinate(0), 1E-12);
+        assertEquals(5, result.getOrdinate(1), 1E-12);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.List;
+import java.util.ArrayList;
+import org.junit.Test;
+
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import org.opengis.example.geometry.SimpleEnvelope;
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link EnvelopeTransformer}.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class EnvelopeTransformerTest {
+    /**
+     * Creates a two-dimensional envelope.
+     */
+    private static SimpleEnvelope envelope(final double xmin, final double ymin, final double xmax, final double ymax) {
+        return new SimpleEnvelope(new SimpleDirectPosition(null, xmin, ymin),
+                                  new SimpleDirectPosition(null, xmax, ymax));
+    }
+
+    /**
+     * Asserts that the given envelope has the expected bounds.
+     */
+    private static void assertEnvelopeEquals(final double xmin, final double ymin, final double xmax, final double ymax,
+            final Envelope actual, final double tolerance)
+    {
+        assertEquals("xmin", xmin, actual.getMinimum(0), tolerance);
+        assertEquals("ymin", ymin, actual.getMinimum(1), tolerance);
+        assertEquals("xmax", xmax, actual.getMaximum(0), tolerance);
+        assertEquals("ymax", ymax, actual.getMaximum(1), tolerance);
+    }
+
+    /**
+     * Tests the transformation of an envelope by an affine transform,
+     * which should give the same result than transforming the corners.
+     *
+     * @throws FactoryException if the affine transform can not be created.
+     * @throws TransformException if the envelope can not be transformed.
+     */
+    @Test
+    public void testAffine() throws FactoryException, TransformException {
+        final MathTransform tr = new SimpleTransformFactory().createAffineTransform(new Matrix3(2, 1, 10, 0, -3, 20, 0, 0, 1));
+        final Envelope result = new EnvelopeTransformer(tr).transform(envelope(1, 2, 4, 5));
+        assertEnvelopeEquals(14, 5, 23, 14, result, 1E-12);
+    }
+
+    /**
+     * Tests the transformation of an envelope by a non-linear transform, with and without derivatives.
+     *
+     * @throws TransformException if the envelope can not be transformed.
+     */
+    @Test
+    public void testNonLinear() throws TransformException {
+        final SimpleEnvelope envelope = envelope(0, 0, 3, 1);
+        assertEnvelopeEquals(0, 0, 3, 2, new EnvelopeTransformer(new TestTransforms.Wave(true)).transform(envelope), 1E-8);
+        assertEnvelopeEquals(0, 0, 3, 2, new EnvelopeTransformer(new TestTransforms.Wave(false)).transform(envelope), 1E-5);
+    }
+
+    /**
+     * Verifies that a failure to compute the derivative for one envelope
+     * does not change the result of the transformation of other envelopes.
+     *
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Test
+    public void testDerivativeFailure() throws TransformException {
+        final SimpleEnvelope envelope = envelope(0, 0, 3, 1);
+        final Envelope expected = new EnvelopeTransformer(new TestTransforms.Wave(true)).transform(envelope);
+        final EnvelopeTransformer transformer = new EnvelopeTransformer(new TestTransforms.Wave(true));
+        final double x = 32 * Math.PI;                                  // Greater than the pole, with sin(x) = 0.
+        assertTrue(x > TestTransforms.Wave.POLE);
+        assertEnvelopeEquals(x, 0, x + 3, 2, transformer.transform(envelope(x, 0, x + 3, 1)), 1E-5);
+        assertEquals(expected, transformer.transform(envelope));
+    }
+
+    /**
+     * Tests the transformation of many envelopes in parallel.
+     *
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Test
+    public void testParallel() throws TransformException {
+        final List<SimpleEnvelope> tiles = new ArrayList<>();
+        for (int i=0; i<40; i++) {
+            for (int j=0; j<25; j++) {
+                tiles.add(envelope(i * 0.25, j * 0.5, (i+1) * 0.25, (j+1) * 0.5));
+            }
+        }
+        final EnvelopeTransformer transformer = new EnvelopeTransformer(new TestTransforms.Wave(true));
+        final SimpleEnvelope[] sequential = transformer.transform(tiles, false);
+        final SimpleEnvelope[] parallel   = transformer.transform(tiles, true);
+        assertArrayEquals(sequential, parallel);
+        for (int i=0; i<sequential.length; i++) {
+            assertEquals(transformer.transform(tiles.get(i)), sequential[i]);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import org.junit.Test;
+import org.opengis.referencing.operation.Matrix;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Matrix2}, {@link Matrix3} and {@link Matrix4} by comparing
+ * their results with the results of {@link SimpleMatrix}.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class MatrixTest {
+    /**
+     * Tolerance threshold for comparisons of matrix elements.
+     */
+    private static final double TOLERANCE = 1E-12;
+
+    /**
+     * Sets all elements of the given matrices to the same random values.
+     */
+    private static void fill(final Random random, final Matrix fixed, final SimpleMatrix reference) {
+        for (int j=0; j<fixed.getNumRow(); j++) {
+            for (int i=0; i<fixed.getNumCol(); i++) {
+                final double value = random.nextDouble() * 20 - 10;
+                fixed.setElement(j, i, value);
+                reference.setElement(j, i, value);
+            }
+        }
+    }
+
+    /**
+     * Asserts that the given matrices contain the same values.
+     */
+    private static void assertMatrixEquals(final SimpleMatrix expected, final Matrix actual) {
+        assertEquals("numRow", expected.getNumRow(), actual.getNumRow());
+        assertEquals("numCol", expected.getNumCol(), actual.getNumCol());
+        for (int j=0; j<expected.getNumRow(); j++) {
+            for (int i=0; i<expected.getNumCol(); i++) {
+                assertEquals(expected.getElement(j, i), actual.getElement(j, i), TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * Tests the identity matrices created by {@link SimpleTransformFactory#createMatrix(int, int)}.
+     */
+    @Test
+    public void testIdentity() {
+        for (int size=1; size<=5; size++) {
+            final Matrix matrix = SimpleTransformFactory.createMatrix(size, size);
+            assertTrue(matrix.isIdentity());
+            assertMatrixEquals(new SimpleMatrix(size, size), matrix);
+            matrix.setElement(size - 1, 0, 2);
+            assertFalse(matrix.isIdentity());
+        }
+        assertEquals(Matrix2.class,      SimpleTransformFactory.createMatrix(2, 2).getClass());
+        assertEquals(Matrix3.class,      SimpleTransformFactory.createMatrix(3, 3).getClass());
+        assertEquals(Matrix4.class,      SimpleTransformFactory.createMatrix(4, 4).getClass());
+        assertEquals(SimpleMatrix.class, SimpleTransformFactory.createMatrix(3, 4).getClass());
+    }
+
+    /**
+     * Tests the {@code mul} methods.
+     */
+    @Test
+    public void testMul() {
+        final Random random = new Random(4182963741036425L);
+        for (int size=2; size<=4; size++) {
+            final Matrix m1 = SimpleTransformFactory.createMatrix(size, size);
+            final Matrix m2 = SimpleTransformFactory.createMatrix(size, size);
+            final SimpleMatrix r1 = new SimpleMatrix(size, size);
+            final SimpleMatrix r2 = new SimpleMatrix(size, size);
+            fill(random, m1, r1);
+            fill(random, m2, r2);
+            switch (size) {
+                case 2: ((Matrix2) m1).mul((Matrix2) m2); break;
+                case 3: ((Matrix3) m1).mul((Matrix3) m2); break;
+                case 4: ((Matrix4) m1).mul((Matrix4) m2); break;
+            }
+            r1.mul(r2);
+            assertMatrixEquals(r1, m1);
+        }
+    }
+
+    /**
+     * Tests the {@code invert} methods.
+     */
+    @Test
+    public void testInvert() {
+        final Random random = new Random(-6357916072305743891L);
+        for (int size=2; size<=4; size++) {
+            final Matrix m = SimpleTransformFactory.createMatrix(size, size);
+            final SimpleMatrix r = new SimpleMatrix(size, size);
+            fill(random, m, r);
+            switch (size) {
+                case 2: ((Matrix2) m).invert(); break;
+                case 3: ((Matrix3) m).invert(); break;
+                case 4: ((Matrix4) m).invert(); break;
+            }
+            r.invert();
+            assertMatrixEquals(r, m);
+        }
+    }
+
+    /**
+     * Tests {@link Matrix#clone()}, {@code equals} and {@code hashCode}.
+     */
+    @Test
+    public void testCloneAndEquals() {
+        final Matrix4 m = new Matrix4();
+        m.m13 = 5;
+        final Matrix4 c = m.clone();
+        assertEquals(m, c);
+        assertEquals(m.hashCode(), c.hashCode());
+        c.m13 = 6;
+        assertNotEquals(m, c);
+        assertEquals(5, m.getElement(1, 3), 0);
+    }
+}
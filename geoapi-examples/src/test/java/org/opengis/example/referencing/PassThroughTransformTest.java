@@ -0,0 +1,175 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import org.junit.Test;
+
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link SimpleTransformFactory#createPassThroughTransform(int, MathTransform, int)}
+ * and the {@link PassThroughTransform} created by that method.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class PassThroughTransformTest {
+    /**
+     * The factory to use for creating the transforms.
+     */
+    private final SimpleTransformFactory factory = new SimpleTransformFactory();
+
+    /**
+     * Computes the expected result of a pass through transform by transforming each point separately.
+     */
+    private static double[] expected(final MathTransform sub, final int first, final int trailing,
+            final double[] source, final int numPts) throws TransformException
+    {
+        final int subSrc = sub.getSourceDimensions();
+        final int subDst = sub.getTargetDimensions();
+        final int srcDim = first + subSrc + trailing;
+        final int dstDim = first + subDst + trailing;
+        final double[] target = new double[numPts * dstDim];
+        final double[] buffer = new double[Math.max(subSrc, subDst)];
+        for (int p=0; p<numPts; p++) {
+            final int s = p * srcDim;
+            final int d = p * dstDim;
+            System.arraycopy(source, s, target, d, first);
+            System.arraycopy(source, s + first, buffer, 0, subSrc);
+            sub.transform(buffer, 0, buffer, 0, 1);
+            System.arraycopy(buffer, 0, target, d + first, subDst);
+            System.arraycopy(source, s + first + subSrc, target, d + first + subDst, trailing);
+        }
+        return target;
+    }
+
+    /**
+     * Tests that the pass through of a linear transform is an affine transform with an expanded matrix.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testLinear() throws FactoryException, TransformException {
+        final MathTransform sub = factory.createAffineTransform(new Matrix3(2, 0, 5, 0, 3, 7, 0, 0, 1));
+        assertSame(sub, factory.createPassThroughTransform(0, sub, 0));
+        final MathTransform tr = factory.createPassThroughTransform(1, sub, 1);
+        assertEquals(ProjectiveTransform.class, tr.getClass());
+        assertEquals(4, tr.getSourceDimensions());
+        assertEquals(4, tr.getTargetDimensions());
+        final double[] source = TestTransforms.random(new Random(7216450348126L), 4 * 20, 2);
+        final double[] actual = new double[source.length];
+        tr.transform(source, 0, actual, 0, 20);
+        assertArrayEquals(expected(sub, 1, 1, source, 20), actual, 1E-12);
+    }
+
+    /**
+     * Tests a pass through transform of a non-linear transform, with more points than the block size,
+     * in all combinations of array types and with overlapping source and destination regions.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testNonLinear() throws FactoryException, TransformException {
+        final MathTransform sub = new TestTransforms.Cube(2, false);
+        final MathTransform tr  = factory.createPassThroughTransform(0, sub, 2);
+        assertEquals(PassThroughTransform.class, tr.getClass());
+        final int numPts = 1000;
+        final double[] source   = TestTransforms.random(new Random(-3906142687112L), numPts * 4, 2);
+        final double[] expected = expected(sub, 0, 2, source, numPts);
+        final double[] actual   = new double[source.length];
+        tr.transform(source, 0, actual, 0, numPts);
+        assertArrayEquals(expected, actual, 1E-12);
+
+        final float[] sourceAsFloats = new float[source.length];
+        for (int i=0; i<source.length; i++) {
+            sourceAsFloats[i] = (float) source[i];
+        }
+        final float[] floats = new float[source.length];
+        tr.transform(source, 0, floats, 0, numPts);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], floats[i], Math.ulp((float) expected[i]));
+        }
+        tr.transform(sourceAsFloats, 0, actual, 0, numPts);
+        tr.transform(sourceAsFloats, 0, floats, 0, numPts);
+        for (int i=0; i<actual.length; i++) {
+            assertEquals(actual[i], floats[i], Math.ulp((float) actual[i]));
+        }
+        for (final int shift : new int[] {-6, 0, 9}) {
+            final double[] array = new double[source.length + 20];
+            System.arraycopy(source, 0, array, 10, source.length);
+            tr.transform(array, 10, array, 10 + shift, numPts);
+            for (int i=0; i<expected.length; i++) {
+                assertEquals(expected[i], array[10 + shift + i], 1E-12);
+            }
+        }
+    }
+
+    /**
+     * Tests a pass through transform of a sub-transform changing the number of dimensions.
+     *
+     * @throws FactoryException if a transform can not be created.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testDimensionChange() throws FactoryException, TransformException {
+        final MathTransform sub = new TestTransforms.Product();
+        final MathTransform tr  = factory.createPassThroughTransform(1, sub, 2);
+        assertEquals(5, tr.getSourceDimensions());
+        assertEquals(6, tr.getTargetDimensions());
+        final int numPts = 800;
+        final double[] source   = TestTransforms.random(new Random(5527018946250L), numPts * 5, 2);
+        final double[] expected = expected(sub, 1, 2, source, numPts);
+        final double[] actual   = new double[expected.length];
+        tr.transform(source, 0, actual, 0, numPts);
+        assertArrayEquals(expected, actual, 1E-12);
+        /*
+         * Overlapping arrays: iteration backward, or copy of the source points.
+         */
+        for (final int offset : new int[] {0, numPts}) {
+            final double[] array = new double[expected.length + numPts];
+            System.arraycopy(source, 0, array, offset, source.length);
+            tr.transform(array, offset, array, 0, numPts);
+            for (int i=0; i<expected.length; i++) {
+                assertEquals(expected[i], array[i], 1E-12);
+            }
+        }
+        /*
+         * Single point and derivative.
+         */
+        final DirectPosition point = new SimpleDirectPosition(null, 1, 2, 3, 4, 5);
+        final DirectPosition result = tr.transform(point, null);
+        assertArrayEquals(new double[] {1, 6, 5, -1, 4, 5}, result.getCoordinate(), 0);
+        final Matrix derivative = tr.derivative(point);
+        final double[][] expectedDerivative = {
+            {1, 0,  0, 0, 0},
+            {0, 3,  2, 0, 0},
+            {0, 1,  1, 0, 0},
+            {0, 1, -1, 0, 0},
+            {0, 0,  0, 1, 0},
+            {0, 0,  0, 0, 1}
+        };
+        for (int j=0; j<6; j++) {
+            for (int i=0; i<5; i++) {
+                assertEquals(expectedDerivative[j][i], derivative.getElement(j, i), 0);
+            }
+        }
+    }
+}
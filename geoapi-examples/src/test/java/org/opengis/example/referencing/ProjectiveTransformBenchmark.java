@@ -0,0 +1,139 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import javax.vecmath.GMatrix;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.TransformException;
+
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * Compares the performance of the {@link ProjectiveTransform} methods working on arrays
+ * with the performance of the default {@link SimpleTransform} implementation, which
+ * transforms each point through a {@link DirectPosition} and a vecmath matrix product.
+ * The benchmark is run for two-dimensional, three-dimensional and four-dimensional
+ * affine transforms.
+ *
+ * <p>This class is not a JUnit test. It is rather a tool which can be executed manually
+ * when the transform implementations are modified:</p>
+ *
+ * <blockquote><pre>java org.opengis.example.referencing.ProjectiveTransformBenchmark</pre></blockquote>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final class ProjectiveTransformBenchmark {
+    /**
+     * Number of points to transform in each measurement.
+     */
+    private static final int NUM_POINTS = 100_000;
+
+    /**
+     * Number of measurements. The first measurements are warmup.
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * A transform using the default {@link SimpleTransform} methods for transforming arrays.
+     * The {@link #transform(DirectPosition, DirectPosition)} method is the same than the one
+     * in {@link ProjectiveTransform}.
+     */
+    @SuppressWarnings("serial")
+    private static final class Reference extends SimpleTransform {
+        /** The matrix used for performing the coordinate conversions. */
+        private final SimpleMatrix matrix;
+
+        /** Creates a new transform for the given matrix. */
+        Reference(final SimpleMatrix matrix) {
+            super(null, "Reference", null, null);
+            this.matrix = matrix;
+        }
+
+        @Override public int getSourceDimensions() {return matrix.getNumCol() - 1;}
+        @Override public int getTargetDimensions() {return matrix.getNumRow() - 1;}
+
+        /** Transforms a point using the vecmath matrix product. */
+        @Override
+        public DirectPosition transform(final DirectPosition ptSrc, final DirectPosition ptDst) {
+            final int srcDim = getSourceDimensions();
+            final int dstDim = getTargetDimensions();
+            final GMatrix source = new GMatrix(srcDim+1, 1);
+            final GMatrix target = new GMatrix(dstDim+1, 1);
+            source.setElement(srcDim, 0, 1);
+            for (int j=0; j<srcDim; j++) {
+                source.setElement(j, 0, ptSrc.getOrdinate(j));
+            }
+            target.mul(matrix, source);
+            final double w = target.getElement(dstDim, 0);
+            for (int j=0; j<dstDim; j++) {
+                ptDst.setOrdinate(j, target.getElement(j, 0) / w);
+            }
+            return ptDst;
+        }
+    }
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private ProjectiveTransformBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param  args  ignored.
+     * @throws TransformException if a point can not be transformed.
+     */
+    public static void main(final String[] args) throws TransformException {
+        final Random random = new Random(6981473240238406193L);
+        for (int dimension = 2; dimension <= 4; dimension++) {
+            final SimpleMatrix matrix = new SimpleMatrix(dimension + 1, dimension + 1);
+            for (int j=0; j<dimension; j++) {
+                for (int i=0; i<=dimension; i++) {
+                    matrix.setElement(j, i, random.nextDouble() * 10 - 5);
+                }
+            }
+            final SimpleTransform reference = new Reference(matrix);
+            final SimpleTransform optimized = new ProjectiveTransform(null, "Optimized", null, null, matrix);
+            final double[] source = new double[NUM_POINTS * dimension];
+            for (int i=0; i<source.length; i++) {
+                source[i] = random.nextDouble() * 1000 - 500;
+            }
+            final double[] expected = new double[source.length];
+            final double[] actual   = new double[source.length];
+            System.out.printf("%dD affine transform, %d points:%n", dimension, NUM_POINTS);
+            for (int i=0; i<RUNS; i++) {
+                final long t1 = measure(reference, source, expected);
+                final long t2 = measure(optimized, source, actual);
+                System.out.printf("Run %2d: point by point %7.2f ns/point, array kernel %6.2f ns/point%n",
+                                  i, t1 / (double) NUM_POINTS, t2 / (double) NUM_POINTS);
+            }
+            for (int i=0; i<actual.length; i++) {
+                if (Math.abs(actual[i] - expected[i]) > 1E-9 * Math.abs(expected[i])) {
+                    throw new AssertionError("Mismatched coordinate at index " + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms all points with the given transform and returns the elapsed time in nanoseconds.
+     */
+    private static long measure(final SimpleTransform transform, final double[] source, final double[] target)
+            throws TransformException
+    {
+        final long start = System.nanoTime();
+        transform.transform(source, 0, target, 0, NUM_POINTS);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+import org.junit.Test;
+
+import org.opengis.referencing.operation.TransformException;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the default methods of {@link SimpleTransform} transforming arrays of coordinates,
+ * with and without the {@link SimpleTransform#transformPoint(double[], int, double[], int)} hook.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class SimpleTransformTest {
+    /**
+     * The same transform than {@link TestTransforms.Product}, but overriding the
+     * {@link #transformPoint(double[], int, double[], int)} hook.
+     */
+    @SuppressWarnings("serial")
+    private static final class Hook extends TestTransforms.Product {
+        /** Whether to allow parallel execution. */
+        private final boolean parallel;
+
+        /** Creates a new transform. */
+        Hook(final boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        /** Computes (x·y, x+y, x−y) directly on the arrays. */
+        @Override
+        protected void transformPoint(double[] srcPts, int srcOff, double[] dstPts, int dstOff) throws TransformException {
+            final double x = srcPts[srcOff];
+            final double y = srcPts[srcOff + 1];
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                throw new TransformException("Can not transform NaN.");
+            }
+            dstPts[dstOff    ] = x * y;
+            dstPts[dstOff + 1] = x + y;
+            dstPts[dstOff + 2] = x - y;
+        }
+
+        @Override
+        protected boolean isParallelizable() {
+            return parallel;
+        }
+    }
+
+    /**
+     * Tests the {@code transformPoint} hook with all combinations of array types and overlapping regions.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testTransformPoint() throws TransformException {
+        final SimpleTransform reference = new TestTransforms.Product();
+        final SimpleTransform hook = new Hook(false);
+        final int numPts = 50;
+        final double[] source   = TestTransforms.random(new Random(6402871593362L), numPts * 2, 5);
+        final double[] expected = new double[numPts * 3];
+        final double[] actual   = new double[numPts * 3];
+        reference.transform(source, 0, expected, 0, numPts);
+        hook.transform(source, 0, actual, 0, numPts);
+        assertArrayEquals(expected, actual, 0);
+
+        final float[] sourceAsFloats = new float[source.length];
+        for (int i=0; i<source.length; i++) {
+            sourceAsFloats[i] = (float) source[i];
+        }
+        final float[] floats = new float[numPts * 3];
+        hook.transform(source, 0, floats, 0, numPts);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals((float) expected[i], floats[i], 0);
+        }
+        reference.transform(sourceAsFloats, 0, expected, 0, numPts);
+        hook.transform(sourceAsFloats, 0, actual, 0, numPts);
+        assertArrayEquals(expected, actual, 0);
+        hook.transform(sourceAsFloats, 0, floats, 0, numPts);
+        for (int i=0; i<expected.length; i++) {
+            assertEquals((float) expected[i], floats[i], 0);
+        }
+        /*
+         * Overlapping arrays: iteration backward, or copy of the source points.
+         */
+        reference.transform(source, 0, expected, 0, numPts);
+        for (final int offset : new int[] {0, numPts}) {
+            final double[] array = new double[expected.length + numPts];
+            System.arraycopy(source, 0, array, offset, source.length);
+            hook.transform(array, offset, array, 0, numPts);
+            for (int i=0; i<expected.length; i++) {
+                assertEquals(expected[i], array[i], 0);
+            }
+        }
+    }
+
+    /**
+     * Tests the transformation of a large array in parallel, including the propagation of exceptions.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testParallel() throws TransformException {
+        final SimpleTransform hook = new Hook(true);
+        final int numPts = 250000;
+        final double[] source   = TestTransforms.random(new Random(-1148203659471L), numPts * 2, 5);
+        final double[] expected = new double[numPts * 3];
+        final double[] actual   = new double[numPts * 3];
+        new Hook(false).transform(source, 0, expected, 0, numPts);
+        hook.transform(source, 0, actual, 0, numPts);
+        assertArrayEquals(expected, actual, 0);
+
+        final double[] array = new double[expected.length];
+        System.arraycopy(source, 0, array, 0, source.length);
+        hook.transform(array, 0, array, 0, numPts);
+        assertArrayEquals(expected, array, 0);
+
+        source[source.length / 2] = Double.NaN;
+        try {
+            hook.transform(source, 0, actual, 0, numPts);
+            fail("Expected a TransformException.");
+        } catch (TransformException e) {
+            assertEquals("Can not transform NaN.", e.getMessage());
+        }
+    }
+}
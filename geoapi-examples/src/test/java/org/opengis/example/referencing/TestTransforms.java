@@ -0,0 +1,208 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.Random;
+
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import org.opengis.example.geometry.SimpleDirectPosition;
+
+
+/**
+ * Non-linear transforms and random coordinates shared by the tests of this package.
+ * The transforms implement only the {@link SimpleTransform} methods working on
+ * {@link DirectPosition}, so they exercise the default methods working on arrays.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+final strictfp class TestTransforms {
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private TestTransforms() {
+    }
+
+    /**
+     * Creates an array of random coordinates between −{@code amplitude} inclusive and {@code amplitude} exclusive.
+     *
+     * @param  random     the random number generator to use.
+     * @param  length     the number of coordinate values.
+     * @param  amplitude  the maximal absolute value of coordinates.
+     * @return the random coordinates.
+     */
+    static double[] random(final Random random, final int length, final double amplitude) {
+        final double[] array = new double[length];
+        for (int i=0; i<length; i++) {
+            array[i] = (random.nextDouble() * 2 - 1) * amplitude;
+        }
+        return array;
+    }
+
+    /**
+     * A non-linear transform from two-dimensional points (<var>x</var>, <var>y</var>) to three-dimensional
+     * points (<var>x</var>·<var>y</var>, <var>x</var>+<var>y</var>, <var>x</var>−<var>y</var>).
+     * Points having a NaN coordinate can not be transformed.
+     */
+    @SuppressWarnings("serial")
+    static class Product extends SimpleTransform {
+        /** Creates a new transform. */
+        Product() {
+            super(null, "Product", null, null);
+        }
+
+        @Override public int getSourceDimensions() {return 2;}
+        @Override public int getTargetDimensions() {return 3;}
+        @Override public boolean isIdentity() {return false;}
+
+        /** Computes (x·y, x+y, x−y). */
+        @Override
+        public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) throws TransformException {
+            final double x = ptSrc.getOrdinate(0);
+            final double y = ptSrc.getOrdinate(1);
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                throw new TransformException("Can not transform NaN.");
+            }
+            if (ptDst == null) {
+                ptDst = new SimpleDirectPosition(3);
+            }
+            ptDst.setOrdinate(0, x * y);
+            ptDst.setOrdinate(1, x + y);
+            ptDst.setOrdinate(2, x - y);
+            return ptDst;
+        }
+
+        /** Returns the derivative at the given point. */
+        @Override
+        public Matrix derivative(final DirectPosition point) {
+            final Matrix derivative = new SimpleMatrix(3, 2);
+            derivative.setElement(0, 0, point.getOrdinate(1));
+            derivative.setElement(0, 1, point.getOrdinate(0));
+            derivative.setElement(1, 0,  1);
+            derivative.setElement(1, 1,  1);
+            derivative.setElement(2, 0,  1);
+            derivative.setElement(2, 1, -1);
+            return derivative;
+        }
+    }
+
+    /**
+     * A non-linear transform computing the cube of each coordinate.
+     */
+    @SuppressWarnings("serial")
+    static final class Cube extends SimpleTransform {
+        /** The number of source and target dimensions. */
+        private final int dimension;
+
+        /** {@code true} for computing the cubic root instead of the cube. */
+        private final boolean inverse;
+
+        /** Creates a new transform for the given number of dimensions. */
+        Cube(final int dimension, final boolean inverse) {
+            super(null, inverse ? "Cubic root" : "Cube", null, null);
+            this.dimension = dimension;
+            this.inverse   = inverse;
+        }
+
+        @Override public int getSourceDimensions() {return dimension;}
+        @Override public int getTargetDimensions() {return dimension;}
+        @Override public boolean isIdentity() {return false;}
+
+        /** Computes the cube or the cubic root of each coordinate. */
+        @Override
+        public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) {
+            if (ptDst == null) {
+                ptDst = new SimpleDirectPosition(dimension);
+            }
+            for (int i=0; i<dimension; i++) {
+                final double value = ptSrc.getOrdinate(i);
+                ptDst.setOrdinate(i, inverse ? Math.cbrt(value) : value * value * value);
+            }
+            return ptDst;
+        }
+
+        /** Returns the derivative, which is a diagonal matrix. */
+        @Override
+        public Matrix derivative(final DirectPosition point) {
+            final Matrix derivative = SimpleTransformFactory.createMatrix(dimension, dimension);
+            for (int i=0; i<dimension; i++) {
+                final double value = point.getOrdinate(i);
+                derivative.setElement(i, i, inverse ? 1 / (3 * Math.cbrt(value * value)) : 3 * value * value);
+            }
+            return derivative;
+        }
+
+        /** Returns the cubic root transform. */
+        @Override
+        public MathTransform inverse() {
+            return new Cube(dimension, !inverse);
+        }
+
+        /** Compares the dimension and direction in addition of the name. */
+        @Override
+        public boolean equals(final Object object) {
+            return super.equals(object) && ((Cube) object).dimension == dimension
+                                        && ((Cube) object).inverse   == inverse;
+        }
+    }
+
+    /**
+     * A non-linear transform from (<var>x</var>, <var>y</var>) to (<var>x</var>, <var>y</var> + sin(<var>x</var>)).
+     * The maximal <var>y</var> value of a transformed envelope is reached in the middle of an edge.
+     * The derivative can not be computed for <var>x</var> values greater than {@value #POLE}.
+     */
+    @SuppressWarnings("serial")
+    static final class Wave extends SimpleTransform {
+        /** The <var>x</var> value above which the derivative can not be computed. */
+        static final double POLE = 100;
+
+        /** Whether this transform provides derivatives. */
+        private final boolean hasDerivative;
+
+        /** Creates a new transform. */
+        Wave(final boolean hasDerivative) {
+            super(null, "Wave", null, null);
+            this.hasDerivative = hasDerivative;
+        }
+
+        @Override public int getSourceDimensions() {return 2;}
+        @Override public int getTargetDimensions() {return 2;}
+        @Override public boolean isIdentity() {return false;}
+
+        /** Computes (x, y + sin(x)). */
+        @Override
+        public DirectPosition transform(final DirectPosition ptSrc, DirectPosition ptDst) {
+            final double x = ptSrc.getOrdinate(0);
+            final double y = ptSrc.getOrdinate(1);
+            if (ptDst == null) {
+                ptDst = new SimpleDirectPosition(2);
+            }
+            ptDst.setOrdinate(0, x);
+            ptDst.setOrdinate(1, y + Math.sin(x));
+            return ptDst;
+        }
+
+        /** Returns the derivative, or throws an exception if this transform does not provide derivatives. */
+        @Override
+        public Matrix derivative(final DirectPosition point) throws TransformException {
+            if (!hasDerivative) {
+                return super.derivative(point);
+            }
+            final double x = point.getOrdinate(0);
+            if (x > POLE) {
+                throw new TransformException("Derivative can not be computed at x = " + x);
+            }
+            return new Matrix2(1, 0, Math.cos(x), 1);
+        }
+    }
+}
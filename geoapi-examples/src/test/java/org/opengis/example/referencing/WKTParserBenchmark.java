@@ -0,0 +1,96 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Method;
+import java.lang.reflect.InvocationTargetException;
+import java.text.ParseException;
+
+import org.junit.Test;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.crs.CRSFactory;
+import org.opengis.test.wkt.CRSParserTest;
+
+
+/**
+ * Measures the performance of {@link WKTParser} on the WKT strings of {@link CRSParserTest}.
+ * The strings are collected by running the {@code CRSParserTest} methods with a factory which
+ * records the text given to {@link CRSFactory#createFromWKT(String)}, then aborts the test.
+ * This class is not a JUnit test; run it from the command line.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final class WKTParserBenchmark {
+    /**
+     * Number of times to parse all WKT strings in each measurement.
+     */
+    private static final int ITERATIONS = 2000;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private WKTParserBenchmark() {
+    }
+
+    /**
+     * Collects the WKT strings given to {@link CRSFactory#createFromWKT(String)} by {@link CRSParserTest}.
+     */
+    private static List<String> collect() throws ReflectiveOperationException {
+        final List<String> strings = new ArrayList<>();
+        final CRSFactory factory = (CRSFactory) Proxy.newProxyInstance(CRSFactory.class.getClassLoader(),
+                new Class<?>[] {CRSFactory.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("createFromWKT")) {
+                        strings.add((String) args[0]);
+                        throw new FactoryException("Recorded.");
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        final CRSParserTest test = new CRSParserTest(factory);
+        for (final Method method : CRSParserTest.class.getMethods()) {
+            if (method.isAnnotationPresent(Test.class)) try {
+                method.invoke(test);
+            } catch (InvocationTargetException e) {
+                // Expected since our factory aborts all tests.
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param  args  ignored.
+     * @throws ReflectiveOperationException if the WKT strings can not be collected.
+     * @throws ParseException if a WKT string can not be parsed.
+     */
+    public static void main(final String[] args) throws ReflectiveOperationException, ParseException {
+        final List<String> strings = collect();
+        int length = 0;
+        for (final String wkt : strings) {
+            length += wkt.length();
+        }
+        System.out.println("Parsing " + strings.size() + " WKT strings (" + length + " characters).");
+        for (int run=0; run<10; run++) {
+            final long start = System.nanoTime();
+            int count = 0;
+            for (int i=0; i<ITERATIONS; i++) {
+                for (final String wkt : strings) {
+                    count += WKTParser.parse(wkt).values.size();
+                }
+            }
+            final long time = System.nanoTime() - start;
+            System.out.printf("Run %d: %8.0f ns/string, %6.1f ns/character (checksum %d)%n", run,
+                    time / (double) (ITERATIONS * strings.size()), time / (double) ITERATIONS / length, count);
+        }
+    }
+}
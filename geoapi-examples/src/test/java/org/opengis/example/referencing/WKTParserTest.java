@@ -0,0 +1,171 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ */
+package org.opengis.example.referencing;
+
+import java.text.ParseException;
+import org.junit.Test;
+
+import org.opengis.util.FactoryException;
+import org.opengis.util.NoSuchIdentifierException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link WKTParser} and {@link SimpleTransformFactory#createFromWKT(String)}.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public strictfp class WKTParserTest {
+    /**
+     * The factory to use for creating the transforms.
+     */
+    private final SimpleTransformFactory factory = new SimpleTransformFactory();
+
+    /**
+     * Tests the parsing of a CRS definition in WKT 2 format.
+     *
+     * @throws ParseException if the WKT can not be parsed.
+     */
+    @Test
+    public void testCRS() throws ParseException {
+        final WKTParser.Element root = WKTParser.parse(
+                "GEODETICCRS[\"JGD2000\",\n" +
+                "  DATUM[“Japanese Geodetic Datum 2000”,\n" +
+                "    ELLIPSOID[\"GRS 1980\", 6378137, 298.257222101]],\n" +
+                "  CS[Cartesian,3],\n" +
+                "    AXIS[\"(X)\",geocentricX],\n" +
+                "  TIMEEXTENT[2002-04-01,2011-10-21],\n" +
+                "  REMARK[\"A \"\"quoted\"\" remark\"]]");
+        assertTrue(root.is("GeodeticCRS"));
+        assertEquals(6, root.values.size());
+        assertEquals("JGD2000", root.get(0, String.class));
+
+        final WKTParser.Element datum = root.get(1, WKTParser.Element.class);
+        assertEquals("Japanese Geodetic Datum 2000", datum.get(0, String.class));
+        final WKTParser.Element ellipsoid = datum.get(1, WKTParser.Element.class);
+        assertEquals(6378137,       ellipsoid.get(1, Double.class), 0);
+        assertEquals(298.257222101, ellipsoid.get(2, Double.class), 0);
+
+        final WKTParser.Element cs = root.get(2, WKTParser.Element.class);
+        assertEquals("Cartesian", cs.get(0, WKTParser.Element.class).keyword);
+        assertNull(cs.get(0, WKTParser.Element.class).values);
+        assertEquals(3, cs.get(1, Double.class), 0);
+
+        final WKTParser.Element time = root.get(4, WKTParser.Element.class);
+        assertEquals("2002-04-01", time.get(0, WKTParser.Element.class).keyword);
+        assertEquals("A \"quoted\" remark", root.get(5, WKTParser.Element.class).get(0, String.class));
+    }
+
+    /**
+     * Tests the errors reported on malformed WKT or on WKT requesting matrices of illegal size.
+     */
+    @Test
+    public void testErrors() {
+        try {
+            WKTParser.parse("PARAM_MT[\"Affine\", PARAMETER[\"elt_0_0\" 2]]");
+            fail("Expected a ParseException.");
+        } catch (ParseException e) {
+            assertEquals(39, e.getErrorOffset());
+        }
+        try {
+            WKTParser.parse("CONCAT_MT[PARAM_MT[\"Affine\"]");
+            fail("Expected a ParseException.");
+        } catch (ParseException e) {
+            assertEquals(28, e.getErrorOffset());
+        }
+        try {
+            WKTParser.parse("PARAM_MT[\"Affine]");
+            fail("Expected a ParseException.");
+        } catch (ParseException e) {
+            assertEquals(9, e.getErrorOffset());
+        }
+        for (final int size : new int[] {0, 60000}) {
+            try {
+                factory.createFromWKT("PARAM_MT[\"Affine\", PARAMETER[\"num_row\"," + size + "], PARAMETER[\"num_col\"," + size + "]]");
+                fail("Expected a FactoryException.");
+            } catch (FactoryException e) {
+                assertTrue(e.getCause() instanceof ParseException);
+                assertEquals(19, ((ParseException) e.getCause()).getErrorOffset());
+            }
+        }
+    }
+
+    /**
+     * Verifies that deeply nested elements are reported by a {@link ParseException}
+     * instead of a {@link StackOverflowError}, while nesting up to the limit is accepted.
+     *
+     * @throws ParseException if the WKT nested up to the limit can not be parsed.
+     */
+    @Test
+    public void testNestingDepth() throws ParseException {
+        final StringBuilder wkt = new StringBuilder();
+        for (int i=0; i<100000; i++) {
+            wkt.append("A[");
+        }
+        try {
+            WKTParser.parse(wkt);
+            fail("Expected a ParseException.");
+        } catch (ParseException e) {
+            assertEquals(2 * WKTParser.MAX_DEPTH + 1, e.getErrorOffset());
+        }
+        wkt.setLength(0);
+        for (int i=0; i<WKTParser.MAX_DEPTH; i++) wkt.append("A[");
+        wkt.append('1');
+        for (int i=0; i<WKTParser.MAX_DEPTH; i++) wkt.append(']');
+        assertEquals("A", WKTParser.parse(wkt).keyword);
+    }
+
+    /**
+     * Tests {@link SimpleTransformFactory#createFromWKT(String)}.
+     *
+     * @throws FactoryException if a WKT can not be parsed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testCreateFromWKT() throws FactoryException, TransformException {
+        final String scale =
+                "PARAM_MT[\"Affine\",\n" +
+                "  PARAMETER[\"elt_0_0\", 2],\n" +
+                "  PARAMETER[\"elt_1_1\", 3],\n" +
+                "  PARAMETER[\"elt_0_2\", 10]]";
+        final MathTransform affine = factory.createFromWKT(scale);
+        assertEquals(AffineTransform2D.class, affine.getClass());
+        assertSame("Expected cached instance.", affine, factory.createFromWKT(scale));
+
+        final double[] point = {4, 5};
+        affine.transform(point, 0, point, 0, 1);
+        assertArrayEquals(new double[] {18, 15}, point, 0);
+
+        assertTrue(factory.createFromWKT("CONCAT_MT[" + scale + ", INVERSE_MT[" + scale + "]]").isIdentity());
+
+        final MathTransform tr = factory.createFromWKT(
+                "PASSTHROUGH_MT[1, 2, PARAM_MT[\"Affine\", PARAMETER[\"num_row\", 2], PARAMETER[\"num_col\", 2],"
+                        + " PARAMETER[\"elt_0_0\", 4], PARAMETER[\"elt_0_1\", 1]]]");
+        assertEquals(4, tr.getSourceDimensions());
+        final double[] coordinates = {1, 2, 3, 4};
+        tr.transform(coordinates, 0, coordinates, 0, 1);
+        assertArrayEquals(new double[] {1, 9, 3, 4}, coordinates, 0);
+        try {
+            factory.createFromWKT("PARAM_MT[\"Mercator_1SP\", PARAMETER[\"central_meridian\", 0]]");
+            fail("Expected a NoSuchIdentifierException.");
+        } catch (NoSuchIdentifierException e) {
+            assertEquals("Mercator_1SP", e.getIdentifierCode());
+        }
+        try {
+            factory.createFromWKT("PARAM_MT[\"Affine\", PARAMETER[\"elt_3_0\", 1]]");
+            fail("Expected a FactoryException.");
+        } catch (FactoryException e) {
+            assertTrue(e.getCause() instanceof ParseException);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.gdal;
+
+import java.awt.image.Raster;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Reads tiles asynchronously on a bounded set of dedicated threads.
+ * Native GDAL reads block the calling thread for the whole I/O duration. This class offloads
+ * those reads to a fixed number of threads sized to the I/O parallelism, so that the threads
+ * serving requests (for example in a web server) are not blocked by native calls. Each read
+ * leases a handle from a {@link DataSetPool}, so reads in the same file can run in parallel.
+ *
+ * <p>The number of reads submitted but not yet completed is bounded. When this bound is reached,
+ * {@link #readTileAsync readTileAsync(…)} blocks the caller until a read completes, thus applying
+ * backpressure on producers. Cancelling a returned future before its read started removes the read
+ * from the work to do and frees its slot immediately; reads already in progress in native code run
+ * to completion but their results are discarded.</p>
+ *
+ * <p>The returned futures are completed on the reader threads. Callers should chain dependent actions
+ * with the {@code *Async} methods of {@link CompletableFuture} and their own executor, for avoiding to
+ * run their computation on the threads reserved for I/O.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class AsyncTileReader implements Closeable {
+    /**
+     * A request for reading a tile, executed on a reader thread.
+     */
+    private final class ReadTask implements Runnable {
+        /** The future to complete with the tile. */
+        final CompletableFuture<Raster> future;
+
+        /** The file to read. */
+        private final Path file;
+
+        /** Index of the tile to read. */
+        private final int tileX, tileY;
+
+        /** {@code true} for pixel interleaved samples, or {@code false} for band interleaved. */
+        private final boolean pixelInterleaved;
+
+        /** Creates a new request. */
+        ReadTask(final Path file, final int tileX, final int tileY, final boolean pixelInterleaved) {
+            this.future           = new CompletableFuture<>();
+            this.file             = file;
+            this.tileX            = tileX;
+            this.tileY            = tileY;
+            this.pixelInterleaved = pixelInterleaved;
+        }
+
+        /** Reads the tile, unless the request has been cancelled while waiting in the queue. */
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try (DataSetPool.Lease lease = pool.lease(file)) {
+                future.complete(lease.dataSet().readTile(tileX, tileY, pixelInterleaved));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The pool of dataset handles where to lease the handles used by reader threads.
+     */
+    private final DataSetPool pool;
+
+    /**
+     * The threads where native reads are executed.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Permits for submitting reads. A permit is acquired when a read is submitted
+     * and released when the future is completed, including by cancellation.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Maximal number of reads submitted but not yet completed.
+     */
+    private final int maxPending;
+
+    /**
+     * Creates a new asynchronous reader.
+     *
+     * @param  pool         the pool of dataset handles to use for reading tiles.
+     * @param  parallelism  number of reader threads, which is the maximal number of concurrent native reads.
+     * @param  maxPending   maximal number of reads submitted but not yet completed, including running reads.
+     */
+    public AsyncTileReader(final DataSetPool pool, final int parallelism, final int maxPending) {
+        if (parallelism <= 0 || maxPending < parallelism) {
+            throw new IllegalArgumentException("Parallelism shall be strictly positive and not greater than maximal pending reads.");
+        }
+        this.pool       = pool;
+        this.maxPending = maxPending;
+        permits = new Semaphore(maxPending);
+        final AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), (final Runnable task) ->
+        {
+            final Thread thread = new Thread(task, "GDAL reader #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a request for reading all bands of the tile at the given index.
+     * If the maximal number of pending reads is reached, this method blocks until a read completes.
+     *
+     * @param  file              the file to read.
+     * @param  tileX             column index of the tile to read, starting from 0.
+     * @param  tileY             row index of the tile to read, starting from 0.
+     * @param  pixelInterleaved  {@code true} for pixel interleaved samples, or {@code false} for band interleaved.
+     * @return the future tile values, backed by a native buffer.
+     * @throws InterruptedException if the current thread has been interrupted while waiting for a free slot.
+     *
+     * @see DataSet#readTile(int, int, boolean)
+     */
+    public CompletableFuture<Raster> readTileAsync(final Path file, final int tileX, final int tileY,
+            final boolean pixelInterleaved) throws InterruptedException
+    {
+        final ReadTask task = new ReadTask(file, tileX, tileY, pixelInterleaved);
+        permits.acquire();
+        task.future.whenComplete((r, e) -> permits.release());
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {          // RejectedExecutionException if this reader is closed.
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    /**
+     * Returns the number of reads submitted but not yet completed.
+     *
+     * @return number of pending reads.
+     */
+    public int getPendingCount() {
+        return maxPending - permits.availablePermits();
+    }
+
+    /**
+     * Stops the reader threads. Reads not yet started are cancelled.
+     * Reads in progress run to completion. The {@link DataSetPool} is not closed.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        final List<Runnable> queued = new ArrayList<>();
+        executor.getQueue().drainTo(queued);
+        for (final Runnable task : queued) {
+            ((ReadTask) task).future.cancel(false);
+        }
+    }
+}
@@ -13,6 +13,8 @@
  */
 package org.opengis.wrapper.gdal;
 
+import java.util.Map;
+import java.util.LinkedHashMap;
 import org.gdal.osr.SpatialReference;
 import org.opengis.metadata.Identifier;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
@@ -31,22 +33,47 @@ import org.opengis.util.InternationalString;
  * Wrapper around GDAL spatial reference system.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  *
  * @see <a href="http://gdal.org/java/org/gdal/osr/SpatialReference.html">GDAL SpatialReference</a>
  */
 class CRS extends ReferencingObject implements CoordinateReferenceSystem, CoordinateSystem, Identifier {
+    /**
+     * Maximal number of CRS instances to keep in the {@link #CACHE}.
+     */
+    private static final int CACHE_SIZE = 100;
+
+    /**
+     * The CRS instances created recently, for sharing instances between all datasets having the same
+     * reference system. Keys are the Well Known Texts after {@linkplain #normalize normalization}.
+     * A tile pyramid usually uses only a few distinct reference systems, but the WKT may come from
+     * arbitrary files, so the least recently used entries are discarded when the map is full.
+     * All accesses must be synchronized on this map.
+     */
+    private static final Map<String,CRS> CACHE = new LinkedHashMap<String,CRS>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(final Map.Entry<String,CRS> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     /**
      * The Well Known Text (WKT) definition for this coordinate reference system, in OGC 01-009 syntax.
+     * This is the text given by GDAL, without normalization.
      */
     private final String wkt;
 
     /**
-     * The coordinate system axes. There is usually exactly two of them, but this class should work
-     * with array of any length (i.e. with coordinate system of any number of dimensions).
+     * The kind of CRS: {@code "GEOGCS"}, {@code "PROJCS"}, <var>etc.</var>
      */
-    private final Axis[] axes;
+    private final String kind;
+
+    /**
+     * The coordinate system axes, created when first needed. There is usually exactly two of them,
+     * but this class should work with array of any length (i.e. with coordinate system of any number
+     * of dimensions).
+     */
+    private volatile Axis[] axes;
 
     /**
      * Creates a new coordinate reference system.
@@ -57,35 +84,107 @@ class CRS extends ReferencingObject implements CoordinateReferenceSystem, Coordi
      */
     private CRS(final String kind, final String wkt, final SpatialReference srs) {
         super(srs.GetAttrValue(kind));
-        this.wkt = wkt;
-        axes = new Axis[] {
-            new Axis(srs, kind, 0),
-            new Axis(srs, kind, 1)
-        };
+        this.kind = kind;
+        this.wkt  = wkt;
     }
 
     /**
-     * Creates a new coordinate reference system.
+     * Returns the coordinate reference system for the given Well Known Text.
+     * Instances are cached, so invoking this method many times with the same WKT
+     * usually parses the WKT only once. Texts differing only by white spaces outside
+     * quoted texts share the same instance, whose {@link #toWKT()} returns the text
+     * of the first call.
      *
-     * @param  srs  the GDAL spatial reference system information.
-     * @return the Well Known Text (WKT) given by GDAL, or {@code null} if unsupported.
+     * @param  wkt  the Well Known Text given by GDAL, or {@code null}.
+     * @return the coordinate reference system, or {@code null} if unsupported.
      */
     static CRS create(final String wkt) {
-        if (wkt != null && !wkt.isEmpty()) {
+        if (wkt == null) {
+            return null;
+        }
+        final String key = normalize(wkt);
+        if (key.isEmpty()) {
+            return null;
+        }
+        CRS crs;
+        synchronized (CACHE) {
+            crs = CACHE.get(key);
+        }
+        if (crs == null) {
+            crs = parse(wkt);                               // Parsed outside the lock. Unsupported CRS are not cached.
+            if (crs != null) {
+                synchronized (CACHE) {
+                    final CRS existing = CACHE.putIfAbsent(key, crs);
+                    if (existing != null) {
+                        crs = existing;
+                    }
+                }
+            }
+        }
+        return crs;
+    }
+
+    /**
+     * Returns the given Well Known Text without the white spaces outside quoted texts.
+     * This allows the same CRS formatted with different indentations to share the same cache entry.
+     */
+    private static String normalize(final String wkt) {
+        final StringBuilder buffer = new StringBuilder(wkt.length());
+        boolean quoted = false;
+        for (int i=0; i<wkt.length(); i++) {
+            final char c = wkt.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                continue;
+            }
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Parses the given Well Known Text. This method is invoked only on cache miss.
+     *
+     * @param  wkt  the Well Known Text given by GDAL.
+     * @return the coordinate reference system, or {@code null} if unsupported.
+     */
+    private static CRS parse(final String wkt) {
+        final SpatialReference srs = new SpatialReference(wkt);
+        try {
+            if (srs.IsGeographic() != 0) {
+                return new Geographic(wkt, srs);
+            } else if (srs.IsProjected() != 0) {
+                return new Projected(wkt, srs);
+            } else {
+                // TODO: we could also check IsGeocentric(), IsLocal() and IsCompound().
+            }
+        } finally {
+            srs.delete();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the coordinate system axes, creating them when first needed.
+     * If two threads invoke this method concurrently, the axes may be created twice
+     * but both arrays contain equivalent immutable objects.
+     */
+    private Axis[] axes() {
+        Axis[] a = axes;
+        if (a == null) {
             final SpatialReference srs = new SpatialReference(wkt);
             try {
-                if (srs.IsGeographic() != 0) {
-                    return new Geographic(wkt, srs);
-                } else if (srs.IsProjected() != 0) {
-                    return new Projected(wkt, srs);
-                } else {
-                    // TODO: we could also check IsGeocentric(), IsLocal() and IsCompound().
-                }
+                a = new Axis[] {
+                    new Axis(srs, kind, 0),
+                    new Axis(srs, kind, 1)
+                };
             } finally {
                 srs.delete();
             }
+            axes = a;
         }
-        return null;
+        return a;
     }
 
     /**
@@ -105,24 +204,43 @@ class CRS extends ReferencingObject implements CoordinateReferenceSystem, Coordi
      * Projected case of GDAL coordinate reference system.
      */
     private static final class Projected extends CRS implements ProjectedCRS, CartesianCS {
-        /** The coordinate reference system on which this projected CRS is based. */
-        private final Geographic base;
+        /** The coordinate reference system on which this projected CRS is based, created when first needed. */
+        private volatile GeographicCRS base;
 
         /** Creates a new projected CRS for the given GDAL reference system. */
         Projected(final String wkt, final SpatialReference srs) {
             super("PROJCS", wkt, srs);
-            base = new Geographic(null, srs);           // TODO: need a non-null WKT.
+        }
+
+        /** Returns the base CRS, fetched from the cache or created when first needed. */
+        @Override public GeographicCRS getBaseCRS() {
+            GeographicCRS b = base;
+            if (b == null) {
+                final String baseWKT;
+                final SpatialReference srs = new SpatialReference(toWKT());
+                try {
+                    final SpatialReference geogcs = srs.CloneGeogCS();
+                    try {
+                        baseWKT = geogcs.ExportToWkt();
+                    } finally {
+                        geogcs.delete();
+                    }
+                } finally {
+                    srs.delete();
+                }
+                base = b = (GeographicCRS) create(baseWKT);
+            }
+            return b;
         }
 
         @Override public CartesianCS   getCoordinateSystem()   {return this;}
-        @Override public GeodeticDatum getDatum()              {return base.getDatum();}
-        @Override public GeographicCRS getBaseCRS()            {return base;}
+        @Override public GeodeticDatum getDatum()              {return getBaseCRS().getDatum();}
         @Override public Projection    getConversionFromBase() {return null;}       // TODO
     }
 
     @Override public final InternationalString  getScope()             {return null;}
     @Override public       CoordinateSystem     getCoordinateSystem()  {return this;}
-    @Override public final int                  getDimension()         {return axes.length;}
-    @Override public final CoordinateSystemAxis getAxis(int dimension) {return axes[dimension];}
+    @Override public final int                  getDimension()         {return axes().length;}
+    @Override public final CoordinateSystemAxis getAxis(int dimension) {return axes()[dimension];}
     @Override public final String               toWKT()                {return wkt;}
 }
@@ -13,19 +13,43 @@
  */
 package org.opengis.wrapper.gdal;
 
+import java.awt.Point;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import org.opengis.metadata.Metadata;
+import org.gdal.gdal.Band;
 import org.gdal.gdal.Dataset;
 import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconstConstants;
 
 
 /**
  * A file opened by GDAL.
  *
+ * <p>Pixel values can be read by {@link #readTile readTile(…)} or {@link #read read(…)},
+ * optionally at a resolution coarser than the full image resolution.
+ * Values are read by GDAL directly in a native buffer, which is wrapped in a {@link Raster}
+ * without copy. Samples can be organized in two layouts:</p>
+ * <ul>
+ *   <li><cite>pixel interleaved</cite>, where all samples of a pixel are consecutive, or</li>
+ *   <li><cite>band interleaved</cite>, where all samples of a band are consecutive.</li>
+ * </ul>
+ *
+ * <p>Bands of complex numbers are represented by two bands in the raster:
+ * the real part followed by the imaginary part.</p>
+ *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 3.1
+ * @version 4.0
  * @since   3.1
  */
 public class DataSet implements Closeable {
@@ -37,7 +61,7 @@ public class DataSet implements Closeable {
     /**
      * The raster metadata, fetched when first needed.
      */
-    private Metadata metadata;
+    private RasterMetadata metadata;
 
     /**
      * Opens a dataset for the given file in read-only mode.
@@ -56,6 +80,18 @@ public class DataSet implements Closeable {
         }
     }
 
+    /**
+     * Returns the GDAL dataset, making sure that it is not closed.
+     * Caller must hold the lock on {@code this}.
+     */
+    private Dataset dataset() throws GDALException {
+        final Dataset data = ds;
+        if (data == null) {
+            throw new GDALException("DataSet is closed.");
+        }
+        return data;
+    }
+
     /**
      * Returns information about the dataset as ISO 19115 metadata.
      *
@@ -73,6 +109,268 @@ public class DataSet implements Closeable {
      * See http://www.gdal.org/gdal_tutorial.html
      */
 
+    /**
+     * Returns the size of the blocks in which the raster is stored. Reading regions aligned
+     * on those blocks with {@link #readTile readTile(…)} is more efficient than arbitrary regions.
+     *
+     * @return size of the natural blocks of the first band.
+     * @throws IOException if the dataset is closed or has no band.
+     */
+    public synchronized Dimension getTileSize() throws IOException {
+        final Band band = firstBand(dataset());
+        return new Dimension(band.GetBlockXSize(), band.GetBlockYSize());
+    }
+
+    /**
+     * Returns the first band of the given dataset.
+     */
+    private static Band firstBand(final Dataset data) throws GDALException {
+        if (data.GetRasterCount() == 0) {
+            throw new GDALException("DataSet has no raster band.");
+        }
+        return data.GetRasterBand(1);
+    }
+
+    /**
+     * Reads all bands of the tile at the given index. The region read by this method is aligned
+     * on the {@linkplain #getTileSize() natural blocks} of the raster, except for the tiles on
+     * the right and bottom borders which may be smaller if the image size is not a multiple of
+     * the tile size. The {@linkplain Raster#getMinX() raster location} is the location of the
+     * tile in the full image.
+     *
+     * @param  tileX             column index of the tile to read, starting from 0.
+     * @param  tileY             row index of the tile to read, starting from 0.
+     * @param  pixelInterleaved  {@code true} for pixel interleaved samples, or {@code false} for band interleaved.
+     * @return the tile values, backed by a native buffer.
+     * @throws IOException if the tile index is invalid or an error occurred while reading the tile.
+     */
+    public synchronized Raster readTile(final int tileX, final int tileY, final boolean pixelInterleaved) throws IOException {
+        final Dataset data = dataset();
+        final Band band = firstBand(data);
+        final int tileWidth  = band.GetBlockXSize();
+        final int tileHeight = band.GetBlockYSize();
+        final int x = Math.multiplyExact(tileX, tileWidth);
+        final int y = Math.multiplyExact(tileY, tileHeight);
+        final int width  = Math.min(tileWidth,  data.GetRasterXSize() - x);
+        final int height = Math.min(tileHeight, data.GetRasterYSize() - y);
+        if (tileX < 0 || tileY < 0 || width <= 0 || height <= 0) {
+            throw new GDALException("Tile (" + tileX + ", " + tileY + ") is outside the image.");
+        }
+        return read(data, 0, x, y, width, height, width, height, pixelInterleaved, new Point(x, y));
+    }
+
+    /**
+     * Reads all bands in the given region of the image. This method does not need
+     * to be aligned on tiles, but reading aligned regions is more efficient.
+     *
+     * @param  region            the region to read, in pixel coordinates of the full image.
+     * @param  pixelInterleaved  {@code true} for pixel interleaved samples, or {@code false} for band interleaved.
+     * @return the pixel values, backed by a native buffer.
+     * @throws IOException if the region is invalid or an error occurred while reading the pixels.
+     */
+    public synchronized Raster read(final Rectangle region, final boolean pixelInterleaved) throws IOException {
+        final Dataset data = dataset();
+        if (region.isEmpty() || !new Rectangle(data.GetRasterXSize(), data.GetRasterYSize()).contains(region)) {
+            throw new GDALException("Region " + region + " is empty or outside the image.");
+        }
+        return read(data, 0, region.x, region.y, region.width, region.height,
+                    region.width, region.height, pixelInterleaved, region.getLocation());
+    }
+
+    /**
+     * Reads all bands in the given region of the image, subsampled to the given size.
+     * If the dataset contains overviews, this method reads the values from the overview having the
+     * coarsest resolution which is still equal or finer than the requested resolution. Otherwise
+     * (or for the remaining subsampling) GDAL reads the values in a buffer smaller than the region.
+     * The returned object contains the transform from pixel coordinates of the returned raster
+     * to the dataset CRS, derived from the {@code GetGeoTransform()} value of the dataset.
+     *
+     * @param  region            the region to read, in pixel coordinates of the full resolution image.
+     * @param  size              the desired number of columns and rows in the returned raster.
+     * @param  pixelInterleaved  {@code true} for pixel interleaved samples, or {@code false} for band interleaved.
+     * @return the pixel values together with their "grid to CRS" transform.
+     * @throws IOException if the region is invalid or an error occurred while reading the pixels.
+     */
+    public synchronized SubsampledRaster read(final Rectangle region, final Dimension size,
+            final boolean pixelInterleaved) throws IOException
+    {
+        final Dataset data = dataset();
+        final int fullWidth  = data.GetRasterXSize();
+        final int fullHeight = data.GetRasterYSize();
+        if (region.isEmpty() || !new Rectangle(fullWidth, fullHeight).contains(region)) {
+            throw new GDALException("Region " + region + " is empty or outside the image.");
+        }
+        if (size.width <= 0 || size.height <= 0) {
+            throw new GDALException("Size " + size.width + " × " + size.height + " is empty.");
+        }
+        /*
+         * Select the overview with the coarsest resolution which is not coarser than requested.
+         * The subsampling of an overview is computed from its size relative to the full image.
+         * If the requested resolution differs along the two axes, the finest one is used.
+         */
+        final double subsampling = Math.min(region.width / (double) size.width, region.height / (double) size.height);
+        final Band band = firstBand(data);
+        int    level = 0;
+        double sx = 1, sy = 1;
+        for (int i = band.GetOverviewCount(); --i >= 0;) {
+            final Band overview = band.GetOverview(i);
+            final double ox = fullWidth  / (double) overview.GetXSize();
+            final double oy = fullHeight / (double) overview.GetYSize();
+            if (Math.max(ox, oy) <= subsampling && Math.max(ox, oy) > Math.max(sx, sy)) {
+                level = i + 1;
+                sx = ox;
+                sy = oy;
+            }
+        }
+        /*
+         * Convert the region to pixel coordinates of the selected level,
+         * then compute the transform from raster pixels to the dataset CRS.
+         */
+        int x = region.x, y = region.y, width = region.width, height = region.height;
+        if (level != 0) {
+            final Band overview = band.GetOverview(level - 1);
+            x      = (int) Math.floor(region.x / sx);
+            y      = (int) Math.floor(region.y / sy);
+            width  = Math.min((int) Math.ceil(region.getMaxX() / sx), overview.GetXSize()) - x;
+            height = Math.min((int) Math.ceil(region.getMaxY() / sy), overview.GetYSize()) - y;
+        }
+        final int bufWidth  = Math.min(size.width,  width);
+        final int bufHeight = Math.min(size.height, height);
+        final Raster raster = read(data, level, x, y, width, height, bufWidth, bufHeight, pixelInterleaved, new Point());
+        final AffineTransform gridToCRS = getGridGeometry().getGridToCRS();
+        gridToCRS.translate(x * sx, y * sy);
+        gridToCRS.scale(width * sx / bufWidth, height * sy / bufHeight);
+        return new SubsampledRaster(raster, gridToCRS, level);
+    }
+
+    /**
+     * Returns the grid geometry, which is provided by the metadata object.
+     * Caller must hold the lock on {@code this}.
+     */
+    private GridGeometry getGridGeometry() throws IOException {
+        if (metadata == null) {
+            metadata = new RasterMetadata(dataset());
+        }
+        return metadata;
+    }
+
+    /**
+     * Reads all bands in the given region of the image or of an overview, potentially with subsampling.
+     *
+     * @param  data              the GDAL dataset to read.
+     * @param  level             0 for reading the full resolution image, or <var>n</var> for reading the <var>n</var>th overview.
+     * @param  x                 column of the upper-left pixel to read, in pixel coordinates of the specified level.
+     * @param  y                 row of the upper-left pixel to read, in pixel coordinates of the specified level.
+     * @param  width             number of columns to read in the specified level.
+     * @param  height            number of rows to read in the specified level.
+     * @param  bufWidth          number of columns in the raster to return.
+     * @param  bufHeight         number of rows in the raster to return.
+     * @param  pixelInterleaved  {@code true} for pixel interleaved samples, or {@code false} for band interleaved.
+     * @param  location          coordinates of the upper-left pixel of the raster to return.
+     * @return the pixel values, backed by a native buffer.
+     * @throws IOException if an error occurred while reading the pixels.
+     */
+    static Raster read(final Dataset data, final int level, final int x, final int y, final int width, final int height,
+            final int bufWidth, final int bufHeight, final boolean pixelInterleaved, final Point location) throws IOException
+    {
+        final int gdalType   = firstBand(data).GetRasterDataType();
+        final int dataType   = toDataBufferType(gdalType);
+        final int components = (gdal.DataTypeIsComplex(gdalType) != 0) ? 2 : 1;
+        final int numBands   = data.GetRasterCount();
+        final int elemSize   = gdal.GetDataTypeSize(gdalType) / Byte.SIZE;        // Includes both complex components.
+        final int planeSize  = Math.multiplyExact(bufWidth, bufHeight);
+        final ByteBuffer buffer = DirectDataBuffer.allocate(dataType,
+                Math.multiplyExact(Math.multiplyExact(planeSize, numBands), components));
+        final int pixelSpace, lineSpace, bandSpace;
+        if (pixelInterleaved) {
+            pixelSpace = numBands * elemSize;
+            lineSpace  = bufWidth * pixelSpace;
+            bandSpace  = elemSize;
+        } else {
+            pixelSpace = elemSize;
+            lineSpace  = bufWidth * elemSize;
+            bandSpace  = planeSize * elemSize;
+        }
+        if (level == 0) {
+            final int[] bands = new int[numBands];
+            for (int i=0; i<numBands; i++) {
+                bands[i] = i + 1;
+            }
+            check(data.ReadRaster_Direct(x, y, width, height, bufWidth, bufHeight, gdalType,
+                                         buffer, bands, pixelSpace, lineSpace, bandSpace));
+        } else {
+            /*
+             * Overviews are available only on bands, so read each band in a slice of the buffer
+             * starting at the band offset. The slices share the same native memory.
+             */
+            for (int i=0; i<numBands; i++) {
+                buffer.position(i * bandSpace);
+                final Band overview = data.GetRasterBand(i + 1).GetOverview(level - 1);
+                check(overview.ReadRaster_Direct(x, y, width, height, bufWidth, bufHeight, gdalType,
+                                                 buffer.slice(), pixelSpace, lineSpace));
+            }
+            buffer.clear();
+        }
+        /*
+         * Describe the buffer layout in units of data buffer elements (one complex component).
+         */
+        final int[] offsets = new int[numBands * components];
+        final SampleModel model;
+        if (pixelInterleaved) {
+            for (int i=0; i<offsets.length; i++) {
+                offsets[i] = i;
+            }
+            model = new PixelInterleavedSampleModel(dataType, bufWidth, bufHeight,
+                    offsets.length, bufWidth * offsets.length, offsets);
+        } else {
+            for (int i=0; i<offsets.length; i++) {
+                offsets[i] = (i / components) * (planeSize * components) + (i % components);
+            }
+            model = new ComponentSampleModel(dataType, bufWidth, bufHeight,
+                    components, bufWidth * components, offsets);
+        }
+        return new DirectDataBuffer(dataType, buffer).createRaster(model, location);
+    }
+
+    /**
+     * Verifies the error code returned by a GDAL read or write operation.
+     *
+     * @param  err  the code returned by GDAL.
+     * @throws GDALException if the code is not {@code CE_None}.
+     */
+    static void check(final int err) throws GDALException {
+        if (err != gdalconstConstants.CE_None) {
+            String msg = gdal.GetLastErrorMsg();
+            if (msg == null) {
+                msg = "GDAL error " + err + '.';
+            }
+            throw new GDALException(msg);
+        }
+    }
+
+    /**
+     * Returns the {@link DataBuffer} type for the given GDAL data type. Unsigned 32 bits integers
+     * are stored as signed integers, and complex numbers are stored as two values of their type.
+     *
+     * @param  gdalType  one of the GDAL {@code GDT_*} constants.
+     * @return the corresponding {@code DataBuffer.TYPE_*} constant.
+     * @throws GDALException if the given type is unknown.
+     */
+    static int toDataBufferType(final int gdalType) throws GDALException {
+        if (gdalType == gdalconstConstants.GDT_Byte)     return DataBuffer.TYPE_BYTE;
+        if (gdalType == gdalconstConstants.GDT_UInt16)   return DataBuffer.TYPE_USHORT;
+        if (gdalType == gdalconstConstants.GDT_Int16 ||
+            gdalType == gdalconstConstants.GDT_CInt16)   return DataBuffer.TYPE_SHORT;
+        if (gdalType == gdalconstConstants.GDT_Int32 ||
+            gdalType == gdalconstConstants.GDT_UInt32 ||
+            gdalType == gdalconstConstants.GDT_CInt32)   return DataBuffer.TYPE_INT;
+        if (gdalType == gdalconstConstants.GDT_Float32 ||
+            gdalType == gdalconstConstants.GDT_CFloat32) return DataBuffer.TYPE_FLOAT;
+        if (gdalType == gdalconstConstants.GDT_Float64 ||
+            gdalType == gdalconstConstants.GDT_CFloat64) return DataBuffer.TYPE_DOUBLE;
+        throw new GDALException("Unsupported data type: " + gdal.GetDataTypeName(gdalType));
+    }
+
     /**
      * Disposes native resources used by this dataset.
      * If this method is invoked more than once, invocations after the first call have no effect.
@@ -0,0 +1,326 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.gdal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+
+/**
+ * A pool of {@link DataSet} handles allowing many threads to read the same file concurrently.
+ * A GDAL dataset handle can not be used by many threads at the same time, so a single
+ * {@code DataSet} serializes all reads. This pool opens up to <var>n</var> handles per file
+ * on demand and leases each handle to one thread at a time:
+ *
+ * <blockquote><pre>try (DataSetPool.Lease lease = pool.lease(file)) {
+ *    Raster tile = lease.dataSet().readTile(tileX, tileY, true);
+ *}</pre></blockquote>
+ *
+ * When all handles of a file are leased, other threads wait until a handle is released.
+ * The time spent waiting is recorded and can be queried for tuning the maximal number of handles.
+ * Handles which have not been used for longer than the idle timeout are closed by a background thread.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class DataSetPool implements Closeable {
+    /**
+     * A dataset handle which is not currently leased, together with the time it was released.
+     */
+    private static final class Idle {
+        /** The dataset handle. */
+        final DataSet dataSet;
+
+        /** Value of {@link System#nanoTime()} when the handle was released. */
+        final long releaseTime;
+
+        /** Creates a new idle handle released now. */
+        Idle(final DataSet dataSet) {
+            this.dataSet = dataSet;
+            releaseTime  = System.nanoTime();
+        }
+    }
+
+    /**
+     * All handles for a single file. All accesses to the fields must be synchronized on this object.
+     */
+    private static final class Handles {
+        /** Handles not currently leased, most recently released first. */
+        final ArrayDeque<Idle> idle = new ArrayDeque<>();
+
+        /** Number of handles opened or being opened, including leased and idle handles. */
+        int count;
+    }
+
+    /**
+     * A dataset handle leased to a thread. The handle is returned to the pool when this lease is closed.
+     * A lease shall be used by only one thread and shall be closed exactly once.
+     */
+    public final class Lease implements Closeable {
+        /** The file of the leased dataset. */
+        private final Path file;
+
+        /** The leased dataset, or {@code null} after the lease has been closed. */
+        private DataSet dataSet;
+
+        /** Creates a new lease for the given handle. */
+        Lease(final Path file, final DataSet dataSet) {
+            this.file    = file;
+            this.dataSet = dataSet;
+        }
+
+        /**
+         * Returns the leased dataset.
+         *
+         * @return the leased dataset.
+         * @throws IllegalStateException if this lease has been closed.
+         */
+        public DataSet dataSet() {
+            if (dataSet == null) {
+                throw new IllegalStateException("Lease is closed.");
+            }
+            return dataSet;
+        }
+
+        /**
+         * Returns the dataset handle to the pool. Invocations after the first one have no effect.
+         */
+        @Override
+        public void close() {
+            final DataSet ds = dataSet;
+            if (ds != null) {
+                dataSet = null;
+                release(file, ds);
+            }
+        }
+    }
+
+    /**
+     * The handles for each file. Keys are absolute and normalized paths.
+     */
+    private final ConcurrentHashMap<Path,Handles> files;
+
+    /**
+     * Maximal number of handles to open for the same file.
+     */
+    private final int maxHandlesPerFile;
+
+    /**
+     * Delay in nanoseconds after which an idle handle is closed.
+     */
+    private final long idleTimeout;
+
+    /**
+     * The background thread closing idle handles.
+     */
+    private final ScheduledExecutorService cleaner;
+
+    /**
+     * Whether this pool has been closed. Handles released after this pool is closed are closed immediately.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Statistics about leases: number of leases, total and maximal time in nanoseconds spent waiting for a handle.
+     */
+    private final AtomicLong leaseCount, totalWaitTime;
+
+    /**
+     * Maximal time in nanoseconds spent waiting for a handle.
+     */
+    private final LongAccumulator maxWaitTime;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param  maxHandlesPerFile  maximal number of handles to open for the same file.
+     * @param  idleTimeout        delay after which a handle which has not been used is closed.
+     * @param  unit               unit of the {@code idleTimeout} argument.
+     */
+    public DataSetPool(final int maxHandlesPerFile, final long idleTimeout, final TimeUnit unit) {
+        if (maxHandlesPerFile <= 0 || idleTimeout <= 0) {
+            throw new IllegalArgumentException("Maximal number of handles and idle timeout shall be strictly positive.");
+        }
+        this.maxHandlesPerFile = maxHandlesPerFile;
+        this.idleTimeout       = unit.toNanos(idleTimeout);
+        files         = new ConcurrentHashMap<>();
+        leaseCount    = new AtomicLong();
+        totalWaitTime = new AtomicLong();
+        maxWaitTime   = new LongAccumulator(Math::max, 0);
+        cleaner = Executors.newSingleThreadScheduledExecutor((final Runnable task) -> {
+            final Thread thread = new Thread(task, "GDAL DataSet pool cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long period = Math.max(this.idleTimeout / 2, TimeUnit.MILLISECONDS.toNanos(100));
+        cleaner.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Leases a handle for the given file. If an idle handle exists, it is reused. Otherwise if fewer than
+     * the maximal number of handles are open, a new handle is opened. Otherwise this method waits until
+     * another thread releases a handle for the same file.
+     *
+     * @param  file  the file to read.
+     * @return a lease to close when the caller has finished to use the dataset.
+     * @throws IOException if the pool is closed or the file can not be opened.
+     * @throws InterruptedException if the current thread has been interrupted while waiting for a handle.
+     */
+    public Lease lease(Path file) throws IOException, InterruptedException {
+        file = file.toAbsolutePath().normalize();
+        final Handles handles = files.computeIfAbsent(file, (k) -> new Handles());
+        final long start = System.nanoTime();
+        DataSet ds = null;
+        synchronized (handles) {
+            while (true) {
+                if (closed) {
+                    throw new GDALException("DataSet pool is closed.");
+                }
+                final Idle idle = handles.idle.pollFirst();
+                if (idle != null) {
+                    ds = idle.dataSet;
+                    break;
+                }
+                if (handles.count < maxHandlesPerFile) {
+                    handles.count++;
+                    break;
+                }
+                handles.wait();
+            }
+        }
+        final long waitTime = System.nanoTime() - start;
+        leaseCount.incrementAndGet();
+        totalWaitTime.addAndGet(waitTime);
+        maxWaitTime.accumulate(waitTime);
+        if (ds == null) {
+            /*
+             * Open the new handle outside the synchronized block since it may be slow.
+             * The handle count has already been incremented for reserving the slot.
+             */
+            boolean success = false;
+            try {
+                ds = new DataSet(file);
+                success = true;
+            } finally {
+                if (!success) {
+                    synchronized (handles) {
+                        handles.count--;
+                        handles.notify();
+                    }
+                }
+            }
+        }
+        return new Lease(file, ds);
+    }
+
+    /**
+     * Returns the given handle to the pool, or closes it if the pool has been closed.
+     */
+    private void release(final Path file, final DataSet ds) {
+        final Handles handles = files.get(file);
+        synchronized (handles) {
+            if (!closed) {
+                handles.idle.addFirst(new Idle(ds));
+                handles.notify();
+                return;
+            }
+            handles.count--;
+        }
+        ds.close();
+    }
+
+    /**
+     * Closes all handles which have been idle for longer than the timeout.
+     * This method is invoked periodically by a background thread, but can also be invoked explicitly.
+     */
+    public void closeIdle() {
+        final List<DataSet> toClose = new ArrayList<>();
+        final long now = System.nanoTime();
+        for (final Handles handles : files.values()) {
+            synchronized (handles) {
+                final Iterator<Idle> it = handles.idle.descendingIterator();      // Oldest first.
+                while (it.hasNext()) {
+                    final Idle idle = it.next();
+                    if (!closed && now - idle.releaseTime < idleTimeout) break;
+                    toClose.add(idle.dataSet);
+                    handles.count--;
+                    it.remove();
+                }
+                /*
+                 * Wake up a waiting thread (if any) since it is now allowed to open a new handle.
+                 * We do not remove the Handles object from the map even if empty,
+                 * because another thread may be using it for leasing a handle.
+                 */
+                handles.notifyAll();
+            }
+        }
+        for (final DataSet ds : toClose) {
+            ds.close();
+        }
+    }
+
+    /**
+     * Returns the number of leases granted since this pool has been created.
+     *
+     * @return number of leases.
+     */
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * Returns the total time spent by all threads waiting for a handle.
+     * Dividing this value by the {@linkplain #getLeaseCount() lease count} gives the average wait time.
+     *
+     * @param  unit  the desired unit of measurement.
+     * @return total time spent waiting for a handle, in the given unit.
+     */
+    public long getTotalWaitTime(final TimeUnit unit) {
+        return unit.convert(totalWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time spent by a thread waiting for a handle.
+     *
+     * @param  unit  the desired unit of measurement.
+     * @return longest time spent waiting for a handle, in the given unit.
+     */
+    public long getMaximumWaitTime(final TimeUnit unit) {
+        return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Closes all idle handles and stops the background thread. Leased handles
+     * are closed when they are released. Threads waiting for a handle are woken
+     * up and receive an exception.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        cleaner.shutdown();
+        closeIdle();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.gdal;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+
+
+/**
+ * A single-bank {@link DataBuffer} backed by a direct NIO buffer filled by GDAL.
+ * The standard {@code DataBufferByte}, {@code DataBufferShort}, <i>etc.</i> classes
+ * require Java arrays, which would force a copy of the values read by GDAL in native memory.
+ * This class reads the values directly from the native buffer instead.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+final class DirectDataBuffer extends DataBuffer {
+    /**
+     * The buffer filled by GDAL, in native byte order.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * View of {@link #buffer} as a buffer of the type identified by {@link #getDataType()}.
+     * This is the same instance than {@link #buffer} for {@link DataBuffer#TYPE_BYTE}.
+     */
+    private final Buffer view;
+
+    /**
+     * Creates a new data buffer wrapping the given direct buffer.
+     *
+     * @param  dataType  one of the {@code DataBuffer.TYPE_*} constants.
+     * @param  buffer    the buffer filled by GDAL. Its byte order will be set to the native order.
+     */
+    DirectDataBuffer(final int dataType, final ByteBuffer buffer) {
+        super(dataType, buffer.capacity() / (getDataTypeSize(dataType) / Byte.SIZE));
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        switch (dataType) {
+            case TYPE_BYTE:   view = buffer; break;
+            case TYPE_USHORT: // Fall through
+            case TYPE_SHORT:  view = buffer.asShortBuffer();  break;
+            case TYPE_INT:    view = buffer.asIntBuffer();    break;
+            case TYPE_FLOAT:  view = buffer.asFloatBuffer();  break;
+            case TYPE_DOUBLE: view = buffer.asDoubleBuffer(); break;
+            default: throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        }
+    }
+
+    /**
+     * Allocates a direct buffer for the given number of elements of the given type.
+     *
+     * @param  dataType  one of the {@code DataBuffer.TYPE_*} constants.
+     * @param  size      number of elements.
+     * @return a direct buffer in native byte order, large enough for the given number of elements.
+     */
+    static ByteBuffer allocate(final int dataType, final int size) {
+        return ByteBuffer.allocateDirect(Math.multiplyExact(size, getDataTypeSize(dataType) / Byte.SIZE))
+                         .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the buffer filled by GDAL. Shall not be modified if this data buffer is shared.
+     *
+     * @return the wrapped buffer.
+     */
+    final ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Creates a raster using the given sample model and this data buffer.
+     * The raster is created by a subclass of {@link WritableRaster} because the
+     * {@link Raster#createRaster Raster.createRaster(…)} static method may require
+     * standard data buffer classes for some sample models.
+     *
+     * @param  model     the sample model, which shall be compatible with this data buffer.
+     * @param  location  coordinates of the upper-left pixel.
+     * @return a raster backed by this data buffer.
+     */
+    final Raster createRaster(final SampleModel model, final Point location) {
+        return new WritableRaster(model, this, location) {};
+    }
+
+    /**
+     * Returns the requested data array element from the first (default) bank as an integer.
+     */
+    @Override
+    public int getElem(final int bank, final int i) {
+        switch (dataType) {
+            case TYPE_BYTE:   return buffer.get(i) & 0xFF;
+            case TYPE_USHORT: return ((ShortBuffer)  view).get(i) & 0xFFFF;
+            case TYPE_SHORT:  return ((ShortBuffer)  view).get(i);
+            case TYPE_INT:    return ((IntBuffer)    view).get(i);
+            case TYPE_FLOAT:  return (int) ((FloatBuffer)  view).get(i);
+            default:          return (int) ((DoubleBuffer) view).get(i);
+        }
+    }
+
+    /**
+     * Returns the requested data array element as a float without loss of precision for floating point types.
+     */
+    @Override
+    public float getElemFloat(final int bank, final int i) {
+        switch (dataType) {
+            case TYPE_FLOAT:  return ((FloatBuffer) view).get(i);
+            case TYPE_DOUBLE: return (float) ((DoubleBuffer) view).get(i);
+            default:          return getElem(bank, i);
+        }
+    }
+
+    /**
+     * Returns the requested data array element as a double without loss of precision.
+     */
+    @Override
+    public double getElemDouble(final int bank, final int i) {
+        switch (dataType) {
+            case TYPE_FLOAT:  return ((FloatBuffer)  view).get(i);
+            case TYPE_DOUBLE: return ((DoubleBuffer) view).get(i);
+            default:          return getElem(bank, i);
+        }
+    }
+
+    /**
+     * Sets the requested data array element in the first (default) bank from the given integer.
+     */
+    @Override
+    public void setElem(final int bank, final int i, final int value) {
+        switch (dataType) {
+            case TYPE_BYTE:   buffer.put(i, (byte) value); break;
+            case TYPE_USHORT: // Fall through
+            case TYPE_SHORT:  ((ShortBuffer)  view).put(i, (short) value); break;
+            case TYPE_INT:    ((IntBuffer)    view).put(i, value); break;
+            case TYPE_FLOAT:  ((FloatBuffer)  view).put(i, value); break;
+            default:          ((DoubleBuffer) view).put(i, value); break;
+        }
+    }
+
+    /**
+     * Sets the requested data array element from the given float.
+     */
+    @Override
+    public void setElemFloat(final int bank, final int i, final float value) {
+        switch (dataType) {
+            case TYPE_FLOAT:  ((FloatBuffer)  view).put(i, value); break;
+            case TYPE_DOUBLE: ((DoubleBuffer) view).put(i, value); break;
+            default:          setElem(bank, i, (int) value); break;
+        }
+    }
+
+    /**
+     * Sets the requested data array element from the given double.
+     */
+    @Override
+    public void setElemDouble(final int bank, final int i, final double value) {
+        switch (dataType) {
+            case TYPE_FLOAT:  ((FloatBuffer)  view).put(i, (float) value); break;
+            case TYPE_DOUBLE: ((DoubleBuffer) view).put(i, value); break;
+            default:          setElem(bank, i, (int) value); break;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.gdal.gdal.Band;
+import org.gdal.gdal.Dataset;
+import org.gdal.gdal.Driver;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconstConstants;
+
+
+/**
+ * Writes a tiled and compressed GeoTIFF file one tile at a time.
+ * Tiles can be written in any order, from many threads, without building the full image in memory.
+ * Overviews are built incrementally: when the four tiles covering an overview tile have been written,
+ * the overview tile is computed by averaging blocks of 2×2 pixels and written in turn, which may cascade
+ * to the next overview levels. Consequently the memory usage does not depend on the image height,
+ * but it does depend on the order in which tiles are written. In row-major order, a whole row of
+ * incomplete overview tiles is pending at each level, so memory usage is proportional to the image
+ * width divided by the tile width. In Z-order (Morton order), where each group of 2×2 tiles is written
+ * before the next group, at most one overview tile is pending at each level.
+ *
+ * <p>If a Cloud-Optimized GeoTIFF (COG) is requested, the tiles are first written in a temporary GeoTIFF
+ * file which is copied in the final file when this writer is closed, since the COG layout requires the
+ * overviews to be stored before the full resolution image.</p>
+ *
+ * <p>Each tile shall be written exactly once; duplicated tiles are rejected before being written
+ * and missing tiles are reported when this writer is closed. Samples are converted to the data type of the file,
+ * with rounding for integer types.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class GeoTiffWriter implements Closeable {
+    /**
+     * An overview tile in process of being computed from the tiles of the finer level.
+     * Each child tile writes in a different quadrant of {@link #values}.
+     */
+    private static final class Pending {
+        /** Sample values of all bands, in band interleaved order. */
+        final double[] values;
+
+        /** Number of child tiles which contributed to {@link #values} so far. */
+        int received;
+
+        /** Creates a new overview tile of the given size. */
+        Pending(final int numBands, final int width, final int height) {
+            values = new double[Math.multiplyExact(numBands, Math.multiplyExact(width, height))];
+        }
+    }
+
+    /**
+     * The final destination.
+     */
+    private final Path file;
+
+    /**
+     * The file where tiles are written, or {@code null} if this writer has been closed.
+     * This is a temporary file if {@link #cloudOptimized} is {@code true}.
+     */
+    private Dataset ds;
+
+    /**
+     * Path of the file where tiles are written.
+     */
+    private final String target;
+
+    /**
+     * Whether to convert the file to a Cloud-Optimized GeoTIFF when this writer is closed.
+     */
+    private final boolean cloudOptimized;
+
+    /**
+     * The compression to apply, for example {@code "DEFLATE"}, {@code "LZW"} or {@code "NONE"}.
+     */
+    private final String compression;
+
+    /**
+     * Type of sample values as one of the {@code DataBuffer.TYPE_*} constants,
+     * and the corresponding GDAL {@code GDT_*} constant.
+     */
+    private final int dataType, gdalType;
+
+    /**
+     * Number of bands in the image.
+     */
+    private final int numBands;
+
+    /**
+     * Width and height of tiles.
+     */
+    private final int tileSize;
+
+    /**
+     * Image width and height at each level. Level 0 is the full resolution image
+     * and level <var>i</var> is the overview subsampled by a factor 2<sup>i</sup>.
+     */
+    private final int[] widths, heights;
+
+    /**
+     * Overview tiles in process of being computed, indexed by {@link #key(int, int, int)}.
+     * All accesses to this map and to the {@link Pending#received} fields must be synchronized on this map.
+     */
+    private final Map<Long,Pending> pending;
+
+    /**
+     * Full resolution tiles written so far, indexed by <var>tileY</var> × (number of tile columns) + <var>tileX</var>.
+     * Used for detecting duplicated tiles when they are written and missing tiles at closing time.
+     * Guarded by {@link #pending}.
+     */
+    private final BitSet written;
+
+    /**
+     * Creates a new GeoTIFF file. The number of overview levels is computed automatically
+     * for having an overview that fits in a single tile.
+     *
+     * @param  file            the file to create.
+     * @param  width           number of columns in the full resolution image.
+     * @param  height          number of rows in the full resolution image.
+     * @param  numBands        number of bands.
+     * @param  dataType        type of sample values as one of the {@code DataBuffer.TYPE_*} constants.
+     * @param  tileSize        width and height of tiles. Shall be a multiple of 16.
+     * @param  compression     GeoTIFF compression, for example {@code "DEFLATE"}, {@code "LZW"} or {@code "NONE"}.
+     * @param  cloudOptimized  whether to produce a Cloud-Optimized GeoTIFF.
+     * @throws IOException if the file can not be created.
+     */
+    public GeoTiffWriter(final Path file, final int width, final int height, final int numBands, final int dataType,
+            final int tileSize, final String compression, final boolean cloudOptimized) throws IOException
+    {
+        if (width <= 0 || height <= 0 || numBands <= 0 || tileSize <= 0 || (tileSize & 15) != 0) {
+            throw new IllegalArgumentException("Invalid image size, number of bands or tile size.");
+        }
+        this.file           = file;
+        this.numBands       = numBands;
+        this.dataType       = dataType;
+        this.gdalType       = toGDALType(dataType);
+        this.tileSize       = tileSize;
+        this.compression    = compression;
+        this.cloudOptimized = cloudOptimized;
+        int n = 1;
+        for (int w=width, h=height; Math.max(w, h) > tileSize; w = (w+1) >>> 1, h = (h+1) >>> 1) n++;
+        widths  = new int[n];
+        heights = new int[n];
+        widths [0] = width;
+        heights[0] = height;
+        for (int i=1; i<n; i++) {
+            widths [i] = (widths [i-1] + 1) >>> 1;
+            heights[i] = (heights[i-1] + 1) >>> 1;
+        }
+        pending = new HashMap<>();
+        written = new BitSet();
+        target  = cloudOptimized ? file + ".tmp.tif" : file.toString();
+        final Driver driver = gdal.GetDriverByName("GTiff");
+        if (driver == null) {
+            throw new GDALException("GTiff driver is not available.");
+        }
+        ds = driver.Create(target, width, height, numBands, gdalType, new String[] {
+            "TILED=YES",
+            "BLOCKXSIZE=" + tileSize,
+            "BLOCKYSIZE=" + tileSize,
+            "INTERLEAVE=BAND",                      // For writing each band of overviews independently.
+            "COMPRESS=" + compression,
+            "BIGTIFF=IF_SAFER"
+        });
+        if (ds == null) {
+            throw new GDALException(gdal.GetLastErrorMsg());
+        }
+        if (n > 1) {
+            /*
+             * Allocate the overviews without computing them ("NONE" resampling).
+             * Their content will be written by this class as tiles arrive.
+             */
+            final int[] factors = new int[n - 1];
+            for (int i=0; i<factors.length; i++) {
+                factors[i] = 2 << i;
+            }
+            final int err = ds.BuildOverviews("NONE", factors);
+            if (err != gdalconstConstants.CE_None) {
+                ds.delete();
+                ds = null;
+                DataSet.check(err);
+            }
+        }
+    }
+
+    /**
+     * Returns the GDAL type for the given {@link DataBuffer} type.
+     */
+    private static int toGDALType(final int dataType) {
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE:   return gdalconstConstants.GDT_Byte;
+            case DataBuffer.TYPE_USHORT: return gdalconstConstants.GDT_UInt16;
+            case DataBuffer.TYPE_SHORT:  return gdalconstConstants.GDT_Int16;
+            case DataBuffer.TYPE_INT:    return gdalconstConstants.GDT_Int32;
+            case DataBuffer.TYPE_FLOAT:  return gdalconstConstants.GDT_Float32;
+            case DataBuffer.TYPE_DOUBLE: return gdalconstConstants.GDT_Float64;
+            default: throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        }
+    }
+
+    /**
+     * Returns the GDAL dataset, making sure that it is not closed.
+     * Caller must hold the lock on {@code this}.
+     */
+    private Dataset dataset() throws GDALException {
+        final Dataset data = ds;
+        if (data == null) {
+            throw new GDALException("GeoTiffWriter is closed.");
+        }
+        return data;
+    }
+
+    /**
+     * Sets the georeferencing of the image.
+     *
+     * @param  gridToCRS  transform from pixel coordinates (upper-left corner) to the CRS.
+     * @param  wkt        the CRS in Well Known Text format, or {@code null} if unknown.
+     * @throws IOException if this writer is closed or GDAL rejected the values.
+     */
+    public synchronized void setGeoreferencing(final AffineTransform gridToCRS, final String wkt) throws IOException {
+        final Dataset data = dataset();
+        DataSet.check(data.SetGeoTransform(new double[] {
+            gridToCRS.getTranslateX(), gridToCRS.getScaleX(), gridToCRS.getShearX(),
+            gridToCRS.getTranslateY(), gridToCRS.getShearY(), gridToCRS.getScaleY()
+        }));
+        if (wkt != null) {
+            DataSet.check(data.SetProjection(wkt));
+        }
+    }
+
+    /**
+     * Writes all bands of the tile at the given index. The raster size shall be the tile size,
+     * except for tiles on the right and bottom borders which are clipped to the image size.
+     * Sample values are read from the raster starting at its minimal <var>x</var> and <var>y</var>
+     * coordinates, regardless the raster location. This method can be invoked from any thread.
+     *
+     * @param  tileX  column index of the tile to write, starting from 0.
+     * @param  tileY  row index of the tile to write, starting from 0.
+     * @param  tile   the sample values to write.
+     * @throws IOException if the tile index or raster size is invalid, if the tile has already been written,
+     *         or if an error occurred while writing.
+     */
+    public void writeTile(final int tileX, final int tileY, final Raster tile) throws IOException {
+        final int x = Math.multiplyExact(tileX, tileSize);
+        final int y = Math.multiplyExact(tileY, tileSize);
+        final int width  = Math.min(tileSize, widths [0] - x);
+        final int height = Math.min(tileSize, heights[0] - y);
+        if (tileX < 0 || tileY < 0 || width <= 0 || height <= 0) {
+            throw new GDALException("Tile (" + tileX + ", " + tileY + ") is outside the image.");
+        }
+        if (tile.getWidth() != width || tile.getHeight() != height || tile.getNumBands() != numBands) {
+            throw new GDALException("Expected a raster of " + width + " × " + height + " pixels and " + numBands + " bands.");
+        }
+        final int planeSize = width * height;
+        final double[] values = new double[numBands * planeSize];
+        final double[] samples = new double[planeSize];
+        for (int b=0; b<numBands; b++) {
+            tile.getSamples(tile.getMinX(), tile.getMinY(), width, height, b, samples);
+            System.arraycopy(samples, 0, values, b * planeSize, planeSize);
+        }
+        final int index = Math.addExact(Math.multiplyExact(tileY, ceilDiv(widths[0], tileSize)), tileX);
+        synchronized (pending) {
+            if (written.get(index)) {
+                throw new GDALException("Tile (" + tileX + ", " + tileY + ") has already been written.");
+            }
+            written.set(index);
+        }
+        write(0, tileX, tileY, width, height, values);
+    }
+
+    /**
+     * Writes a tile at the given level, then contributes to the overview tile of the next level.
+     * If that overview tile is complete, it is written in turn by a recursive call.
+     *
+     * @param  level   0 for the full resolution image, or <var>n</var> for the <var>n</var>th overview.
+     * @param  tileX   column index of the tile to write in the given level.
+     * @param  tileY   row index of the tile to write in the given level.
+     * @param  width   number of columns in the tile.
+     * @param  height  number of rows in the tile.
+     * @param  values  sample values of all bands, in band interleaved order.
+     */
+    private void write(final int level, final int tileX, final int tileY, final int width, final int height,
+                       final double[] values) throws IOException
+    {
+        /*
+         * Conversion to the file data type is done outside the synchronized block,
+         * so that only the GDAL calls are serialized between producer threads.
+         */
+        final int planeSize = width * height;
+        final ByteBuffer[] buffers = new ByteBuffer[numBands];
+        for (int b=0; b<numBands; b++) {
+            buffers[b] = encode(values, b * planeSize, planeSize);
+        }
+        synchronized (this) {
+            final Dataset data = dataset();
+            for (int b=0; b<numBands; b++) {
+                Band band = data.GetRasterBand(b + 1);
+                if (level != 0) {
+                    band = band.GetOverview(level - 1);
+                }
+                DataSet.check(band.WriteRaster_Direct(tileX * tileSize, tileY * tileSize,
+                        width, height, width, height, gdalType, buffers[b]));
+            }
+        }
+        final int parentLevel = level + 1;
+        if (parentLevel >= widths.length) {
+            return;
+        }
+        /*
+         * Average blocks of 2×2 pixels in the quadrant of the parent tile covered by this tile.
+         * Each child writes in a distinct quadrant, so no synchronization is needed for the values.
+         * Synchronization on the map when counting the children publishes the values to the thread
+         * which completes the parent tile.
+         */
+        final int parentX = tileX >>> 1;
+        final int parentY = tileY >>> 1;
+        final int pw = Math.min(tileSize, widths [parentLevel] - parentX * tileSize);
+        final int ph = Math.min(tileSize, heights[parentLevel] - parentY * tileSize);
+        final Long key = key(parentLevel, parentX, parentY);
+        Pending parent;
+        synchronized (pending) {
+            parent = pending.computeIfAbsent(key, (k) -> new Pending(numBands, pw, ph));
+        }
+        final int ox = (tileX & 1) * (tileSize >>> 1);
+        final int oy = (tileY & 1) * (tileSize >>> 1);
+        final int cw = (width  + 1) >>> 1;
+        final int ch = (height + 1) >>> 1;
+        for (int b=0; b<numBands; b++) {
+            final int src = b * planeSize;
+            final int dst = b * (pw * ph);
+            for (int j=0; j<ch; j++) {
+                final int y0 = 2*j;
+                final int y1 = Math.min(y0 + 1, height - 1);
+                for (int i=0; i<cw; i++) {
+                    final int x0 = 2*i;
+                    final int x1 = Math.min(x0 + 1, width - 1);
+                    final double sum = values[src + y0*width + x0] + values[src + y0*width + x1]
+                                     + values[src + y1*width + x0] + values[src + y1*width + x1];
+                    parent.values[dst + (oy + j)*pw + (ox + i)] = sum / 4;
+                }
+            }
+        }
+        final int childTilesX = ceilDiv(widths [level], tileSize);
+        final int childTilesY = ceilDiv(heights[level], tileSize);
+        final int expected = Math.min(2, childTilesX - 2*parentX) * Math.min(2, childTilesY - 2*parentY);
+        synchronized (pending) {
+            if (++parent.received != expected) {
+                return;
+            }
+            pending.remove(key);
+        }
+        write(parentLevel, parentX, parentY, pw, ph, parent.values);
+    }
+
+    /**
+     * Returns the key of a tile in the {@link #pending} map.
+     */
+    private static Long key(final int level, final int tileX, final int tileY) {
+        return ((long) level << 56) | ((long) tileY << 28) | tileX;
+    }
+
+    /**
+     * Returns the given numerator divided by the given denominator, rounded toward positive infinity.
+     */
+    private static int ceilDiv(final int numerator, final int denominator) {
+        return (numerator + denominator - 1) / denominator;
+    }
+
+    /**
+     * Converts the given sample values to a direct buffer of the file data type.
+     */
+    private ByteBuffer encode(final double[] values, final int offset, final int length) {
+        final ByteBuffer buffer = DirectDataBuffer.allocate(dataType, length);
+        for (int i=offset; i<offset + length; i++) {
+            final double v = values[i];
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE:   buffer.put((byte)  Math.round(v)); break;
+                case DataBuffer.TYPE_USHORT: // Fall through
+                case DataBuffer.TYPE_SHORT:  buffer.putShort((short) Math.round(v)); break;
+                case DataBuffer.TYPE_INT:    buffer.putInt((int) Math.round(v)); break;
+                case DataBuffer.TYPE_FLOAT:  buffer.putFloat((float) v); break;
+                default:                     buffer.putDouble(v); break;
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Flushes all tiles and closes the file. If a Cloud-Optimized GeoTIFF was requested,
+     * the temporary file is copied in the final file with the COG layout, then deleted.
+     * If some tiles were not written, then the file is released without being finalized
+     * (in particular the Cloud-Optimized GeoTIFF is not created) and an exception is thrown.
+     * If this method is invoked more than once, invocations after the first call have no effect.
+     *
+     * @throws IOException if an error occurred while writing the file, or if some tiles were not written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        final Dataset data = ds;
+        if (data == null) {
+            return;
+        }
+        ds = null;
+        final long expected = (long) ceilDiv(widths[0], tileSize) * ceilDiv(heights[0], tileSize);
+        final long missing;
+        synchronized (pending) {
+            missing = expected - written.cardinality();
+        }
+        try {
+            if (missing != 0) {
+                throw new GDALException(missing + " tiles were not written.");
+            }
+            data.FlushCache();
+            if (cloudOptimized) {
+                Driver driver = gdal.GetDriverByName("COG");          // Available since GDAL 3.1.
+                final String[] options;
+                if (driver != null) {
+                    options = new String[] {"BLOCKSIZE=" + tileSize, "COMPRESS=" + compression, "OVERVIEWS=FORCE_USE_EXISTING"};
+                } else {
+                    driver  = gdal.GetDriverByName("GTiff");
+                    options = new String[] {"TILED=YES", "BLOCKXSIZE=" + tileSize, "BLOCKYSIZE=" + tileSize,
+                                            "COMPRESS=" + compression, "COPY_SRC_OVERVIEWS=YES", "BIGTIFF=IF_SAFER"};
+                }
+                final Dataset copy = driver.CreateCopy(file.toString(), data, options);
+                if (copy == null) {
+                    throw new GDALException(gdal.GetLastErrorMsg());
+                }
+                copy.delete();
+            }
+        } finally {
+            data.delete();
+            if (cloudOptimized) {
+                gdal.Unlink(target);
+            }
+        }
+    }
+}
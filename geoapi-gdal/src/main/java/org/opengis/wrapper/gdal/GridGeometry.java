@@ -68,6 +68,16 @@ class GridGeometry implements GridSpatialRepresentation {
         crs = CRS.create(ds.GetProjection());
     }
 
+    /**
+     * Returns the transform from grid coordinates to CRS coordinates.
+     * The (0,0) pixel coordinates map to the top-left pixel corner (not center).
+     *
+     * @return a copy of the "grid to CRS" transform.
+     */
+    final AffineTransform getGridToCRS() {
+        return new AffineTransform(gridToCRS);
+    }
+
     /**
      * Information about the <var>x</var> or <var>y</var> axis of a raster.
      */
@@ -0,0 +1,92 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.Raster;
+
+
+/**
+ * A raster read at a resolution potentially coarser than the full resolution of the dataset,
+ * together with the transform from its pixel coordinates to the dataset CRS.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ *
+ * @see DataSet#read(java.awt.Rectangle, java.awt.Dimension, boolean)
+ */
+public final class SubsampledRaster {
+    /**
+     * The pixel values. The upper-left pixel is at (0,0) coordinates.
+     */
+    private final Raster raster;
+
+    /**
+     * Transform from {@link #raster} pixel coordinates to the dataset CRS.
+     */
+    private final AffineTransform gridToCRS;
+
+    /**
+     * The overview level from which the values have been read, or 0 for the full resolution image.
+     */
+    private final int overviewLevel;
+
+    /**
+     * Creates a new result for the given values.
+     */
+    SubsampledRaster(final Raster raster, final AffineTransform gridToCRS, final int overviewLevel) {
+        this.raster        = raster;
+        this.gridToCRS     = gridToCRS;
+        this.overviewLevel = overviewLevel;
+    }
+
+    /**
+     * Returns the pixel values. The upper-left pixel is at (0,0) coordinates.
+     *
+     * @return the pixel values.
+     */
+    public Raster getRaster() {
+        return raster;
+    }
+
+    /**
+     * Returns the transform from raster pixel coordinates to the dataset CRS.
+     * The (0,0) pixel coordinates map to the top-left corner (not center) of the first pixel.
+     *
+     * @return the "grid to CRS" transform of the raster.
+     */
+    public AffineTransform getGridToCRS() {
+        return new AffineTransform(gridToCRS);
+    }
+
+    /**
+     * Returns the overview level from which the values have been read. Level 0 is the
+     * full resolution image, level 1 is the first GDAL overview, level 2 the second, <i>etc.</i>
+     *
+     * @return the overview level, or 0 for the full resolution image.
+     */
+    public int getOverviewLevel() {
+        return overviewLevel;
+    }
+
+    /**
+     * Returns a string representation for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return "SubsampledRaster[" + raster.getWidth() + " × " + raster.getHeight()
+                + " pixels, overview level " + overviewLevel + ']';
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jpy.PyObject;
+
+
+/**
+ * Executes calls to Python objects from many Java threads in batches, on a single dedicated thread.
+ * Each call from Java to Python acquires and releases the Python Global Interpreter Lock (GIL).
+ * When many Java threads use Python-backed GeoAPI objects concurrently, those threads compete for the GIL
+ * and throughput collapses. This executor queues the tasks submitted by all threads, then runs them in
+ * batches from inside a single Python call. During a batch the GIL is held by the dedicated thread, so the
+ * nested calls from Java to Python made by the tasks do not need to contend for the lock.
+ *
+ * <p>Tasks are executed in submission order. Results are delivered through {@link CompletableFuture}s
+ * completed on the dedicated thread. Callers should chain dependent actions with the {@code *Async}
+ * methods and their own executor, for not holding the GIL longer than necessary.
+ * Exceptions thrown by tasks given to {@link #execute(Runnable)} are reported to the
+ * {@linkplain Thread#getUncaughtExceptionHandler() uncaught exception handler} of the dedicated thread.
+ * If the Python function running the batches fails, the failure is reported to the same handler,
+ * then batching is disabled and the remaining tasks are executed directly (see {@link #isBatching()}).</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class BatchingExecutor implements Executor, AutoCloseable {
+    /**
+     * Python function invoking the {@code run()} method of a Java object. Invoking Java code from
+     * this function allows the Java code to execute many Python calls under a single GIL acquisition.
+     */
+    private static final String TRAMPOLINE = "def run(task):\n    task.run()\n";
+
+    /**
+     * A task waiting in the queue, together with its submission time.
+     */
+    private static final class Task {
+        /** The task to execute. */
+        final Runnable action;
+
+        /** Value of {@link System#nanoTime()} when the task has been submitted. */
+        final long submitTime;
+
+        /** Creates a new task submitted now. */
+        Task(final Runnable action) {
+            this.action = action;
+            submitTime  = System.nanoTime();
+        }
+    }
+
+    /**
+     * Sentinel value added to the queue for stopping the dedicated thread.
+     */
+    private static final Task STOP = new Task(() -> {});
+
+    /**
+     * The tasks submitted and not yet executed.
+     */
+    private final LinkedBlockingQueue<Task> queue;
+
+    /**
+     * Maximal number of tasks to execute in a single batch.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The Python function defined by {@link #TRAMPOLINE}.
+     */
+    private final PyObject trampoline;
+
+    /**
+     * The first exception thrown by the {@linkplain #trampoline}, or {@code null} if none.
+     * When non-null, the trampoline is no longer used and tasks are executed without batching.
+     * Written only by the dedicated thread.
+     */
+    private volatile RuntimeException trampolineFailure;
+
+    /**
+     * The thread executing the batches.
+     */
+    private final Thread worker;
+
+    /**
+     * Whether {@link #close()} has been invoked or the dedicated thread has stopped.
+     * Read under the read lock of {@link #closeLock} and written under its write lock.
+     */
+    private boolean closed;
+
+    /**
+     * Lock making the check of {@link #closed} and the addition of a task in the queue atomic with
+     * {@link #close()}. Many threads can submit tasks concurrently, but not while the executor is closing.
+     * This guarantees that no task is added after the {@link #STOP} sentinel.
+     */
+    private final ReadWriteLock closeLock;
+
+    /**
+     * Statistics: number of batches and tasks executed, and total latency in nanoseconds
+     * between submission and completion of tasks.
+     */
+    private final LongAdder batchCount, taskCount, totalLatency;
+
+    /**
+     * Maximal latency in nanoseconds between submission and completion of a task.
+     */
+    private final LongAccumulator maxLatency;
+
+    /**
+     * Creates a new executor for the given Python environment.
+     *
+     * @param  environment   the Python environment in which the tasks will be executed.
+     * @param  maxBatchSize  maximal number of tasks to execute under a single GIL acquisition.
+     */
+    public BatchingExecutor(final Environment environment, final int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size shall be strictly positive.");
+        }
+        this.maxBatchSize = maxBatchSize;
+        final PyObject namespace = environment.builtins.call("dict");
+        environment.builtins.call("exec", TRAMPOLINE, namespace);
+        trampoline   = namespace.callMethod("__getitem__", "run");
+        queue        = new LinkedBlockingQueue<>();
+        closeLock    = new ReentrantReadWriteLock();
+        batchCount   = new LongAdder();
+        taskCount    = new LongAdder();
+        totalLatency = new LongAdder();
+        maxLatency   = new LongAccumulator(Math::max, 0);
+        worker = new Thread(this::loop, "Python batching executor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Submits a task for execution in the next batch.
+     *
+     * @param  task  the task to execute. It can invoke methods on Python-backed objects.
+     * @throws RejectedExecutionException if this executor has been closed.
+     */
+    @Override
+    public void execute(final Runnable task) {
+        final Task entry = new Task(task);
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Executor is closed.");
+            }
+            queue.add(entry);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Submits a task returning a value.
+     *
+     * @param  <V>   type of the value computed by the task.
+     * @param  task  the task to execute. It can invoke methods on Python-backed objects.
+     * @return the future result of the task.
+     * @throws RejectedExecutionException if this executor has been closed.
+     */
+    public <V> CompletableFuture<V> submit(final Callable<V> task) {
+        final Submission<V> submission = new Submission<>(task);
+        execute(submission);
+        return submission.future;
+    }
+
+    /**
+     * A task created by {@link #submit(Callable)}, which reports its result and failures through a future.
+     */
+    private static final class Submission<V> implements Runnable {
+        /** The task to execute. */
+        private final Callable<V> task;
+
+        /** The future result of the task. */
+        final CompletableFuture<V> future;
+
+        /** Creates a new submission for the given task. */
+        Submission(final Callable<V> task) {
+            this.task = task;
+            future = new CompletableFuture<>();
+        }
+
+        /** Executes the task and completes the future. */
+        @Override
+        public void run() {
+            if (!future.isDone()) try {             // Skip tasks cancelled while waiting in the queue.
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A batch of tasks to execute, invoked from Python by the {@link #TRAMPOLINE} function.
+     * This class is public because its {@code run()} method must be accessible to Python.
+     */
+    public final class Batch implements Runnable {
+        /** The tasks to execute. */
+        private final List<Task> tasks;
+
+        /** Index of the next task to execute. */
+        private int next;
+
+        /** Creates a new batch for the given tasks. */
+        Batch(final List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        /**
+         * Executes all tasks not yet executed. If this method is invoked again
+         * after a failure of the trampoline, only the remaining tasks are executed.
+         */
+        @Override
+        public void run() {
+            while (next < tasks.size()) {
+                final Task task = tasks.get(next++);
+                try {
+                    task.action.run();
+                } catch (Throwable e) {
+                    // Only tasks given to execute(…) can fail here. Do not let them stop the batch.
+                    final Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+                final long latency = System.nanoTime() - task.submitTime;
+                totalLatency.add(latency);
+                maxLatency.accumulate(latency);
+            }
+        }
+    }
+
+    /**
+     * Executed by the dedicated thread: waits for tasks, then runs them in batches.
+     */
+    private void loop() {
+        final List<Task> batch = new ArrayList<>(Math.min(maxBatchSize, 1024));
+        try {
+            while (true) {
+                final Task first = queue.take();
+                if (first == STOP) break;
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                final boolean stop = batch.remove(STOP);
+                /*
+                 * Run the whole batch from inside a Python call, so the GIL is acquired only once.
+                 * The trampoline calls back the Java run() method below.
+                 */
+                final Batch runner = new Batch(batch);
+                if (trampolineFailure == null) try {
+                    trampoline.callMethod("__call__", runner);
+                } catch (RuntimeException e) {
+                    /*
+                     * The trampoline can not be used. Report the failure once, then execute
+                     * the remaining tasks of this batch and all future tasks without batching.
+                     */
+                    trampolineFailure = e;
+                    final Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+                runner.run();                       // Execute the remaining tasks, if any.
+                batchCount.increment();
+                taskCount.add(batch.size());
+                batch.clear();
+                if (stop) break;
+            }
+        } catch (InterruptedException e) {
+            // Stop the thread.
+        } finally {
+            /*
+             * If the thread stopped before STOP was reached (interruption or error), reject new tasks
+             * and complete the futures of tasks that will never run, including the interrupted batch.
+             * Futures already completed are not modified.
+             */
+            closeLock.writeLock().lock();
+            try {
+                closed = true;
+            } finally {
+                closeLock.writeLock().unlock();
+            }
+            queue.drainTo(batch);
+            for (final Task task : batch) {
+                if (task.action instanceof Submission<?>) {
+                    ((Submission<?>) task.action).future.completeExceptionally(
+                            new RejectedExecutionException("Executor has been stopped."));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether tasks are still executed in batches. This method returns {@code false}
+     * after the Python function running the batches failed, in which case the tasks are
+     * executed one by one on the dedicated thread.
+     *
+     * @return whether tasks are executed in batches under a single GIL acquisition.
+     */
+    public boolean isBatching() {
+        return trampolineFailure == null;
+    }
+
+    /**
+     * Returns the maximal number of tasks executed under a single GIL acquisition.
+     *
+     * @return maximal batch size.
+     */
+    public int getMaximumBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the number of batches executed so far.
+     *
+     * @return number of batches.
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * Returns the number of tasks executed so far.
+     *
+     * @return number of tasks.
+     */
+    public long getTaskCount() {
+        return taskCount.sum();
+    }
+
+    /**
+     * Returns the average number of tasks per batch.
+     *
+     * @return average batch size, or NaN if no batch has been executed yet.
+     */
+    public double getAverageBatchSize() {
+        final long n = batchCount.sum();
+        return (n != 0) ? taskCount.sum() / (double) n : Double.NaN;
+    }
+
+    /**
+     * Returns the average time between submission and completion of tasks.
+     *
+     * @param  unit  the desired unit of measurement.
+     * @return average latency in the given unit, or NaN if no task has been executed yet.
+     */
+    public double getAverageLatency(final TimeUnit unit) {
+        final long n = taskCount.sum();
+        return (n != 0) ? totalLatency.sum() / (double) (n * unit.toNanos(1)) : Double.NaN;
+    }
+
+    /**
+     * Returns the longest time between submission and completion of a task.
+     *
+     * @param  unit  the desired unit of measurement.
+     * @return maximal latency in the given unit.
+     */
+    public long getMaximumLatency(final TimeUnit unit) {
+        return unit.convert(maxLatency.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks already submitted are executed before the dedicated thread stops.
+     * This method does not wait for the tasks completion.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                queue.add(STOP);
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+}
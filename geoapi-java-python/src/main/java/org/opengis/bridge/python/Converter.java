@@ -31,7 +31,10 @@
  */
 package org.opengis.bridge.python;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.AbstractList;
+import java.util.RandomAccess;
 import java.util.function.Function;
 import org.opengis.util.CodeList;
 import org.opengis.util.ControlledVocabulary;
@@ -126,6 +129,67 @@ class Converter<T> implements Function<PyObject,T> {
         }
     };
 
+    /**
+     * Converter from Python sequences of numbers to Java {@code double[]} arrays.
+     * All values are copied in a single call to {@code jpy.array("double", sequence)},
+     * which creates the Java array on the Python side without boxing.
+     */
+    private static final class DoubleArray extends Converter<double[]> {
+        /** Information about the Python environment (builtin functions, etc). */
+        private final Environment environment;
+
+        /** Creates a new converter. */
+        DoubleArray(final Environment environment) {
+            super(double[].class);
+            this.environment = environment;
+        }
+
+        /** Converts the given Python sequence to a Java array. */
+        @Override public double[] apply(final PyObject value) {
+            return (value != null) ? (double[]) environment.jpy().call("array", "double", value).getObjectValue() : null;
+        }
+    }
+
+    /**
+     * Unmodifiable list of {@link Double} values backed by a {@code double[]} array.
+     * Values are boxed only when requested.
+     */
+    private static final class DoubleList extends AbstractList<Double> implements RandomAccess {
+        /** The values. */
+        private final double[] values;
+
+        /** Creates a list for the given values. */
+        DoubleList(final double[] values) {
+            this.values = values;
+        }
+
+        @Override public int    size()           {return values.length;}
+        @Override public Double get(final int i) {return values[i];}
+    }
+
+    /**
+     * Returns the given Python sequence of numbers as a list of {@link Double} values.
+     * All values are fetched in a single call instead of one call per element.
+     * The returned list is a snapshot: changes in the Python sequence after this method call are not reflected.
+     *
+     * <p>If the sequence contains elements that are not numbers (for example {@code None}),
+     * then this method fallbacks on a list converting elements one by one, with {@code None}
+     * mapped to {@code null}.</p>
+     *
+     * @param  environment  information about the Python environment.
+     * @param  sequence     the Python sequence of numbers.
+     * @return the values as an unmodifiable list.
+     */
+    static List<Double> toDoubleList(final Environment environment, final PyObject sequence) {
+        final double[] values;
+        try {
+            values = ((DoubleArray) instance(environment, double[].class)).apply(sequence);
+        } catch (RuntimeException e) {
+            return Sequence.create(environment, Double.class, sequence);
+        }
+        return new DoubleList(values);
+    }
+
     /**
      * Converter for code list values. The conversion is based only on the enum name, case-insensitive.
      */
@@ -254,9 +318,28 @@ class Converter<T> implements Function<PyObject,T> {
      * Returns a converter from Python objects to the given Java type.
      * The converter is not guaranteed to be suitable for the given type;
      * caller should verify (or delegate to a method that will verify).
+     * Converters are cached in the environment, so this method is cheap.
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
     static Converter<?> instance(final Environment environment, final Class<?> type) {
+        Converter<?> c = environment.converters.get(type);
+        if (c == null) {
+            // Not computeIfAbsent(…) because the creation of a converter may need other converters.
+            c = create(environment, type);
+            final Converter<?> existing = environment.converters.putIfAbsent(type, c);
+            if (existing != null) {
+                c = existing;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Creates a converter from Python objects to the given Java type.
+     * This method is usually invoked only once per environment and type;
+     * other callers should use {@link #instance(Environment, Class)} instead.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Converter<?> create(final Environment environment, final Class<?> type) {
         // 'if' statements should be ordered from most frequently-used to less frequently-used.
         final Converter<?> c;
         if (CharSequence.class.isAssignableFrom(type)) {
@@ -298,6 +381,8 @@ class Converter<T> implements Function<PyObject,T> {
             return new ForEnum(type.asSubclass(Enum.class));
         } else if (Boolean.class.equals(type)) {
             c = BOOLEAN;
+        } else if (double[].class.equals(type)) {
+            c = new DoubleArray(environment);
         } else {
             throw new UnconvertibleTypeException(type);
         }
@@ -0,0 +1,125 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.jpy.PyObject;
+
+
+/**
+ * Transforms NumPy arrays of coordinates by Java {@link MathTransform}s in a single call.
+ * Converting coordinates one by one would require a crossing between Java and Python for each value.
+ * Instead, this class copies all coordinates from the NumPy array to a Java {@code double[]} array in
+ * one memory copy, using the buffer protocol of Java arrays seen from Python, then transforms all points
+ * with a single call to {@link MathTransform#transform(double[], int, double[], int, int)}.
+ *
+ * <p>The NumPy views over Java arrays are created and released inside small Python functions,
+ * because JPY copies the buffer content back to the Java array only when the buffer is released.
+ * JPY 0.9 does not provide a way to wrap Python buffers in direct NIO buffers,
+ * so one copy in each direction is still needed.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+final class Coordinates {
+    /**
+     * Python functions for copying coordinates between NumPy arrays and Java arrays.
+     */
+    private static final String FUNCTIONS =
+            "import numpy as np\n" +
+            "def prepare(a):\n" +
+            "    return np.ascontiguousarray(a, dtype=np.float64)\n" +
+            "def to_java(a, dst):\n" +
+            "    np.frombuffer(dst, dtype=np.float64)[:a.size] = np.ravel(a)\n" +
+            "def to_numpy(src, count, ndim, dim):\n" +
+            "    r = np.frombuffer(src, dtype=np.float64, count=count)\n" +
+            "    return (r.reshape(-1, dim) if ndim >= 2 else r).copy()\n" +
+            "def write_back(src, count, a):\n" +
+            "    np.copyto(a, np.frombuffer(src, dtype=np.float64, count=count).reshape(a.shape))\n";
+
+    /**
+     * The Python functions defined by {@link #FUNCTIONS}.
+     */
+    private final PyObject prepare, toJava, toNumPy, writeBack;
+
+    /**
+     * Defines the Python functions needed for transforming coordinates.
+     *
+     * @param  builtins  the value of {@link Environment#builtins}.
+     */
+    Coordinates(final PyObject builtins) {
+        final PyObject namespace = builtins.call("dict");
+        builtins.call("exec", FUNCTIONS, namespace);
+        prepare   = namespace.callMethod("__getitem__", "prepare");
+        toJava    = namespace.callMethod("__getitem__", "to_java");
+        toNumPy   = namespace.callMethod("__getitem__", "to_numpy");
+        writeBack = namespace.callMethod("__getitem__", "write_back");
+    }
+
+    /**
+     * Transforms all coordinates in the given NumPy array. The array can be one-dimensional, in which case
+     * coordinates are assumed consecutive (e.g. <var>x₀</var>, <var>y₀</var>, <var>x₁</var>, <var>y₁</var>, …),
+     * or two-dimensional with one row per point.
+     *
+     * @param  transform    the transform to apply.
+     * @param  coordinates  the NumPy array of coordinates to transform.
+     * @param  inPlace      whether to write the result in the given array instead of creating a new array.
+     * @return the transformed coordinates, which is {@code coordinates} if {@code inPlace} is {@code true}.
+     * @throws TransformException if some coordinates can not be transformed.
+     */
+    PyObject transform(final MathTransform transform, final PyObject coordinates, final boolean inPlace)
+            throws TransformException
+    {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        if (inPlace && srcDim != tgtDim) {
+            throw new IllegalArgumentException("Can not transform in-place when the number of dimensions changes.");
+        }
+        final PyObject source = prepare.callMethod("__call__", coordinates);
+        final int size = source.getAttribute("size").getIntValue();
+        if (size % srcDim != 0) {
+            throw new IllegalArgumentException("Array size is not a multiple of " + srcDim + '.');
+        }
+        final int numPts = size / srcDim;
+        final int length = Math.multiplyExact(numPts, tgtDim);
+        final double[] data = new double[Math.max(size, length)];
+        toJava.callMethod("__call__", source, data);
+        transform.transform(data, 0, data, 0, numPts);
+        if (inPlace) {
+            writeBack.callMethod("__call__", data, length, coordinates);
+            return coordinates;
+        }
+        return toNumPy.callMethod("__call__", data, length, source.getAttribute("ndim").getIntValue(), tgtDim);
+    }
+}
@@ -31,9 +31,13 @@
  */
 package org.opengis.bridge.python;
 
+import java.util.Map;
 import java.util.List;
 import java.util.Objects;
 import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 import org.jpy.PyModule;
 import org.jpy.PyObject;
 
@@ -53,12 +57,42 @@ public class Environment {
      */
     final PyObject builtins;
 
+    /**
+     * The converters from Python objects to Java objects, created when first needed for each Java type.
+     * The {@link Interfacing} of a converter is determined by the Java type, so this cache is effectively
+     * keyed by (interfacing, type) pairs. This map is owned by this environment and discarded with it;
+     * a {@link ClassValue} would not be suitable since its values, which refer to this environment,
+     * would be retained by system classes such as {@link String} for the lifetime of the JVM.
+     */
+    final Map<Class<?>, Converter<?>> converters;
+
+    /**
+     * The {@code jpy} Python module, imported when first needed.
+     */
+    private PyObject jpy;
+
+    /**
+     * Helper for transforming NumPy arrays of coordinates, created when first needed.
+     */
+    private Coordinates coordinates;
+
     /**
      * Creates a new environment with default configuration.
      * A Python interpreter must be available at the time this constructor is invoked.
      */
     public Environment() {
         builtins = PyModule.getBuiltins();
+        converters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the {@code jpy} Python module, used for creating Java arrays from Python sequences.
+     */
+    final synchronized PyObject jpy() {
+        if (jpy == null) {
+            jpy = builtins.call("__import__", "jpy");
+        }
+        return jpy;
     }
 
     /**
@@ -97,6 +131,8 @@ public class Environment {
     /**
      * Represents the given Python sequence as a read-only Java list containing elements of the given type.
      * The given {@code type} argument can be the same than the ones accepted by {@link #toJava(PyObject, Class)}.
+     * The list is a view over the Python sequence, except for {@link Double} elements: sequences of numbers
+     * are copied in a single call and the returned list is a snapshot of the values at invocation time.
      *
      * @param  <E>     compile-time value of the {@code type} argument.
      * @param  object  the Python sequence to represent as a Java list, or {@code null} for an empty list.
@@ -104,15 +140,49 @@ public class Environment {
      * @return the given Python sequence as a Java list with elements of the given type.
      * @throws UnconvertibleTypeException if this method does not know how to convert Python objects to the given type.
      */
+    @SuppressWarnings("unchecked")
     public <E> List<E> asList(final PyObject object, final Class<E> type) throws UnconvertibleTypeException {
         Objects.requireNonNull(type);
         if (object != null) {
-            return new Sequence<>(this, type, object);
+            if (type == Double.class) {
+                return (List<E>) Converter.toDoubleList(this, object);
+            }
+            return Sequence.create(this, type, object);
         } else {
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Transforms all coordinates in the given NumPy array with the given Java transform.
+     * The array can be one-dimensional with coordinates of consecutive points stored consecutively,
+     * or two-dimensional with one row per point. All coordinates are copied to a Java array in one
+     * operation and transformed by a single call to {@link MathTransform#transform(double[], int,
+     * double[], int, int)}, which is much faster than transforming points one by one through proxies.
+     *
+     * @param  transform  the transform to apply on the coordinates.
+     * @param  array      the NumPy array of coordinates to transform.
+     * @param  inPlace    {@code true} for writing the result in the given array,
+     *                    or {@code false} for returning a new NumPy array.
+     * @return the transformed coordinates as a NumPy array of {@code float64} values.
+     *         This is {@code array} itself if {@code inPlace} is {@code true}.
+     * @throws TransformException if some coordinates can not be transformed.
+     */
+    public PyObject transform(final MathTransform transform, final PyObject array, final boolean inPlace)
+            throws TransformException
+    {
+        Objects.requireNonNull(transform);
+        Objects.requireNonNull(array);
+        final Coordinates c;
+        synchronized (this) {
+            if (coordinates == null) {
+                coordinates = new Coordinates(builtins);
+            }
+            c = coordinates;
+        }
+        return c.transform(transform, array, inPlace);
+    }
+
     /**
      * Returns the Java type for the given Python object. This method assumes that the Java type for the given
      * Python object is at least the {@code base} type, but it may also be a subtype of {@code base}.
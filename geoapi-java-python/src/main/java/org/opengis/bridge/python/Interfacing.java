@@ -39,6 +39,8 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Properties;
 import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.BufferedReader;
@@ -134,10 +136,104 @@ public abstract class Interfacing extends CodeList<Interfacing> {
      * @see Environment#getJavaType(Class, PyObject)
      */
     final <T> Class<? extends T> getJavaType(final Class<T> base, final PyObject object, final PyObject builtins) {
-        final Class<?> c = specialize(base, builtins.call("type", object));
-        return (c != null) ? c.asSubclass(base) : base;
+        final PyObject type = builtins.call("type", object);
+        if (type == null) {
+            return base;
+        }
+        final Long key = type.getPointer();
+        ConcurrentHashMap<Long,Specialization> cache = specializations;
+        if (cache == null) {
+            synchronized (this) {
+                cache = specializations;
+                if (cache == null) {
+                    final PyObject namespace = builtins.call("dict");
+                    builtins.call("exec", TRACKER, namespace);
+                    tracker = namespace.callMethod("__getitem__", "track");
+                    specializations = cache = new ConcurrentHashMap<>();
+                }
+            }
+        }
+        Specialization entry = cache.get(key);
+        if (entry == null || entry.disposed.get()) {
+            /*
+             * No entry, or an entry for a Python type which has been garbage-collected
+             * and whose address has been reused by the given type. Replace the entry,
+             * and occasionally remove the entries of all garbage-collected types.
+             */
+            entry = new Specialization(tracker, type);
+            cache.put(key, entry);
+            if (cache.size() >= purgeThreshold) {
+                cache.values().removeIf((e) -> e.disposed.get());
+                purgeThreshold = Math.max(MIN_PURGE_THRESHOLD, 2 * cache.size());
+            }
+        }
+        return entry.javaTypes.computeIfAbsent(base, (b) -> {
+            final Class<?> c = specialize(b, type);
+            return (c != null) ? c : b;
+        }).asSubclass(base);
     }
 
+    /**
+     * Python function creating a weak reference to a Python type, with a callback flagging the
+     * corresponding {@link Specialization} as disposed when the type is garbage-collected.
+     * The callback uses only a public JDK class, so it does not depend on the accessibility
+     * of classes in this package.
+     */
+    private static final String TRACKER = "import weakref\n"
+            + "def track(type, disposed):\n"
+            + "    return weakref.ref(type, lambda ref: disposed.set(True))\n";
+
+    /**
+     * Minimal number of entries in the {@link #specializations} map before to search for disposed entries.
+     */
+    private static final int MIN_PURGE_THRESHOLD = 64;
+
+    /**
+     * The Java types computed by {@link #specialize(Class, PyObject)} for a single Python type.
+     * The Python type is referenced weakly, so this cache does not prevent Python classes to be unloaded.
+     */
+    private static final class Specialization {
+        /**
+         * Set to {@code true} by Python when the Python type is garbage-collected. The callback is
+         * invoked before the memory of the type is released, so an entry not disposed is always for
+         * the live type at its address and can be used without calling Python.
+         */
+        final AtomicBoolean disposed;
+
+        /** A Python {@code weakref.ref} to the Python type, kept for allowing its callback to be invoked. */
+        private final PyObject ref;
+
+        /** The Java type for each base type requested so far. */
+        final ConcurrentHashMap<Class<?>,Class<?>> javaTypes;
+
+        /** Creates a new entry for the given Python type. */
+        Specialization(final PyObject tracker, final PyObject type) {
+            disposed  = new AtomicBoolean();
+            ref       = tracker.callMethod("__call__", type, disposed);
+            javaTypes = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * The Java types for Python types, keyed by the address of Python type objects.
+     * This cache allows to walk the hierarchy of each Python type only once.
+     * Entries of garbage-collected Python types are removed when the map size doubles.
+     * Created when first needed.
+     */
+    private transient volatile ConcurrentHashMap<Long,Specialization> specializations;
+
+    /**
+     * The Python function defined by {@link #TRACKER}.
+     * Written before {@link #specializations} is assigned, and read only after.
+     */
+    private transient PyObject tracker;
+
+    /**
+     * Number of entries in the {@link #specializations} map which will trigger a search for disposed entries.
+     * Races between threads updating this value are harmless.
+     */
+    private transient int purgeThreshold;
+
     /**
      * Returns the Java type for the given Python type, or {@code null} if unknown.
      * This method check only the given type. In case of unrecognized type, it does
@@ -0,0 +1,568 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+
+/**
+ * Generates, for each Java interface, a concrete class delegating method calls to a {@link Singleton}.
+ * Compared to {@link java.lang.reflect.Proxy}, the generated classes avoid the {@code InvocationHandler}
+ * indirection and the lookup of the {@link Method} object. Getters returning a primitive type call
+ * {@link Singleton#getDouble(Singleton.Property)} or similar methods directly, without boxing and
+ * without array of arguments. The information about each method is resolved once when the class is
+ * generated and stored in a static field of the generated class.
+ *
+ * <p>The classes are defined with {@link MethodHandles.Lookup#defineClass(byte[])} in this package.
+ * Consequently this generator can be used only for public interfaces visible from the class loader
+ * of this package. For other interfaces, {@link #factory(Class)} returns {@code null} and callers
+ * should fallback on {@code java.lang.reflect.Proxy}.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+final class ProxyGenerator {
+    /**
+     * Base class of all generated classes.
+     */
+    abstract static class Wrapper {
+        /** The handler to which to delegate all method calls. */
+        final Singleton handler;
+
+        /** Creates a new wrapper delegating to the given handler. */
+        Wrapper(final Singleton handler) {
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Constructors of generated classes, as method handles of type {@code (Singleton)Object}.
+     * The value is {@code null} for interfaces that can not be implemented by generated classes.
+     * Errors in the generated byte code ({@link VerifyError}, {@link ClassFormatError}, <i>etc.</i>)
+     * are bugs in this generator and are propagated instead of falling back on reflective proxies.
+     */
+    private static final ClassValue<MethodHandle> FACTORIES = new ClassValue<MethodHandle>() {
+        @Override protected MethodHandle computeValue(final Class<?> type) {
+            try {
+                return generate(type);
+            } catch (IllegalAccessException | UnconvertibleTypeException e) {
+                // Fallback on java.lang.reflect.Proxy, which fails only when the unconvertible method is invoked.
+                return null;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Can not define a wrapper class for " + type, e);
+            }
+        }
+    };
+
+    /**
+     * Counter used for generating unique class names.
+     */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    /**
+     * Internal names of classes used in the generated byte code.
+     */
+    private static final String OBJECT   = "java/lang/Object",
+                                WRAPPER  = "org/opengis/bridge/python/ProxyGenerator$Wrapper",
+                                HANDLER  = "org/opengis/bridge/python/Singleton",
+                                PROPERTY = "org/opengis/bridge/python/Singleton$Property";
+
+    /**
+     * Name of the static field where the generated class stores the {@code Property} of each method.
+     */
+    private static final String PROPERTIES = "PROPERTIES";
+
+    /**
+     * Java bytecode instructions used by this generator.
+     */
+    private static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11,
+            ILOAD = 0x15, LLOAD = 0x16, FLOAD = 0x17, DLOAD = 0x18, ALOAD = 0x19, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b,
+            AALOAD = 0x32, AASTORE = 0x53, POP = 0x57, DUP = 0x59, D2F = 0x90, I2B = 0x91,
+            I2C = 0x92, I2S = 0x93, IRETURN = 0xac, LRETURN = 0xad, FRETURN = 0xae, DRETURN = 0xaf,
+            ARETURN = 0xb0, RETURN = 0xb1, GETSTATIC = 0xb2, GETFIELD = 0xb4, INVOKEVIRTUAL = 0xb6,
+            INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, ANEWARRAY = 0xbd, CHECKCAST = 0xc0;
+
+    /**
+     * Constant pool tags used by this generator.
+     */
+    private static final int UTF8 = 1, INTEGER = 3, CLASS = 7, FIELDREF = 9, METHODREF = 10, NAME_AND_TYPE = 12;
+
+    /**
+     * The constant pool of the class being generated.
+     */
+    private final ByteArrayOutputStream pool;
+
+    /**
+     * Output stream writing in {@link #pool}.
+     */
+    private final DataOutputStream poolOut;
+
+    /**
+     * Index of each constant pool entry, for sharing identical entries.
+     */
+    private final Map<String,Integer> entries;
+
+    /**
+     * Index of the next constant pool entry.
+     */
+    private int poolCount;
+
+    /**
+     * Creates a generator for a single class.
+     */
+    private ProxyGenerator() {
+        pool    = new ByteArrayOutputStream();
+        poolOut = new DataOutputStream(pool);
+        entries = new HashMap<>();
+        poolCount = 1;
+    }
+
+    /**
+     * Returns a factory of instances of a generated class implementing the given interface,
+     * or {@code null} if the interface can not be implemented by a generated class.
+     * The method handle has the {@code (Singleton)Object} type.
+     *
+     * @param  type  the interface to implement.
+     * @return constructor of the generated class, or {@code null} if none.
+     */
+    static MethodHandle factory(final Class<?> type) {
+        return FACTORIES.get(type);
+    }
+
+    /**
+     * Generates and defines a class implementing the given interface.
+     */
+    private static MethodHandle generate(final Class<?> type) throws ReflectiveOperationException {
+        if (!type.isInterface() || !Modifier.isPublic(type.getModifiers()) || !isVisible(type)) {
+            return null;
+        }
+        /*
+         * Group the methods by signature (name and parameter types). The same signature may appear
+         * many times with different return types if a sub-interface overrides a method with a covariant
+         * return type. All variants are delegated to the method having the most specific return type.
+         */
+        final Map<String,List<Method>> signatures = new LinkedHashMap<>();
+        for (final Method method : Object.class.getMethods()) {
+            final String name = method.getName();
+            if (name.equals("toString") || name.equals("hashCode") || name.equals("equals")) {
+                add(signatures, method);
+            }
+        }
+        for (final Method method : type.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                add(signatures, method);
+            }
+        }
+        final List<Method> targets = new ArrayList<>(signatures.size());
+        final ProxyGenerator g = new ProxyGenerator();
+        final String className = HANDLER + "$$Generated" + COUNT.incrementAndGet();
+        final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(methods);
+        int methodCount = 0;
+        try {
+            g.constructor(out);
+            methodCount++;
+            for (final List<Method> variants : signatures.values()) {
+                Method target = variants.get(0);
+                for (final Method m : variants) {
+                    if (target.getReturnType().isAssignableFrom(m.getReturnType())) {
+                        target = m;
+                    }
+                }
+                final int index = targets.size();
+                targets.add(target);
+                final Map<String,Method> descriptors = new LinkedHashMap<>();
+                for (final Method m : variants) {
+                    descriptors.putIfAbsent(descriptor(m.getParameterTypes(), m.getReturnType()), m);
+                }
+                for (final Method m : descriptors.values()) {
+                    if (!m.getReturnType().isPrimitive() && !isVisible(m.getReturnType())) {
+                        return null;
+                    }
+                    g.method(out, className, m, target, index);
+                    methodCount++;
+                }
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream file = new DataOutputStream(bytes);
+            final int thisClass  = g.classRef(className);
+            final int superClass = g.classRef(WRAPPER);
+            final int interfaceClass = g.classRef(type.getName().replace('.', '/'));
+            final int fieldName = g.utf8(PROPERTIES);
+            final int fieldType = g.utf8("[L" + PROPERTY + ';');
+            file.writeInt(0xCAFEBABE);
+            file.writeShort(0);                         // Minor version.
+            file.writeShort(52);                        // Major version (Java 8). No StackMapTable needed since there is no branch.
+            file.writeShort(g.poolCount);
+            g.pool.writeTo(file);
+            file.writeShort(Modifier.PUBLIC | Modifier.FINAL | 0x20);   // 0x20 = ACC_SUPER
+            file.writeShort(thisClass);
+            file.writeShort(superClass);
+            file.writeShort(1);                         // Number of interfaces.
+            file.writeShort(interfaceClass);
+            file.writeShort(1);                         // Number of fields.
+            file.writeShort(Modifier.PUBLIC | Modifier.STATIC);
+            file.writeShort(fieldName);
+            file.writeShort(fieldType);
+            file.writeShort(0);                         // Field attributes.
+            file.writeShort(methodCount);
+            methods.writeTo(file);
+            file.writeShort(0);                         // Class attributes.
+            file.flush();
+            /*
+             * Define the class in this package, then store the resolved properties
+             * in the static field before the class can be used.
+             */
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final Class<?> generated = lookup.defineClass(bytes.toByteArray());
+            final Singleton.Property[] properties = new Singleton.Property[targets.size()];
+            for (int i=0; i<properties.length; i++) {
+                properties[i] = new Singleton.Property(targets.get(i));
+            }
+            generated.getField(PROPERTIES).set(null, properties);
+            return lookup.findConstructor(generated, MethodType.methodType(void.class, Singleton.class))
+                         .asType(MethodType.methodType(Object.class, Singleton.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);              // Should never happen since we write in memory.
+        }
+    }
+
+    /**
+     * Adds the given method in the list of methods having the same signature.
+     */
+    private static void add(final Map<String,List<Method>> signatures, final Method method) {
+        final String key = method.getName() + descriptor(method.getParameterTypes(), void.class);
+        signatures.computeIfAbsent(key, (k) -> new ArrayList<>(2)).add(method);
+    }
+
+    /**
+     * Returns whether the given class is visible from the class loader of generated classes.
+     */
+    private static boolean isVisible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, ProxyGenerator.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the constructor, which invokes the {@link Wrapper} constructor.
+     */
+    private void constructor(final DataOutputStream out) throws IOException {
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        final DataOutputStream c = new DataOutputStream(code);
+        c.writeByte(ALOAD_0);
+        c.writeByte(ALOAD_1);
+        c.writeByte(INVOKESPECIAL);
+        c.writeShort(memberRef(METHODREF, WRAPPER, "<init>", "(L" + HANDLER + ";)V"));
+        c.writeByte(RETURN);
+        writeMethod(out, 0, "<init>", "(L" + HANDLER + ";)V", code, 2, 2);
+    }
+
+    /**
+     * Writes a method delegating to the handler.
+     *
+     * @param  out        where to write the method.
+     * @param  className  internal name of the generated class.
+     * @param  method     the method to implement.
+     * @param  target     the method having the most specific return type, for which a {@code Property} is resolved.
+     * @param  index      index of the {@code Property} in the static array of the generated class.
+     */
+    private void method(final DataOutputStream out, final String className, final Method method,
+                        final Method target, final int index) throws IOException
+    {
+        final Class<?>[] parameters = method.getParameterTypes();
+        final Class<?>   result     = method.getReturnType();
+        final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        final DataOutputStream c = new DataOutputStream(code);
+        c.writeByte(ALOAD_0);
+        c.writeByte(GETFIELD);
+        c.writeShort(memberRef(FIELDREF, WRAPPER, "handler", 'L' + HANDLER + ';'));
+        final boolean direct = (parameters.length == 0) && result.isPrimitive() && result != void.class
+                               && new Singleton.Property(target).isPythonProperty();
+        if (!direct) {
+            c.writeByte(ALOAD_0);
+        }
+        c.writeByte(GETSTATIC);
+        c.writeShort(memberRef(FIELDREF, className, PROPERTIES, "[L" + PROPERTY + ';'));
+        pushInt(c, index);
+        c.writeByte(AALOAD);
+        int maxLocals = 1;
+        if (direct) {
+            /*
+             * Getter of a primitive value: call a handler method returning the primitive type,
+             * without boxing and without array of arguments.
+             */
+            final String getter, type;
+            if (result == double.class || result == float.class) {
+                getter = "getDouble"; type = "D";
+            } else if (result == boolean.class) {
+                getter = "getBoolean"; type = "Z";
+            } else if (result == long.class) {
+                getter = "getLong"; type = "J";
+            } else {
+                getter = "getInt"; type = "I";
+            }
+            c.writeByte(INVOKEVIRTUAL);
+            c.writeShort(memberRef(METHODREF, HANDLER, getter, "(L" + PROPERTY + ";)" + type));
+            if      (result == float.class)  {c.writeByte(D2F); c.writeByte(FRETURN);}
+            else if (result == double.class) {c.writeByte(DRETURN);}
+            else if (result == long.class)   {c.writeByte(LRETURN);}
+            else {
+                if      (result == byte.class)  c.writeByte(I2B);
+                else if (result == short.class) c.writeByte(I2S);
+                else if (result == char.class)  c.writeByte(I2C);
+                c.writeByte(IRETURN);
+            }
+        } else {
+            /*
+             * General case: build the array of arguments (with boxing of primitive values),
+             * invoke the handler and cast or unbox the result.
+             */
+            if (parameters.length == 0) {
+                c.writeByte(ACONST_NULL);
+            } else {
+                pushInt(c, parameters.length);
+                c.writeByte(ANEWARRAY);
+                c.writeShort(classRef(OBJECT));
+                for (int i=0; i<parameters.length; i++) {
+                    final Class<?> p = parameters[i];
+                    c.writeByte(DUP);
+                    pushInt(c, i);
+                    if (!p.isPrimitive()) {
+                        c.writeByte(ALOAD);
+                    } else if (p == long.class) {
+                        c.writeByte(LLOAD);
+                    } else if (p == double.class) {
+                        c.writeByte(DLOAD);
+                    } else if (p == float.class) {
+                        c.writeByte(FLOAD);
+                    } else {
+                        c.writeByte(ILOAD);
+                    }
+                    c.writeByte(maxLocals);
+                    maxLocals += (p == long.class || p == double.class) ? 2 : 1;
+                    if (p.isPrimitive()) {
+                        final String box = box(p);
+                        c.writeByte(INVOKESTATIC);
+                        c.writeShort(memberRef(METHODREF, box, "valueOf", '(' + descriptor(p) + ")L" + box + ';'));
+                    }
+                    c.writeByte(AASTORE);
+                }
+            }
+            c.writeByte(INVOKEVIRTUAL);
+            c.writeShort(memberRef(METHODREF, HANDLER, "invoke",
+                    "(L" + OBJECT + ";L" + PROPERTY + ";[L" + OBJECT + ";)L" + OBJECT + ';'));
+            if (result == void.class) {
+                c.writeByte(POP);
+                c.writeByte(RETURN);
+            } else if (result.isPrimitive()) {
+                final String box = box(result);
+                c.writeByte(CHECKCAST);
+                c.writeShort(classRef(box));
+                c.writeByte(INVOKEVIRTUAL);
+                c.writeShort(memberRef(METHODREF, box, result.getName() + "Value", "()" + descriptor(result)));
+                if      (result == long.class)   c.writeByte(LRETURN);
+                else if (result == float.class)  c.writeByte(FRETURN);
+                else if (result == double.class) c.writeByte(DRETURN);
+                else                             c.writeByte(IRETURN);
+            } else {
+                if (result != Object.class) {
+                    c.writeByte(CHECKCAST);
+                    c.writeShort(classRef(internalName(result)));
+                }
+                c.writeByte(ARETURN);
+            }
+        }
+        if (maxLocals > 0xFF) {
+            throw new IllegalArgumentException("Too many parameters.");
+        }
+        writeMethod(out, Modifier.PUBLIC | Modifier.FINAL, method.getName(),
+                    descriptor(parameters, result), code, 10, maxLocals);
+    }
+
+    /**
+     * Writes a method with the given code.
+     */
+    private void writeMethod(final DataOutputStream out, final int modifiers, final String name, final String descriptor,
+            final ByteArrayOutputStream code, final int maxStack, final int maxLocals) throws IOException
+    {
+        out.writeShort(modifiers);
+        out.writeShort(utf8(name));
+        out.writeShort(utf8(descriptor));
+        out.writeShort(1);                                  // Number of attributes.
+        out.writeShort(utf8("Code"));
+        out.writeInt(12 + code.size());                     // Attribute length.
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.size());
+        code.writeTo(out);
+        out.writeShort(0);                                  // Exception table length.
+        out.writeShort(0);                                  // Code attributes.
+    }
+
+    /**
+     * Writes the instruction for pushing the given integer on the operand stack.
+     */
+    private void pushInt(final DataOutputStream c, final int value) throws IOException {
+        if (value <= 5) {
+            c.writeByte(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            c.writeByte(BIPUSH);
+            c.writeByte(value);
+        } else if (value <= Short.MAX_VALUE) {
+            c.writeByte(SIPUSH);
+            c.writeShort(value);
+        } else {
+            c.writeByte(0x13);                              // LDC_W
+            c.writeShort(entry(INTEGER, Integer.toString(value), () -> poolOut.writeInt(value)));
+        }
+    }
+
+    /**
+     * Action writing the content of a constant pool entry after its tag.
+     */
+    @FunctionalInterface
+    private interface EntryWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * Returns the index of the constant pool entry identified by the given tag and key, adding it if needed.
+     */
+    private int entry(final int tag, final String key, final EntryWriter writer) throws IOException {
+        final String k = tag + ":" + key;
+        Integer index = entries.get(k);
+        if (index == null) {
+            poolOut.writeByte(tag);
+            writer.write();
+            index = poolCount++;
+            entries.put(k, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of a {@code CONSTANT_Utf8} entry.
+     */
+    private int utf8(final String value) throws IOException {
+        return entry(UTF8, value, () -> poolOut.writeUTF(value));
+    }
+
+    /**
+     * Returns the index of a {@code CONSTANT_Class} entry for the given internal name.
+     */
+    private int classRef(final String name) throws IOException {
+        final int n = utf8(name);
+        return entry(CLASS, name, () -> poolOut.writeShort(n));
+    }
+
+    /**
+     * Returns the index of a {@code CONSTANT_Fieldref} or {@code CONSTANT_Methodref} entry.
+     */
+    private int memberRef(final int tag, final String owner, final String name, final String descriptor) throws IOException {
+        final int c = classRef(owner);
+        final int n = utf8(name);
+        final int d = utf8(descriptor);
+        final int nt = entry(NAME_AND_TYPE, name + ' ' + descriptor, () -> {poolOut.writeShort(n); poolOut.writeShort(d);});
+        return entry(tag, owner + '.' + name + ' ' + descriptor, () -> {poolOut.writeShort(c); poolOut.writeShort(nt);});
+    }
+
+    /**
+     * Returns the internal name of the wrapper class for the given primitive type.
+     */
+    private static String box(final Class<?> type) {
+        final String name;
+        if      (type == int.class)  name = "Integer";
+        else if (type == char.class) name = "Character";
+        else {
+            name = Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+        }
+        return "java/lang/" + name;
+    }
+
+    /**
+     * Returns the internal name of the given class.
+     */
+    private static String internalName(final Class<?> type) {
+        return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+    }
+
+    /**
+     * Returns the descriptor of the given type.
+     */
+    private static String descriptor(final Class<?> type) {
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        } else if (type.isPrimitive()) {
+            if (type == void.class)    return "V";
+            if (type == boolean.class) return "Z";
+            if (type == long.class)    return "J";
+            return String.valueOf(Character.toUpperCase(type.getName().charAt(0)));
+        } else {
+            return 'L' + internalName(type) + ';';
+        }
+    }
+
+    /**
+     * Returns the descriptor of a method with the given parameter and return types.
+     */
+    private static String descriptor(final Class<?>[] parameters, final Class<?> result) {
+        final StringBuilder buffer = new StringBuilder().append('(');
+        for (final Class<?> p : parameters) {
+            buffer.append(descriptor(p));
+        }
+        return buffer.append(')').append(descriptor(result)).toString();
+    }
+}
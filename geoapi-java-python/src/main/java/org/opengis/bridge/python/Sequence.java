@@ -31,9 +31,11 @@
  */
 package org.opengis.bridge.python;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.ListIterator;
-import java.util.AbstractSequentialList;
+import java.util.AbstractList;
+import java.util.RandomAccess;
 import java.util.NoSuchElementException;
 import java.lang.reflect.Array;
 import org.jpy.PyObject;
@@ -44,11 +46,28 @@ import org.jpy.PyObject;
  * (the main collection type used in GeoAPI Python interfaces) this implementation accepts
  * any container capable to provide an iterator.
  *
+ * <p>If the Python object supports the sequence protocol ({@code __getitem__} and {@code __len__}
+ * methods), then {@link #create create(…)} returns a list implementing {@link RandomAccess} which
+ * accesses elements directly by their index. Otherwise elements are fetched by a Python iterator,
+ * which is efficient only for accesses in increasing index order.
+ * The size is fetched only once if the Python object is known to be immutable (e.g. a tuple).</p>
+ *
  * @author  Martin Desruisseaux (Geomatys)
  * @version 4.0
  * @since   4.0
  */
-final class Sequence<E> extends AbstractSequentialList<E> {
+class Sequence<E> extends AbstractList<E> {
+    /**
+     * Names of Python types known to be immutable. The size of those sequences can be cached.
+     */
+    private static final String[] IMMUTABLE_TYPES = {"tuple", "range", "str", "bytes", "frozenset"};
+
+    /**
+     * Names of Python types known to support access to elements by index.
+     * Note that {@code frozenset} is immutable but not indexable.
+     */
+    private static final String[] INDEXABLE_TYPES = {"list", "tuple", "range", "str", "bytes"};
+
     /**
      * Information about the Python environment (builtin functions, etc).
      */
@@ -58,16 +77,26 @@ final class Sequence<E> extends AbstractSequentialList<E> {
      * Function to apply on each element in the list for
      * converting from Python objects to Java objects.
      */
-    private final Converter<? extends E> converter;
+    final Converter<? extends E> converter;
 
     /**
      * The Python sequence. Can actually be any collection capable to provide an iterator.
      */
-    private final PyObject collection;
+    final PyObject collection;
 
     /**
-     * Iterator over the elements returned by {@link #get(int)}, cached for performance reasons.
-     * This is {@code null} if not yet requested.
+     * Whether the Python object is known to be immutable, in which case {@link #size} can be cached.
+     */
+    private final boolean immutable;
+
+    /**
+     * The number of elements if known and the sequence is immutable, or -1 otherwise.
+     */
+    transient int size;
+
+    /**
+     * Iterator over the elements returned by {@link #get(int)} for non-indexable collections,
+     * cached for performance reasons. This is {@code null} if not yet requested.
      */
     private transient Iterator<E> iter;
 
@@ -81,11 +110,87 @@ final class Sequence<E> extends AbstractSequentialList<E> {
      *
      * @param type        the class of elements in this list.
      * @param collection  the Python sequence. Can actually be any collection capable to provide an iterator.
+     * @param immutable   whether the Python object is known to be immutable.
      */
-    Sequence(final Environment environment, final Class<E> type, final PyObject collection) {
+    private Sequence(final Environment environment, final Class<E> type, final PyObject collection, final boolean immutable) {
         this.environment = environment;
         this.collection  = collection;
         this.converter   = Converter.verifiedInstance(environment, type);
+        this.immutable   = immutable;
+        size = -1;
+    }
+
+    /**
+     * Creates a new list for the given Python collection. If the Python object supports access
+     * to elements by index, then the returned list implements {@link RandomAccess}.
+     *
+     * @param <E>         the type of elements in the list.
+     * @param type        the class of elements in this list.
+     * @param collection  the Python sequence. Can actually be any collection capable to provide an iterator.
+     * @return a Java list for the given Python collection.
+     */
+    static <E> Sequence<E> create(final Environment environment, final Class<E> type, final PyObject collection) {
+        final String typeName = environment.builtins.call("type", collection).getAttribute("__name__").getStringValue();
+        final boolean immutable = contains(IMMUTABLE_TYPES, typeName);
+        if (contains(INDEXABLE_TYPES, typeName) || (hasAttribute(environment, collection, "__getitem__")
+                && hasAttribute(environment, collection, "__len__")
+                && !hasAttribute(environment, collection, "keys")))                 // Exclude mappings.
+        {
+            return new Indexed<>(environment, type, collection, immutable);
+        }
+        return new Sequence<>(environment, type, collection, immutable);
+    }
+
+    /**
+     * A Python sequence supporting access to elements by index.
+     */
+    private static final class Indexed<E> extends Sequence<E> implements RandomAccess {
+        /**
+         * Creates a new sequence for the given Python collection supporting access by index.
+         */
+        Indexed(final Environment environment, final Class<E> type, final PyObject collection, final boolean immutable) {
+            super(environment, type, collection, immutable);
+        }
+
+        /**
+         * Returns the element at the given index, fetched directly by Python {@code __getitem__}.
+         */
+        @Override
+        public E get(final int index) {
+            if (index >= 0 && (size < 0 || index < size)) {         // If the size is unknown, let Python check the index.
+                final PyObject element;
+                try {
+                    element = collection.callMethod("__getitem__", index);
+                } catch (RuntimeException e) {
+                    final String msg = e.getMessage();
+                    if (msg == null || !msg.contains("IndexError")) {
+                        throw e;
+                    }
+                    throw (IndexOutOfBoundsException) new IndexOutOfBoundsException(index).initCause(e);
+                }
+                return converter.apply(element);
+            }
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * Returns whether the given array contains the given Python type name.
+     */
+    private static boolean contains(final String[] types, final String typeName) {
+        for (final String name : types) {
+            if (name.equals(typeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given Python collection has the given attribute.
+     */
+    private static boolean hasAttribute(final Environment environment, final PyObject collection, final String name) {
+        return environment.builtins.call("hasattr", collection, name).getIntValue() != 0;
     }
 
     /**
@@ -93,12 +198,20 @@ final class Sequence<E> extends AbstractSequentialList<E> {
      */
     @Override
     public int size() {
-        return environment.builtins.call("len", collection).getIntValue();
+        int n = size;
+        if (n < 0) {
+            n = environment.builtins.call("len", collection).getIntValue();
+            if (immutable) {
+                size = n;
+            }
+        }
+        return n;
     }
 
     /**
-     * Returns the element at the given index.
-     * This method is optimized for accesses with increasing indices.
+     * Returns the element at the given index. The Python object does not support access by index,
+     * so this method is optimized for accesses with increasing indices. This method is overridden
+     * by a direct access for Python objects supporting the sequence protocol.
      */
     @Override
     public E get(final int index) {
@@ -121,6 +234,50 @@ final class Sequence<E> extends AbstractSequentialList<E> {
         throw new IndexOutOfBoundsException(index);
     }
 
+    /**
+     * Returns all elements in an array of the element type. All Python elements are fetched in a single
+     * native call, then converted to Java objects. This is more efficient than fetching elements one by one.
+     */
+    @SuppressWarnings("unchecked")
+    private E[] elements() {
+        final PyObject[] items = environment.builtins.call("list", collection).getObjectArrayValue(PyObject.class);
+        final E[] elements = (E[]) Array.newInstance(converter.type, items.length);
+        for (int i=0; i<items.length; i++) {
+            elements[i] = converter.apply(items[i]);
+        }
+        if (immutable) {
+            size = items.length;
+        }
+        return elements;
+    }
+
+    /**
+     * Returns all elements in an array. All Python elements are fetched in a single native call.
+     */
+    @Override
+    public Object[] toArray() {
+        final E[] elements = elements();
+        return (elements.getClass() == Object[].class) ? elements : Arrays.copyOf(elements, elements.length, Object[].class);
+    }
+
+    /**
+     * Returns all elements in the given array if large enough, or in a new array otherwise.
+     * All Python elements are fetched in a single native call.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] array) {
+        final E[] elements = elements();
+        if (array.length < elements.length) {
+            array = (T[]) Array.newInstance(array.getClass().getComponentType(), elements.length);
+        }
+        System.arraycopy(elements, 0, array, 0, elements.length);
+        if (array.length > elements.length) {
+            array[elements.length] = null;
+        }
+        return array;
+    }
+
     /**
      * Returns an iterator over the elements in the Python sequence.
      * This method is preferred to {@link #listIterator()} if there is no need to move backward.
@@ -135,7 +292,7 @@ final class Sequence<E> extends AbstractSequentialList<E> {
      */
     @Override
     public ListIterator<E> listIterator() {
-        return new BIter();
+        return (this instanceof RandomAccess) ? super.listIterator() : new BIter();
     }
 
     /**
@@ -145,6 +302,9 @@ final class Sequence<E> extends AbstractSequentialList<E> {
      */
     @Override
     public ListIterator<E> listIterator(int index) {
+        if (this instanceof RandomAccess) {
+            return super.listIterator(index);
+        }
         if (index < 0) {
             throw new IndexOutOfBoundsException(index);
         }
@@ -32,12 +32,15 @@
 package org.opengis.bridge.python;
 
 import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 import java.lang.reflect.Type;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Method;
 import java.lang.reflect.WildcardType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.lang.invoke.MethodHandle;
 import org.opengis.annotation.UML;
 import org.jpy.PyObject;
 
@@ -77,10 +80,137 @@ final class Singleton implements InvocationHandler {
      * @param type    interface to be implemented by the desired Java wrapper.
      */
     static <T> T create(final Environment environment, final PyObject object, final Class<T> type) {
+        return new Singleton(environment, object).wrap(type);
+    }
+
+    /**
+     * Wraps the given Python object in a {@link Proxy} instance, without using generated classes.
+     * This is used for comparison purposes only.
+     *
+     * @param <T>     compile-time value of the {@code type} argument.
+     * @param object  the Python object to wrap in a Java object.
+     * @param type    interface to be implemented by the desired Java wrapper.
+     */
+    static <T> T createReflective(final Environment environment, final PyObject object, final Class<T> type) {
         return type.cast(Proxy.newProxyInstance(Singleton.class.getClassLoader(),
                     new Class<?>[] {type}, new Singleton(environment, object)));
     }
 
+    /**
+     * Returns a Java object of the given type delegating to this handler. This method uses a class
+     * generated by {@link ProxyGenerator} if possible, or a {@link Proxy} instance otherwise.
+     */
+    private <T> T wrap(final Class<T> type) {
+        final MethodHandle factory = ProxyGenerator.factory(type);
+        if (factory != null) try {
+            return type.cast((Object) factory.invokeExact(this));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);      // Should never happen since constructors throw no checked exception.
+        }
+        return type.cast(Proxy.newProxyInstance(Singleton.class.getClassLoader(), new Class<?>[] {type}, this));
+    }
+
+    /**
+     * Returns the handler of the given Java object if it is a wrapper for a Python object, or {@code null} otherwise.
+     */
+    private static Singleton handler(final Object wrapper) {
+        if (wrapper instanceof ProxyGenerator.Wrapper) {
+            return ((ProxyGenerator.Wrapper) wrapper).handler;
+        }
+        if (Proxy.isProxyClass(wrapper.getClass())) {
+            final InvocationHandler h = Proxy.getInvocationHandler(wrapper);
+            if (h instanceof Singleton) {
+                return (Singleton) h;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Information about a Java method resolved once for all invocations. Resolving a method requires
+     * reading its {@link UML} annotation and converting the name from camel case to snake case, which
+     * would be costly if repeated on every call during metadata traversal.
+     */
+    static final class Property {
+        /** Value of {@link #kind} for a method delegated to Python. */
+        static final byte PYTHON = 0;
+
+        /** Value of {@link #kind} for {@link Object} methods handled in a special way. */
+        static final byte TO_STRING = 1, HASH_CODE = 2, EQUALS = 3;
+
+        /** Name of the Python method or property, in snake case. */
+        final String name;
+
+        /** One of {@link #PYTHON}, {@link #TO_STRING}, {@link #HASH_CODE} or {@link #EQUALS} constants. */
+        final byte kind;
+
+        /** For methods returning an {@link Iterable}, the type of elements. Otherwise {@code null}. */
+        final Class<?> elementType;
+
+        /** The Java method. */
+        final Method method;
+
+        /** Resolves the given method. */
+        Property(final Method method) {
+            this.method = method;
+            String name = identifier(method.getAnnotation(UML.class));
+            byte kind = PYTHON;
+            if (name == null) {
+                name = method.getName();
+                /*
+                 * The Object.hashCode(), equals(Object) and toString() methods are dispatched here and
+                 * need to be handled in a special way (other Object methods are not dispatched here).
+                 */
+                switch (method.getParameterCount()) {
+                    case 0: {
+                        if (name.equals("toString")) {
+                            kind = TO_STRING;
+                        } else if (name.equals("hashCode")) {
+                            kind = HASH_CODE;
+                        }
+                        break;
+                    }
+                    case 1: {
+                        if (name.equals("equals")) {
+                            kind = EQUALS;
+                        }
+                        break;
+                    }
+                }
+            }
+            this.name = CharSequences.camelCaseToSnake(name);
+            this.kind = kind;
+            elementType = (kind == PYTHON && Iterable.class.isAssignableFrom(method.getReturnType()))
+                        ? boundOfParameterizedProperty(method.getGenericReturnType()) : null;
+        }
+
+        /** Returns whether this property is delegated to a Python method or attribute. */
+        final boolean isPythonProperty() {
+            return kind == PYTHON;
+        }
+    }
+
+    /**
+     * The resolved methods of each interface. Keys of the {@code ClassValue} are the classes that
+     * declare the methods, so the cached values can be garbage-collected together with the classes.
+     */
+    private static final ClassValue<ConcurrentHashMap<Method,Property>> PROPERTIES =
+            new ClassValue<ConcurrentHashMap<Method,Property>>()
+    {
+        @Override protected ConcurrentHashMap<Method,Property> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Returns the resolved information about the given method, computing it on first invocation.
+     */
+    private static Property property(final Method method) {
+        return PROPERTIES.get(method.getDeclaringClass()).computeIfAbsent(method, Property::new);
+    }
+
     /**
      * Returns the {@code identifier()} value of the given annotation or {@code null} if none or empty.
      */
@@ -101,35 +231,33 @@ final class Singleton implements InvocationHandler {
      * @return the result of the invocation of the Python method.
      */
     @Override
-    public Object invoke(final Object proxy, final Method method, Object[] args) {
-        String name = identifier(method.getAnnotation(UML.class));
-        if (name == null) {
-            name = method.getName();
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        return invoke(proxy, property(method), args);
+    }
+
+    /**
+     * Forwards a call to a method from the Java interface to the equivalent method or property in Python.
+     * This method is invoked directly by the classes generated by {@link ProxyGenerator}.
+     *
+     * @param  proxy     the proxy object on which a method has been invoked.
+     * @param  property  information about the invoked Java method.
+     * @param  args      arguments to transfer to the Python method, or {@code null} if none.
+     * @return the result of the invocation of the Python method.
+     */
+    final Object invoke(final Object proxy, final Property property, Object[] args) {
+        switch (property.kind) {
             /*
-             * The Object.hashCode(), equals(Object) and toString() methods are dispatched here and
-             * need to be handled in a special way (other Object methods are not dispatched here).
              * The toString() method delegates to Python string representation, and the equals(…)
              * method checks if the underlying Python objects are the same.
              */
-            switch (args.length) {
-                case 0: {
-                    if (name.equals("toString")) {
-                        return environment.builtins.call("str", object).getStringValue();
-                    } else if (name.equals("hashCode")) {
-                        return object.hashCode();
-                    }
-                    break;
-                }
-                case 1: {
-                    if (name.equals("equals")) {
-                        final Object arg = args[0];
-                        if (arg != null && arg.getClass() == proxy.getClass()) {
-                            return object.equals(((Singleton) Proxy.getInvocationHandler(arg)).object);
-                        } else {
-                            return false;
-                        }
-                    }
-                    break;
+            case Property.TO_STRING: return environment.builtins.call("str", object).getStringValue();
+            case Property.HASH_CODE: return object.hashCode();
+            case Property.EQUALS: {
+                final Object arg = args[0];
+                if (arg != null && arg.getClass() == proxy.getClass()) {
+                    return object.equals(handler(arg).object);
+                } else {
+                    return false;
                 }
             }
         }
@@ -138,7 +266,7 @@ final class Singleton implements InvocationHandler {
          * be converted, they will be left as-is. They may cause an exception to be thrown at callMethod(…)
          * execution time, depending on JPY implementation.
          */
-        name = CharSequences.camelCaseToSnake(name);
+        final String name = property.name;
         final PyObject result;
         if (args != null) {
             for (int i=0; i < args.length; i++) {
@@ -148,12 +276,10 @@ final class Singleton implements InvocationHandler {
                         arg = arg.toString();
                     } else if (arg instanceof Number) {
                         continue;                           // Assuming a wrapper for a primitive type, there is nothing to do.
-                    } else if (Proxy.isProxyClass(arg.getClass())) {
-                        final InvocationHandler h = Proxy.getInvocationHandler(arg);
-                        if (!(h instanceof Singleton)) continue;
-                        arg = ((Singleton) h).object;
                     } else {
-                        continue;
+                        final Singleton h = handler(arg);
+                        if (h == null) continue;
+                        arg = h.object;
                     }
                     args[i] = arg;
                 }
@@ -166,26 +292,69 @@ final class Singleton implements InvocationHandler {
          * Convert the result of the Python method call to the type expected by the Java method.
          * This may be a collection, in which case each element will be converted on-the-fly.
          */
-        Class<?> type = method.getReturnType();
-        if (Iterable.class.isAssignableFrom(type)) {
+        final Class<?> type = property.method.getReturnType();
+        if (property.elementType != null) {
             if (result != null) {
-                type = boundOfParameterizedProperty(method.getGenericReturnType());
-                return new Sequence<>(environment, type, result);
+                if (property.elementType == Double.class) {
+                    return Converter.toDoubleList(environment, result);
+                }
+                return Sequence.create(environment, property.elementType, result);
             } else {
                 return Collections.emptyList();
             }
-        } else if (object.equals(result)) {
-            // Slight optimization: share the same InvocationHandler if the Python object is the same.
-            if (getClass().equals(proxy.getClass())) {
-                return this;
-            } else {
-                return Proxy.newProxyInstance(Singleton.class.getClassLoader(), new Class<?>[] {type}, this);
-            }
+        } else if (object.equals(result) && type.isInterface()) {
+            // Slight optimization: share the same handler if the Python object is the same.
+            return wrap(type);
         } else {
             return Converter.instance(environment, type).apply(result);
         }
     }
 
+    /**
+     * Returns the value of a Python property as a {@code double}, or NaN if none.
+     * This method is invoked directly by the classes generated by {@link ProxyGenerator}
+     * for getter methods returning a {@code double} or {@code float} value.
+     */
+    final double getDouble(final Property property) {
+        final PyObject value = object.getAttribute(property.name);
+        return (value != null) ? value.getDoubleValue() : Double.NaN;
+    }
+
+    /**
+     * Returns the value of a Python property as an {@code int}, or 0 if none.
+     * This method is invoked directly by the classes generated by {@link ProxyGenerator}
+     * for getter methods returning an {@code int}, {@code short}, {@code byte} or {@code char} value.
+     */
+    final int getInt(final Property property) {
+        final PyObject value = object.getAttribute(property.name);
+        return (value != null) ? value.getIntValue() : 0;
+    }
+
+    /**
+     * Returns the value of a Python property as a {@code long}, or 0 if none.
+     * This method is invoked directly by the classes generated by {@link ProxyGenerator}
+     * for getter methods returning a {@code long} value. Python integers are not restricted
+     * to the {@code int} range, so the value is fetched as a Java object rather than an {@code int}.
+     */
+    final long getLong(final Property property) {
+        final PyObject value = object.getAttribute(property.name);
+        if (value == null) {
+            return 0;
+        }
+        final Object n = value.getObjectValue();
+        return (n instanceof Number) ? ((Number) n).longValue() : value.getIntValue();
+    }
+
+    /**
+     * Returns the value of a Python property as a {@code boolean}, or {@code false} if none.
+     * This method is invoked directly by the classes generated by {@link ProxyGenerator}
+     * for getter methods returning a {@code boolean} value.
+     */
+    final boolean getBoolean(final Property property) {
+        final PyObject value = object.getAttribute(property.name);
+        return (value != null) && value.getIntValue() != 0;
+    }
+
     /**
      * Returns the upper bounds of the parameterized type. For example if a method returns {@code Collection<String>},
      * then {@code boundOfParameterizedProperty(method.getGenericReturnType())} should return {@code String.class}.
@@ -0,0 +1,270 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import java.util.Arrays;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.jpy.PyLib;
+import org.jpy.PyObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assume.*;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Environment#transform(MathTransform, PyObject, boolean)} on NumPy arrays.
+ * The tests require the {@code "jpy.config"} system property to be set
+ * to the path of a {@code "jpyconfig.properties"} file, and NumPy to be installed,
+ * otherwise the tests are skipped.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final strictfp class CoordinatesTest {
+    /**
+     * A transform computing <var>t</var>[<var>j</var>] = 10 × <var>s</var>[<var>j</var> mod <var>srcDim</var>] + <var>j</var>
+     * where <var>s</var> are the source coordinates and <var>t</var> the target coordinates of a point.
+     * Only the methods needed by {@link Coordinates} are implemented.
+     */
+    private static final class Scale implements MathTransform {
+        /** Number of source and target dimensions. */
+        private final int srcDim, tgtDim;
+
+        /** Creates a new transform between the given number of dimensions. */
+        Scale(final int srcDim, final int tgtDim) {
+            this.srcDim = srcDim;
+            this.tgtDim = tgtDim;
+        }
+
+        @Override public int     getSourceDimensions() {return srcDim;}
+        @Override public int     getTargetDimensions() {return tgtDim;}
+        @Override public boolean isIdentity()          {return false;}
+
+        /** Returns the expected value of the given target dimension for the given source coordinates. */
+        double apply(final double[] source, final int offset, final int j) {
+            return 10 * source[offset + j % srcDim] + j;
+        }
+
+        /** Transforms the given points. The source array is copied first since it may overlap the destination. */
+        @Override
+        public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts * srcDim);
+            for (int i=0; i<numPts; i++) {
+                for (int j=0; j<tgtDim; j++) {
+                    dstPts[dstOff++] = apply(srcPts, i * srcDim, j);
+                }
+            }
+        }
+
+        @Override public DirectPosition transform(DirectPosition ptSrc, DirectPosition ptDst) {throw new UnsupportedOperationException();}
+        @Override public void transform(float [] srcPts, int srcOff, float [] dstPts, int dstOff, int numPts) {throw new UnsupportedOperationException();}
+        @Override public void transform(float [] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts) {throw new UnsupportedOperationException();}
+        @Override public void transform(double[] srcPts, int srcOff, float [] dstPts, int dstOff, int numPts) {throw new UnsupportedOperationException();}
+        @Override public Matrix derivative(DirectPosition point) {throw new UnsupportedOperationException();}
+        @Override public MathTransform inverse() {throw new UnsupportedOperationException();}
+        @Override public String toWKT() {throw new UnsupportedOperationException();}
+    }
+
+    /**
+     * Whether the Python interpreter has been started by this class.
+     */
+    private static boolean started;
+
+    /**
+     * Starts the Python interpreter before any test is run.
+     */
+    @BeforeClass
+    public static void startPython() {
+        final String config = System.getProperty("jpy.config");
+        if (config != null && !config.trim().isEmpty() && !PyLib.isPythonRunning()) {
+            PyLib.startPython();
+            started = true;
+        }
+    }
+
+    /**
+     * Stops the Python interpreter after all tests have been run, successfully or not.
+     */
+    @AfterClass
+    public static void stopPython() {
+        if (started) {
+            started = false;
+            PyLib.stopPython();
+        }
+    }
+
+    /**
+     * The Python environment, created by {@link #eval(String)}.
+     */
+    private Environment env;
+
+    /**
+     * Namespace in which NumPy has been imported, created by {@link #eval(String)}.
+     */
+    private PyObject namespace;
+
+    /**
+     * Evaluates the given Python expression in a namespace where NumPy is imported as {@code np}.
+     */
+    private PyObject eval(final String expression) {
+        assumeTrue("The \"jpy.config\" system property must be set to the path of a \"jpyconfig.properties\" file.",
+                   PyLib.isPythonRunning());
+        if (namespace == null) {
+            env = new Environment();
+            namespace = env.builtins.call("dict");
+            try {
+                env.builtins.call("exec", "import numpy as np\n", namespace);
+            } catch (RuntimeException e) {
+                assumeNoException("NumPy is required.", e);
+            }
+        }
+        return env.builtins.call("eval", expression, namespace);
+    }
+
+    /**
+     * Returns the shape of the given NumPy array.
+     */
+    private static int[] shape(final PyObject array) {
+        final PyObject shape = array.getAttribute("shape");
+        final int[] lengths = new int[array.getAttribute("ndim").getIntValue()];
+        for (int i=0; i<lengths.length; i++) {
+            lengths[i] = shape.callMethod("__getitem__", i).getIntValue();
+        }
+        return lengths;
+    }
+
+    /**
+     * Returns all values of the given NumPy array in row-major order.
+     */
+    private double[] values(final PyObject array) {
+        final PyObject list = array.callMethod("ravel").callMethod("tolist");
+        final PyObject[] items = env.builtins.call("list", list).getObjectArrayValue(PyObject.class);
+        final double[] values = new double[items.length];
+        for (int i=0; i<items.length; i++) {
+            values[i] = items[i].getDoubleValue();
+        }
+        return values;
+    }
+
+    /**
+     * Returns the coordinates expected after the transformation of the given source coordinates.
+     */
+    private static double[] expected(final Scale transform, final double[] source) {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        final int numPts = source.length / srcDim;
+        final double[] target = new double[numPts * tgtDim];
+        for (int i=0; i<numPts; i++) {
+            for (int j=0; j<tgtDim; j++) {
+                target[i*tgtDim + j] = transform.apply(source, i * srcDim, j);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Tests the transformation of a one-dimensional array with coordinates of consecutive points stored consecutively.
+     *
+     * @throws TransformException if the coordinates can not be transformed.
+     */
+    @Test
+    public void testFlatArray() throws TransformException {
+        final PyObject array = eval("np.array([1.0, 2.0, 3.0, 4.0, 5.0, 6.0])");
+        final double[] source = values(array);
+        final Scale transform = new Scale(2, 2);
+        final PyObject result = env.transform(transform, array, false);
+        assertNotEquals(array.getPointer(), result.getPointer());
+        assertArrayEquals(new int[] {6}, shape(result));
+        assertArrayEquals(expected(transform, source), values(result), 0);
+        assertArrayEquals("Source array shall be unchanged.", source, values(array), 0);
+    }
+
+    /**
+     * Tests the transformation of a two-dimensional array with one row per point.
+     *
+     * @throws TransformException if the coordinates can not be transformed.
+     */
+    @Test
+    public void testRows() throws TransformException {
+        final PyObject array = eval("np.array([[1.0, 2.0], [3.0, 4.0], [5.0, 6.0]])");
+        final double[] source = values(array);
+        final Scale transform = new Scale(2, 2);
+        final PyObject result = env.transform(transform, array, false);
+        assertArrayEquals(new int[] {3, 2}, shape(result));
+        assertArrayEquals(expected(transform, source), values(result), 0);
+    }
+
+    /**
+     * Tests the transformation of a two-dimensional array by a transform adding a dimension.
+     *
+     * @throws TransformException if the coordinates can not be transformed.
+     */
+    @Test
+    public void testDimensionChange() throws TransformException {
+        final PyObject array = eval("np.array([[1.0, 2.0], [3.0, 4.0], [5.0, 6.0]])");
+        final double[] source = values(array);
+        final Scale transform = new Scale(2, 3);
+        final PyObject result = env.transform(transform, array, false);
+        assertArrayEquals(new int[] {3, 3}, shape(result));
+        assertArrayEquals(expected(transform, source), values(result), 0);
+        try {
+            env.transform(transform, array, true);
+            fail("Expected IllegalArgumentException.");
+        } catch (IllegalArgumentException e) {
+            // This is the expected exception.
+        }
+    }
+
+    /**
+     * Tests the transformation in-place. The result shall be the given array with updated values,
+     * which verifies that the coordinates are copied back from the Java array to the NumPy array.
+     *
+     * @throws TransformException if the coordinates can not be transformed.
+     */
+    @Test
+    public void testInPlace() throws TransformException {
+        final PyObject array = eval("np.array([[1.0, 2.0], [3.0, 4.0], [5.0, 6.0]])");
+        final double[] source = values(array);
+        final Scale transform = new Scale(2, 2);
+        final PyObject result = env.transform(transform, array, true);
+        assertEquals(array.getPointer(), result.getPointer());
+        assertArrayEquals(new int[] {3, 2}, shape(array));
+        assertArrayEquals(expected(transform, source), values(array), 0);
+    }
+}
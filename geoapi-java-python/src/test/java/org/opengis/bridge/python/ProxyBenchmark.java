@@ -0,0 +1,117 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.jpy.PyLib;
+import org.jpy.PyObject;
+
+
+/**
+ * Compares the performance of classes generated by {@link ProxyGenerator}
+ * with the performance of {@link java.lang.reflect.Proxy} instances.
+ * The benchmark invokes the getter methods of a {@link GeographicBoundingBox}
+ * backed by a Python object having the four bound attributes.
+ *
+ * <p>This class is not a JUnit test. It requires the {@code "jpy.config"} system property
+ * to be set to the path of a {@code "jpyconfig.properties"} file, and can be run with:</p>
+ *
+ * <blockquote><pre>java -Djpy.config=/path/to/jpyconfig.properties org.opengis.bridge.python.ProxyBenchmark</pre></blockquote>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final class ProxyBenchmark {
+    /**
+     * Number of getter invocations in each measurement.
+     */
+    private static final int ITERATIONS = 200_000;
+
+    /**
+     * Number of measurements. The first measurements are warmup.
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private ProxyBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param  args  ignored.
+     */
+    public static void main(final String[] args) {
+        if (!PyLib.isPythonRunning()) {
+            PyLib.startPython();
+        }
+        try {
+            final Environment env = new Environment();
+            final PyObject namespace = env.builtins.call("dict");
+            env.builtins.call("exec", "import types\n" +
+                    "bbox = types.SimpleNamespace(west_bound_longitude=-10.0, east_bound_longitude=20.0,\n" +
+                    "                             south_bound_latitude=30.0, north_bound_latitude=50.0)\n", namespace);
+            final PyObject bbox = namespace.callMethod("__getitem__", "bbox");
+            final GeographicBoundingBox generated  = Singleton.create          (env, bbox, GeographicBoundingBox.class);
+            final GeographicBoundingBox reflective = Singleton.createReflective(env, bbox, GeographicBoundingBox.class);
+            System.out.println("Generated class: " + generated.getClass().getName());
+            for (int i=0; i<RUNS; i++) {
+                final long t1 = measure(reflective);
+                final long t2 = measure(generated);
+                System.out.printf("Run %2d: reflective proxy %6.3f µs/call, generated class %6.3f µs/call%n",
+                                  i, t1 / (4000.0 * ITERATIONS), t2 / (4000.0 * ITERATIONS));
+            }
+        } finally {
+            PyLib.stopPython();
+        }
+    }
+
+    /**
+     * Invokes the getter methods of the given bounding box many times and returns the elapsed time in nanoseconds.
+     */
+    private static long measure(final GeographicBoundingBox bbox) {
+        final long start = System.nanoTime();
+        double sum = 0;
+        for (int i=0; i<ITERATIONS; i++) {
+            sum += bbox.getWestBoundLongitude() + bbox.getEastBoundLongitude()
+                 + bbox.getSouthBoundLatitude() + bbox.getNorthBoundLatitude();
+        }
+        final long time = System.nanoTime() - start;
+        if (sum != 90.0 * ITERATIONS) {
+            throw new AssertionError(sum);
+        }
+        return time;
+    }
+}
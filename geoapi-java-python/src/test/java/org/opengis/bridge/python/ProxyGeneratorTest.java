@@ -0,0 +1,159 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.jpy.PyLib;
+import org.jpy.PyObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assume.*;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ProxyGenerator} by comparing the values returned by generated classes
+ * with the values returned by {@link java.lang.reflect.Proxy} instances.
+ * The tests require the {@code "jpy.config"} system property to be set
+ * to the path of a {@code "jpyconfig.properties"} file, otherwise the
+ * tests are skipped.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final strictfp class ProxyGeneratorTest {
+    /**
+     * An interface with getters of all kinds of return type handled in a special way by the generator.
+     * Method names are converted to snake case for getting the Python attributes.
+     */
+    public interface Sample {
+        /** @return value of the {@code get_count} attribute. */
+        int getCount();
+
+        /** @return value of the {@code get_size} attribute. */
+        long getSize();
+
+        /** @return value of the {@code is_enabled} attribute. */
+        boolean isEnabled();
+
+        /** @return value of the {@code get_name} attribute. */
+        String getName();
+    }
+
+    /**
+     * Whether the Python interpreter has been started by this class.
+     */
+    private static boolean started;
+
+    /**
+     * Starts the Python interpreter before any test is run.
+     */
+    @BeforeClass
+    public static void startPython() {
+        final String config = System.getProperty("jpy.config");
+        if (config != null && !config.trim().isEmpty() && !PyLib.isPythonRunning()) {
+            PyLib.startPython();
+            started = true;
+        }
+    }
+
+    /**
+     * Stops the Python interpreter after all tests have been run, successfully or not.
+     */
+    @AfterClass
+    public static void stopPython() {
+        if (started) {
+            started = false;
+            PyLib.stopPython();
+        }
+    }
+
+    /**
+     * Creates a Python object with the attributes given in a {@code types.SimpleNamespace} constructor call.
+     */
+    private static PyObject create(final Environment env, final String attributes) {
+        assumeTrue("The \"jpy.config\" system property must be set to the path of a \"jpyconfig.properties\" file.",
+                   PyLib.isPythonRunning());
+        final PyObject namespace = env.builtins.call("dict");
+        env.builtins.call("exec", "import types\nobj = types.SimpleNamespace(" + attributes + ")\n", namespace);
+        return namespace.callMethod("__getitem__", "obj");
+    }
+
+    /**
+     * Tests the {@code double} and object getters of a GeoAPI interface.
+     */
+    @Test
+    public void testGeographicBoundingBox() {
+        final Environment env = new Environment();
+        final PyObject bbox = create(env, "west_bound_longitude=-10.5, east_bound_longitude=20.0, "
+                + "south_bound_latitude=30.0, north_bound_latitude=50.25, extent_type_code=True");
+        assertNotNull(ProxyGenerator.factory(GeographicBoundingBox.class));
+        final GeographicBoundingBox generated  = Singleton.create          (env, bbox, GeographicBoundingBox.class);
+        final GeographicBoundingBox reflective = Singleton.createReflective(env, bbox, GeographicBoundingBox.class);
+        assertTrue(generated instanceof ProxyGenerator.Wrapper);
+        assertEquals(-10.5,  generated.getWestBoundLongitude(), 0);
+        assertEquals( 20.0,  generated.getEastBoundLongitude(), 0);
+        assertEquals( 30.0,  generated.getSouthBoundLatitude(), 0);
+        assertEquals( 50.25, generated.getNorthBoundLatitude(), 0);
+        assertEquals(Boolean.TRUE, generated.getInclusion());
+        assertEquals(reflective.getWestBoundLongitude(), generated.getWestBoundLongitude(), 0);
+        assertEquals(reflective.getEastBoundLongitude(), generated.getEastBoundLongitude(), 0);
+        assertEquals(reflective.getSouthBoundLatitude(), generated.getSouthBoundLatitude(), 0);
+        assertEquals(reflective.getNorthBoundLatitude(), generated.getNorthBoundLatitude(), 0);
+        assertEquals(reflective.getInclusion(),          generated.getInclusion());
+    }
+
+    /**
+     * Tests the {@code int}, {@code long}, {@code boolean} and {@link String} getters.
+     * The {@code long} value is outside the range of {@code int} values.
+     */
+    @Test
+    public void testPrimitiveGetters() {
+        final Environment env = new Environment();
+        final PyObject obj = create(env, "get_count=42, get_size=1099511627776, is_enabled=True, get_name='Sample'");
+        assertNotNull(ProxyGenerator.factory(Sample.class));
+        final Sample generated  = Singleton.create          (env, obj, Sample.class);
+        final Sample reflective = Singleton.createReflective(env, obj, Sample.class);
+        assertTrue(generated instanceof ProxyGenerator.Wrapper);
+        assertEquals(42,             generated.getCount());
+        assertEquals(1099511627776L, generated.getSize());
+        assertTrue  (                generated.isEnabled());
+        assertEquals("Sample",       generated.getName());
+        assertEquals(reflective.getCount(), generated.getCount());
+        assertEquals(reflective.getSize(),  generated.getSize());
+        assertEquals(reflective.isEnabled(), generated.isEnabled());
+        assertEquals(reflective.getName(),  generated.getName());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    Copyright (C) 2019 Open Geospatial Consortium, Inc.
+ *    All Rights Reserved. http://www.opengeospatial.org/ogc/legal
+ *
+ *    Permission to use, copy, and modify this software and its documentation, with
+ *    or without modification, for any purpose and without fee or royalty is hereby
+ *    granted, provided that you include the following on ALL copies of the software
+ *    and documentation or portions thereof, including modifications, that you make:
+ *
+ *    1. The full text of this NOTICE in a location viewable to users of the
+ *       redistributed or derivative work.
+ *    2. Notice of any changes or modifications to the OGC files, including the
+ *       date changes were made.
+ *
+ *    THIS SOFTWARE AND DOCUMENTATION IS PROVIDED "AS IS," AND COPYRIGHT HOLDERS MAKE
+ *    NO REPRESENTATIONS OR WARRANTIES, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+ *    TO, WARRANTIES OF MERCHANTABILITY OR FITNESS FOR ANY PARTICULAR PURPOSE OR THAT
+ *    THE USE OF THE SOFTWARE OR DOCUMENTATION WILL NOT INFRINGE ANY THIRD PARTY
+ *    PATENTS, COPYRIGHTS, TRADEMARKS OR OTHER RIGHTS.
+ *
+ *    COPYRIGHT HOLDERS WILL NOT BE LIABLE FOR ANY DIRECT, INDIRECT, SPECIAL OR
+ *    CONSEQUENTIAL DAMAGES ARISING OUT OF ANY USE OF THE SOFTWARE OR DOCUMENTATION.
+ *
+ *    The name and trademarks of copyright holders may NOT be used in advertising or
+ *    publicity pertaining to the software without specific, written prior permission.
+ *    Title to copyright in this software and any associated documentation will at all
+ *    times remain with copyright holders.
+ */
+package org.opengis.bridge.python;
+
+import java.util.Set;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import org.jpy.PyLib;
+import org.jpy.PyModule;
+import org.jpy.PyObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assume.*;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Sequence} on Python collections with and without access by index.
+ * The tests require the {@code "jpy.config"} system property to be set
+ * to the path of a {@code "jpyconfig.properties"} file, otherwise the
+ * tests are skipped.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final strictfp class SequenceTest {
+    /**
+     * Whether the Python interpreter has been started by this class.
+     */
+    private static boolean started;
+
+    /**
+     * Starts the Python interpreter before any test is run.
+     */
+    @BeforeClass
+    public static void startPython() {
+        final String config = System.getProperty("jpy.config");
+        if (config != null && !config.trim().isEmpty() && !PyLib.isPythonRunning()) {
+            PyLib.startPython();
+            started = true;
+        }
+    }
+
+    /**
+     * Stops the Python interpreter after all tests have been run, successfully or not.
+     */
+    @AfterClass
+    public static void stopPython() {
+        if (started) {
+            started = false;
+            PyLib.stopPython();
+        }
+    }
+
+    /**
+     * Returns a Java list for the result of the given Python builtin function applied on {@code range(5)}.
+     */
+    private static List<Integer> create(final String function) {
+        assumeTrue("The \"jpy.config\" system property must be set to the path of a \"jpyconfig.properties\" file.",
+                   PyLib.isPythonRunning());
+        final PyModule builtins = PyModule.getBuiltins();
+        final PyObject collection = builtins.call(function, builtins.call("range", 5));
+        return new Environment().asList(collection, Integer.class);
+    }
+
+    /**
+     * Verifies that the given list contains the integers 0 to 4 inclusive, in any order.
+     */
+    private static void verify(final List<Integer> list) {
+        assertEquals(5, list.size());
+        final Set<Integer> expected = new HashSet<>(Arrays.asList(0, 1, 2, 3, 4));
+        final Set<Integer> found = new HashSet<>();
+        for (int i=0; i<5; i++) {
+            assertTrue(found.add(list.get(i)));
+        }
+        assertEquals(expected, found);
+        assertEquals(expected, new HashSet<>(Arrays.asList(list.toArray())));
+        found.clear();
+        final ListIterator<Integer> it = list.listIterator();
+        while (it.hasNext()) {
+            assertTrue(found.add(it.next()));
+        }
+        assertEquals(expected, found);
+        try {
+            list.get(5);
+            fail("Expected IndexOutOfBoundsException.");
+        } catch (IndexOutOfBoundsException e) {
+            // This is the expected exception.
+        }
+    }
+
+    /**
+     * Tests a Python list, which is indexable and mutable.
+     */
+    @Test
+    public void testList() {
+        final List<Integer> list = create("list");
+        assertTrue(list instanceof RandomAccess);
+        verify(list);
+    }
+
+    /**
+     * Tests a Python tuple, which is indexable and immutable.
+     */
+    @Test
+    public void testTuple() {
+        final List<Integer> list = create("tuple");
+        assertTrue(list instanceof RandomAccess);
+        verify(list);
+    }
+
+    /**
+     * Tests a Python frozenset, which is immutable but not indexable.
+     * Elements shall be fetched by an iterator instead of {@code __getitem__},
+     * and the list shall not be marked as supporting fast random access.
+     */
+    @Test
+    public void testFrozenSet() {
+        final List<Integer> list = create("frozenset");
+        assertFalse(list instanceof RandomAccess);
+        verify(list);
+    }
+}
@@ -22,6 +22,7 @@ import java.awt.Shape;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
+import javax.vecmath.SingularMatrixException;
 
 import ucar.unidata.util.Parameter;
 import ucar.unidata.geoloc.LatLonRect;
@@ -31,6 +32,9 @@ import ucar.unidata.geoloc.Projection;
 import ucar.unidata.geoloc.ProjectionPoint;
 import ucar.unidata.geoloc.ProjectionPointImpl;
 import ucar.unidata.geoloc.projection.ProjectionAdapter;
+import ucar.unidata.geoloc.projection.LatLonProjection;
+import ucar.unidata.geoloc.projection.Mercator;
+import ucar.unidata.geoloc.projection.TransverseMercator;
 
 import org.opengis.metadata.extent.Extent;
 import org.opengis.geometry.DirectPosition;
@@ -101,6 +105,12 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
      */
     private transient MathTransform2D inverse;
 
+    /**
+     * Relative step used for approximating derivatives by finite differences.
+     * The step in each dimension is this value multiplied by the coordinate magnitude (minimum 1).
+     */
+    private static final double DERIVATIVE_STEP = 1E-6;
+
     /**
      * Creates a new wrapper for the given netCDF projection object.
      *
@@ -390,6 +400,16 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
             srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts*srcDim);
             srcOff = 0;
         }
+        transform(srcPts, srcOff, srcDim, dstPts, dstOff, dstDim, numPts);
+    }
+
+    /**
+     * Implementation of {@link #transform(double[], int, double[], int, int)} with explicit dimensions.
+     * Caller is responsible for copying the source array if it overlaps the destination array.
+     */
+    private void transform(final double[] srcPts, int srcOff, final int srcDim,
+                           final double[] dstPts, int dstOff, final int dstDim, int numPts)
+    {
         final LatLonPointImpl     src = new LatLonPointImpl();
         final ProjectionPointImpl dst = new ProjectionPointImpl();
         while (--numPts >= 0) {
@@ -557,8 +577,12 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
     }
 
     /**
-     * Gets the derivative of this transform at a point. The default implementation throws
-     * an exception in all cases.
+     * Gets the derivative of this transform at a point. If the wrapped netCDF projection is
+     * {@link LatLonProjection}, {@link Mercator} or {@link TransverseMercator}, then this method
+     * computes the derivative analytically. For the inverse of those projections, the derivative
+     * is the inverse of the forward derivative computed at the projected point.
+     * For all other projections, this method approximates the derivative by central finite
+     * differences computed from four points transformed in a single batch.
      *
      * @param  point  the coordinate point where to evaluate the derivative.
      * @return the derivative at the specified point (never {@code null}).
@@ -566,7 +590,93 @@ public class NetcdfProjection extends NetcdfIdentifiedObject
      */
     @Override
     public Matrix derivative(final Point2D point) throws TransformException {
-        throw new TransformException();
+        final double x = point.getX();
+        final double y = point.getY();
+        if (projection instanceof LatLonProjection || projection instanceof Mercator
+                || projection instanceof TransverseMercator)
+        {
+            if (!isInverse) {
+                return analyticDerivative(x, y);
+            }
+            final LatLonPoint pt = projection.projToLatLon(new ProjectionPointImpl(x, y), new LatLonPointImpl());
+            final SimpleMatrix matrix = analyticDerivative(pt.getLongitude(), pt.getLatitude());
+            try {
+                matrix.invert();
+            } catch (SingularMatrixException e) {
+                throw new TransformException("Derivative is not invertible at the given point.", e);
+            }
+            return matrix;
+        }
+        return finiteDifference(x, y);
+    }
+
+    /**
+     * Computes the derivative of the forward projection at the given geographic coordinates.
+     * Caller must ensure that the netCDF projection is one of the types supported by this method.
+     * Formulas are the ones of the spherical projections implemented by netCDF, with angles in
+     * degrees and projected coordinates in the units of the netCDF projection.
+     *
+     * @param  λ  the longitude in degrees.
+     * @param  φ  the latitude in degrees.
+     * @return the derivative of the forward projection at the given point.
+     */
+    private SimpleMatrix analyticDerivative(final double λ, final double φ) {
+        final SimpleMatrix matrix = new SimpleMatrix(2);
+        if (projection instanceof Mercator) {
+            final Mercator p = (Mercator) projection;
+            final double A = p.getEarthRadius() * Math.cos(Math.toRadians(p.getParallel())) * (Math.PI / 180);
+            matrix.setElement(0, 0, A);
+            matrix.setElement(1, 1, A / Math.cos(Math.toRadians(φ)));
+        } else if (projection instanceof TransverseMercator) {
+            /*
+             * x = k₀⋅R⋅atanh(B)  where B = cos(φ)⋅sin(Δλ)
+             * y = k₀⋅R⋅(atan2(tan(φ), cos(Δλ)) - φ₀)
+             */
+            final TransverseMercator p = (TransverseMercator) projection;
+            final double scale = p.getEarthRadius() * p.getScale() * (Math.PI / 180);
+            final double φr    = Math.toRadians(φ);
+            final double Δλ    = Math.toRadians(λ - p.getTangentLon());
+            final double cosφ  = Math.cos(φr);
+            final double sinΔλ = Math.sin(Δλ);
+            final double cosΔλ = Math.cos(Δλ);
+            final double tanφ  = Math.tan(φr);
+            final double B     = cosφ * sinΔλ;
+            final double dxdB  = scale / (1 - B*B);
+            final double denom = cosΔλ*cosΔλ + tanφ*tanφ;
+            matrix.setElement(0, 0, dxdB * (cosφ * cosΔλ));
+            matrix.setElement(0, 1, dxdB * (-Math.sin(φr) * sinΔλ));
+            matrix.setElement(1, 0, scale * (tanφ * sinΔλ) / denom);
+            matrix.setElement(1, 1, scale * cosΔλ / (cosφ*cosφ * denom));
+        }
+        // LatLonProjection: only normalizes the longitude range, so the derivative is identity.
+        return matrix;
+    }
+
+    /**
+     * Approximates the derivative at the given point by central finite differences.
+     * The four points needed by this approximation are transformed in a single call
+     * to the array-based {@code transform} method.
+     *
+     * @param  x  first coordinate of the point where to evaluate the derivative.
+     * @param  y  second coordinate of the point where to evaluate the derivative.
+     * @return the approximated derivative at the given point.
+     */
+    private SimpleMatrix finiteDifference(final double x, final double y) {
+        final double Δx = DERIVATIVE_STEP * Math.max(1, Math.abs(x));
+        final double Δy = DERIVATIVE_STEP * Math.max(1, Math.abs(y));
+        final double[] points = {
+            x - Δx, y,
+            x + Δx, y,
+            x, y - Δy,
+            x, y + Δy
+        };
+        transform(points, 0, 2, points, 0, 2, 4);
+        final SimpleMatrix matrix = new SimpleMatrix(2);
+        matrix.setElement(0, 0, (points[2] - points[0]) / (2*Δx));
+        matrix.setElement(1, 0, (points[3] - points[1]) / (2*Δx));
+        matrix.setElement(0, 1, (points[6] - points[4]) / (2*Δy));
+        matrix.setElement(1, 1, (points[7] - points[5]) / (2*Δy));
+        return matrix;
     }
 
     /**
@@ -0,0 +1,415 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import java.util.Map;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.io.IOException;
+
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.Section;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.Group;
+import ucar.nc2.Variable;
+import ucar.nc2.constants.CDM;
+
+
+/**
+ * A cache of netCDF variable values, read and retained one tile at a time.
+ * Tiles are identified by the dataset location, the variable name and the tile origin.
+ * When the variable declares a {@value CDM#CHUNK_SIZES} attribute (as HDF5-based files do),
+ * tiles are aligned on the chunks of the file, so each chunk is decompressed at most once
+ * for as long as it stays in the cache.
+ *
+ * <p>Tile values are stored as primitive Java arrays. The total amount of memory used by those arrays
+ * is bounded by the capacity given at construction time; when this capacity is exceeded, the least
+ * recently used tiles are discarded. A single {@code TileCache} instance can be shared by many threads.
+ * If many threads request the same tile at the same time, only one of them reads the tile from the file
+ * while the other threads wait for the result.</p>
+ *
+ * <p>Since {@link ucar.nc2.NetcdfFile} is not thread-safe, tiles of the same file are read one at a time
+ * (synchronized on the root {@link Group} of the file) while tiles of different files can be read concurrently.
+ * Callers that read the same file outside this cache while the cache is in use shall synchronize on the same
+ * lock, or use a separate {@code NetcdfFile} instance.</p>
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public class TileCache {
+    /**
+     * Tile size along the two last dimensions when a variable does not declare its chunk sizes.
+     * Tile size along all other dimensions is 1.
+     */
+    private static final int DEFAULT_TILE_SIZE = 256;
+
+    /**
+     * Key of a tile in the cache. Two keys are equal if they are for the same
+     * variable in the same dataset and have the same tile origin.
+     */
+    private static final class Key {
+        /** The dataset location, as given by {@link Variable#getDatasetLocation()}. */
+        private final String dataset;
+
+        /** The variable full name, as given by {@link Variable#getFullName()}. */
+        private final String variable;
+
+        /** Index of the first element of the tile. Shall not be modified. */
+        private final int[] origin;
+
+        /** Creates a new key for the given variable and tile origin. */
+        Key(final Variable variable, final int[] origin) {
+            this.dataset  = variable.getDatasetLocation();
+            this.variable = variable.getFullName();
+            this.origin   = origin;
+        }
+
+        /** Returns a hash code value for this key. */
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(dataset) + 31*variable.hashCode() + Arrays.hashCode(origin);
+        }
+
+        /** Compares this key with the given object for equality. */
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof Key) {
+                final Key other = (Key) obj;
+                return Objects.equals(dataset, other.dataset) && variable.equals(other.variable)
+                        && Arrays.equals(origin, other.origin);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The values of a tile, or a placeholder for a tile being loaded.
+     * The monitor of this object is held by the thread loading the values.
+     */
+    private static final class Entry {
+        /** The tile values as a primitive array, or {@code null} if not yet loaded. Guarded by this entry. */
+        Object values;
+
+        /** Amount of bytes used by {@link #values}, or 0 if not yet loaded. Guarded by {@link TileCache#tiles}. */
+        long size;
+    }
+
+    /**
+     * All tiles in the cache, in access order (least recently used first).
+     * All accesses to this map must be synchronized on the map.
+     */
+    private final LinkedHashMap<Key,Entry> tiles;
+
+    /**
+     * Maximal amount of bytes to retain in the cache.
+     */
+    private final long capacity;
+
+    /**
+     * Amount of bytes currently retained in the cache.
+     * Read and written while holding the lock on {@link #tiles}.
+     */
+    private long usage;
+
+    /**
+     * Creates a new cache with the given capacity.
+     *
+     * @param  capacity  maximal amount of bytes to retain in the cache.
+     */
+    public TileCache(final long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity shall be strictly positive.");
+        }
+        this.capacity = capacity;
+        tiles = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the maximal amount of bytes retained in this cache.
+     *
+     * @return maximal amount of bytes retained in this cache.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the amount of bytes currently retained in this cache.
+     *
+     * @return amount of bytes currently retained in this cache.
+     */
+    public long getUsage() {
+        synchronized (tiles) {
+            return usage;
+        }
+    }
+
+    /**
+     * Removes all tiles from this cache.
+     */
+    public void clear() {
+        synchronized (tiles) {
+            final Iterator<Entry> it = tiles.values().iterator();
+            while (it.hasNext()) {
+                final Entry entry = it.next();
+                if (entry.size != 0) {
+                    usage -= entry.size;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the size of tiles for the given variable. If the variable declares a {@value CDM#CHUNK_SIZES}
+     * attribute, then that attribute value is returned. Otherwise this method returns tiles of 256×256 cells
+     * in the two last dimensions, and 1 cell in all other dimensions.
+     *
+     * @param  variable  the variable for which to get the tile size.
+     * @return the tile size in each dimension of the given variable.
+     */
+    public int[] getTileShape(final Variable variable) {
+        final int[] shape = variable.getShape();
+        final int[] tile = new int[shape.length];
+        final Attribute chunks = variable.findAttribute(CDM.CHUNK_SIZES);
+        if (chunks != null && chunks.getLength() == tile.length) {
+            for (int i=0; i<tile.length; i++) {
+                final Number n = chunks.getNumericValue(i);
+                tile[i] = (n != null) ? Math.max(1, n.intValue()) : 1;
+            }
+        } else {
+            Arrays.fill(tile, 1);
+            for (int i = Math.max(0, tile.length - 2); i < tile.length; i++) {
+                tile[i] = DEFAULT_TILE_SIZE;
+            }
+        }
+        for (int i=0; i<tile.length; i++) {
+            tile[i] = Math.max(1, Math.min(tile[i], shape[i]));
+        }
+        return tile;
+    }
+
+    /**
+     * Reads a region of the given variable, using cached tiles when available.
+     * This method is equivalent to {@link Variable#read(int[], int[])} except that tiles
+     * read from the file are retained in this cache for future invocations.
+     * The returned array is a copy and can be modified freely.
+     *
+     * @param  variable  the variable to read. Shall contain primitive values.
+     * @param  origin    index of the first element to read in each dimension.
+     * @param  shape     number of elements to read in each dimension.
+     * @return the values in the requested region.
+     * @throws InvalidRangeException if the given origin or shape is invalid for the variable.
+     * @throws IOException if an error occurred while reading a tile.
+     * @throws IllegalArgumentException if the variable does not contain primitive values.
+     */
+    public Array read(final Variable variable, final int[] origin, final int[] shape)
+            throws IOException, InvalidRangeException
+    {
+        final int[] bounds = variable.getShape();
+        final int rank = bounds.length;
+        if (origin.length != rank || shape.length != rank) {
+            throw new InvalidRangeException("Expected " + rank + " dimensions.");
+        }
+        int length = 1;
+        for (int i=0; i<rank; i++) {
+            if (origin[i] < 0 || shape[i] < 0 || origin[i] + shape[i] > bounds[i]) {
+                throw new InvalidRangeException("Dimension " + i + " is out of bounds.");
+            }
+            length = Math.multiplyExact(length, shape[i]);
+        }
+        final DataType dataType = variable.getDataType();
+        final int[] tileShape   = getTileShape(variable);
+        final int[] tileIndex   = new int[rank];
+        final int[] tileUpper   = new int[rank];
+        for (int i=0; i<rank; i++) {
+            tileIndex[i] = origin[i] / tileShape[i];
+            tileUpper[i] = (origin[i] + shape[i] - 1) / tileShape[i];
+        }
+        Object result = null;
+        if (length != 0) do {
+            /*
+             * Get the tile at current index, then copy the part which intersects the requested region.
+             * The tile shape is clipped to the variable bounds, so the last tile may be smaller.
+             */
+            final int[] tileOrigin = new int[rank];
+            final int[] actualShape = new int[rank];
+            for (int i=0; i<rank; i++) {
+                tileOrigin[i]  = tileIndex[i] * tileShape[i];
+                actualShape[i] = Math.min(tileShape[i], bounds[i] - tileOrigin[i]);
+            }
+            final Object tile = getTile(variable, tileOrigin, actualShape, dataType);
+            if (result == null) {
+                result = java.lang.reflect.Array.newInstance(tile.getClass().getComponentType(), length);
+            }
+            copy(tile, tileOrigin, actualShape, result, origin, shape);
+            /*
+             * Move to the next tile, with the last dimension varying fastest.
+             */
+            int i = rank;
+            while (--i >= 0) {
+                if (++tileIndex[i] <= tileUpper[i]) break;
+                tileIndex[i] = origin[i] / tileShape[i];
+            }
+            if (i < 0) break;
+        } while (true);
+        if (result == null) {
+            return Array.factory(dataType, shape);
+        }
+        return Array.factory(dataType, shape, result);
+    }
+
+    /**
+     * Copies the intersection of a tile with the requested region. Both arrays are in row-major order.
+     *
+     * @param tile         the tile values.
+     * @param tileOrigin   index of the first tile element in the variable.
+     * @param tileShape    number of tile elements in each dimension.
+     * @param result       the array where to copy the values.
+     * @param origin       index of the first requested element in the variable.
+     * @param shape        number of requested elements in each dimension.
+     */
+    private static void copy(final Object tile, final int[] tileOrigin, final int[] tileShape,
+                             final Object result, final int[] origin, final int[] shape)
+    {
+        final int rank = shape.length;
+        if (rank == 0) {
+            System.arraycopy(tile, 0, result, 0, 1);
+            return;
+        }
+        final int[] lower = new int[rank];
+        final int[] upper = new int[rank];
+        for (int i=0; i<rank; i++) {
+            lower[i] = Math.max(origin[i], tileOrigin[i]);
+            upper[i] = Math.min(origin[i] + shape[i], tileOrigin[i] + tileShape[i]);
+        }
+        final int last = rank - 1;
+        final int run  = upper[last] - lower[last];
+        final int[] index = lower.clone();
+        do {
+            int srcPos = 0, dstPos = 0;
+            for (int i=0; i<rank; i++) {
+                srcPos = srcPos * tileShape[i] + (index[i] - tileOrigin[i]);
+                dstPos = dstPos * shape[i]     + (index[i] - origin[i]);
+            }
+            System.arraycopy(tile, srcPos, result, dstPos, run);
+            int i = last;
+            while (--i >= 0) {
+                if (++index[i] < upper[i]) break;
+                index[i] = lower[i];
+            }
+            if (i < 0) break;
+        } while (true);
+    }
+
+    /**
+     * Returns the lock to hold while reading the given variable. This is the root group of the file,
+     * which is unique for each {@link ucar.nc2.NetcdfFile} instance. Reads are serialized on that lock
+     * because {@code NetcdfFile} does not support concurrent reads.
+     *
+     * @param  variable  the variable to read.
+     * @return the lock for the file of the given variable.
+     */
+    private static Object fileLock(final Variable variable) {
+        Group group = variable.getParentGroup();
+        if (group == null) {
+            return variable;
+        }
+        Group parent;
+        while ((parent = group.getParentGroup()) != null) {
+            group = parent;
+        }
+        return group;
+    }
+
+    /**
+     * Returns the values of the tile at the given origin, reading it from the file if needed.
+     * If another thread is already reading the same tile, this method waits for that thread
+     * to complete its work instead of reading the tile twice.
+     *
+     * @param  variable  the variable for which to get a tile.
+     * @param  origin    index of the first element of the tile. Shall not be modified after this call.
+     * @param  shape     number of elements in the tile for each dimension.
+     * @param  dataType  the variable data type.
+     * @return the tile values as a primitive array. Shall not be modified.
+     */
+    private Object getTile(final Variable variable, final int[] origin, final int[] shape, final DataType dataType)
+            throws IOException, InvalidRangeException
+    {
+        final Key key = new Key(variable, origin);
+        Entry entry;
+        synchronized (tiles) {
+            entry = tiles.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                tiles.put(key, entry);
+            }
+        }
+        synchronized (entry) {
+            if (entry.values == null) {
+                final Object values;
+                boolean success = false;
+                try {
+                    synchronized (fileLock(variable)) {
+                        values = variable.read(new Section(origin, shape)).copyTo1DJavaArray();
+                    }
+                    if (!values.getClass().getComponentType().isPrimitive()) {
+                        throw new IllegalArgumentException("Variable \"" + variable.getFullName()
+                                + "\" does not contain primitive values.");
+                    }
+                    success = true;
+                } finally {
+                    if (!success) {
+                        synchronized (tiles) {
+                            tiles.remove(key, entry);
+                        }
+                    }
+                }
+                entry.values = values;
+                synchronized (tiles) {
+                    /*
+                     * If the entry has been removed by a failed attempt to read the same tile in
+                     * another thread, return the values without caching them for avoiding leaks.
+                     */
+                    if (tiles.get(key) == entry) {
+                        entry.size = (long) java.lang.reflect.Array.getLength(values) * dataType.getSize();
+                        usage += entry.size;
+                        evict();
+                    }
+                }
+            }
+            return entry.values;
+        }
+    }
+
+    /**
+     * Discards the least recently used tiles until the usage is not greater than the capacity.
+     * Tiles that are still loading are skipped. Caller must hold the lock on {@link #tiles}.
+     */
+    private void evict() {
+        final Iterator<Map.Entry<Key,Entry>> it = tiles.entrySet().iterator();
+        while (usage > capacity && it.hasNext()) {
+            final Entry entry = it.next().getValue();
+            if (entry.size != 0) {
+                usage -= entry.size;
+                it.remove();
+            }
+        }
+    }
+}
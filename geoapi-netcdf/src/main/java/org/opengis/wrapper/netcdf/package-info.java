@@ -26,6 +26,7 @@
  *       <li>Coordinate Operations as wrappers around the netCDF {@link ucar.unidata.geoloc.Projection} object.</li>
  *     </ul>
  *   </li>
+ *   <li>Data access services, as a {@link org.opengis.wrapper.netcdf.TileCache} of {@link ucar.nc2.Variable} values.</li>
  * </ul>
  *
  * Home page: <a href="http://www.geoapi.org/java/examples/netcdf/index.html">GeoAPI-netCDF bindings</a>.
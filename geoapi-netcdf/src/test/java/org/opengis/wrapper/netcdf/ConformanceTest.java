@@ -69,8 +69,7 @@ public class ConformanceTest extends TestSuite implements ImplementationDetails
             configuration = new Configuration();
             configuration.unsupported(
                     Configuration.Key.isStandardNameSupported,
-                    Configuration.Key.isStandardAliasSupported,
-                    Configuration.Key.isDerivativeSupported);
+                    Configuration.Key.isStandardAliasSupported);
             /*
              * Our objects are not yet strictly ISO compliant, so be lenient...
              */
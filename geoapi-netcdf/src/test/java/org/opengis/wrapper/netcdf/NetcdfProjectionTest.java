@@ -14,13 +14,19 @@
 package org.opengis.wrapper.netcdf;
 
 import java.util.Random;
+import java.util.EnumSet;
 import ucar.unidata.geoloc.Projection;
 import ucar.unidata.geoloc.projection.Mercator;
+import ucar.unidata.geoloc.projection.LambertConformal;
+import ucar.unidata.geoloc.projection.TransverseMercator;
 
 import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.SingleOperation;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.test.referencing.TransformTestCase;
+import org.opengis.test.ToleranceModifiers;
+import org.opengis.test.CalculationType;
 
 import org.junit.Test;
 
@@ -52,13 +58,14 @@ public strictfp class NetcdfProjectionTest extends TransformTestCase {
 
     /**
      * Creates a new test case initialized with a default {@linkplain #tolerance tolerance}
-     * threshold. The '{@linkplain #isDerivativeSupported is derivative supported}' flag is
-     * set to {@code false} since the netCDF library does not implement projection derivatives.
+     * threshold and {@linkplain #derivativeDeltas derivative deltas} of 0.001°. The tolerance is
+     * relaxed for derivatives, since their values are in the order of 100 kilometres per degree.
      */
     public NetcdfProjectionTest() {
         super(NetcdfTransformFactoryTest.getDefaultFactory());
         tolerance = 1E-10;
-        isDerivativeSupported = false;
+        toleranceModifier = ToleranceModifiers.scale(EnumSet.of(CalculationType.TRANSFORM_DERIVATIVE), 1E+4, 1E+4);
+        derivativeDeltas = new double[] {1E-3};
         /*
          * Our objects are not yet strictly ISO compliant, so be lenient...
          */
@@ -69,12 +76,39 @@ public strictfp class NetcdfProjectionTest extends TransformTestCase {
      * Initializes the {@link #operation} and {@link #transform} fields to the Mercator projection.
      */
     private void createMercatorProjection() {
-        final Mercator projection = new Mercator();
+        initialize(new Mercator());
+    }
+
+    /**
+     * Initializes the {@link #operation} and {@link #transform} fields to the given projection.
+     */
+    private void initialize(final Projection projection) {
         operation = wrap(projection);
         transform = operation.getMathTransform();
         validators.validate(operation);
     }
 
+    /**
+     * Verifies the derivative of the current transform and of its inverse at the given points.
+     *
+     * @param  points  (<var>longitude</var>, <var>latitude</var>) tuples in degrees.
+     * @throws TransformException if a point can not be transformed.
+     */
+    private void verifyDerivatives(final double... points) throws TransformException {
+        final MathTransform forward = transform;
+        for (int i=0; i<points.length; i += 2) {
+            final double[] point = {points[i], points[i+1]};
+            transform = forward;
+            derivativeDeltas = new double[] {1E-3};
+            verifyDerivative(point);
+            forward.transform(point, 0, point, 0, 1);
+            transform = forward.inverse();
+            derivativeDeltas = new double[] {1E-2};
+            verifyDerivative(point);
+        }
+        transform = forward;
+    }
+
     /**
      * Wraps the given netCDF projection into a GeoAPI operation object. The default implementation
      * creates a {@link NetcdfProjection} instance. Subclasses can override this method for creating
@@ -103,6 +137,40 @@ public strictfp class NetcdfProjectionTest extends TransformTestCase {
                        new Random(216919106));
     }
 
+    /**
+     * Tests the analytic derivatives of the Mercator projection.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testMercatorDerivative() throws TransformException {
+        initialize(new Mercator(-20, 30));
+        verifyDerivatives(-20, 0, 10, 45, -150, -70, 179, 80);
+    }
+
+    /**
+     * Tests the analytic derivatives of the Transverse Mercator projection.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testTransverseMercatorDerivative() throws TransformException {
+        initialize(new TransverseMercator(10, -3, 0.9996));
+        verifyDerivatives(-3, 10, 0, 45, -8, -30, 2, 70);
+    }
+
+    /**
+     * Tests the derivatives approximated by finite differences for a projection
+     * which has no analytic derivative.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testFiniteDifferenceDerivative() throws TransformException {
+        initialize(new LambertConformal(40, -100, 30, 60));
+        verifyDerivatives(-100, 40, -90, 50, -120, 35);
+    }
+
     /**
      * Tests projection name and classname.
      */
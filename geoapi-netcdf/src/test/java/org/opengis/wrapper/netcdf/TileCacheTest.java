@@ -0,0 +1,121 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The netCDF wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package org.opengis.wrapper.netcdf;
+
+import java.io.IOException;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import org.opengis.test.dataset.TestData;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link TileCache} class. This test uses tiles much smaller than the default size
+ * in order to force the cache to assemble the requested regions from many tiles.
+ *
+ * @author  agent
+ * @version 4.0
+ * @since   4.0
+ */
+public final strictfp class TileCacheTest extends IOTestCase {
+    /**
+     * A cache using tiles of 10×7 cells.
+     */
+    private static final class SmallTiles extends TileCache {
+        SmallTiles(final long capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public int[] getTileShape(final Variable variable) {
+            final int[] tile = super.getTileShape(variable);
+            tile[0] = Math.min(tile[0], 10);
+            tile[1] = Math.min(tile[1],  7);
+            return tile;
+        }
+    }
+
+    /**
+     * Returns the first two-dimensional variable found in the given file.
+     */
+    private static Variable find2D(final NetcdfFile file) {
+        for (final Variable variable : file.getVariables()) {
+            if (variable.getRank() == 2) {
+                return variable;
+            }
+        }
+        throw new AssertionError("No two-dimensional variable found.");
+    }
+
+    /**
+     * Compares the values read through the cache with the values read directly from the file.
+     */
+    private static void assertSameValues(final Variable variable, final TileCache cache,
+            final int[] origin, final int[] shape) throws IOException, InvalidRangeException
+    {
+        final Array expected = variable.read(origin, shape);
+        final Array actual   = cache.read(variable, origin, shape);
+        assertArrayEquals("shape", expected.getShape(), actual.getShape());
+        assertEquals("size", expected.getSize(), actual.getSize());
+        for (int i=0; i<expected.getSize(); i++) {
+            assertEquals(expected.getDouble(i), actual.getDouble(i), 0);
+        }
+    }
+
+    /**
+     * Tests reading regions overlapping many tiles, including the last incomplete tiles.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws InvalidRangeException if a requested region is invalid.
+     */
+    @Test
+    public void testRead() throws IOException, InvalidRangeException {
+        try (NetcdfFile file = open(TestData.NETCDF_2D_GEOGRAPHIC)) {
+            final Variable variable = find2D(file);
+            final int[] bounds = variable.getShape();
+            final TileCache cache = new SmallTiles(Long.MAX_VALUE);
+            assertSameValues(variable, cache, new int[] {3, 5}, new int[] {24, 17});
+            final long usage = cache.getUsage();
+            assertTrue(usage > 0);
+            assertSameValues(variable, cache, new int[] {4, 6}, new int[] {20, 10});
+            assertEquals("Tiles shall be reused.", usage, cache.getUsage());
+            assertSameValues(variable, cache, new int[] {0, 0}, bounds);
+            assertSameValues(variable, cache, new int[] {bounds[0] - 1, bounds[1] - 1}, new int[] {1, 1});
+        }
+    }
+
+    /**
+     * Tests eviction of least recently used tiles when the capacity is exceeded.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws InvalidRangeException if a requested region is invalid.
+     */
+    @Test
+    public void testEviction() throws IOException, InvalidRangeException {
+        try (NetcdfFile file = open(TestData.NETCDF_2D_GEOGRAPHIC)) {
+            final Variable variable = find2D(file);
+            final long capacity = 4 * 10*7 * variable.getElementSize();
+            final TileCache cache = new SmallTiles(capacity);
+            assertSameValues(variable, cache, new int[] {0, 0}, variable.getShape());
+            assertTrue(cache.getUsage() <= capacity);
+            cache.clear();
+            assertEquals(0, cache.getUsage());
+        }
+    }
+}